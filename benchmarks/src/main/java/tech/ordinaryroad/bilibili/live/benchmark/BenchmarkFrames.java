@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * 基准测试用的WebSocket帧，内容参考线上抓包
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BenchmarkFrames {
+
+    public static final String DANMU_MSG = "{\"cmd\":\"DANMU_MSG\",\"dm_v2\":\"\",\"info\":[[0,1,25,16777215,1697600000123,1697600000,0,\"c8a5e2b1\",0,0,0,\"\",0,\"{}\",\"{}\","
+            + "{\"mode\":0,\"show_player_type\":0,\"extra\":\"{\\\"send_from_me\\\":false,\\\"mode\\\":0,\\\"color\\\":16777215,\\\"dm_type\\\":0,\\\"font_size\\\":25,\\\"player_mode\\\":1,\\\"show_player_type\\\":0,\\\"content\\\":\\\"主播好厉害\\\",\\\"user_hash\\\":\\\"3366551474\\\",\\\"emoticon_unique\\\":\\\"\\\",\\\"bulge_display\\\":0,\\\"recommend_score\\\":3,\\\"main_state_dm_color\\\":\\\"\\\",\\\"objective_state_dm_color\\\":\\\"\\\",\\\"direction\\\":0,\\\"pk_direction\\\":0,\\\"quartet_direction\\\":0,\\\"anniversary_crowd\\\":0,\\\"yeah_space_type\\\":\\\"\\\",\\\"yeah_space_url\\\":\\\"\\\",\\\"jump_to_url\\\":\\\"\\\",\\\"space_type\\\":\\\"\\\",\\\"space_url\\\":\\\"\\\",\\\"animation\\\":{},\\\"emots\\\":null,\\\"is_audited\\\":false,\\\"id_str\\\":\\\"f0d3c1a3\\\",\\\"icon\\\":null}\"},"
+            + "{\"activity_identity\":\"\",\"activity_source\":0,\"not_show\":0},0],\"主播好厉害\",[10086,\"用户A\",0,0,0,10000,1,\"\"],"
+            + "[21,\"粉丝牌\",\"主播\",7777,398668,\"\",0,398668,398668,6067854,0,1,12345],[31,0,9868950,\">50000\",0],[\"\",\"\"],0,0,null,"
+            + "{\"ts\":1697600000,\"ct\":\"7B3E2C1A\"},0,0,null,null,0,105,[6]]}";
+
+    public static final String SEND_GIFT = "{\"cmd\":\"SEND_GIFT\",\"data\":{\"action\":\"投喂\",\"batch_combo_id\":\"batch:gift:combo_id:10086:7777:31036:1697600001.1234\","
+            + "\"batch_combo_send\":null,\"beatId\":\"\",\"biz_source\":\"Live\",\"blind_gift\":null,\"broadcast_id\":0,\"coin_type\":\"gold\",\"combo_resources_id\":1,"
+            + "\"combo_send\":null,\"combo_stay_time\":5,\"combo_total_coin\":300,\"crit_prob\":0,\"demarcation\":1,\"discount_price\":100,\"dmscore\":56,\"draw\":0,"
+            + "\"effect\":0,\"effect_block\":0,\"face\":\"https://i0.hdslb.com/bfs/face/member/noface.jpg\",\"face_effect_id\":0,\"face_effect_type\":0,"
+            + "\"float_sc_resource_id\":0,\"giftId\":31036,\"giftName\":\"小花花\",\"giftType\":0,\"gold\":0,\"guard_level\":0,\"is_first\":true,"
+            + "\"is_join_receiver\":false,\"is_naming\":false,\"is_special_batch\":0,\"magnification\":1,"
+            + "\"medal_info\":{\"anchor_roomid\":0,\"anchor_uname\":\"\",\"guard_level\":0,\"icon_id\":0,\"is_lighted\":1,\"medal_color\":398668,"
+            + "\"medal_color_border\":398668,\"medal_color_end\":398668,\"medal_color_start\":398668,\"medal_level\":21,\"medal_name\":\"粉丝牌\",\"special\":\"\",\"target_id\":12345},"
+            + "\"name_color\":\"\",\"num\":3,\"original_gift_name\":\"\",\"price\":100,\"rcost\":200,\"receive_user_info\":{\"uid\":12345,\"uname\":\"主播\"},"
+            + "\"remain\":0,\"rnd\":\"1697600001123400001\",\"send_master\":null,\"silver\":0,\"super\":0,\"super_batch_gift_num\":3,\"super_gift_num\":3,"
+            + "\"svga_block\":0,\"switch\":true,\"tag_image\":\"\",\"tid\":\"1697600001123400001\",\"timestamp\":1697600001,\"top_list\":null,\"total_coin\":300,"
+            + "\"uid\":10086,\"uname\":\"用户A\"}}";
+
+    public static final String INTERACT_WORD = "{\"cmd\":\"INTERACT_WORD\",\"data\":{\"contribution\":{\"grade\":0},\"core_user_type\":0,\"dmscore\":12,"
+            + "\"fans_medal\":{\"anchor_roomid\":0,\"guard_level\":0,\"icon_id\":0,\"is_lighted\":0,\"medal_color\":0,\"medal_color_border\":0,"
+            + "\"medal_color_end\":0,\"medal_color_start\":0,\"medal_level\":0,\"medal_name\":\"\",\"score\":0,\"special\":\"\",\"target_id\":0},"
+            + "\"identities\":[1],\"is_spread\":0,\"msg_type\":1,\"privilege_type\":0,\"roomid\":7777,\"score\":1697600002000,\"spread_desc\":\"\","
+            + "\"spread_info\":\"\",\"tail_icon\":0,\"timestamp\":1697600002,\"trigger_time\":1697600002000000000,\"uid\":10087,\"uname\":\"用户B\",\"uname_color\":\"\"}}";
+
+    public static final String ONLINE_RANK_COUNT = "{\"cmd\":\"ONLINE_RANK_COUNT\",\"data\":{\"count\":1234,\"count_text\":\"1234\",\"online_count\":5678,\"online_count_text\":\"5678\"}}";
+
+    public static final String WATCHED_CHANGE = "{\"cmd\":\"WATCHED_CHANGE\",\"data\":{\"num\":98765,\"text_small\":\"9.8万\",\"text_large\":\"9.8万人看过\"}}";
+
+    private BenchmarkFrames() {
+    }
+
+    /**
+     * 热门直播间一帧中常见的cmd比例：弹幕10、礼物2、进入直播间8、高能榜5、看过人数5
+     */
+    public static List<String> realisticMix() {
+        List<String> list = new ArrayList<>(30);
+        list.addAll(Collections.nCopies(10, DANMU_MSG));
+        list.addAll(Collections.nCopies(2, SEND_GIFT));
+        list.addAll(Collections.nCopies(8, INTERACT_WORD));
+        list.addAll(Collections.nCopies(5, ONLINE_RANK_COUNT));
+        list.addAll(Collections.nCopies(5, WATCHED_CHANGE));
+        Collections.shuffle(list, new Random(7777));
+        return list;
+    }
+
+    /**
+     * 创建一个WebSocket帧，压缩协议会把所有消息压缩到同一个数据包中
+     */
+    public static ByteBuf createFrame(ProtoverEnum protover, List<String> bodies) {
+        ByteBuf packets = Unpooled.buffer();
+        ProtoverEnum innerProtover = switch (protover) {
+            case NORMAL_ZLIB, NORMAL_BROTLI -> ProtoverEnum.NORMAL_NO_COMPRESSION;
+            default -> protover;
+        };
+        for (String body : bodies) {
+            packets.writeBytes(BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, innerProtover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, body.getBytes(StandardCharsets.UTF_8)));
+        }
+        byte[] bytes = ByteBufUtil.getBytes(packets);
+        return switch (protover) {
+            case NORMAL_ZLIB -> Unpooled.unreleasableBuffer(BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, protover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, deflate(bytes)));
+            case NORMAL_BROTLI -> Unpooled.unreleasableBuffer(BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, protover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, brotli(bytes)));
+            default -> Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(bytes));
+        };
+    }
+
+    /**
+     * 重复n次
+     */
+    public static List<String> repeat(List<String> bodies, int n) {
+        List<String> list = new ArrayList<>(bodies.size() * n);
+        for (int i = 0; i < n; i++) {
+            list.addAll(bodies);
+        }
+        return list;
+    }
+
+    static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            outputStream.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return outputStream.toByteArray();
+    }
+
+    static byte[] brotli(byte[] bytes) {
+        Brotli4jLoader.ensureAvailability();
+        try {
+            return Encoder.compress(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
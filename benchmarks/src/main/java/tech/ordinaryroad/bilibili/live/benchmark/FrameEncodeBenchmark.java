@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.frame.factory.BilibiliWebSocketFrameFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证包、心跳包的编码
+ * <p>
+ * 运行：java -jar target/benchmarks.jar FrameEncodeBenchmark -prof gc
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameEncodeBenchmark {
+
+    @Param({"NORMAL_ZLIB", "NORMAL_BROTLI"})
+    public ProtoverEnum protover;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private final BilibiliWebSocketFrameFactory frameFactory = BilibiliWebSocketFrameFactory.getInstance(7777);
+    private final String cookie = "buvid3=2C4D5E6F-7A8B-9C0D-1E2F-3A4B5C6D7E8F00000infoc; DedeUserID=10086; bili_jct=0123456789abcdef0123456789abcdef";
+
+    @Benchmark
+    public int createAuth() {
+        BinaryWebSocketFrame frame = frameFactory.createAuth(protover, cookie);
+        int bytes = frame.content().readableBytes();
+        frame.release();
+        return bytes;
+    }
+
+    @Benchmark
+    public int createHeartbeat() {
+        BinaryWebSocketFrame frame = BilibiliPacketUtil.createHeartbeat(allocator);
+        int bytes = frame.content().readableBytes();
+        frame.release();
+        return bytes;
+    }
+
+    @Benchmark
+    public int sharedHeartbeat() {
+        BinaryWebSocketFrame frame = BilibiliPacketUtil.heartbeatFrame();
+        int bytes = frame.content().readableBytes();
+        frame.release();
+        return bytes;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.InteractWordMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.BilibiliCmdEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseCmdMsg;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseMsg;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的帧处理：拆包、解压、解析、回调，通过EmbeddedChannel驱动，每帧包含30条按线上比例混合的消息
+ * <p>
+ * 运行：java -jar target/benchmarks.jar FrameHandlerBenchmark -prof gc，
+ * SampleTime模式输出p50、p99等每帧耗时分位数，gc.alloc.rate.norm为每帧分配的字节数
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameHandlerBenchmark {
+
+    @Param({"NORMAL_NO_COMPRESSION", "HEARTBEAT_AUTH_NO_COMPRESSION", "NORMAL_ZLIB", "NORMAL_BROTLI"})
+    public ProtoverEnum protover;
+
+    /**
+     * library：依赖库中的BilibiliBinaryFrameHandler，作为对照；
+     * room：BilibiliRoomBinaryFrameHandler，回调完整的SendSmsReplyMsg；
+     * typed：BilibiliRoomBinaryFrameHandler，热点cmd流式解析为扁平对象
+     */
+    @Param({"library", "room", "typed"})
+    public String handler;
+
+    private ByteBuf frame;
+    private EmbeddedChannel channel;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        frame = BenchmarkFrames.createFrame(protover, BenchmarkFrames.realisticMix());
+        channel = new EmbeddedChannel(switch (handler) {
+            case "library" -> new BilibiliBinaryFrameHandler(new ConsumingListener(blackhole), 7777);
+            case "room" -> new BilibiliRoomBinaryFrameHandler(new ConsumingListener(blackhole), 7777);
+            case "typed" -> new BilibiliRoomBinaryFrameHandler(new ConsumingTypedListener(blackhole), 7777);
+            default -> throw new IllegalArgumentException(handler);
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void handle() {
+        // frame不可释放，每次使用duplicate重置读索引
+        channel.writeInbound(new BinaryWebSocketFrame(frame.duplicate()));
+    }
+
+    static class ConsumingListener implements IBilibiliSendSmsReplyMsgListener {
+        final Blackhole blackhole;
+
+        ConsumingListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onDanmuMsg(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            blackhole.consume(msg);
+        }
+
+        @Override
+        public void onSendGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            blackhole.consume(msg);
+        }
+
+        @Override
+        public void onEnterRoom(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            blackhole.consume(msg);
+        }
+
+        @Override
+        public void onWatchedChange(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            blackhole.consume(msg);
+        }
+
+        @Override
+        public void onOtherCmdMsg(BilibiliCmdEnum cmd, BaseCmdMsg<BilibiliCmdEnum> cmdMsg) {
+            blackhole.consume(cmdMsg);
+        }
+
+        @Override
+        public void onUnknownCmd(String cmdString, BaseMsg msg) {
+            blackhole.consume(msg);
+        }
+    }
+
+    static class ConsumingTypedListener extends ConsumingListener implements IBilibiliTypedMsgListener {
+
+        ConsumingTypedListener(Blackhole blackhole) {
+            super(blackhole);
+        }
+
+        @Override
+        public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+            blackhole.consume(msg);
+        }
+
+        @Override
+        public void onGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendGiftMsg msg) {
+            blackhole.consume(msg);
+        }
+
+        @Override
+        public void onInteractWord(BilibiliBinaryFrameHandler binaryFrameHandler, InteractWordMsg msg) {
+            blackhole.consume(msg);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.ordinaryroad.bilibili.live.keyword.BilibiliKeywordMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 弹幕关键词匹配，逐个String#contains、Pattern#find与BilibiliKeywordMatcher对比，每次匹配一条弹幕
+ * <p>
+ * 关键词为随机生成的2~4个常用汉字或ASCII单词，正则为关键词之间允许间隔、字符类等常见写法，约1%的弹幕包含关键词
+ * <p>
+ * 运行：java -jar target/benchmarks.jar KeywordMatchBenchmark
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordMatchBenchmark {
+
+    @Param({"1000", "20000"})
+    public int keywordCount;
+
+    /**
+     * 正则数
+     */
+    @Param({"0", "200"})
+    public int regexCount;
+
+    private List<String> keywords;
+    private List<Pattern> patterns;
+    private BilibiliKeywordMatcher matcher;
+    private String[] texts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        keywords = new ArrayList<>(keywordCount);
+        for (int i = 0; i < keywordCount; i++) {
+            keywords.add(random.nextInt(10) == 0 ? randomWord(random, 3 + random.nextInt(3)) : randomHan(random, 2 + random.nextInt(3)));
+        }
+        List<String> regexes = new ArrayList<>(regexCount);
+        for (int i = 0; i < regexCount; i++) {
+            regexes.add(switch (i % 4) {
+                case 0 -> randomHan(random, 1) + ".{0,2}" + randomHan(random, 1);
+                case 1 -> "[" + randomHan(random, 3) + "]" + randomHan(random, 1);
+                case 2 -> randomWord(random, 1) + "\\s*" + randomWord(random, 1) + "\\d{" + (4 + i % 5) + "}";
+                default -> "(?:" + randomHan(random, 2) + "|" + randomWord(random, 3) + ")+" + randomHan(random, 1);
+            });
+        }
+        patterns = regexes.stream().map(regex -> Pattern.compile(regex, Pattern.CASE_INSENSITIVE)).toList();
+        matcher = new BilibiliKeywordMatcher(keywords, regexes);
+
+        texts = new String[1024];
+        for (int i = 0; i < texts.length; i++) {
+            String text = randomHan(random, 4 + random.nextInt(16));
+            if (random.nextInt(100) == 0) {
+                text += keywords.get(random.nextInt(keywords.size()));
+            }
+            texts[i] = random.nextInt(5) == 0 ? text + randomWord(random, 3) + "666" : text;
+        }
+    }
+
+    private int index;
+
+    @Benchmark
+    public void contains(Blackhole blackhole) {
+        String text = texts[index++ & (texts.length - 1)];
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int hits = 0;
+        for (String keyword : keywords) {
+            if (lowerCase.contains(keyword)) {
+                hits++;
+            }
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(text).find()) {
+                hits++;
+            }
+        }
+        blackhole.consume(hits);
+    }
+
+    @Benchmark
+    public void matcher(Blackhole blackhole) {
+        blackhole.consume(matcher.match(texts[index++ & (texts.length - 1)]));
+    }
+
+    /**
+     * 常用汉字区间中的随机字符，字符集较小以便关键词之间有公共前缀
+     */
+    private static String randomHan(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) (0x4E00 + random.nextInt(2000)));
+        }
+        return builder.toString();
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+}
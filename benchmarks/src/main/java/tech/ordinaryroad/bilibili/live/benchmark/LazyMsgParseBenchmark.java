@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMsgParser;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条消息的完整解析与按需解析（lazyMsgParse）对比，按访问的字段数区分
+ * <p>
+ * 运行：java -jar target/benchmarks.jar LazyMsgParseBenchmark -prof gc
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyMsgParseBenchmark {
+
+    @Param({"DANMU_MSG", "SEND_GIFT"})
+    public String cmd;
+
+    @Param({"eager", "lazy"})
+    public String mode;
+
+    /**
+     * 访问的字段数：0只读cmd，1、3为常用字段，all遍历全部字段
+     */
+    @Param({"0", "1", "3", "all"})
+    public String fields;
+
+    private ByteBuf buf;
+
+    @Setup
+    public void setup() {
+        String json = "DANMU_MSG".equals(cmd) ? BenchmarkFrames.DANMU_MSG : BenchmarkFrames.SEND_GIFT;
+        buf = Unpooled.directBuffer().writeBytes(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        buf.release();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        SendSmsReplyMsg msg = "lazy".equals(mode) ? BilibiliMsgParser.readLazySendSmsReplyMsg(buf) : BilibiliMsgParser.readSendSmsReplyMsg(buf);
+        blackhole.consume(msg.getCmd());
+        switch (fields) {
+            case "0" -> {
+            }
+            case "1" -> blackhole.consume("DANMU_MSG".equals(cmd) ? msg.getInfo().get(1) : msg.getData().get("giftName"));
+            case "3" -> {
+                if ("DANMU_MSG".equals(cmd)) {
+                    JsonNode info = msg.getInfo();
+                    blackhole.consume(info.get(1));
+                    blackhole.consume(info.get(2).get(0));
+                    blackhole.consume(info.get(2).get(1));
+                } else {
+                    JsonNode data = msg.getData();
+                    blackhole.consume(data.get("giftName"));
+                    blackhole.consume(data.get("num"));
+                    blackhole.consume(data.get("uid"));
+                }
+            }
+            default -> consumeAll(blackhole, "DANMU_MSG".equals(cmd) ? msg.getInfo() : msg.getData());
+        }
+    }
+
+    private static void consumeAll(Blackhole blackhole, JsonNode node) {
+        if (node.isContainerNode()) {
+            node.elements().forEachRemaining(child -> consumeAll(blackhole, child));
+        } else {
+            blackhole.consume(node);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import com.aayushatharva.brotli4j.decoder.DirectDecompress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import tech.ordinaryroad.bilibili.live.netty.codec.BilibiliPacketDecoder;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 优化前的解码方式，作为基准测试的对照组：每次解压都新建Inflater，解压结果和嵌套数据包都复制为byte[]
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class LegacyPacketDecoder {
+
+    private LegacyPacketDecoder() {
+    }
+
+    public static void decode(ByteBuf in, BilibiliPacketDecoder.PacketVisitor visitor) {
+        int offset = in.readerIndex();
+        int end = in.writerIndex();
+        while (offset + BilibiliPacketUtil.HEADER_LENGTH <= end) {
+            int packetLength = in.getInt(offset);
+            int headerLength = in.getUnsignedShort(offset + 4);
+            ProtoverEnum protover = ProtoverEnum.getByCode(in.getUnsignedShort(offset + 6));
+            int operation = in.getInt(offset + 8);
+            byte[] body = ByteBufUtil.getBytes(in, offset + headerLength, packetLength - headerLength);
+            switch (protover) {
+                case NORMAL_ZLIB -> decode(Unpooled.wrappedBuffer(inflate(body)), visitor);
+                case NORMAL_BROTLI -> decode(Unpooled.wrappedBuffer(brotliDecompress(body)), visitor);
+                default -> visitor.visit(protover, operation, Unpooled.wrappedBuffer(body));
+            }
+            offset += packetLength;
+        }
+    }
+
+    private static byte[] inflate(byte[] body) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(body);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length * 4);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                outputStream.write(buffer, 0, count);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] brotliDecompress(byte[] body) {
+        Brotli4jLoader.ensureAvailability();
+        try {
+            DirectDecompress directDecompress = Decoder.decompress(body);
+            if (directDecompress.getResultStatus() != DecoderJNI.Status.DONE) {
+                throw new IllegalStateException(directDecompress.getResultStatus().name());
+            }
+            return directDecompress.getDecompressedData();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.ordinaryroad.bilibili.live.netty.codec.BilibiliPacketDecoder;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拆包、解压性能对比，每帧包含30条消息
+ * <p>
+ * 运行：java -jar target/benchmarks.jar PacketDecodeBenchmark -prof gc，
+ * 关注ops/s（每秒帧数）和gc.alloc.rate.norm（每帧分配的字节数）
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PacketDecodeBenchmark {
+
+    @Param({"NORMAL_NO_COMPRESSION", "HEARTBEAT_AUTH_NO_COMPRESSION", "NORMAL_ZLIB", "NORMAL_BROTLI"})
+    public ProtoverEnum protover;
+
+    private ByteBuf frame;
+    private final PooledByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    @Setup
+    public void setup() {
+        frame = BenchmarkFrames.createFrame(protover, BenchmarkFrames.repeat(
+                List.of(BenchmarkFrames.DANMU_MSG, BenchmarkFrames.SEND_GIFT, BenchmarkFrames.INTERACT_WORD), 10));
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        LegacyPacketDecoder.decode(frame, (packetProtover, operation, body) -> blackhole.consume(body.getByte(body.readerIndex())));
+    }
+
+    @Benchmark
+    public void pooled(Blackhole blackhole) {
+        BilibiliPacketDecoder.decode(frame, allocator, (packetProtover, operation, body) -> blackhole.consume(body.getByte(body.readerIndex())));
+    }
+}
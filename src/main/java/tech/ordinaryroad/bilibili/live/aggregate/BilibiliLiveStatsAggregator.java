@@ -0,0 +1,421 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.aggregate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 实时统计：每个房间的弹幕数、礼物数、礼物收入（金瓜子）、最新的观看人数和送礼最多的用户
+ * <p>
+ * 时间按bucketMillis划分为滚动窗口，每个房间保留最近bucketCount个窗口，查询时把最近N个窗口相加即为滑动窗口；
+ * 送礼用户使用Space-Saving算法按金瓜子收入统计近似Top-K，银瓜子和免费礼物不参与，避免大量小额礼物挤占名额；
+ * Top-K不是滑动窗口，每bucketMillis × bucketCount整体清空重新开始，与{@link #snapshot}查询的窗口数无关，刚清空后只包含很短时间内的数据。
+ * 所有计数都是基本类型数组，房间按roomId分散到多个分段，每个分段一把锁；房间第一次出现时分配内存，之后每条消息的更新不分配对象。
+ * 房间数达到maxRooms后新房间的消息被忽略，可以通过{@link #removeRoom(long)}释放
+ * <pre>
+ * BilibiliLiveStatsAggregator aggregator = new BilibiliLiveStatsAggregator(60_000, 60, 10, 10_000);
+ * manager.connect(roomId, aggregator);
+ * BilibiliRoomStatsSnapshot lastFiveMinutes = aggregator.snapshot(roomId, 5);
+ * </pre>
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliLiveStatsAggregator implements IBilibiliTypedMsgListener {
+
+    private static final int STRIPES = 64;
+    private static final String GOLD = "gold";
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int topK;
+    private final int maxRooms;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger roomCount = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param bucketMillis 滚动窗口的长度，单位ms
+     * @param bucketCount  每个房间保留的窗口数
+     * @param topK         每个房间统计的送礼用户数，内部按2倍容量统计以提高准确度
+     * @param maxRooms     最多统计的房间数
+     * @param clock        当前时间，单位ms
+     */
+    public BilibiliLiveStatsAggregator(long bucketMillis, int bucketCount, int topK, int maxRooms, LongSupplier clock) {
+        if (bucketMillis <= 0 || bucketCount <= 0 || topK <= 0 || maxRooms <= 0) {
+            throw new IllegalArgumentException("参数必须大于0");
+        }
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        this.topK = topK;
+        this.maxRooms = maxRooms;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public BilibiliLiveStatsAggregator(long bucketMillis, int bucketCount, int topK, int maxRooms) {
+        this(bucketMillis, bucketCount, topK, maxRooms, System::currentTimeMillis);
+    }
+
+    @Override
+    public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+        recordDanmu(binaryFrameHandler.getRoomId());
+    }
+
+    @Override
+    public void onGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendGiftMsg msg) {
+        // 只有金瓜子礼物计入收入，银瓜子礼物只计数
+        long value = GOLD.equals(msg.getCoinType()) ? msg.getPrice() * msg.getNum() : 0;
+        recordGift(binaryFrameHandler.getRoomId(), msg.getUid(), msg.getUname(), msg.getNum(), value);
+    }
+
+    @Override
+    public void onWatchedChange(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+        JsonNode data = msg.getData();
+        JsonNode num = data == null ? null : data.get("num");
+        if (num != null && num.canConvertToLong()) {
+            recordWatched(binaryFrameHandler.getRoomId(), num.asLong());
+        }
+    }
+
+    public void recordDanmu(long roomId) {
+        long now = clock.getAsLong();
+        Stripe stripe = stripeOf(roomId);
+        synchronized (stripe) {
+            RoomStats room = stripe.getOrCreate(roomId);
+            if (room != null) {
+                room.danmus[room.advance(now)]++;
+            }
+        }
+    }
+
+    /**
+     * @param num   礼物数量
+     * @param value 礼物价值，单位金瓜子，为0时（银瓜子、免费礼物）不计入送礼Top-K
+     */
+    public void recordGift(long roomId, long uid, String uname, int num, long value) {
+        long now = clock.getAsLong();
+        Stripe stripe = stripeOf(roomId);
+        synchronized (stripe) {
+            RoomStats room = stripe.getOrCreate(roomId);
+            if (room != null) {
+                int bucket = room.advance(now);
+                room.gifts[bucket] += num;
+                room.giftValues[bucket] += value;
+                if (value > 0) {
+                    room.offerGifter(now, uid, uname, value);
+                }
+            }
+        }
+    }
+
+    public void recordWatched(long roomId, long watched) {
+        long now = clock.getAsLong();
+        Stripe stripe = stripeOf(roomId);
+        synchronized (stripe) {
+            RoomStats room = stripe.getOrCreate(roomId);
+            if (room != null) {
+                room.watched = watched;
+                room.watchedMillis = now;
+            }
+        }
+    }
+
+    /**
+     * 最近windowBuckets个窗口（包括当前未结束的窗口）的统计
+     *
+     * @return 房间没有数据时为null
+     */
+    public BilibiliRoomStatsSnapshot snapshot(long roomId, int windowBuckets) {
+        int n = Math.max(1, Math.min(windowBuckets, bucketCount));
+        long now = clock.getAsLong();
+        long epoch = Math.floorDiv(now, bucketMillis);
+        Stripe stripe = stripeOf(roomId);
+        synchronized (stripe) {
+            RoomStats room = stripe.get(roomId);
+            if (room == null) {
+                return null;
+            }
+            long danmus = 0;
+            long gifts = 0;
+            long giftValue = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                long bucketEpoch = room.epochs[i];
+                if (bucketEpoch <= epoch && bucketEpoch > epoch - n) {
+                    danmus += room.danmus[i];
+                    gifts += room.gifts[i];
+                    giftValue += room.giftValues[i];
+                }
+            }
+            // 当前窗口只经过了一部分
+            long windowMillis = (n - 1) * bucketMillis + (now - epoch * bucketMillis) + 1;
+            return new BilibiliRoomStatsSnapshot(roomId, windowMillis, danmus, gifts, giftValue,
+                    danmus * 1000.0 / windowMillis, room.watched, room.watchedMillis, room.topGifters(now, topK));
+        }
+    }
+
+    /**
+     * 最近bucketCount个滚动窗口的统计，按时间从早到晚排列，没有消息的窗口为0
+     */
+    public List<BilibiliRoomStatsSnapshot.Bucket> buckets(long roomId) {
+        long epoch = Math.floorDiv(clock.getAsLong(), bucketMillis);
+        Stripe stripe = stripeOf(roomId);
+        synchronized (stripe) {
+            RoomStats room = stripe.get(roomId);
+            if (room == null) {
+                return List.of();
+            }
+            List<BilibiliRoomStatsSnapshot.Bucket> buckets = new ArrayList<>(bucketCount);
+            for (long e = epoch - bucketCount + 1; e <= epoch; e++) {
+                int i = (int) Math.floorMod(e, (long) bucketCount);
+                boolean valid = room.epochs[i] == e;
+                buckets.add(new BilibiliRoomStatsSnapshot.Bucket(e * bucketMillis,
+                        valid ? room.danmus[i] : 0, valid ? room.gifts[i] : 0, valid ? room.giftValues[i] : 0));
+            }
+            return buckets;
+        }
+    }
+
+    /**
+     * 删除房间的统计，释放名额
+     */
+    public void removeRoom(long roomId) {
+        Stripe stripe = stripeOf(roomId);
+        synchronized (stripe) {
+            if (stripe.remove(roomId)) {
+                roomCount.decrementAndGet();
+            }
+        }
+    }
+
+    public int getRoomCount() {
+        return roomCount.get();
+    }
+
+    /**
+     * 房间数达到上限后被忽略的消息数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private Stripe stripeOf(long roomId) {
+        return stripes[mix(roomId) & (STRIPES - 1)];
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * roomId到RoomStats的开放寻址哈希表，由分段锁保护
+     */
+    private final class Stripe {
+        private long[] keys = new long[16];
+        private RoomStats[] values = new RoomStats[16];
+        private int size;
+
+        RoomStats get(long roomId) {
+            int mask = keys.length - 1;
+            for (int i = mix(roomId) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == roomId) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return 房间数已达上限时为null
+         */
+        RoomStats getOrCreate(long roomId) {
+            RoomStats room = get(roomId);
+            if (room != null) {
+                return room;
+            }
+            if (roomCount.incrementAndGet() > maxRooms) {
+                roomCount.decrementAndGet();
+                rejectedCount.increment();
+                return null;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            room = new RoomStats();
+            insert(roomId, room);
+            size++;
+            return room;
+        }
+
+        boolean remove(long roomId) {
+            int mask = keys.length - 1;
+            int i = mix(roomId) & mask;
+            while (values[i] != null && keys[i] != roomId) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                return false;
+            }
+            values[i] = null;
+            size--;
+            // 重新插入同一簇中后面的元素
+            for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+                long key = keys[j];
+                RoomStats value = values[j];
+                values[j] = null;
+                insert(key, value);
+            }
+            return true;
+        }
+
+        private void insert(long roomId, RoomStats room) {
+            int mask = keys.length - 1;
+            int i = mix(roomId) & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = roomId;
+            values[i] = room;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            RoomStats[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new RoomStats[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个房间的统计，由分段锁保护
+     */
+    private final class RoomStats {
+        private final long[] epochs = new long[bucketCount];
+        private final long[] danmus = new long[bucketCount];
+        private final long[] gifts = new long[bucketCount];
+        private final long[] giftValues = new long[bucketCount];
+        private long watched = -1;
+        private long watchedMillis;
+
+        /**
+         * Space-Saving：容量为2 × topK，满了以后替换计数最小的用户，新用户继承其计数作为误差上限
+         */
+        private final long[] gifterUids = new long[topK * 2];
+        private final String[] gifterNames = new String[topK * 2];
+        private final long[] gifterValues = new long[topK * 2];
+        private final long[] gifterErrors = new long[topK * 2];
+        private int gifterCount;
+        private long gifterEpoch = Long.MIN_VALUE;
+
+        RoomStats() {
+            Arrays.fill(epochs, Long.MIN_VALUE);
+        }
+
+        /**
+         * @return 当前时间对应的窗口下标，窗口已过期时清零
+         */
+        int advance(long now) {
+            long epoch = Math.floorDiv(now, bucketMillis);
+            int i = (int) Math.floorMod(epoch, (long) bucketCount);
+            if (epochs[i] != epoch) {
+                epochs[i] = epoch;
+                danmus[i] = 0;
+                gifts[i] = 0;
+                giftValues[i] = 0;
+            }
+            return i;
+        }
+
+        void offerGifter(long now, long uid, String uname, long value) {
+            resetGiftersIfExpired(now);
+            for (int i = 0; i < gifterCount; i++) {
+                if (gifterUids[i] == uid) {
+                    gifterValues[i] += value;
+                    gifterNames[i] = uname;
+                    return;
+                }
+            }
+            if (gifterCount < gifterUids.length) {
+                int i = gifterCount++;
+                gifterUids[i] = uid;
+                gifterNames[i] = uname;
+                gifterValues[i] = value;
+                gifterErrors[i] = 0;
+                return;
+            }
+            int min = 0;
+            for (int i = 1; i < gifterCount; i++) {
+                if (gifterValues[i] < gifterValues[min]) {
+                    min = i;
+                }
+            }
+            gifterErrors[min] = gifterValues[min];
+            gifterUids[min] = uid;
+            gifterNames[min] = uname;
+            gifterValues[min] += value;
+        }
+
+        List<BilibiliRoomStatsSnapshot.Gifter> topGifters(long now, int k) {
+            resetGiftersIfExpired(now);
+            List<BilibiliRoomStatsSnapshot.Gifter> gifters = new ArrayList<>(gifterCount);
+            for (int i = 0; i < gifterCount; i++) {
+                gifters.add(new BilibiliRoomStatsSnapshot.Gifter(gifterUids[i], gifterNames[i], gifterValues[i], gifterErrors[i]));
+            }
+            gifters.sort(Comparator.comparingLong(BilibiliRoomStatsSnapshot.Gifter::value).reversed());
+            return gifters.size() > k ? List.copyOf(gifters.subList(0, k)) : gifters;
+        }
+
+        private void resetGiftersIfExpired(long now) {
+            long epoch = Math.floorDiv(now, bucketMillis * bucketCount);
+            if (epoch != gifterEpoch) {
+                gifterEpoch = epoch;
+                gifterCount = 0;
+                Arrays.fill(gifterNames, null);
+            }
+        }
+    }
+}
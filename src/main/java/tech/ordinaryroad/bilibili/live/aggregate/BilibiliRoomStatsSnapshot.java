@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.aggregate;
+
+import java.util.List;
+
+/**
+ * 单个房间在滑动窗口内的统计
+ *
+ * @param windowMillis     窗口的实际长度，当前窗口只计算已经过的时间
+ * @param giftValue        礼物收入，单位金瓜子
+ * @param danmuRate        每秒弹幕数
+ * @param watched          最新的观看人数，没有收到WATCHED_CHANGE时为-1
+ * @param watchedMillis    收到观看人数的时间
+ * @param topGifters       送礼最多的用户，按礼物收入从高到低排列，为近似值；统计区间是从最近一次整体清空到现在，不是windowMillis
+ * @author mjz
+ * @date 2026/10/18
+ */
+public record BilibiliRoomStatsSnapshot(long roomId, long windowMillis, long danmus, long gifts, long giftValue,
+                                        double danmuRate, long watched, long watchedMillis, List<Gifter> topGifters) {
+
+    /**
+     * @param value 累计礼物收入，可能偏高，真实值在[value - error, value]之间
+     * @param error 误差上限
+     */
+    public record Gifter(long uid, String uname, long value, long error) {
+    }
+
+    /**
+     * 一个滚动窗口
+     *
+     * @param startMillis 窗口开始的时间
+     */
+    public record Bucket(long startMillis, long danmus, long gifts, long giftValue) {
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import lombok.Getter;
+
+import java.net.URI;
+
+/**
+ * 弹幕服务器地址及其健康状态，状态由{@link BilibiliEndpointSelector}维护
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Getter
+public class BilibiliEndpoint {
+
+    private final URI uri;
+    private final String host;
+    private final int port;
+    private final boolean ssl;
+
+    /**
+     * 握手耗时的指数移动平均，单位ms，没有样本时为-1
+     */
+    private volatile double latencyMillis = -1;
+    /**
+     * 当前连接数
+     */
+    private volatile int activeCount;
+    /**
+     * 连续失败次数，连接成功后清零
+     */
+    private volatile int failureCount;
+    /**
+     * 冷却结束时间（System.nanoTime），冷却期间不会被选中
+     */
+    private volatile long cooldownUntilNanos;
+
+    BilibiliEndpoint(URI uri) {
+        this.uri = uri;
+        this.host = uri.getHost();
+        this.ssl = "wss".equalsIgnoreCase(uri.getScheme());
+        this.port = uri.getPort() != -1 ? uri.getPort() : ssl ? 443 : 80;
+    }
+
+    void setLatencyMillis(double latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    void setActiveCount(int activeCount) {
+        this.activeCount = activeCount;
+    }
+
+    void setFailureCount(int failureCount) {
+        this.failureCount = failureCount;
+    }
+
+    void setCooldownUntilNanos(long cooldownUntilNanos) {
+        this.cooldownUntilNanos = cooldownUntilNanos;
+    }
+
+    public boolean isCoolingDown() {
+        return System.nanoTime() - cooldownUntilNanos < 0;
+    }
+
+    @Override
+    public String toString() {
+        return uri.toString();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfo;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 弹幕服务器选择
+ * <p>
+ * 按握手耗时和当前连接数打分（耗时 × (连接数 + 1)），新连接和重连选择分数最低的服务器；
+ * 连接失败的服务器进入冷却，冷却时间随连续失败次数翻倍，期间流量转移到其他服务器
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliEndpointSelector {
+
+    /**
+     * 握手耗时移动平均的权重
+     */
+    static final double LATENCY_ALPHA = 0.2;
+    static final long BASE_COOLDOWN_MILLIS = 1000;
+    static final long MAX_COOLDOWN_MILLIS = 60_000;
+
+    private final List<BilibiliEndpoint> endpoints = new ArrayList<>();
+
+    BilibiliEndpointSelector(Collection<String> uris) {
+        for (String uri : uris) {
+            addEndpoint(uri);
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个弹幕服务器地址");
+        }
+    }
+
+    /**
+     * 添加getDanmuInfo返回的服务器，已存在的忽略
+     */
+    public void addHosts(List<BilibiliRoomInfo.Host> hosts) {
+        if (hosts == null) {
+            return;
+        }
+        for (BilibiliRoomInfo.Host host : hosts) {
+            if (host.getHost() != null && host.getWssPort() > 0) {
+                addEndpoint("wss://" + host.getHost() + ":" + host.getWssPort() + "/sub");
+            }
+        }
+    }
+
+    public synchronized List<BilibiliEndpoint> getEndpoints() {
+        return Collections.unmodifiableList(new ArrayList<>(endpoints));
+    }
+
+    /**
+     * 选择分数最低且不在冷却中的服务器，全部在冷却中时选择最早结束冷却的
+     */
+    public BilibiliEndpoint select() {
+        return select(null);
+    }
+
+    /**
+     * 选择服务器，尽量避开指定的服务器（热备连接避开另一条连接所在的服务器），没有其他可用服务器时才选择它
+     */
+    public synchronized BilibiliEndpoint select(BilibiliEndpoint exclude) {
+        if (exclude != null && endpoints.size() > 1 && hasHealthyAlternative(exclude)) {
+            return selectAmong(endpoint -> endpoint != exclude);
+        }
+        return selectAmong(endpoint -> true);
+    }
+
+    private BilibiliEndpoint selectAmong(Predicate<BilibiliEndpoint> candidate) {
+        double knownLatency = -1;
+        for (BilibiliEndpoint endpoint : endpoints) {
+            if (endpoint.getLatencyMillis() >= 0 && (knownLatency < 0 || endpoint.getLatencyMillis() < knownLatency)) {
+                knownLatency = endpoint.getLatencyMillis();
+            }
+        }
+        BilibiliEndpoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        BilibiliEndpoint earliest = null;
+        for (BilibiliEndpoint endpoint : endpoints) {
+            if (!candidate.test(endpoint)) {
+                continue;
+            }
+            if (endpoint.isCoolingDown()) {
+                if (earliest == null || endpoint.getCooldownUntilNanos() - earliest.getCooldownUntilNanos() < 0) {
+                    earliest = endpoint;
+                }
+                continue;
+            }
+            // 没有样本的服务器按已知最低耗时计算，优先尝试
+            double latency = endpoint.getLatencyMillis() >= 0 ? endpoint.getLatencyMillis() : Math.max(knownLatency, 1);
+            double score = Math.max(latency, 1) * (endpoint.getActiveCount() + 1);
+            if (score < bestScore) {
+                best = endpoint;
+                bestScore = score;
+            }
+        }
+        return best != null ? best : earliest;
+    }
+
+    /**
+     * 除了指定服务器外，是否还有不在冷却中的服务器
+     */
+    public synchronized boolean hasHealthyAlternative(BilibiliEndpoint exclude) {
+        for (BilibiliEndpoint endpoint : endpoints) {
+            if (endpoint != exclude && !endpoint.isCoolingDown()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录握手耗时，由连接处理器调用
+     */
+    public synchronized void onHandshake(BilibiliEndpoint endpoint, long nanos) {
+        double millis = nanos / 1_000_000.0;
+        double latency = endpoint.getLatencyMillis();
+        endpoint.setLatencyMillis(latency < 0 ? millis : latency + LATENCY_ALPHA * (millis - latency));
+    }
+
+    synchronized void onConnected(BilibiliEndpoint endpoint) {
+        endpoint.setFailureCount(0);
+        endpoint.setCooldownUntilNanos(System.nanoTime());
+        endpoint.setActiveCount(endpoint.getActiveCount() + 1);
+    }
+
+    synchronized void onDisconnected(BilibiliEndpoint endpoint) {
+        endpoint.setActiveCount(Math.max(0, endpoint.getActiveCount() - 1));
+    }
+
+    synchronized void onFailure(BilibiliEndpoint endpoint) {
+        int failures = endpoint.getFailureCount() + 1;
+        endpoint.setFailureCount(failures);
+        long cooldownMillis = Math.min(MAX_COOLDOWN_MILLIS, BASE_COOLDOWN_MILLIS << Math.min(failures - 1, 16));
+        endpoint.setCooldownUntilNanos(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cooldownMillis));
+        log.debug("{} 连续失败{}次，冷却{}ms", endpoint, failures, cooldownMillis);
+    }
+
+    private synchronized void addEndpoint(String uri) {
+        URI parsed;
+        try {
+            parsed = new URI(uri);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("websocketUri格式错误 " + uri, e);
+        }
+        for (BilibiliEndpoint endpoint : endpoints) {
+            if (endpoint.getUri().equals(parsed)) {
+                return;
+            }
+        }
+        endpoints.add(new BilibiliEndpoint(parsed));
+    }
+}
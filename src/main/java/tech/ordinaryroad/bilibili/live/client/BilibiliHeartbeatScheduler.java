@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomConnectionHandler;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有房间共享的心跳调度器
+ * <p>
+ * 每个EventLoop只有一个定时任务，每秒检查一次该EventLoop上的连接，到期的发送心跳包；
+ * 各连接的心跳时间由认证时间决定，不会集中在同一时刻发送
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliHeartbeatScheduler {
+
+    static final long TICK_MILLIS = 1000;
+
+    private final long initialDelayNanos;
+    private final long periodNanos;
+    private final IBilibiliMetricsRecorder metricsRecorder;
+    private final Map<EventExecutor, LoopHeartbeats> loops = new ConcurrentHashMap<>();
+
+    BilibiliHeartbeatScheduler(BilibiliLiveChatClientManagerConfig config) {
+        this.initialDelayNanos = TimeUnit.SECONDS.toNanos(config.getHeartbeatInitialDelay());
+        this.periodNanos = TimeUnit.SECONDS.toNanos(config.getHeartbeatPeriod());
+        this.metricsRecorder = config.getMetricsRecorder();
+    }
+
+    /**
+     * 开始发送心跳，在ctx所在的EventLoop中调用
+     */
+    public Heartbeat register(ChannelHandlerContext ctx) {
+        Heartbeat heartbeat = new Heartbeat(ctx, System.nanoTime() + initialDelayNanos);
+        loops.computeIfAbsent(ctx.executor(), LoopHeartbeats::new).add(heartbeat);
+        return heartbeat;
+    }
+
+    /**
+     * 已注册的连接数
+     */
+    public int getRegisteredCount() {
+        int count = 0;
+        for (LoopHeartbeats loop : loops.values()) {
+            count += loop.size;
+        }
+        return count;
+    }
+
+    /**
+     * 单个连接的心跳，取消后在下一次检查时移除
+     */
+    public static final class Heartbeat {
+        private final ChannelHandlerContext ctx;
+        private long nextNanos;
+        private boolean cancelled;
+
+        private Heartbeat(ChannelHandlerContext ctx, long nextNanos) {
+            this.ctx = ctx;
+            this.nextNanos = nextNanos;
+        }
+
+        /**
+         * 在ctx所在的EventLoop中调用
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * 单个EventLoop上的心跳，只在该EventLoop中访问
+     */
+    private final class LoopHeartbeats {
+        private final EventExecutor executor;
+        private final List<Heartbeat> heartbeats = new ArrayList<>();
+        private ScheduledFuture<?> tickFuture;
+        private volatile int size;
+
+        private LoopHeartbeats(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        private void add(Heartbeat heartbeat) {
+            heartbeats.add(heartbeat);
+            size = heartbeats.size();
+            if (tickFuture == null) {
+                tickFuture = executor.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void tick() {
+            long now = System.nanoTime();
+            int kept = 0;
+            for (int i = 0; i < heartbeats.size(); i++) {
+                Heartbeat heartbeat = heartbeats.get(i);
+                if (heartbeat.cancelled || !heartbeat.ctx.channel().isActive()) {
+                    continue;
+                }
+                heartbeats.set(kept++, heartbeat);
+                if (now - heartbeat.nextNanos >= 0) {
+                    heartbeat.nextNanos += periodNanos;
+                    if (now - heartbeat.nextNanos >= 0) {
+                        // EventLoop阻塞过久时不补发
+                        heartbeat.nextNanos = now + periodNanos;
+                    }
+                    if (metricsRecorder != null) {
+                        heartbeat.ctx.channel().attr(BilibiliRoomConnectionHandler.HEARTBEAT_SENT_NANOS_KEY).set(now);
+                    }
+                    heartbeat.ctx.writeAndFlush(BilibiliPacketUtil.heartbeatFrame());
+                }
+            }
+            heartbeats.subList(kept, heartbeats.size()).clear();
+            size = kept;
+            if (kept == 0) {
+                tickFuture.cancel(false);
+                tickFuture = null;
+            }
+        }
+    }
+}
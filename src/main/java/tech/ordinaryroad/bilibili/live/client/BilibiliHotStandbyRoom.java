@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import lombok.Getter;
+import tech.ordinaryroad.bilibili.live.util.BilibiliFingerprintSet;
+
+/**
+ * 热备房间，同一房间的两条连接，由{@link BilibiliLiveChatClientManager#addHotStandbyRoom}创建
+ * <p>
+ * 只要有一条连接在线就能收到消息，两条连接收到的相同消息只回调一次
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Getter
+public class BilibiliHotStandbyRoom {
+
+    private final long roomId;
+    private final BilibiliRoomConnection primary;
+    private final BilibiliRoomConnection secondary;
+    private final BilibiliFingerprintSet fingerprints;
+
+    BilibiliHotStandbyRoom(long roomId, BilibiliRoomConnection primary, BilibiliRoomConnection secondary, BilibiliFingerprintSet fingerprints) {
+        this.roomId = roomId;
+        this.primary = primary;
+        this.secondary = secondary;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * 两条连接都发起连接，选择服务器时互斥，后选择的一条避开另一条已经选定的服务器
+     */
+    public void connect() {
+        primary.connect();
+        secondary.connect();
+    }
+
+    /**
+     * 断开两条连接，不再自动重连
+     */
+    public void disconnect() {
+        primary.disconnect(true);
+        secondary.disconnect(true);
+    }
+
+    /**
+     * 是否有一条连接在线
+     */
+    public boolean isConnected() {
+        return primary.isConnected() || secondary.isConnected();
+    }
+
+    /**
+     * 两条连接都在线
+     */
+    public boolean isFullyConnected() {
+        return primary.isConnected() && secondary.isConnected();
+    }
+
+    /**
+     * 被去重丢弃的消息数
+     */
+    public long getDuplicateCount() {
+        return fingerprints.getDuplicateCount();
+    }
+}
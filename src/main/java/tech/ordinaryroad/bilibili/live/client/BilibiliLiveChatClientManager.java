@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.AttributeKey;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.dispatch.BilibiliMsgDispatcher;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliRoomConnectionListener;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomConnectionHandler;
+import tech.ordinaryroad.bilibili.live.util.BilibiliFingerprintSet;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多房间客户端管理器
+ * <p>
+ * 所有房间共享同一个EventLoopGroup和Bootstrap，SslContext在进程内共享，线程数与房间数无关，传输实现由{@link BilibiliTransport}选择；配置多个弹幕服务器时由{@link BilibiliEndpointSelector}选择，重要房间可以使用热备双连接{@link BilibiliHotStandbyRoom}；
+ * 连接和重连由{@link BilibiliReconnectScheduler}统一调度，心跳由{@link BilibiliHeartbeatScheduler}统一发送
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliLiveChatClientManager {
+
+    static final AttributeKey<BilibiliRoomConnection> ROOM_CONNECTION_KEY = AttributeKey.valueOf("bilibiliRoomConnection");
+
+    @Getter
+    private final BilibiliLiveChatClientManagerConfig config;
+    @Getter
+    private final BilibiliTransport transport;
+    @Getter
+    private final EventLoopGroup workerGroup;
+    private final Bootstrap bootstrap;
+    @Getter
+    private final BilibiliEndpointSelector endpointSelector;
+    private final Map<Long, BilibiliRoomConnection> rooms = new ConcurrentHashMap<>();
+    /**
+     * 热备房间的第二条连接
+     */
+    private final Map<Long, BilibiliHotStandbyRoom> hotStandbyRooms = new ConcurrentHashMap<>();
+    @Getter
+    private final BilibiliReconnectScheduler reconnectScheduler;
+    @Getter
+    private final BilibiliHeartbeatScheduler heartbeatScheduler;
+    @Getter
+    private volatile boolean destroyed;
+
+    public BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig config) {
+        this.config = config;
+        List<String> websocketUris = config.getWebsocketUris();
+        this.endpointSelector = new BilibiliEndpointSelector(websocketUris == null || websocketUris.isEmpty() ? List.of(config.getWebsocketUri()) : websocketUris);
+        this.transport = BilibiliTransport.resolve(config.getTransport());
+        log.debug("使用{}传输", transport.getType());
+        this.workerGroup = transport.newEventLoopGroup(config.getWorkerThreads());
+        this.bootstrap = new Bootstrap()
+                .group(workerGroup)
+                .channel(transport.getChannelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeoutMillis())
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new AdaptiveRecvByteBufAllocator(config.getRecvBufMinSize(), config.getRecvBufInitialSize(), config.getRecvBufMaxSize()))
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
+                .handler(new RoomChannelInitializer());
+        if (config.getSoRcvBuf() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, config.getSoRcvBuf());
+        }
+        this.reconnectScheduler = new BilibiliReconnectScheduler(this);
+        this.heartbeatScheduler = new BilibiliHeartbeatScheduler(config);
+    }
+
+    /**
+     * 添加房间，不会自动连接
+     *
+     * @param roomId             房间ID
+     * @param msgListener        消息监听器
+     * @param connectionListener 连接状态监听器
+     * @return 房间连接
+     */
+    public BilibiliRoomConnection addRoom(long roomId, IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener) {
+        return addRoom(roomId, config.getProtover(), msgListener, connectionListener);
+    }
+
+    public BilibiliRoomConnection addRoom(long roomId, ProtoverEnum protover, IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener) {
+        if (destroyed) {
+            throw new IllegalStateException("manager已销毁");
+        }
+        BilibiliRoomConnection connection = new BilibiliRoomConnection(this, roomId, protover, msgListener, connectionListener);
+        BilibiliRoomConnection previous = rooms.putIfAbsent(roomId, connection);
+        if (previous != null) {
+            throw new IllegalArgumentException("房间已存在 " + roomId);
+        }
+        return connection;
+    }
+
+    public BilibiliRoomConnection addRoom(long roomId, IBilibiliSendSmsReplyMsgListener msgListener) {
+        return addRoom(roomId, msgListener, null);
+    }
+
+    /**
+     * 添加热备房间，不会自动连接
+     * <p>
+     * 同一房间建立两条连接，尽量连接不同的弹幕服务器，两条连接固定在同一个EventLoop中并共享回调队列；
+     * 消息在JSON解析之前按原始字节去重，只丢弃另一条连接已经收到的消息，同一连接重复收到的相同消息照常回调；
+     * 一条连接断开重连期间另一条连接的消息不受影响。
+     * 主连接可以通过{@link #getRoom(long)}获取，connect/disconnect等按房间ID的方法只作用于主连接
+     *
+     * @param connectionListener 连接状态监听器，两条连接的状态变化都会回调
+     */
+    public BilibiliHotStandbyRoom addHotStandbyRoom(long roomId, IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener) {
+        if (destroyed) {
+            throw new IllegalStateException("manager已销毁");
+        }
+        BilibiliFingerprintSet fingerprints = new BilibiliFingerprintSet(config.getHotStandbyDedupCapacity(), config.getHotStandbyDedupMillis());
+        BilibiliMsgDispatcher dispatcher = BilibiliMsgDispatcher.create(roomId, config);
+        EventLoop eventLoop = workerGroup.next();
+        BilibiliRoomConnection primary = new BilibiliRoomConnection(this, roomId, config.getProtover(), msgListener, connectionListener, dispatcher, fingerprints, 0, eventLoop);
+        BilibiliRoomConnection secondary = new BilibiliRoomConnection(this, roomId, config.getProtover(), msgListener, connectionListener, dispatcher, fingerprints, 1, eventLoop);
+        primary.setSibling(secondary);
+        secondary.setSibling(primary);
+        BilibiliHotStandbyRoom room = new BilibiliHotStandbyRoom(roomId, primary, secondary, fingerprints);
+        if (rooms.putIfAbsent(roomId, primary) != null) {
+            throw new IllegalArgumentException("房间已存在 " + roomId);
+        }
+        hotStandbyRooms.put(roomId, room);
+        return room;
+    }
+
+    /**
+     * 添加热备房间并连接
+     */
+    public BilibiliHotStandbyRoom connectHotStandby(long roomId, IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener) {
+        BilibiliHotStandbyRoom room = addHotStandbyRoom(roomId, msgListener, connectionListener);
+        room.connect();
+        return room;
+    }
+
+    public BilibiliHotStandbyRoom getHotStandbyRoom(long roomId) {
+        return hotStandbyRooms.get(roomId);
+    }
+
+    /**
+     * 添加房间并连接
+     */
+    public BilibiliRoomConnection connect(long roomId, IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener) {
+        BilibiliRoomConnection connection = addRoom(roomId, msgListener, connectionListener);
+        connection.connect();
+        return connection;
+    }
+
+    public BilibiliRoomConnection connect(long roomId, IBilibiliSendSmsReplyMsgListener msgListener) {
+        return connect(roomId, msgListener, null);
+    }
+
+    public void connect(long roomId, Runnable success) {
+        getRequiredRoom(roomId).connect(success);
+    }
+
+    public void connect(long roomId) {
+        getRequiredRoom(roomId).connect();
+    }
+
+    public void disconnect(long roomId, boolean cancelReconnect) {
+        getRequiredRoom(roomId).disconnect(cancelReconnect);
+    }
+
+    public void disconnect(long roomId) {
+        getRequiredRoom(roomId).disconnect();
+    }
+
+    public void reconnect(long roomId) {
+        getRequiredRoom(roomId).reconnect();
+    }
+
+    /**
+     * 断开连接并移除房间
+     */
+    public void removeRoom(long roomId) {
+        BilibiliRoomConnection connection = rooms.remove(roomId);
+        if (connection != null) {
+            connection.disconnect(true);
+        }
+        BilibiliHotStandbyRoom hotStandbyRoom = hotStandbyRooms.remove(roomId);
+        if (hotStandbyRoom != null) {
+            hotStandbyRoom.disconnect();
+        }
+    }
+
+    public BilibiliRoomConnection getRoom(long roomId) {
+        return rooms.get(roomId);
+    }
+
+    public Set<Long> getRoomIds() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    /**
+     * 断开所有房间并释放线程资源
+     */
+    public void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        rooms.values().forEach(connection -> connection.disconnect(true));
+        rooms.clear();
+        hotStandbyRooms.values().forEach(BilibiliHotStandbyRoom::disconnect);
+        hotStandbyRooms.clear();
+        workerGroup.shutdownGracefully();
+    }
+
+    Bootstrap newBootstrap(BilibiliRoomConnection connection, BilibiliEndpoint endpoint) {
+        EventLoop eventLoop = connection.getEventLoop();
+        return (eventLoop == null ? bootstrap.clone() : bootstrap.clone(eventLoop))
+                .remoteAddress(endpoint.getHost(), endpoint.getPort())
+                .attr(ROOM_CONNECTION_KEY, connection);
+    }
+
+    /**
+     * 配置了sslContext时使用该SslContext，否则使用进程内共享的{@link BilibiliSslContexts#getShared()}
+     */
+    SslContext getSslContext() {
+        SslContext context = config.getSslContext();
+        return context != null ? context : BilibiliSslContexts.getShared();
+    }
+
+    private BilibiliRoomConnection getRequiredRoom(long roomId) {
+        BilibiliRoomConnection connection = rooms.get(roomId);
+        if (connection == null) {
+            throw new IllegalArgumentException("房间不存在 " + roomId);
+        }
+        return connection;
+    }
+
+    @ChannelHandler.Sharable
+    private class RoomChannelInitializer extends ChannelInitializer<SocketChannel> {
+        @Override
+        protected void initChannel(SocketChannel ch) {
+            BilibiliRoomConnection connection = ch.attr(ROOM_CONNECTION_KEY).get();
+            BilibiliEndpoint endpoint = connection.getEndpoint();
+            ChannelPipeline pipeline = ch.pipeline();
+            if (endpoint.isSsl()) {
+                pipeline.addLast(getSslContext().newHandler(ch.alloc(), endpoint.getHost(), endpoint.getPort()));
+            }
+            pipeline.addLast(new HttpClientCodec());
+            pipeline.addLast(new HttpObjectAggregator(config.getMaxHttpContentLength()));
+            pipeline.addLast(new BilibiliRoomConnectionHandler(
+                    WebSocketClientHandshakerFactory.newHandshaker(endpoint.getUri(), WebSocketVersion.V13, null, true, new DefaultHttpHeaders()),
+                    connection
+            ));
+            pipeline.addLast(new BilibiliRoomBinaryFrameHandler(connection.getMsgListener(), connection.getRoomId(), config, connection.getDispatcher(),
+                    connection.getFingerprints(), connection.getStandbyIndex()));
+        }
+    }
+}
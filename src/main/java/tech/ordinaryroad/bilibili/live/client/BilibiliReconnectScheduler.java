@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import io.netty.util.concurrent.EventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有房间共享的连接调度器，首次连接和重连都经过这里
+ * <p>
+ * 重连延迟按指数退避并加入随机抖动，避免大量房间同时重连；同时限制正在握手、认证的连接数和每秒发起的连接数，
+ * 超出限制的房间排队等待，重要房间优先。所有状态只在同一个EventLoop中访问。
+ * 出队时跳过已取消的房间；出队之后的取消由{@link BilibiliRoomConnection}在连接的每一步（获取房间信息、建立连接、认证完成）重新检查，并归还并发名额
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliReconnectScheduler {
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator
+            .comparing((Entry entry) -> !entry.important())
+            .thenComparingLong(Entry::seq);
+
+    private final BilibiliLiveChatClientManager manager;
+    private final EventExecutor executor;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final double jitter;
+    private final int maxConcurrentConnects;
+    private final int maxConnectsPerSecond;
+
+    private final PriorityQueue<Entry> ready = new PriorityQueue<>(ENTRY_COMPARATOR);
+    private long seq;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private boolean drainScheduled;
+
+    private volatile int delayedCount;
+    private volatile int readyCount;
+    private volatile int inFlightCount;
+
+    BilibiliReconnectScheduler(BilibiliLiveChatClientManager manager) {
+        BilibiliLiveChatClientManagerConfig config = manager.getConfig();
+        this.manager = manager;
+        this.executor = manager.getWorkerGroup().next();
+        this.baseDelayMillis = TimeUnit.SECONDS.toMillis(config.getReconnectDelay());
+        this.maxDelayMillis = Math.max(baseDelayMillis, TimeUnit.SECONDS.toMillis(config.getReconnectMaxDelay()));
+        this.jitter = Math.min(1, Math.max(0, config.getReconnectJitter()));
+        this.maxConcurrentConnects = config.getMaxConcurrentConnects();
+        this.maxConnectsPerSecond = config.getMaxConnectsPerSecond();
+        this.tokens = maxConnectsPerSecond;
+    }
+
+    /**
+     * 立即排队连接
+     */
+    void connectNow(BilibiliRoomConnection connection) {
+        schedule(connection, 0);
+    }
+
+    /**
+     * 按退避策略延迟后排队重连
+     */
+    void reconnectLater(BilibiliRoomConnection connection) {
+        execute(() -> {
+            long delayMillis = nextDelayMillis(connection.nextReconnectAttempt());
+            log.debug("{} {}ms后将重新连接", connection.getRoomId(), delayMillis);
+            schedule(connection, delayMillis);
+        });
+    }
+
+    /**
+     * 握手、认证结束（成功或失败），归还并发名额
+     */
+    void release(BilibiliRoomConnection connection) {
+        execute(() -> {
+            if (connection.isConnectPermitHeld()) {
+                connection.setConnectPermitHeld(false);
+                inFlightCount--;
+                drain();
+            }
+        });
+    }
+
+    /**
+     * 第attempt次重连的延迟：基础延迟按2的幂增长，不超过最大延迟，再随机减少最多jitter比例
+     */
+    long nextDelayMillis(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << shift);
+        return delay - (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    private void schedule(BilibiliRoomConnection connection, long delayMillis) {
+        execute(() -> {
+            if (connection.isConnectQueued()) {
+                return;
+            }
+            connection.setConnectQueued(true);
+            if (delayMillis <= 0) {
+                enqueue(connection);
+            } else {
+                delayedCount++;
+                executor.schedule(() -> {
+                    delayedCount--;
+                    enqueue(connection);
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private void enqueue(BilibiliRoomConnection connection) {
+        ready.add(new Entry(connection, connection.isImportant(), seq++));
+        readyCount = ready.size();
+        drain();
+    }
+
+    private void drain() {
+        while (!ready.isEmpty()) {
+            if (maxConcurrentConnects > 0 && inFlightCount >= maxConcurrentConnects) {
+                // 等待release
+                return;
+            }
+            if (!tryAcquireToken()) {
+                scheduleDrain();
+                return;
+            }
+            Entry entry = ready.poll();
+            readyCount = ready.size();
+            BilibiliRoomConnection connection = entry.connection();
+            connection.setConnectQueued(false);
+            if (connection.isCancelReconnect() || manager.isDestroyed() || connection.isActive()) {
+                // 没有发起连接，归还令牌
+                if (maxConnectsPerSecond > 0) {
+                    tokens = Math.min(maxConnectsPerSecond, tokens + 1);
+                }
+                continue;
+            }
+            connection.setConnectPermitHeld(true);
+            inFlightCount++;
+            connection.doConnect();
+        }
+    }
+
+    private boolean tryAcquireToken() {
+        if (maxConnectsPerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(maxConnectsPerSecond, tokens + (now - lastRefillNanos) * maxConnectsPerSecond / 1e9);
+        lastRefillNanos = now;
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        long waitNanos = (long) ((1 - tokens) * 1e9 / maxConnectsPerSecond) + 1;
+        executor.schedule(() -> {
+            drainScheduled = false;
+            drain();
+        }, waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void execute(Runnable task) {
+        if (executor.inEventLoop()) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * 等待重连延迟的房间数
+     */
+    public int getDelayedCount() {
+        return delayedCount;
+    }
+
+    /**
+     * 延迟已到、因并发或速率限制排队的房间数
+     */
+    public int getReadyCount() {
+        return readyCount;
+    }
+
+    /**
+     * 等待重连的房间总数
+     */
+    public int getPendingCount() {
+        return delayedCount + readyCount;
+    }
+
+    /**
+     * 正在握手、认证的连接数
+     */
+    public int getInFlightCount() {
+        return inFlightCount;
+    }
+
+    private record Entry(BilibiliRoomConnection connection, boolean important, long seq) {
+    }
+}
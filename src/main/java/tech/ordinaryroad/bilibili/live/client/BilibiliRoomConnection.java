@@ -0,0 +1,474 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.dispatch.BilibiliMsgDispatcher;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliRoomConnectionListener;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfo;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfoCache;
+import tech.ordinaryroad.bilibili.live.util.BilibiliFingerprintSet;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.frame.factory.BilibiliWebSocketFrameFactory;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个房间的连接，由{@link BilibiliLiveChatClientManager}创建，共享其EventLoopGroup和Bootstrap
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+@Getter
+public class BilibiliRoomConnection {
+
+    private final BilibiliLiveChatClientManager manager;
+    private final long roomId;
+    private final ProtoverEnum protover;
+    private final IBilibiliSendSmsReplyMsgListener msgListener;
+    private final IBilibiliRoomConnectionListener connectionListener;
+    /**
+     * 回调队列，重连后继续使用，未配置dispatchExecutor时为null
+     */
+    private final BilibiliMsgDispatcher dispatcher;
+    /**
+     * 热备连接共享的消息指纹，非热备连接为null
+     */
+    private final BilibiliFingerprintSet fingerprints;
+    /**
+     * 热备连接的序号，主连接为0，第二条连接为1，同时作为消息指纹的来源；非热备连接为0
+     */
+    private final int standbyIndex;
+    /**
+     * 热备连接固定使用的EventLoop，两条连接的回调不会并发；为null时由EventLoopGroup分配
+     */
+    private final EventLoop eventLoop;
+    /**
+     * 热备的另一条连接，选择服务器时避开它所在的服务器
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.PACKAGE)
+    private volatile BilibiliRoomConnection sibling;
+
+    private volatile Channel channel;
+    private volatile boolean connected;
+    /**
+     * 手动断开连接后不再自动重连
+     */
+    private volatile boolean cancelReconnect;
+    /**
+     * 连接断开后立即重连，不等待重连延迟
+     */
+    private volatile boolean reconnectImmediately;
+    /**
+     * Channel由disconnect、reconnect主动关闭，握手完成前关闭时不计为服务器失败
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile boolean closeRequested;
+    /**
+     * 从连接调度器发起连接到认证完成或失败之间为true，期间的connect请求合并到本次连接
+     */
+    private volatile boolean connecting;
+    private volatile Runnable connectSuccess;
+    /**
+     * 重要房间在连接调度器中优先连接
+     */
+    @Setter
+    private volatile boolean important;
+    /**
+     * 连续重连次数，用于计算退避延迟，连接成功后清零
+     */
+    private volatile int reconnectAttempts;
+    /**
+     * 以下字段只在连接调度器的EventLoop中访问
+     */
+    @Getter(AccessLevel.NONE)
+    private boolean connectQueued;
+    @Getter(AccessLevel.NONE)
+    private boolean connectPermitHeld;
+    /**
+     * 已编码的认证包，同一房间、协议版本、Cookie在缓存时间内复用
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile AuthFrame authFrame;
+    /**
+     * 配置了roomInfoCache时，最近一次连接前获取的房间元数据
+     */
+    private volatile BilibiliRoomInfo roomInfo;
+    /**
+     * 最近一次连接使用的弹幕服务器
+     */
+    private volatile BilibiliEndpoint endpoint;
+
+    BilibiliRoomConnection(BilibiliLiveChatClientManager manager, long roomId, ProtoverEnum protover,
+                           IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener) {
+        this(manager, roomId, protover, msgListener, connectionListener, BilibiliMsgDispatcher.create(roomId, manager.getConfig()), null, 0, null);
+    }
+
+    BilibiliRoomConnection(BilibiliLiveChatClientManager manager, long roomId, ProtoverEnum protover,
+                           IBilibiliSendSmsReplyMsgListener msgListener, IBilibiliRoomConnectionListener connectionListener,
+                           BilibiliMsgDispatcher dispatcher, BilibiliFingerprintSet fingerprints, int standbyIndex, EventLoop eventLoop) {
+        this.manager = manager;
+        this.roomId = roomId;
+        this.protover = protover;
+        this.msgListener = msgListener;
+        this.connectionListener = connectionListener;
+        this.dispatcher = dispatcher;
+        this.fingerprints = fingerprints;
+        this.standbyIndex = standbyIndex;
+        this.eventLoop = eventLoop;
+    }
+
+    public void connect(Runnable success) {
+        if (manager.isDestroyed()) {
+            log.warn("{} 已销毁，忽略连接请求", roomId);
+            return;
+        }
+        Channel currentChannel = this.channel;
+        if (currentChannel != null && currentChannel.isActive() && !connecting) {
+            log.warn("{} 已连接，忽略连接请求", roomId);
+            return;
+        }
+        this.cancelReconnect = false;
+        this.connectSuccess = success;
+        if (connecting) {
+            log.debug("{} 正在连接，合并连接请求", roomId);
+            return;
+        }
+        manager.getReconnectScheduler().connectNow(this);
+    }
+
+    public void connect() {
+        connect(null);
+    }
+
+    /**
+     * 由连接调度器调用，发起连接
+     */
+    void doConnect() {
+        connecting = true;
+        if (abortIfCancelled()) {
+            return;
+        }
+        BilibiliRoomInfoCache roomInfoCache = manager.getConfig().getRoomInfoCache();
+        if (roomInfoCache == null) {
+            connectChannel();
+            return;
+        }
+        roomInfoCache.get(roomId).whenComplete((info, throwable) -> {
+            // 获取期间房间可能已被断开或移除
+            if (abortIfCancelled()) {
+                return;
+            }
+            if (throwable != null) {
+                log.error("{} 房间信息获取失败", roomId, throwable);
+                onConnectFailed(false);
+                return;
+            }
+            this.roomInfo = info;
+            manager.getEndpointSelector().addHosts(info.getHosts());
+            connectChannel();
+        });
+    }
+
+    private void connectChannel() {
+        if (abortIfCancelled()) {
+            return;
+        }
+        BilibiliEndpoint selected = selectEndpoint();
+        ChannelFuture future = manager.newBootstrap(this, selected).connect();
+        // 连接建立前就记录，disconnect可以关闭正在建立的连接
+        this.channel = future.channel();
+        future.addListener((ChannelFutureListener) connectFuture -> {
+            if (connectFuture.isSuccess()) {
+                log.debug("{} 连接建立成功", roomId);
+                closeIfCancelled(connectFuture.channel());
+            } else if (closeRequested) {
+                closeRequested = false;
+                log.debug("{} 连接建立前已主动关闭", roomId);
+                onConnectFailed(false);
+            } else {
+                log.error("{} 连接建立失败", roomId, connectFuture.cause());
+                onConnectFailed(true);
+            }
+        });
+    }
+
+    /**
+     * 还没有建立Channel时房间被断开、移除或manager已销毁，放弃本次连接并归还并发名额
+     *
+     * @return 是否已放弃
+     */
+    private boolean abortIfCancelled() {
+        if (!cancelReconnect && !manager.isDestroyed()) {
+            return false;
+        }
+        log.debug("{} 连接已取消", roomId);
+        this.connecting = false;
+        manager.getReconnectScheduler().release(this);
+        return true;
+    }
+
+    /**
+     * 连接过程中房间被断开、移除或manager已销毁时关闭连接，由onChannelInactive归还并发名额
+     *
+     * @return 是否已关闭
+     */
+    private boolean closeIfCancelled(Channel channel) {
+        if (!cancelReconnect && !manager.isDestroyed()) {
+            return false;
+        }
+        log.debug("{} 连接已取消", roomId);
+        this.closeRequested = true;
+        channel.close();
+        return true;
+    }
+
+    /**
+     * 选择弹幕服务器并记录
+     * <p>
+     * 热备的两条连接可能在不同线程中同时选择（配置了roomInfoCache时在获取完成的回调中选择），
+     * 选择和记录在主连接的锁中执行，后选择的连接一定能看到先选择的连接已经占用的服务器
+     */
+    private BilibiliEndpoint selectEndpoint() {
+        BilibiliRoomConnection currentSibling = this.sibling;
+        if (currentSibling == null) {
+            BilibiliEndpoint selected = manager.getEndpointSelector().select(null);
+            this.endpoint = selected;
+            return selected;
+        }
+        synchronized (standbyIndex == 0 ? this : currentSibling) {
+            BilibiliEndpoint selected = manager.getEndpointSelector().select(currentSibling.getEndpoint());
+            this.endpoint = selected;
+            return selected;
+        }
+    }
+
+    /**
+     * 断开连接
+     *
+     * @param cancelReconnect 是否取消本次的自动重连
+     */
+    public void disconnect(boolean cancelReconnect) {
+        this.cancelReconnect = cancelReconnect;
+        Channel currentChannel = this.channel;
+        if (currentChannel != null) {
+            this.closeRequested = true;
+            currentChannel.close();
+        }
+    }
+
+    public void disconnect() {
+        disconnect(false);
+    }
+
+    /**
+     * 断开当前连接后立即重新连接
+     */
+    public void reconnect() {
+        Channel currentChannel = this.channel;
+        if (currentChannel == null || !currentChannel.isActive()) {
+            connect();
+            return;
+        }
+        this.reconnectImmediately = true;
+        this.closeRequested = true;
+        currentChannel.close();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public void sendAuth(Channel channel) {
+        log.debug("{} 发送认证包", roomId);
+        String cookie = manager.getConfig().getCookie();
+        long cacheNanos = TimeUnit.SECONDS.toNanos(manager.getConfig().getAuthCacheSeconds());
+        if (cacheNanos <= 0) {
+            channel.writeAndFlush(createAuth(cookie));
+            return;
+        }
+        AuthFrame cached = this.authFrame;
+        BilibiliRoomInfo info = this.roomInfo;
+        long now = System.nanoTime();
+        if (cached == null || !Objects.equals(cached.cookie(), cookie) || cached.roomInfo() != info || now - cached.createdNanos() > cacheNanos) {
+            BinaryWebSocketFrame frame = createAuth(cookie);
+            try {
+                cached = new AuthFrame(cookie, info, now, Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(frame.content()).asReadOnly()));
+            } finally {
+                frame.release();
+            }
+            this.authFrame = cached;
+        }
+        channel.writeAndFlush(new BinaryWebSocketFrame(cached.content().duplicate()));
+    }
+
+    /**
+     * 配置了roomInfoCache时使用缓存的真实房间ID和token，否则由BilibiliWebSocketFrameFactory获取
+     */
+    private BinaryWebSocketFrame createAuth(String cookie) {
+        BilibiliRoomInfo info = this.roomInfo;
+        if (info != null) {
+            return BilibiliPacketUtil.createAuth(UnpooledByteBufAllocator.DEFAULT, info.getRoomId(), protover, cookie, info.getToken());
+        }
+        return BilibiliWebSocketFrameFactory.getInstance(roomId).createAuth(protover, cookie);
+    }
+
+    public void onConnected(Channel channel) {
+        this.channel = channel;
+        if (closeIfCancelled(channel)) {
+            return;
+        }
+        this.connecting = false;
+        this.connected = true;
+        this.reconnectAttempts = 0;
+        manager.getEndpointSelector().onConnected(endpoint);
+        manager.getReconnectScheduler().release(this);
+        if (connectionListener != null) {
+            connectionListener.onConnected(this);
+        }
+        Runnable success = this.connectSuccess;
+        this.connectSuccess = null;
+        if (success != null) {
+            success.run();
+        }
+    }
+
+    /**
+     * 认证失败，缓存的token可能已失效，下次连接前重新获取房间元数据并重新编码认证包
+     */
+    public void onAuthFailed() {
+        this.authFrame = null;
+        BilibiliRoomInfoCache roomInfoCache = manager.getConfig().getRoomInfoCache();
+        if (roomInfoCache != null) {
+            roomInfoCache.invalidate(roomId);
+        }
+    }
+
+    public void onChannelInactive() {
+        boolean closedByUser = this.closeRequested;
+        this.closeRequested = false;
+        if (this.connected) {
+            this.connected = false;
+            log.debug("{} 连接断开", roomId);
+            manager.getEndpointSelector().onDisconnected(endpoint);
+            if (connectionListener != null) {
+                connectionListener.onDisconnected(this);
+            }
+            tryReconnect();
+        } else {
+            // 握手期间被主动关闭时服务器本身没有问题，不进入冷却，也不切换服务器
+            onConnectFailed(!closedByUser);
+        }
+    }
+
+    /**
+     * @param endpointFailed 是否为弹幕服务器连接、握手失败
+     */
+    private void onConnectFailed(boolean endpointFailed) {
+        this.connecting = false;
+        manager.getReconnectScheduler().release(this);
+        if (connectionListener != null) {
+            connectionListener.onConnectFailed(this);
+        }
+        BilibiliEndpointSelector endpointSelector = manager.getEndpointSelector();
+        if (endpointFailed && endpoint != null) {
+            endpointSelector.onFailure(endpoint);
+            // 还有其他可用的服务器时立即切换，不等待重连延迟
+            if (endpointSelector.hasHealthyAlternative(endpoint) && !cancelReconnect && !manager.isDestroyed() && manager.getConfig().isAutoReconnect()) {
+                log.debug("{} {}连接失败，切换服务器", roomId, endpoint);
+                onReconnect();
+                manager.getReconnectScheduler().connectNow(this);
+                return;
+            }
+        }
+        tryReconnect();
+    }
+
+    private void tryReconnect() {
+        if (reconnectImmediately) {
+            reconnectImmediately = false;
+            onReconnect();
+            connect(connectSuccess);
+            return;
+        }
+        if (cancelReconnect || manager.isDestroyed() || !manager.getConfig().isAutoReconnect()) {
+            return;
+        }
+        onReconnect();
+        manager.getReconnectScheduler().reconnectLater(this);
+    }
+
+    boolean isActive() {
+        Channel currentChannel = this.channel;
+        return connecting || currentChannel != null && currentChannel.isActive();
+    }
+
+    int nextReconnectAttempt() {
+        return ++reconnectAttempts;
+    }
+
+    boolean isConnectQueued() {
+        return connectQueued;
+    }
+
+    void setConnectQueued(boolean connectQueued) {
+        this.connectQueued = connectQueued;
+    }
+
+    boolean isConnectPermitHeld() {
+        return connectPermitHeld;
+    }
+
+    void setConnectPermitHeld(boolean connectPermitHeld) {
+        this.connectPermitHeld = connectPermitHeld;
+    }
+
+    private void onReconnect() {
+        IBilibiliMetricsRecorder metricsRecorder = manager.getConfig().getMetricsRecorder();
+        if (metricsRecorder != null) {
+            metricsRecorder.onReconnect(roomId);
+        }
+    }
+
+    private record AuthFrame(String cookie, BilibiliRoomInfo roomInfo, long createdNanos, ByteBuf content) {
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * 进程内共享的客户端SslContext
+ * <p>
+ * 引入netty-tcnative（OpenSSL/BoringSSL）时使用OpenSSL，否则使用JDK实现；会话缓存在SslContext中，
+ * 按host:port复用，所有manager共享同一个SslContext才能在重连时恢复会话，跳过完整握手
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public final class BilibiliSslContexts {
+
+    /**
+     * 会话缓存的最大数量
+     */
+    public static final long SESSION_CACHE_SIZE = 16384;
+    /**
+     * 会话缓存的有效期，单位s，实际能否恢复还取决于服务器下发的ticket有效期
+     */
+    public static final long SESSION_TIMEOUT_SECONDS = 3600;
+
+    private static volatile SslContext shared;
+
+    private BilibiliSslContexts() {
+    }
+
+    /**
+     * 第一次使用时创建
+     */
+    public static SslContext getShared() {
+        SslContext context = shared;
+        if (context == null) {
+            synchronized (BilibiliSslContexts.class) {
+                context = shared;
+                if (context == null) {
+                    SslProvider provider = OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK;
+                    try {
+                        context = SslContextBuilder.forClient()
+                                .sslProvider(provider)
+                                .sessionCacheSize(SESSION_CACHE_SIZE)
+                                .sessionTimeout(SESSION_TIMEOUT_SECONDS)
+                                .build();
+                    } catch (SSLException e) {
+                        throw new IllegalStateException("SslContext创建失败", e);
+                    }
+                    log.debug("使用{}创建SslContext", provider);
+                    shared = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * 是否为恢复的会话：恢复的会话保留首次完整握手时的创建时间，早于本次握手开始的时间
+     *
+     * @param handshakeStartMillis 本次握手开始的时间
+     */
+    public static boolean isResumed(SSLSession session, long handshakeStartMillis) {
+        return session != null && session.getCreationTime() < handshakeStartMillis;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.constant.TransportEnum;
+
+import java.lang.reflect.Constructor;
+import java.util.function.IntFunction;
+
+/**
+ * 根据{@link TransportEnum}和运行环境选择EventLoopGroup和Channel的实现，不可用时回退到NIO
+ * <p>
+ * io_uring在incubator模块中，通过反射加载，没有引入时不影响使用
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+@Getter
+public class BilibiliTransport {
+
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+    private static final BilibiliTransport NIO = new BilibiliTransport(TransportEnum.NIO, NioSocketChannel.class, NioEventLoopGroup::new);
+
+    /**
+     * 实际使用的传输实现，不会是AUTO
+     */
+    private final TransportEnum type;
+    private final Class<? extends SocketChannel> channelClass;
+    @Getter(AccessLevel.NONE)
+    private final IntFunction<EventLoopGroup> groupFactory;
+
+    private BilibiliTransport(TransportEnum type, Class<? extends SocketChannel> channelClass, IntFunction<EventLoopGroup> groupFactory) {
+        this.type = type;
+        this.channelClass = channelClass;
+        this.groupFactory = groupFactory;
+    }
+
+    public EventLoopGroup newEventLoopGroup(int threads) {
+        return groupFactory.apply(threads);
+    }
+
+    public static BilibiliTransport resolve(TransportEnum transport) {
+        if (transport == null) {
+            transport = TransportEnum.AUTO;
+        }
+        BilibiliTransport resolved = switch (transport) {
+            case NIO -> NIO;
+            case EPOLL -> epoll();
+            case IO_URING -> ioUring();
+            case AUTO -> {
+                BilibiliTransport ioUring = ioUring();
+                yield ioUring != null ? ioUring : epoll();
+            }
+        };
+        if (resolved == null) {
+            if (transport != TransportEnum.AUTO) {
+                log.warn("{}不可用，使用NIO", transport);
+            }
+            return NIO;
+        }
+        return resolved;
+    }
+
+    /**
+     * 当前环境下可用的传输实现
+     */
+    public static boolean isAvailable(TransportEnum transport) {
+        return switch (transport) {
+            case AUTO, NIO -> true;
+            case EPOLL -> epoll() != null;
+            case IO_URING -> ioUring() != null;
+        };
+    }
+
+    private static BilibiliTransport epoll() {
+        try {
+            if (!Epoll.isAvailable()) {
+                return null;
+            }
+        } catch (Throwable e) {
+            // 缺少native库
+            return null;
+        }
+        return new BilibiliTransport(TransportEnum.EPOLL, EpollSocketChannel.class, EpollEventLoopGroup::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BilibiliTransport ioUring() {
+        try {
+            ClassLoader classLoader = BilibiliTransport.class.getClassLoader();
+            Class<?> ioUring = Class.forName(IO_URING_PACKAGE + "IOUring", true, classLoader);
+            if (!(Boolean) ioUring.getMethod("isAvailable").invoke(null)) {
+                return null;
+            }
+            Class<? extends SocketChannel> channelClass = (Class<? extends SocketChannel>) Class.forName(IO_URING_PACKAGE + "IOUringSocketChannel", true, classLoader);
+            Constructor<?> groupConstructor = Class.forName(IO_URING_PACKAGE + "IOUringEventLoopGroup", true, classLoader).getConstructor(int.class);
+            return new BilibiliTransport(TransportEnum.IO_URING, channelClass, threads -> {
+                try {
+                    return (EventLoopGroup) groupConstructor.newInstance(threads);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("io_uring EventLoopGroup创建失败", e);
+                }
+            });
+        } catch (Throwable e) {
+            // 没有引入incubator模块或native库加载失败
+            return null;
+        }
+    }
+}
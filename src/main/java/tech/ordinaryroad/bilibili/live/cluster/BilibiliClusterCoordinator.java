@@ -0,0 +1,274 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.client.BilibiliLiveChatClientManager;
+import tech.ordinaryroad.bilibili.live.config.BilibiliClusterConfig;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * 多节点之间的房间分片
+ * <p>
+ * 每个节点配置相同的房间列表，定期向{@link IBilibiliClusterStore}发送心跳、上报本节点房间的消息速率，
+ * 按存活节点和房间权重通过{@link BilibiliConsistentHashRing}计算分配，只连接分配给本节点且取得租约的房间。
+ * 节点加入或离开时，原持有者先释放不再属于自己的房间，新持有者在之后的周期取得租约再连接，只有移动的房间会重连
+ * <pre>
+ * BilibiliClusterCoordinator coordinator = new BilibiliClusterCoordinator(manager, store, config, roomId -> msgListener);
+ * coordinator.addRooms(roomIds);
+ * coordinator.start();
+ * </pre>
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliClusterCoordinator implements AutoCloseable {
+
+    private final BilibiliLiveChatClientManager manager;
+    private final IBilibiliClusterStore store;
+    @Getter
+    private final BilibiliClusterConfig config;
+    private final LongFunction<IBilibiliSendSmsReplyMsgListener> listenerFactory;
+    private final String nodeId;
+    private final Set<Long> roomIds = ConcurrentHashMap.newKeySet();
+    /**
+     * 本节点持有租约并已连接的房间
+     */
+    private final Set<Long> ownedRoomIds = ConcurrentHashMap.newKeySet();
+    /**
+     * 以下字段只在rebalance中访问
+     */
+    private final Map<Long, RoomRate> rates = new HashMap<>();
+    private ScheduledExecutorService executor;
+    private volatile boolean closed;
+
+    /**
+     * @param listenerFactory 按roomId创建消息监听器，房间分配到本节点时调用
+     */
+    public BilibiliClusterCoordinator(BilibiliLiveChatClientManager manager, IBilibiliClusterStore store, BilibiliClusterConfig config,
+                                      LongFunction<IBilibiliSendSmsReplyMsgListener> listenerFactory) {
+        if (config.getNodeId() == null || config.getNodeId().isBlank() || config.getNodeId().chars().anyMatch(Character::isWhitespace)) {
+            throw new IllegalArgumentException("nodeId不能为空或包含空白字符");
+        }
+        this.manager = manager;
+        this.store = store;
+        this.config = config;
+        this.listenerFactory = listenerFactory;
+        this.nodeId = config.getNodeId();
+    }
+
+    public void addRooms(Collection<Long> roomIds) {
+        this.roomIds.addAll(roomIds);
+    }
+
+    public void addRoom(long roomId) {
+        roomIds.add(roomId);
+    }
+
+    /**
+     * 从集群房间列表中移除，所有节点都需要移除，本节点持有时在下次rebalance断开
+     */
+    public void removeRoom(long roomId) {
+        roomIds.remove(roomId);
+    }
+
+    public Set<Long> getRoomIds() {
+        return Collections.unmodifiableSet(roomIds);
+    }
+
+    public Set<Long> getOwnedRoomIds() {
+        return Collections.unmodifiableSet(ownedRoomIds);
+    }
+
+    /**
+     * 立即执行一次，之后每隔rebalanceIntervalMillis执行
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("bilibili-cluster-" + nodeId, true));
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                rebalance();
+            } catch (Exception e) {
+                log.error("{} 集群协调失败", nodeId, e);
+            }
+        }, 0, config.getRebalanceIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 心跳、上报速率、计算分配、释放移出的房间、续期和取得新房间的租约
+     */
+    public synchronized void rebalance() {
+        if (closed) {
+            return;
+        }
+        long leaseMillis = config.getLeaseMillis();
+        store.heartbeat(nodeId, leaseMillis);
+        reportRates();
+
+        List<String> nodes = store.getLiveNodes();
+        if (!nodes.contains(nodeId)) {
+            log.warn("{} 心跳已过期，暂不分配房间", nodeId);
+            return;
+        }
+        Map<Long, Double> weights = store.getWeights();
+        Map<Long, String> assignment = new BilibiliConsistentHashRing(nodes, config.getVirtualNodes())
+                .assign(roomIds, roomId -> weights.getOrDefault(roomId, 1D), config.getLoadFactor());
+
+        // 先释放，新持有者才能在之后取得租约
+        for (Long roomId : new HashSet<>(ownedRoomIds)) {
+            if (!nodeId.equals(assignment.get(roomId))) {
+                log.debug("{} 房间{}移出本节点", nodeId, roomId);
+                disconnect(roomId);
+                store.release(roomId, nodeId);
+            }
+        }
+        assignment.forEach((roomId, owner) -> {
+            if (!nodeId.equals(owner)) {
+                return;
+            }
+            boolean acquired = store.tryAcquire(roomId, nodeId, leaseMillis);
+            if (acquired && ownedRoomIds.add(roomId)) {
+                log.debug("{} 取得房间{}", nodeId, roomId);
+                try {
+                    manager.connect(roomId, listenerFactory.apply(roomId));
+                } catch (Exception e) {
+                    // 例如房间已在manager中单独连接，只跳过该房间，之后的周期重试
+                    log.error("{} 房间{}连接失败", nodeId, roomId, e);
+                    ownedRoomIds.remove(roomId);
+                    store.release(roomId, nodeId);
+                }
+            } else if (!acquired && ownedRoomIds.contains(roomId)) {
+                // 租约已被其他节点取得，例如本节点与存储之间长时间中断
+                log.warn("{} 房间{}的租约已被{}持有", nodeId, roomId, store.getOwner(roomId));
+                disconnect(roomId);
+            }
+        });
+    }
+
+    /**
+     * 断开并释放所有房间，离开集群
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService currentExecutor;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            currentExecutor = executor;
+            for (Long roomId : new HashSet<>(ownedRoomIds)) {
+                disconnect(roomId);
+                store.release(roomId, nodeId);
+            }
+            store.leave(nodeId);
+        }
+        if (currentExecutor != null) {
+            currentExecutor.shutdownNow();
+        }
+    }
+
+    private void disconnect(long roomId) {
+        ownedRoomIds.remove(roomId);
+        rates.remove(roomId);
+        manager.removeRoom(roomId);
+        BilibiliRoomRateMeter rateMeter = config.getRateMeter();
+        if (rateMeter != null) {
+            rateMeter.remove(roomId);
+        }
+    }
+
+    /**
+     * 权重取消息速率（条/s）最接近的2的幂，切换时带有滞回，见{@link BilibiliClusterConfig#getWeightHysteresis()}
+     */
+    private void reportRates() {
+        BilibiliRoomRateMeter rateMeter = config.getRateMeter();
+        if (rateMeter == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Long roomId : ownedRoomIds) {
+            long count = rateMeter.getCount(roomId);
+            RoomRate rate = rates.get(roomId);
+            if (rate == null) {
+                rates.put(roomId, new RoomRate(count, now));
+                continue;
+            }
+            double seconds = (now - rate.lastNanos) / 1e9;
+            if (seconds <= 0) {
+                continue;
+            }
+            double current = (count - rate.lastCount) / seconds;
+            rate.msgsPerSecond = rate.msgsPerSecond < 0 ? current : rate.msgsPerSecond + config.getRateAlpha() * (current - rate.msgsPerSecond);
+            rate.lastCount = count;
+            rate.lastNanos = now;
+            rate.weight = weight(rate.weight, rate.msgsPerSecond, config.getWeightHysteresis());
+            store.reportWeight(roomId, rate.weight);
+        }
+    }
+
+    /**
+     * @param previous 当前权重，0表示还没有权重
+     * @return 速率偏离当前权重超过0.5 + hysteresis（log2）时取最接近的2的幂，否则不变
+     */
+    static double weight(double previous, double msgsPerSecond, double hysteresis) {
+        double log2 = Math.log(Math.max(1, msgsPerSecond)) / Math.log(2);
+        if (previous > 0 && Math.abs(log2 - Math.log(previous) / Math.log(2)) <= 0.5 + hysteresis) {
+            return previous;
+        }
+        return Math.pow(2, Math.round(log2));
+    }
+
+    private static class RoomRate {
+        long lastCount;
+        long lastNanos;
+        double msgsPerSecond = -1;
+        double weight;
+
+        RoomRate(long lastCount, long lastNanos) {
+            this.lastCount = lastCount;
+            this.lastNanos = lastNanos;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * 带负载上限的一致性哈希环
+ * <p>
+ * 每个节点在环上有virtualNodes个虚拟节点，房间按哈希值顺时针找到第一个未满的节点；
+ * 节点的负载上限为 loadFactor × 总权重 / 节点数，高消息速率的房间不会集中在同一节点。
+ * 相同的节点、房间和权重在所有节点上得到相同的分配，节点加入或离开时只有少量房间移动
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final int[] pointNodes;
+
+    public BilibiliConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("节点数和虚拟节点数必须大于0");
+        }
+        this.nodes = nodes.stream().distinct().sorted().toList();
+        int size = this.nodes.size() * virtualNodes;
+        long[][] entries = new long[size][];
+        for (int node = 0, i = 0; node < this.nodes.size(); node++) {
+            byte[] name = this.nodes.get(node).getBytes(StandardCharsets.UTF_8);
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[i++] = new long[]{hash(name, v), node};
+            }
+        }
+        Arrays.sort(entries, Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+        this.points = new long[size];
+        this.pointNodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            pointNodes[i] = (int) entries[i][1];
+        }
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 不考虑负载时房间所在的节点
+     */
+    public String getNode(long roomId) {
+        return nodes.get(pointNodes[firstPoint(mix(roomId))]);
+    }
+
+    /**
+     * 分配房间
+     *
+     * @param weight     房间权重，不能小于0
+     * @param loadFactor 负载上限系数，不小于1，越小越均衡，移动的房间越多
+     * @return roomId -> nodeId
+     */
+    public Map<Long, String> assign(Collection<Long> roomIds, LongToDoubleFunction weight, double loadFactor) {
+        List<long[]> rooms = new ArrayList<>(roomIds.size());
+        double totalWeight = 0;
+        double maxWeight = 0;
+        for (long roomId : roomIds) {
+            double w = weight.applyAsDouble(roomId);
+            totalWeight += w;
+            maxWeight = Math.max(maxWeight, w);
+            rooms.add(new long[]{roomId, Double.doubleToLongBits(w)});
+        }
+        // 权重大的房间先分配，权重相同时按roomId，保证每个节点计算结果一致
+        rooms.sort(Comparator.<long[]>comparingDouble(room -> -Double.longBitsToDouble(room[1])).thenComparingLong(room -> room[0]));
+        double capacity = Math.max(Math.max(loadFactor, 1) * totalWeight / nodes.size(), maxWeight);
+        double[] loads = new double[nodes.size()];
+        Map<Long, String> assignment = new HashMap<>(roomIds.size() * 2);
+        for (long[] room : rooms) {
+            double w = Double.longBitsToDouble(room[1]);
+            int start = firstPoint(mix(room[0]));
+            int selected = -1;
+            for (int i = 0; i < points.length; i++) {
+                int node = pointNodes[(start + i) % points.length];
+                if (loads[node] + w <= capacity) {
+                    selected = node;
+                    break;
+                }
+            }
+            if (selected < 0) {
+                // 浮点误差导致所有节点都超出上限时选择负载最低的
+                selected = 0;
+                for (int node = 1; node < loads.length; node++) {
+                    if (loads[node] < loads[selected]) {
+                        selected = node;
+                    }
+                }
+            }
+            loads[selected] += w;
+            assignment.put(room[0], nodes.get(selected));
+        }
+        return assignment;
+    }
+
+    private int firstPoint(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    private static long hash(byte[] name, int virtualNode) {
+        long h = mix(virtualNode);
+        for (byte b : name) {
+            h = mix(h ^ (b & 0xFF));
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于单个文件的集群存储，同一台机器上的多个进程通过文件锁共享，也可以放在共享文件系统上
+ * <p>
+ * 每次操作都在文件锁内读取、修改、写回整个文件，只适合测试和少量节点；nodeId不能包含空白字符
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliFileClusterStore implements IBilibiliClusterStore {
+
+    /**
+     * FileLock由进程持有，同一进程内访问同一文件的多个实例还需要进程内的锁
+     */
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final LongSupplier clock;
+    private final Object processLock;
+
+    public BilibiliFileClusterStore(Path file, LongSupplier clock) {
+        this.file = file.toAbsolutePath().normalize();
+        this.clock = clock;
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(this.file, key -> new Object());
+    }
+
+    public BilibiliFileClusterStore(Path file) {
+        this(file, System::currentTimeMillis);
+    }
+
+    @Override
+    public void heartbeat(String nodeId, long ttlMillis) {
+        update(state -> state.nodes.put(nodeId, clock.getAsLong() + ttlMillis), true);
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        update(state -> state.nodes.remove(nodeId), true);
+    }
+
+    @Override
+    public List<String> getLiveNodes() {
+        return update(state -> {
+            long now = clock.getAsLong();
+            List<String> live = new ArrayList<>();
+            state.nodes.forEach((nodeId, expiresAt) -> {
+                if (expiresAt > now) {
+                    live.add(nodeId);
+                }
+            });
+            Collections.sort(live);
+            return live;
+        }, false);
+    }
+
+    @Override
+    public boolean tryAcquire(long roomId, String nodeId, long ttlMillis) {
+        return update(state -> {
+            long now = clock.getAsLong();
+            Lease lease = state.leases.get(roomId);
+            if (lease != null && lease.expiresAt() > now && !lease.nodeId().equals(nodeId)) {
+                return false;
+            }
+            state.leases.put(roomId, new Lease(nodeId, now + ttlMillis));
+            return true;
+        }, true);
+    }
+
+    @Override
+    public void release(long roomId, String nodeId) {
+        update(state -> {
+            Lease lease = state.leases.get(roomId);
+            return lease != null && lease.nodeId().equals(nodeId) ? state.leases.remove(roomId) : null;
+        }, true);
+    }
+
+    @Override
+    public String getOwner(long roomId) {
+        return update(state -> {
+            Lease lease = state.leases.get(roomId);
+            return lease == null || lease.expiresAt() <= clock.getAsLong() ? null : lease.nodeId();
+        }, false);
+    }
+
+    @Override
+    public void reportWeight(long roomId, double weight) {
+        update(state -> state.weights.put(roomId, weight), true);
+    }
+
+    @Override
+    public Map<Long, Double> getWeights() {
+        return update(state -> new HashMap<>(state.weights), false);
+    }
+
+    private <T> T update(Function<State, T> action, boolean write) {
+        synchronized (processLock) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // 读取整个文件
+                }
+                State state = State.parse(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+                T result = action.apply(state);
+                if (write) {
+                    byte[] bytes = state.format().getBytes(StandardCharsets.UTF_8);
+                    channel.truncate(0);
+                    channel.write(ByteBuffer.wrap(bytes), 0);
+                    channel.force(false);
+                }
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private record Lease(String nodeId, long expiresAt) {
+    }
+
+    /**
+     * 文件内容，每行一条记录：node nodeId expiresAt、lease roomId nodeId expiresAt、weight roomId weight
+     */
+    private static class State {
+        final Map<String, Long> nodes = new HashMap<>();
+        final Map<Long, Lease> leases = new HashMap<>();
+        final Map<Long, Double> weights = new HashMap<>();
+
+        static State parse(String content) {
+            State state = new State();
+            for (String line : content.split("\n")) {
+                String[] fields = line.trim().split("\\s+");
+                switch (fields[0]) {
+                    case "node" -> state.nodes.put(fields[1], Long.parseLong(fields[2]));
+                    case "lease" -> state.leases.put(Long.parseLong(fields[1]), new Lease(fields[2], Long.parseLong(fields[3])));
+                    case "weight" -> state.weights.put(Long.parseLong(fields[1]), Double.parseDouble(fields[2]));
+                    default -> {
+                        // 空行
+                    }
+                }
+            }
+            return state;
+        }
+
+        String format() {
+            StringBuilder builder = new StringBuilder();
+            nodes.forEach((nodeId, expiresAt) -> builder.append("node ").append(nodeId).append(' ').append(expiresAt).append('\n'));
+            leases.forEach((roomId, lease) -> builder.append("lease ").append(roomId).append(' ').append(lease.nodeId()).append(' ').append(lease.expiresAt()).append('\n'));
+            weights.forEach((roomId, weight) -> builder.append("weight ").append(roomId).append(' ').append(weight).append('\n'));
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的集群存储，用于测试或同一进程中的多个协调器
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliMemoryClusterStore implements IBilibiliClusterStore {
+
+    private final LongSupplier clock;
+    private final Map<String, Long> nodes = new HashMap<>();
+    private final Map<Long, Lease> leases = new HashMap<>();
+    private final Map<Long, Double> weights = new HashMap<>();
+
+    /**
+     * @param clock 毫秒时钟，测试中可以手动推进
+     */
+    public BilibiliMemoryClusterStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public BilibiliMemoryClusterStore() {
+        this(System::currentTimeMillis);
+    }
+
+    @Override
+    public synchronized void heartbeat(String nodeId, long ttlMillis) {
+        nodes.put(nodeId, clock.getAsLong() + ttlMillis);
+    }
+
+    @Override
+    public synchronized void leave(String nodeId) {
+        nodes.remove(nodeId);
+    }
+
+    @Override
+    public synchronized List<String> getLiveNodes() {
+        long now = clock.getAsLong();
+        List<String> live = new ArrayList<>();
+        nodes.forEach((nodeId, expiresAt) -> {
+            if (expiresAt > now) {
+                live.add(nodeId);
+            }
+        });
+        Collections.sort(live);
+        return live;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(long roomId, String nodeId, long ttlMillis) {
+        long now = clock.getAsLong();
+        Lease lease = leases.get(roomId);
+        if (lease != null && lease.expiresAt() > now && !lease.nodeId().equals(nodeId)) {
+            return false;
+        }
+        leases.put(roomId, new Lease(nodeId, now + ttlMillis));
+        return true;
+    }
+
+    @Override
+    public synchronized void release(long roomId, String nodeId) {
+        Lease lease = leases.get(roomId);
+        if (lease != null && lease.nodeId().equals(nodeId)) {
+            leases.remove(roomId);
+        }
+    }
+
+    @Override
+    public synchronized String getOwner(long roomId) {
+        Lease lease = leases.get(roomId);
+        return lease == null || lease.expiresAt() <= clock.getAsLong() ? null : lease.nodeId();
+    }
+
+    @Override
+    public synchronized void reportWeight(long roomId, double weight) {
+        weights.put(roomId, weight);
+    }
+
+    @Override
+    public synchronized Map<Long, Double> getWeights() {
+        return new HashMap<>(weights);
+    }
+
+    private record Lease(String nodeId, long expiresAt) {
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计各房间的消息数，作为{@link BilibiliClusterCoordinator}分配房间时的权重来源
+ * <p>
+ * 需要设置为manager的metricsRecorder，与其他指标一起使用时通过{@link IBilibiliMetricsRecorder#composite}组合
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliRoomRateMeter implements IBilibiliMetricsRecorder {
+
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void onMsgParsed(long roomId, String cmd, long nanos) {
+        LongAdder count = counts.get(roomId);
+        if (count == null) {
+            count = counts.computeIfAbsent(roomId, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * 房间累计的消息数
+     */
+    public long getCount(long roomId) {
+        LongAdder count = counts.get(roomId);
+        return count == null ? 0 : count.sum();
+    }
+
+    public void remove(long roomId) {
+        counts.remove(roomId);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群协调使用的共享存储，保存节点心跳、房间租约和房间权重
+ * <p>
+ * 所有方法都在{@link BilibiliClusterCoordinator}的协调线程中调用，可以是阻塞的远程调用；
+ * 生产环境可以基于Redis、etcd、数据库等实现，测试可以使用{@link BilibiliMemoryClusterStore}、{@link BilibiliFileClusterStore}
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public interface IBilibiliClusterStore {
+
+    /**
+     * 节点心跳，ttlMillis内没有再次心跳的节点视为离开
+     */
+    void heartbeat(String nodeId, long ttlMillis);
+
+    /**
+     * 节点主动离开
+     */
+    void leave(String nodeId);
+
+    /**
+     * 心跳未过期的节点
+     */
+    List<String> getLiveNodes();
+
+    /**
+     * 获取或续期房间租约，没有租约、租约已过期或持有者为nodeId时成功
+     *
+     * @return 是否持有租约
+     */
+    boolean tryAcquire(long roomId, String nodeId, long ttlMillis);
+
+    /**
+     * 释放房间租约，持有者不是nodeId时忽略
+     */
+    void release(long roomId, String nodeId);
+
+    /**
+     * 房间租约的持有者，没有租约或已过期时为null
+     */
+    String getOwner(long roomId);
+
+    /**
+     * 上报房间权重（消息速率），所有节点使用相同的权重计算分配
+     */
+    void reportWeight(long roomId, double weight);
+
+    /**
+     * 所有上报过的房间权重
+     */
+    Map<Long, Double> getWeights();
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.config;
+
+import lombok.Builder;
+import lombok.Data;
+import tech.ordinaryroad.bilibili.live.cluster.BilibiliRoomRateMeter;
+
+/**
+ * 集群分片的配置
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Data
+@Builder(toBuilder = true)
+public class BilibiliClusterConfig {
+
+    /**
+     * 节点ID，集群内唯一，不能包含空白字符
+     */
+    private String nodeId;
+
+    /**
+     * 节点心跳和房间租约的有效期，单位ms，节点异常退出后其房间最迟在该时间后被其他节点接管
+     */
+    @Builder.Default
+    private long leaseMillis = 15_000;
+
+    /**
+     * 续期和重新分配的间隔，单位ms，需要小于leaseMillis
+     */
+    @Builder.Default
+    private long rebalanceIntervalMillis = 5_000;
+
+    /**
+     * 每个节点在哈希环上的虚拟节点数
+     */
+    @Builder.Default
+    private int virtualNodes = 128;
+
+    /**
+     * 节点负载上限系数，节点的权重之和不超过 loadFactor × 平均值
+     */
+    @Builder.Default
+    private double loadFactor = 1.25;
+
+    /**
+     * 房间消息速率来源，为null时所有房间权重相同
+     */
+    private BilibiliRoomRateMeter rateMeter;
+
+    /**
+     * 消息速率移动平均的权重
+     */
+    @Builder.Default
+    private double rateAlpha = 0.3;
+
+    /**
+     * 权重切换的滞回，单位为log2：速率越过两档权重的几何中点后还要再超出该值才切换，速率在中点附近波动时权重和分配不变
+     */
+    @Builder.Default
+    private double weightHysteresis = 0.25;
+}
@@ -0,0 +1,288 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.config;
+
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.NettyRuntime;
+import lombok.Builder;
+import lombok.Data;
+import tech.ordinaryroad.bilibili.live.constant.DispatchOverflowPolicyEnum;
+import tech.ordinaryroad.bilibili.live.constant.TransportEnum;
+import tech.ordinaryroad.bilibili.live.journal.BilibiliFrameJournal;
+import tech.ordinaryroad.bilibili.live.keyword.BilibiliKeywordMatcher;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfoCache;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 多房间共享连接资源的配置
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Data
+@Builder(toBuilder = true)
+public class BilibiliLiveChatClientManagerConfig {
+
+    /**
+     * 共享EventLoopGroup的线程数，默认为CPU核数
+     */
+    @Builder.Default
+    private int workerThreads = NettyRuntime.availableProcessors();
+
+    /**
+     * 传输实现，指定的实现不可用时使用NIO
+     */
+    @Builder.Default
+    private TransportEnum transport = TransportEnum.AUTO;
+
+    /**
+     * 弹幕服务器地址，支持ws和wss
+     */
+    @Builder.Default
+    private String websocketUri = "wss://broadcastlv.chat.bilibili.com:443/sub";
+
+    /**
+     * 多个弹幕服务器地址，不为空时代替websocketUri，按握手耗时、连接数和失败次数选择
+     */
+    private List<String> websocketUris;
+
+    /**
+     * wss连接使用的SslContext，为null时使用进程内共享的BilibiliSslContexts#getShared()；自定义时也应在多个manager之间共享，以便恢复TLS会话
+     */
+    private SslContext sslContext;
+
+    /**
+     * 所有房间默认使用的协议版本
+     */
+    @Builder.Default
+    private ProtoverEnum protover = ProtoverEnum.NORMAL_ZLIB;
+
+    /**
+     * 浏览器Cookie
+     */
+    private String cookie;
+
+    /**
+     * 是否自动重连
+     */
+    @Builder.Default
+    private boolean autoReconnect = true;
+
+    /**
+     * 首次重连的延迟，单位s，之后每次翻倍，直到reconnectMaxDelay
+     */
+    @Builder.Default
+    private int reconnectDelay = 5;
+
+    /**
+     * 重连的最大延迟，单位s
+     */
+    @Builder.Default
+    private int reconnectMaxDelay = 120;
+
+    /**
+     * 重连延迟的随机抖动比例，0.5表示实际延迟在[delay/2, delay]之间随机
+     */
+    @Builder.Default
+    private double reconnectJitter = 0.5;
+
+    /**
+     * 同时处于握手、认证阶段的最大连接数，0表示不限制
+     */
+    @Builder.Default
+    private int maxConcurrentConnects = 256;
+
+    /**
+     * 每秒最多发起的连接数（令牌桶），0表示不限制
+     */
+    @Builder.Default
+    private int maxConnectsPerSecond = 0;
+
+    /**
+     * 连接超时时间，单位ms
+     */
+    @Builder.Default
+    private int connectTimeoutMillis = 10_000;
+
+    /**
+     * SO_RCVBUF，单位字节，0表示使用系统默认值
+     */
+    @Builder.Default
+    private int soRcvBuf = 0;
+
+    /**
+     * 每次读取分配的缓冲区的最小值，单位字节，按实际读取的字节数在最小值和最大值之间自适应调整
+     */
+    @Builder.Default
+    private int recvBufMinSize = 64;
+
+    /**
+     * 每次读取分配的缓冲区的初始值，单位字节
+     */
+    @Builder.Default
+    private int recvBufInitialSize = 2048;
+
+    /**
+     * 每次读取分配的缓冲区的最大值，单位字节
+     */
+    @Builder.Default
+    private int recvBufMaxSize = 64 * 1024;
+
+    /**
+     * 写缓冲区低水位，单位字节，降到此值以下时Channel恢复为可写
+     */
+    @Builder.Default
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    /**
+     * 写缓冲区高水位，单位字节，超过此值时Channel变为不可写
+     */
+    @Builder.Default
+    private int writeBufferHighWaterMark = 64 * 1024;
+
+    /**
+     * 握手响应的最大长度，单位字节
+     */
+    @Builder.Default
+    private int maxHttpContentLength = 64 * 1024;
+
+    /**
+     * 首次发送心跳包的延迟，单位s
+     */
+    @Builder.Default
+    private int heartbeatInitialDelay = 15;
+
+    /**
+     * 心跳包发送周期，单位s
+     */
+    @Builder.Default
+    private int heartbeatPeriod = 25;
+
+    /**
+     * 房间元数据缓存，不为null时连接前通过缓存获取真实房间ID和token并自行创建认证包，批量重连时不会重复请求接口
+     */
+    private BilibiliRoomInfoCache roomInfoCache;
+
+    /**
+     * 认证包的缓存时间，单位s，重连时在此时间内复用已编码的认证包，0表示每次重新创建
+     */
+    @Builder.Default
+    private int authCacheSeconds = 600;
+
+    /**
+     * 批量回调时单批的最大消息数，达到后立即回调，0表示不限制
+     */
+    @Builder.Default
+    private int batchMaxSize = 0;
+
+    /**
+     * 批量回调时跨帧攒批的最长等待时间，单位ms，0表示不跨帧，每帧回调一次
+     */
+    @Builder.Default
+    private long batchMaxDelayMillis = 0;
+
+    /**
+     * 热备房间的去重窗口，单位ms，两条连接在窗口内收到的相同消息只回调一次
+     */
+    @Builder.Default
+    private long hotStandbyDedupMillis = 10_000;
+
+    /**
+     * 热备房间每个去重窗口最多记录的消息数
+     */
+    @Builder.Default
+    private int hotStandbyDedupCapacity = 4096;
+
+    /**
+     * 回调的SendSmsReplyMsg是否按需解析：data、info中的字段在第一次访问时才解析，适合只读取少量字段的监听器；
+     * 遍历全部字段时比完整解析更慢，见LazyMsgParseBenchmark
+     */
+    @Builder.Default
+    private boolean lazyMsgParse = false;
+
+    /**
+     * 只订阅的cmd，为空时订阅全部；在JSON解析之前过滤
+     */
+    private Set<String> allowCmds;
+
+    /**
+     * 不订阅的cmd，例如ONLINE_RANK_COUNT、WATCHED_CHANGE；在JSON解析之前过滤
+     */
+    private Set<String> denyCmds;
+
+    /**
+     * 执行监听器回调的Executor，为null时直接在EventLoop中回调；JDK21及以上可以使用Executors.newVirtualThreadPerTaskExecutor()
+     * <p>
+     * 由调用方负责关闭
+     */
+    private Executor dispatchExecutor;
+
+    /**
+     * 每个房间回调队列的容量
+     */
+    @Builder.Default
+    private int dispatchQueueCapacity = 1024;
+
+    /**
+     * 回调队列已满时的处理策略
+     */
+    @Builder.Default
+    private DispatchOverflowPolicyEnum dispatchOverflowPolicy = DispatchOverflowPolicyEnum.BLOCK_READ;
+
+    /**
+     * DROP_LOW_PRIORITY策略下的高优先级cmd
+     */
+    @Builder.Default
+    private Set<String> dispatchHighPriorityCmds = Set.of("DANMU_MSG", "SEND_GIFT", "SUPER_CHAT_MESSAGE", "GUARD_BUY");
+
+    /**
+     * SAMPLE策略下的采样间隔，每N条保留1条
+     */
+    @Builder.Default
+    private int dispatchSampleInterval = 10;
+
+    /**
+     * 指标回调，为null时不统计；可以使用BilibiliMicrometerMetrics、BilibiliJfrMetrics
+     */
+    private IBilibiliMetricsRecorder metricsRecorder;
+
+    /**
+     * 原始帧日志，不为null时所有房间收到的帧（未解压）都会追加写入，可以通过BilibiliFrameJournal#replay重放
+     * <p>
+     * 由调用方负责关闭
+     */
+    private BilibiliFrameJournal journal;
+
+    /**
+     * 弹幕关键词匹配，不为null时在回调之前匹配类型化监听器收到的DanmuMsg#text，结果写入DanmuMsg#keywordHits；
+     * 所有房间共享，可以通过BilibiliKeywordMatcher#update随时替换关键词
+     */
+    private BilibiliKeywordMatcher keywordMatcher;
+}
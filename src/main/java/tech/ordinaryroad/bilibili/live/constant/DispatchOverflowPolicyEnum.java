@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.constant;
+
+/**
+ * 消息回调队列已满时的处理策略
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public enum DispatchOverflowPolicyEnum {
+    /**
+     * 关闭autoRead暂停读取，队列消费到一半以下时恢复，不丢弃消息
+     */
+    BLOCK_READ,
+    /**
+     * 丢弃队列中最早的消息
+     */
+    DROP_OLDEST,
+    /**
+     * 优先丢弃低优先级cmd的消息，新消息为低优先级时直接丢弃
+     */
+    DROP_LOW_PRIORITY,
+    /**
+     * 按固定间隔采样，每N条新消息保留1条并丢弃队列中最早的消息
+     */
+    SAMPLE,
+}
@@ -0,0 +1,295 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.dispatch;
+
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.constant.DispatchOverflowPolicyEnum;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个房间的消息回调队列，在指定的Executor中按顺序执行回调，避免耗时的监听器阻塞EventLoop
+ * <p>
+ * 同一房间同时最多只有一个消费任务，保证回调顺序与消息顺序一致；热备房间的两条连接共享同一个队列，BLOCK_READ策略下两条连接都会被暂停
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliMsgDispatcher {
+
+    /**
+     * 单次消费的最大消息数，超过后重新提交，避免长期占用Executor的线程
+     */
+    private static final int MAX_TASKS_PER_DRAIN = 256;
+
+    private final long roomId;
+    private final Executor executor;
+    private final int capacity;
+    private final DispatchOverflowPolicyEnum overflowPolicy;
+    private final Set<String> highPriorityCmds;
+    private final int sampleInterval;
+
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private final Runnable drainTask = this::drain;
+    private final LongAdder dispatchedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    /**
+     * 以下字段由queue的锁保护
+     */
+    private boolean draining;
+    private final Set<Channel> pausedChannels = new HashSet<>();
+    private int sampleCounter;
+
+    public BilibiliMsgDispatcher(long roomId, BilibiliLiveChatClientManagerConfig config) {
+        this.roomId = roomId;
+        this.executor = config.getDispatchExecutor();
+        this.capacity = Math.max(1, config.getDispatchQueueCapacity());
+        this.overflowPolicy = config.getDispatchOverflowPolicy();
+        this.highPriorityCmds = config.getDispatchHighPriorityCmds();
+        this.sampleInterval = Math.max(1, config.getDispatchSampleInterval());
+    }
+
+    /**
+     * 未配置dispatchExecutor时返回null，回调直接在EventLoop中执行
+     */
+    public static BilibiliMsgDispatcher create(long roomId, BilibiliLiveChatClientManagerConfig config) {
+        return config.getDispatchExecutor() == null ? null : new BilibiliMsgDispatcher(roomId, config);
+    }
+
+    /**
+     * 提交回调，在EventLoop中调用
+     *
+     * @param channel  消息来源的Channel，BLOCK_READ策略下用于暂停读取
+     * @param cmd      消息的cmd，批量回调等没有cmd的传null，视为高优先级
+     * @param callback 监听器回调
+     */
+    public void dispatch(Channel channel, String cmd, Runnable callback) {
+        boolean submit;
+        synchronized (queue) {
+            if (queue.size() >= capacity && !onOverflow(cmd)) {
+                droppedCount.increment();
+                return;
+            }
+            queue.offer(new Task(cmd, callback));
+            if (overflowPolicy == DispatchOverflowPolicyEnum.BLOCK_READ && queue.size() >= capacity && pausedChannels.add(channel)) {
+                channel.config().setAutoRead(false);
+                log.debug("{} 回调队列已满，暂停读取", roomId);
+            }
+            submit = !draining;
+            draining = true;
+        }
+        if (submit) {
+            submitDrain();
+        }
+    }
+
+    /**
+     * @return 新消息是否入队
+     */
+    private boolean onOverflow(String cmd) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                queue.poll();
+                droppedCount.increment();
+                return true;
+            }
+            case DROP_LOW_PRIORITY -> {
+                if (!isHighPriority(cmd)) {
+                    return false;
+                }
+                if (!removeFirstLowPriority()) {
+                    queue.poll();
+                }
+                droppedCount.increment();
+                return true;
+            }
+            case SAMPLE -> {
+                if (++sampleCounter % sampleInterval != 0) {
+                    return false;
+                }
+                queue.poll();
+                droppedCount.increment();
+                return true;
+            }
+            // BLOCK_READ：已经读取的帧中的消息仍然入队，队列可以暂时超过容量
+            default -> {
+                return true;
+            }
+        }
+    }
+
+    private boolean isHighPriority(String cmd) {
+        return cmd == null || highPriorityCmds.contains(cmd);
+    }
+
+    private boolean removeFirstLowPriority() {
+        Iterator<Task> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (!isHighPriority(iterator.next().cmd())) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void submitDrain() {
+        try {
+            executor.execute(drainTask);
+        } catch (RejectedExecutionException e) {
+            log.error("{} 回调任务提交失败，丢弃队列中的消息", roomId, e);
+            List<Channel> resume;
+            synchronized (queue) {
+                droppedCount.add(queue.size());
+                queue.clear();
+                draining = false;
+                resume = takePausedChannels();
+            }
+            resume(resume);
+        }
+    }
+
+    private void drain() {
+        // 监听器抛出Error时也要继续消费，否则draining一直为true，该房间不再回调
+        boolean resubmit = true;
+        try {
+            for (int i = 0; i < MAX_TASKS_PER_DRAIN; i++) {
+                Task task;
+                List<Channel> resume = null;
+                synchronized (queue) {
+                    task = queue.poll();
+                    if (task == null) {
+                        draining = false;
+                        resubmit = false;
+                        return;
+                    }
+                    if (!pausedChannels.isEmpty() && queue.size() <= capacity / 2) {
+                        resume = takePausedChannels();
+                    }
+                }
+                if (resume != null) {
+                    log.debug("{} 回调队列已消费过半，恢复读取", roomId);
+                    resume(resume);
+                }
+                try {
+                    task.callback().run();
+                } catch (Exception e) {
+                    log.error("{} 消息处理失败", roomId, e);
+                } finally {
+                    dispatchedCount.increment();
+                }
+            }
+        } finally {
+            if (resubmit) {
+                submitDrain();
+            }
+        }
+    }
+
+    /**
+     * 连接建立时调用，队列仍然超过容量时暂停新连接的读取
+     */
+    public void onChannelActive(Channel channel) {
+        if (overflowPolicy != DispatchOverflowPolicyEnum.BLOCK_READ) {
+            return;
+        }
+        synchronized (queue) {
+            if (queue.size() >= capacity && pausedChannels.add(channel)) {
+                channel.config().setAutoRead(false);
+                log.debug("{} 回调队列已满，暂停新连接的读取", roomId);
+            }
+        }
+    }
+
+    /**
+     * 连接断开时调用，不再持有已关闭的Channel，重连后的Channel可以重新被暂停
+     */
+    public void onChannelInactive(Channel channel) {
+        synchronized (queue) {
+            pausedChannels.remove(channel);
+        }
+    }
+
+    /**
+     * 在queue的锁中调用
+     */
+    private List<Channel> takePausedChannels() {
+        List<Channel> channels = new ArrayList<>(pausedChannels);
+        pausedChannels.clear();
+        return channels;
+    }
+
+    private static void resume(List<Channel> channels) {
+        for (Channel channel : channels) {
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    /**
+     * 当前队列中等待回调的消息数
+     */
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * 已执行的回调数
+     */
+    public long getDispatchedCount() {
+        return dispatchedCount.sum();
+    }
+
+    /**
+     * 因队列已满被丢弃的消息数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 是否因队列已满暂停了读取
+     */
+    public boolean isReadPaused() {
+        synchronized (queue) {
+            return !pausedChannels.isEmpty();
+        }
+    }
+
+    private record Task(String cmd, Runnable callback) {
+    }
+}
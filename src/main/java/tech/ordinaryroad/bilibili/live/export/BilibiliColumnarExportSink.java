@@ -0,0 +1,267 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.export;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMpscRingBuffer;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 弹幕、礼物的列式导出
+ * <p>
+ * 回调中只把消息放入无锁环形缓冲区，由单独的线程按{@link BilibiliColumnarFormat}攒块编码写入文件，按大小或时间滚动；
+ * 写入中的文件以.part结尾，滚动后重命名
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliColumnarExportSink implements IBilibiliTypedMsgListener, Closeable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String PART_SUFFIX = ".part";
+
+    @Getter
+    private final Path directory;
+    private final long maxFileBytes;
+    private final long rollIntervalMillis;
+    private final int blockRows;
+    private final long blockIntervalMillis;
+    private final BilibiliMpscRingBuffer<BilibiliColumnarFormat.Row<?>> ringBuffer;
+    private final LongAdder droppedCount = new LongAdder();
+    /**
+     * 正在offer的生产者数，写入线程在close之后等它归零再做最后一次写入，避免close前通过检查的行留在缓冲区中
+     */
+    private final AtomicInteger offering = new AtomicInteger();
+    private final Thread writerThread;
+    private volatile long writtenCount;
+    private volatile boolean closed;
+
+    /**
+     * 以下字段只在写入线程中访问
+     */
+    private final List<BilibiliColumnarFormat.Row<DanmuMsg>> danmus = new ArrayList<>();
+    private final List<BilibiliColumnarFormat.Row<SendGiftMsg>> gifts = new ArrayList<>();
+    private long blockStartMillis;
+    private DataOutputStream out;
+    private Path partPath;
+    private long fileBytes;
+    private long fileStartMillis;
+    private int fileSeq;
+
+    /**
+     * @param directory           导出目录
+     * @param maxFileBytes        单个文件的最大字节数，超过后滚动
+     * @param rollIntervalMillis  单个文件的最长写入时间，单位ms，超过后滚动
+     * @param blockRows           每个数据块的最大行数，越大压缩率越高
+     * @param blockIntervalMillis 数据块的最长等待时间，单位ms
+     * @param bufferSize          待写入消息的缓冲区大小，满时丢弃
+     */
+    public BilibiliColumnarExportSink(Path directory, long maxFileBytes, long rollIntervalMillis, int blockRows, long blockIntervalMillis, int bufferSize) throws IOException {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.blockRows = blockRows;
+        this.blockIntervalMillis = blockIntervalMillis;
+        this.ringBuffer = new BilibiliMpscRingBuffer<>(bufferSize);
+        Files.createDirectories(directory);
+        this.writerThread = new DefaultThreadFactory("bilibili-export").newThread(this::runWriter);
+        writerThread.start();
+    }
+
+    /**
+     * 256MB或1小时滚动，每块最多8192行或1s
+     */
+    public BilibiliColumnarExportSink(Path directory) throws IOException {
+        this(directory, 256L * 1024 * 1024, TimeUnit.HOURS.toMillis(1), 8192, 1000, 65536);
+    }
+
+    @Override
+    public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+        offer(new BilibiliColumnarFormat.Row<>(binaryFrameHandler.getRoomId(), msg));
+    }
+
+    @Override
+    public void onGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendGiftMsg msg) {
+        offer(new BilibiliColumnarFormat.Row<>(binaryFrameHandler.getRoomId(), msg));
+    }
+
+    /**
+     * 已写入文件的行数
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * 缓冲区已满或写入失败而丢弃的行数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 写入剩余的消息并关闭文件；之后offer的消息计入丢弃数
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void offer(BilibiliColumnarFormat.Row<?> row) {
+        offering.incrementAndGet();
+        try {
+            if (closed || !ringBuffer.offer(row)) {
+                droppedCount.increment();
+            }
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            BilibiliColumnarFormat.Row<?> row = ringBuffer.poll();
+            long now = System.currentTimeMillis();
+            if (row != null) {
+                add(row, now);
+            } else if (closed) {
+                if (offering.get() > 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                // 此后的offer都会看到closed，缓冲区中剩余的行写完即可退出
+                while ((row = ringBuffer.poll()) != null) {
+                    add(row, now);
+                }
+                writeBlocks(now);
+                closeFile();
+                return;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            int pendingRows = danmus.size() + gifts.size();
+            if (pendingRows >= blockRows || pendingRows > 0 && now - blockStartMillis >= blockIntervalMillis) {
+                writeBlocks(now);
+            }
+            if (out != null && (fileBytes >= maxFileBytes || now - fileStartMillis >= rollIntervalMillis)) {
+                closeFile();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(BilibiliColumnarFormat.Row<?> row, long now) {
+        if (danmus.isEmpty() && gifts.isEmpty()) {
+            blockStartMillis = now;
+        }
+        if (row.msg() instanceof DanmuMsg) {
+            danmus.add((BilibiliColumnarFormat.Row<DanmuMsg>) row);
+        } else {
+            gifts.add((BilibiliColumnarFormat.Row<SendGiftMsg>) row);
+        }
+    }
+
+    private void writeBlocks(long now) {
+        int rows = danmus.size() + gifts.size();
+        if (rows == 0) {
+            return;
+        }
+        try {
+            if (out == null) {
+                openFile(now);
+            }
+            if (!danmus.isEmpty()) {
+                write(BilibiliColumnarFormat.encodeDanmuBlock(danmus));
+            }
+            if (!gifts.isEmpty()) {
+                write(BilibiliColumnarFormat.encodeGiftBlock(gifts));
+            }
+            out.flush();
+            writtenCount += rows;
+        } catch (Exception e) {
+            log.error("导出失败，丢弃{}行", rows, e);
+            droppedCount.add(rows);
+            closeFile();
+        } finally {
+            danmus.clear();
+            gifts.clear();
+        }
+    }
+
+    private void write(byte[] block) throws IOException {
+        out.write(block);
+        fileBytes += block.length;
+    }
+
+    private void openFile(long now) throws IOException {
+        partPath = directory.resolve(String.format("bilibili-%d-%d%s%s", now, fileSeq++, BilibiliColumnarFormat.FILE_SUFFIX, PART_SUFFIX));
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partPath), 64 * 1024));
+        BilibiliColumnarFormat.writeHeader(out);
+        fileBytes = BilibiliColumnarFormat.MAGIC.length + 1;
+        fileStartMillis = now;
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+            String name = partPath.getFileName().toString();
+            Files.move(partPath, partPath.resolveSibling(name.substring(0, name.length() - PART_SUFFIX.length())), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("导出文件关闭失败 {}", partPath, e);
+        } finally {
+            out = null;
+            partPath = null;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.export;
+
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 列式导出文件格式
+ * <p>
+ * 文件：魔数"ORBC"(4) + 版本(1) + 若干数据块，直到文件结束
+ * <p>
+ * 数据块：类型(1，1弹幕/2礼物) + 行数(varint) + 原始长度(varint) + 压缩长度(varint) + Deflate压缩的列数据
+ * <p>
+ * 列数据按列依次存放，每列的所有行连续：
+ * <ul>
+ *     <li>字典列：字典大小(varint) + 字典值，之后每行一个字典下标(varint)，字符串下标0表示null、从1开始</li>
+ *     <li>时间戳列：每行与上一行的差值(zigzag varlong)，第一行与0的差值</li>
+ *     <li>字符串列：每行UTF-8长度(varint)+内容，null写作空字符串</li>
+ *     <li>数值列：varint/varlong</li>
+ * </ul>
+ * 弹幕列顺序：roomId(long字典) uid(long字典) uname(字典) text(字符串) timestamp(ms) medalLevel(varint) medalName(字典)
+ * <p>
+ * 礼物列顺序：roomId(long字典) uid(long字典) uname(字典) giftId(varlong) giftName(字典) num(varint) price(varlong) coinType(字典) action(字典) timestamp(s)
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public final class BilibiliColumnarFormat {
+
+    public static final String FILE_SUFFIX = ".orbc";
+    static final byte[] MAGIC = {'O', 'R', 'B', 'C'};
+    static final int VERSION = 1;
+    static final int BLOCK_DANMU = 1;
+    static final int BLOCK_GIFT = 2;
+
+    private BilibiliColumnarFormat() {
+    }
+
+    /**
+     * 读取整个文件
+     */
+    public static void read(Path path, RowVisitor visitor) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+            read(inputStream, visitor);
+        }
+    }
+
+    public static void read(InputStream inputStream, RowVisitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("不是列式导出文件");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的版本 " + version);
+        }
+        while (true) {
+            int type = in.read();
+            if (type == -1) {
+                return;
+            }
+            int rows = readVarInt(in);
+            byte[] raw = new byte[readVarInt(in)];
+            byte[] compressed = new byte[readVarInt(in)];
+            in.readFully(compressed);
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                if (inflater.inflate(raw) != raw.length) {
+                    throw new EOFException("数据块不完整");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("数据块解压失败", e);
+            } finally {
+                inflater.end();
+            }
+            DataInputStream body = new DataInputStream(new ByteArrayInputStream(raw));
+            switch (type) {
+                case BLOCK_DANMU -> readDanmuBlock(body, rows, visitor);
+                case BLOCK_GIFT -> readGiftBlock(body, rows, visitor);
+                default -> throw new IOException("未知数据块类型 " + type);
+            }
+        }
+    }
+
+    static void writeHeader(DataOutput out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    static byte[] encodeDanmuBlock(List<Row<DanmuMsg>> rows) {
+        int n = rows.size();
+        LongDictionary roomIds = new LongDictionary(n);
+        LongDictionary uids = new LongDictionary(n);
+        StringDictionary unames = new StringDictionary(n);
+        StringDictionary medalNames = new StringDictionary(n);
+        for (Row<DanmuMsg> row : rows) {
+            roomIds.add(row.roomId());
+            uids.add(row.msg().getUid());
+            unames.add(row.msg().getUname());
+            medalNames.add(row.msg().getMedalName());
+        }
+        return encodeBlock(BLOCK_DANMU, n, out -> {
+            roomIds.writeTo(out);
+            uids.writeTo(out);
+            unames.writeTo(out);
+            for (Row<DanmuMsg> row : rows) {
+                writeString(out, row.msg().getText());
+            }
+            long previous = 0;
+            for (Row<DanmuMsg> row : rows) {
+                writeVarLong(out, zigzag(row.msg().getTimestamp() - previous));
+                previous = row.msg().getTimestamp();
+            }
+            for (Row<DanmuMsg> row : rows) {
+                writeVarInt(out, row.msg().getMedalLevel());
+            }
+            medalNames.writeTo(out);
+        });
+    }
+
+    static byte[] encodeGiftBlock(List<Row<SendGiftMsg>> rows) {
+        int n = rows.size();
+        LongDictionary roomIds = new LongDictionary(n);
+        LongDictionary uids = new LongDictionary(n);
+        StringDictionary unames = new StringDictionary(n);
+        StringDictionary giftNames = new StringDictionary(n);
+        StringDictionary coinTypes = new StringDictionary(n);
+        StringDictionary actions = new StringDictionary(n);
+        for (Row<SendGiftMsg> row : rows) {
+            roomIds.add(row.roomId());
+            uids.add(row.msg().getUid());
+            unames.add(row.msg().getUname());
+            giftNames.add(row.msg().getGiftName());
+            coinTypes.add(row.msg().getCoinType());
+            actions.add(row.msg().getAction());
+        }
+        return encodeBlock(BLOCK_GIFT, n, out -> {
+            roomIds.writeTo(out);
+            uids.writeTo(out);
+            unames.writeTo(out);
+            for (Row<SendGiftMsg> row : rows) {
+                writeVarLong(out, row.msg().getGiftId());
+            }
+            giftNames.writeTo(out);
+            for (Row<SendGiftMsg> row : rows) {
+                writeVarInt(out, row.msg().getNum());
+            }
+            for (Row<SendGiftMsg> row : rows) {
+                writeVarLong(out, row.msg().getPrice());
+            }
+            coinTypes.writeTo(out);
+            actions.writeTo(out);
+            long previous = 0;
+            for (Row<SendGiftMsg> row : rows) {
+                writeVarLong(out, zigzag(row.msg().getTimestamp() - previous));
+                previous = row.msg().getTimestamp();
+            }
+        });
+    }
+
+    private static void readDanmuBlock(DataInput in, int rows, RowVisitor visitor) throws IOException {
+        long[] roomIds = readLongColumn(in, rows);
+        long[] uids = readLongColumn(in, rows);
+        String[] unames = readStringColumn(in, rows);
+        DanmuMsg[] msgs = new DanmuMsg[rows];
+        for (int i = 0; i < rows; i++) {
+            msgs[i] = new DanmuMsg();
+            msgs[i].setUid(uids[i]);
+            msgs[i].setUname(unames[i]);
+            msgs[i].setText(readString(in));
+        }
+        long timestamp = 0;
+        for (DanmuMsg msg : msgs) {
+            timestamp += unzigzag(readVarLong(in));
+            msg.setTimestamp(timestamp);
+        }
+        for (DanmuMsg msg : msgs) {
+            msg.setMedalLevel(readVarInt(in));
+        }
+        String[] medalNames = readStringColumn(in, rows);
+        for (int i = 0; i < rows; i++) {
+            msgs[i].setMedalName(medalNames[i]);
+            visitor.onDanmu(roomIds[i], msgs[i]);
+        }
+    }
+
+    private static void readGiftBlock(DataInput in, int rows, RowVisitor visitor) throws IOException {
+        long[] roomIds = readLongColumn(in, rows);
+        long[] uids = readLongColumn(in, rows);
+        String[] unames = readStringColumn(in, rows);
+        SendGiftMsg[] msgs = new SendGiftMsg[rows];
+        for (int i = 0; i < rows; i++) {
+            msgs[i] = new SendGiftMsg();
+            msgs[i].setUid(uids[i]);
+            msgs[i].setUname(unames[i]);
+            msgs[i].setGiftId(readVarLong(in));
+        }
+        String[] giftNames = readStringColumn(in, rows);
+        for (SendGiftMsg msg : msgs) {
+            msg.setNum(readVarInt(in));
+        }
+        for (SendGiftMsg msg : msgs) {
+            msg.setPrice(readVarLong(in));
+        }
+        String[] coinTypes = readStringColumn(in, rows);
+        String[] actions = readStringColumn(in, rows);
+        long timestamp = 0;
+        for (int i = 0; i < rows; i++) {
+            timestamp += unzigzag(readVarLong(in));
+            msgs[i].setTimestamp(timestamp);
+            msgs[i].setGiftName(giftNames[i]);
+            msgs[i].setCoinType(coinTypes[i]);
+            msgs[i].setAction(actions[i]);
+            visitor.onGift(roomIds[i], msgs[i]);
+        }
+    }
+
+    private static byte[] encodeBlock(int type, int rows, ColumnWriter columnWriter) {
+        try {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            columnWriter.write(new DataOutputStream(raw));
+            byte[] rawBytes = raw.toByteArray();
+            Deflater deflater = new Deflater();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(rawBytes.length / 4 + 64);
+            try {
+                deflater.setInput(rawBytes);
+                deflater.finish();
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } finally {
+                deflater.end();
+            }
+            ByteArrayOutputStream block = new ByteArrayOutputStream(compressed.size() + 16);
+            DataOutputStream out = new DataOutputStream(block);
+            out.writeByte(type);
+            writeVarInt(out, rows);
+            writeVarInt(out, rawBytes.length);
+            writeVarInt(out, compressed.size());
+            compressed.writeTo(out);
+            return block.toByteArray();
+        } catch (IOException e) {
+            // 只写入内存
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long[] readLongColumn(DataInput in, int rows) throws IOException {
+        long[] dictionary = new long[readVarInt(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readVarLong(in);
+        }
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = dictionary[readVarInt(in)];
+        }
+        return values;
+    }
+
+    private static String[] readStringColumn(DataInput in, int rows) throws IOException {
+        String[] dictionary = new String[readVarInt(in) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = readString(in);
+        }
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = dictionary[readVarInt(in)];
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint格式错误");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 一行数据及其房间
+     */
+    record Row<T>(long roomId, T msg) {
+    }
+
+    /**
+     * 读取时的回调
+     */
+    public interface RowVisitor {
+        default void onDanmu(long roomId, DanmuMsg msg) {
+        }
+
+        default void onGift(long roomId, SendGiftMsg msg) {
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private static final class LongDictionary {
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private final List<Long> values = new ArrayList<>();
+        private final int[] indexes;
+        private int size;
+
+        private LongDictionary(int rows) {
+            this.indexes = new int[rows];
+        }
+
+        private void add(long value) {
+            indexes[size++] = ids.computeIfAbsent(value, k -> {
+                values.add(k);
+                return values.size() - 1;
+            });
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            writeVarInt(out, values.size());
+            for (long value : values) {
+                writeVarLong(out, value);
+            }
+            for (int i = 0; i < size; i++) {
+                writeVarInt(out, indexes[i]);
+            }
+        }
+    }
+
+    private static final class StringDictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final int[] indexes;
+        private int size;
+
+        private StringDictionary(int rows) {
+            this.indexes = new int[rows];
+        }
+
+        private void add(String value) {
+            indexes[size++] = value == null ? 0 : ids.computeIfAbsent(value, k -> {
+                values.add(k);
+                return values.size();
+            });
+        }
+
+        private void writeTo(DataOutput out) throws IOException {
+            writeVarInt(out, values.size());
+            for (String value : values) {
+                writeString(out, value);
+            }
+            for (int i = 0; i < size; i++) {
+                writeVarInt(out, indexes[i]);
+            }
+        }
+    }
+}
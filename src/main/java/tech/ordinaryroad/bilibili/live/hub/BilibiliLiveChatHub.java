@@ -0,0 +1,419 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.hub;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliBatchMsgListener;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.InteractWordMsg;
+import tech.ordinaryroad.bilibili.live.msg.LikeClickMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMpscRingBuffer;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.BilibiliCmdEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseCmdMsg;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseMsg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多房间消息汇聚：所有房间的消息按roomId分配到固定数量的分片，每个分片一个无锁环形缓冲区和一个消费线程
+ * <p>
+ * 同一房间的消息总是进入同一分片，保证房间内有序；不同分片之间没有共享锁，消费能力随分片数线性扩展。
+ * downstream实现了{@link IBilibiliTypedMsgListener}、{@link IBilibiliBatchMsgListener}时，房间监听器也实现对应的接口，一个批次作为一条消息进入分片。
+ * <p>
+ * 缓冲区满时不丢弃的情况下采用与BLOCK_READ相同的背压：消息进入分片的溢出队列并暂停来源Channel的读取，溢出队列消费完后恢复读取，EventLoop不会被阻塞
+ * <pre>
+ * BilibiliLiveChatHub hub = new BilibiliLiveChatHub(4, 8192, downstreamListener);
+ * manager.connect(roomId, hub.listener(roomId));
+ * </pre>
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliLiveChatHub implements AutoCloseable {
+
+    /**
+     * 空闲时先自旋，之后休眠，兼顾延迟和CPU占用
+     */
+    private static final int IDLE_SPINS = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final IBilibiliSendSmsReplyMsgListener downstream;
+    private final IBilibiliTypedMsgListener typedDownstream;
+    private final IBilibiliBatchMsgListener batchDownstream;
+    private final boolean dropWhenFull;
+    private final Shard[] shards;
+    private volatile boolean closed;
+
+    /**
+     * @param shardCount   分片数，即消费线程数
+     * @param bufferSize   每个分片的缓冲区大小
+     * @param downstream   在分片线程中回调的监听器
+     * @param dropWhenFull 缓冲区满时丢弃消息，否则进入溢出队列并暂停来源Channel的读取
+     */
+    public BilibiliLiveChatHub(int shardCount, int bufferSize, IBilibiliSendSmsReplyMsgListener downstream, boolean dropWhenFull, ThreadFactory threadFactory) {
+        this.downstream = downstream;
+        this.typedDownstream = downstream instanceof IBilibiliTypedMsgListener typed ? typed : null;
+        this.batchDownstream = downstream instanceof IBilibiliBatchMsgListener batch ? batch : null;
+        this.dropWhenFull = dropWhenFull;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, bufferSize);
+            Thread thread = threadFactory.newThread(shards[i]);
+            shards[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    public BilibiliLiveChatHub(int shardCount, int bufferSize, IBilibiliSendSmsReplyMsgListener downstream) {
+        this(shardCount, bufferSize, downstream, false, new DefaultThreadFactory("bilibili-hub"));
+    }
+
+    /**
+     * 获取房间对应的监听器，连接房间时使用
+     */
+    public IBilibiliSendSmsReplyMsgListener listener(long roomId) {
+        Shard shard = shardOf(roomId);
+        if (batchDownstream != null) {
+            return typedDownstream == null ? new BatchRoomListener(shard) : new TypedBatchRoomListener(shard);
+        }
+        return typedDownstream == null ? new RoomListener(shard) : new TypedRoomListener(shard);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * 分片中等待消费的消息数，包括溢出队列中的消息
+     */
+    public int getBacklog(int shard) {
+        return shards[shard].ringBuffer.size() + shards[shard].overflowSize();
+    }
+
+    /**
+     * 分片是否因缓冲区满暂停了来源Channel的读取
+     */
+    public boolean isReadPaused(int shard) {
+        return shards[shard].isReadPaused();
+    }
+
+    public long getPublishedCount(int shard) {
+        return shards[shard].publishedCount.sum();
+    }
+
+    public long getDroppedCount(int shard) {
+        return shards[shard].droppedCount.sum();
+    }
+
+    /**
+     * 停止接收新消息，等待已接收的消息消费完毕；之后发布的消息计入丢弃数
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+    }
+
+    private Shard shardOf(long roomId) {
+        return shards[(int) Math.floorMod(Long.hashCode(roomId) * 0x9E3779B9, shards.length)];
+    }
+
+    private final class Shard implements Runnable {
+        private final int index;
+        private final BilibiliMpscRingBuffer<Runnable> ringBuffer;
+        private final LongAdder publishedCount = new LongAdder();
+        private final LongAdder droppedCount = new LongAdder();
+        /**
+         * 正在发布的生产者数，消费线程在close之后等它归零再做最后一次消费，避免close前通过检查的消息留在缓冲区中
+         */
+        private final AtomicInteger publishing = new AtomicInteger();
+        /**
+         * 缓冲区满时的溢出队列和被暂停读取的Channel，由溢出队列自身加锁保护
+         */
+        private final ArrayDeque<Runnable> overflow = new ArrayDeque<>();
+        private final Set<Channel> pausedChannels = new HashSet<>();
+        /**
+         * 溢出队列非空期间为true，生产者直接写入溢出队列，保证同一生产者的消息顺序
+         */
+        private volatile boolean overflowing;
+        private Thread thread;
+
+        private Shard(int index, int bufferSize) {
+            this.index = index;
+            this.ringBuffer = new BilibiliMpscRingBuffer<>(bufferSize);
+        }
+
+        /**
+         * @param channel 消息来源的Channel，缓冲区满时暂停它的读取，为null时只进入溢出队列
+         */
+        private void publish(Channel channel, Runnable event) {
+            publishing.incrementAndGet();
+            try {
+                if (closed) {
+                    droppedCount.increment();
+                    return;
+                }
+                if (!overflowing && ringBuffer.offer(event)) {
+                    publishedCount.increment();
+                    return;
+                }
+                if (dropWhenFull) {
+                    droppedCount.increment();
+                    return;
+                }
+                synchronized (overflow) {
+                    overflow.add(event);
+                    overflowing = true;
+                    if (channel != null && pausedChannels.add(channel)) {
+                        channel.config().setAutoRead(false);
+                    }
+                }
+                publishedCount.increment();
+            } finally {
+                publishing.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                Runnable event = ringBuffer.poll();
+                if (event != null) {
+                    idle = 0;
+                    consume(event);
+                } else if (overflowing) {
+                    idle = 0;
+                    drainOverflow();
+                } else if (closed) {
+                    if (publishing.get() > 0) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    // 此后的生产者都会看到closed，缓冲区和溢出队列中剩余的消息消费完即可退出
+                    drainRingBuffer();
+                    drainOverflow();
+                    return;
+                } else if (++idle < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        /**
+         * 消费溢出队列，队列为空时恢复被暂停的Channel
+         * <p>
+         * 取出一批溢出消息后先消费完缓冲区：溢出期间生产者只写入溢出队列，此时缓冲区中的消息都早于这一批
+         */
+        private void drainOverflow() {
+            List<Channel> channels;
+            while (true) {
+                List<Runnable> events;
+                synchronized (overflow) {
+                    if (overflow.isEmpty()) {
+                        overflowing = false;
+                        channels = new ArrayList<>(pausedChannels);
+                        pausedChannels.clear();
+                        break;
+                    }
+                    events = new ArrayList<>(overflow);
+                    overflow.clear();
+                }
+                drainRingBuffer();
+                events.forEach(this::consume);
+            }
+            for (Channel channel : channels) {
+                channel.config().setAutoRead(true);
+            }
+        }
+
+        private void drainRingBuffer() {
+            Runnable event;
+            while ((event = ringBuffer.poll()) != null) {
+                consume(event);
+            }
+        }
+
+        private int overflowSize() {
+            synchronized (overflow) {
+                return overflow.size();
+            }
+        }
+
+        private boolean isReadPaused() {
+            synchronized (overflow) {
+                return !pausedChannels.isEmpty();
+            }
+        }
+
+        private void consume(Runnable event) {
+            try {
+                event.run();
+            } catch (Throwable e) {
+                log.error("分片{} 消息处理失败", index, e);
+            }
+        }
+    }
+
+    private class RoomListener implements IBilibiliSendSmsReplyMsgListener {
+        final Shard shard;
+        /**
+         * 最近一次回调的来源Channel，没有binaryFrameHandler参数的回调使用它做背压
+         */
+        private volatile Channel channel;
+
+        RoomListener(Shard shard) {
+            this.shard = shard;
+        }
+
+        void publish(BilibiliBinaryFrameHandler binaryFrameHandler, Runnable event) {
+            if (binaryFrameHandler instanceof BilibiliRoomBinaryFrameHandler roomHandler && roomHandler.getChannel() != null) {
+                channel = roomHandler.getChannel();
+            }
+            shard.publish(channel, event);
+        }
+
+        @Override
+        public void onDanmuMsg(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onDanmuMsg(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onSendGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onSendGift(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onEnterRoom(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onEnterRoom(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onEntryEffect(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onEntryEffect(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onWatchedChange(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onWatchedChange(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onClickLike(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onClickLike(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onClickUpdate(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            publish(binaryFrameHandler, () -> downstream.onClickUpdate(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onOtherCmdMsg(BilibiliCmdEnum cmd, BaseCmdMsg<BilibiliCmdEnum> cmdMsg) {
+            publish(null, () -> downstream.onOtherCmdMsg(cmd, cmdMsg));
+        }
+
+        @Override
+        public void onUnknownCmd(String cmdString, BaseMsg msg) {
+            publish(null, () -> downstream.onUnknownCmd(cmdString, msg));
+        }
+    }
+
+    private class TypedRoomListener extends RoomListener implements IBilibiliTypedMsgListener {
+
+        TypedRoomListener(Shard shard) {
+            super(shard);
+        }
+
+        @Override
+        public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+            publish(binaryFrameHandler, () -> typedDownstream.onDanmu(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendGiftMsg msg) {
+            publish(binaryFrameHandler, () -> typedDownstream.onGift(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onInteractWord(BilibiliBinaryFrameHandler binaryFrameHandler, InteractWordMsg msg) {
+            publish(binaryFrameHandler, () -> typedDownstream.onInteractWord(binaryFrameHandler, msg));
+        }
+
+        @Override
+        public void onLikeClick(BilibiliBinaryFrameHandler binaryFrameHandler, LikeClickMsg msg) {
+            publish(binaryFrameHandler, () -> typedDownstream.onLikeClick(binaryFrameHandler, msg));
+        }
+    }
+
+    private class BatchRoomListener extends RoomListener implements IBilibiliBatchMsgListener {
+
+        BatchRoomListener(Shard shard) {
+            super(shard);
+        }
+
+        @Override
+        public void onMsgBatch(BilibiliBinaryFrameHandler binaryFrameHandler, List<SendSmsReplyMsg> msgs) {
+            publish(binaryFrameHandler, () -> batchDownstream.onMsgBatch(binaryFrameHandler, msgs));
+        }
+    }
+
+    private class TypedBatchRoomListener extends TypedRoomListener implements IBilibiliBatchMsgListener {
+
+        TypedBatchRoomListener(Shard shard) {
+            super(shard);
+        }
+
+        @Override
+        public void onMsgBatch(BilibiliBinaryFrameHandler binaryFrameHandler, List<SendSmsReplyMsg> msgs) {
+            publish(binaryFrameHandler, () -> batchDownstream.onMsgBatch(binaryFrameHandler, msgs));
+        }
+    }
+}
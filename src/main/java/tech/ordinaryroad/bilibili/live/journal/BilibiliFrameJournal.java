@@ -0,0 +1,431 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.journal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FastThreadLocal;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 原始帧日志
+ * <p>
+ * 按收到的顺序把未解压的帧追加写入内存映射的分段文件，后台线程定期批量刷盘（group commit），下游不可用或修复解析问题后可以重放
+ * <p>
+ * 追加时只在锁内预留写入位置，CRC计算和帧复制在锁外执行，多个EventLoop可以同时写入同一分段；
+ * 读取时遇到尚未写完的记录即停止，进程在写入过程中退出时，该记录之后的记录在重新打开后被覆盖。
+ * 有刷盘线程时下一个分段由刷盘线程提前创建并映射，滚动时在锁内直接切换；提前创建的空分段在重新打开后作为当前分段继续追加
+ * <p>
+ * 记录格式：长度(4) + CRC32(4) + roomId(8) + 时间戳(8) + 帧内容，长度为0表示分段结束
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliFrameJournal implements Closeable {
+
+    static final int RECORD_HEADER_LENGTH = 24;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    @Getter
+    private final Path directory;
+    @Getter
+    private final int segmentSize;
+    private static final FastThreadLocal<CRC32> CRC = new FastThreadLocal<>() {
+        @Override
+        protected CRC32 initialValue() {
+            return new CRC32();
+        }
+    };
+
+    private final ScheduledExecutorService flusher;
+    /**
+     * 以下字段由this保护
+     */
+    private final List<Path> segments = new ArrayList<>();
+    private final List<Segment> unflushed = new ArrayList<>();
+    private Segment current;
+    /**
+     * 刷盘线程提前创建的下一个分段，还没有创建时为null
+     */
+    private Segment next;
+    private long currentIndex;
+    private int position;
+    private boolean dirty;
+    private boolean closed;
+    private long appendedCount;
+
+    /**
+     * @param directory          日志目录，已有的分段会继续追加
+     * @param segmentSize        单个分段文件的大小
+     * @param flushIntervalMillis 刷盘周期，单位ms，0表示不主动刷盘，由操作系统决定
+     */
+    public BilibiliFrameJournal(Path directory, int segmentSize, long flushIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().forEach(segments::add);
+        }
+        Path last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last != null && Files.size(last) == segmentSize) {
+            currentIndex = segmentIndex(last);
+            current = new Segment(last, map(last));
+            position = scan(current.buffer, segmentSize, Long.MIN_VALUE, Long.MAX_VALUE, null);
+        } else {
+            currentIndex = last == null ? 0 : segmentIndex(last) + 1;
+            newSegment();
+        }
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("bilibili-journal", true));
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            flusher.execute(this::preallocate);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * 64MB分段，100ms刷盘一次
+     */
+    public BilibiliFrameJournal(Path directory) throws IOException {
+        this(directory, 64 * 1024 * 1024, 100);
+    }
+
+    /**
+     * 追加一帧，不等待刷盘；帧内容不会被修改
+     *
+     * @return 是否写入成功
+     */
+    public boolean append(long roomId, long timestamp, ByteBuf frame) {
+        int length = RECORD_HEADER_LENGTH + frame.readableBytes();
+        if (length > segmentSize) {
+            log.warn("{} 帧大小{}超过分段大小，不写入日志", roomId, frame.readableBytes());
+            return false;
+        }
+        Segment segment;
+        int offset;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (position + length > segmentSize) {
+                try {
+                    rollSegment();
+                } catch (IOException e) {
+                    log.error("日志分段创建失败", e);
+                    return false;
+                }
+            }
+            segment = current;
+            offset = position;
+            position += length;
+            segment.writers.incrementAndGet();
+            dirty = true;
+            appendedCount++;
+        }
+        try {
+            CRC32 crc32 = CRC.get();
+            crc32.reset();
+            crc32.update(frame.nioBuffer());
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putInt(offset + 4, (int) crc32.getValue());
+            buffer.putLong(offset + 8, roomId);
+            buffer.putLong(offset + 16, timestamp);
+            frame.getBytes(frame.readerIndex(), buffer.duplicate().position(offset + RECORD_HEADER_LENGTH).limit(offset + length));
+            // 长度最后写入，未写完的记录读取时会被忽略
+            buffer.putInt(offset, length);
+        } finally {
+            segment.writers.decrementAndGet();
+        }
+        return true;
+    }
+
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    /**
+     * 将已追加的记录刷到磁盘，仍在写入的分段下次再刷
+     */
+    public void flush() {
+        List<MappedByteBuffer> buffers = new ArrayList<>();
+        synchronized (this) {
+            // writers在锁内预留时增加，这里为0说明已经预留的记录都已写完
+            unflushed.removeIf(segment -> segment.writers.get() == 0 && buffers.add(segment.buffer));
+            if (dirty && !closed) {
+                buffers.add(current.buffer);
+                dirty = current.writers.get() > 0;
+            }
+        }
+        for (MappedByteBuffer buffer : buffers) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * 按顺序读取时间范围内的记录
+     *
+     * @param fromMillis 开始时间（包含）
+     * @param toMillis   结束时间（不包含）
+     * @param visitor    回调，帧内容只在回调中有效
+     * @return 读取的记录数
+     */
+    public long read(long fromMillis, long toMillis, FrameVisitor visitor) throws IOException {
+        List<Path> paths;
+        MappedByteBuffer currentBuffer;
+        int currentLimit;
+        synchronized (this) {
+            paths = new ArrayList<>(segments);
+            currentBuffer = closed ? null : current.buffer;
+            currentLimit = position;
+        }
+        long[] count = {0};
+        FrameVisitor counting = (roomId, timestamp, frame) -> {
+            count[0]++;
+            visitor.visit(roomId, timestamp, frame);
+        };
+        for (int i = 0; i < paths.size(); i++) {
+            if (currentBuffer != null && i == paths.size() - 1) {
+                scan(currentBuffer.duplicate(), currentLimit, fromMillis, toMillis, counting);
+            } else {
+                try (FileChannel channel = FileChannel.open(paths.get(i), StandardOpenOption.READ)) {
+                    scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), (int) channel.size(), fromMillis, toMillis, counting);
+                }
+            }
+        }
+        return count[0];
+    }
+
+    /**
+     * 将时间范围内的帧重新经过解包、解压、解析，回调给监听器；不经过回调队列，也不会再次写入日志
+     *
+     * @param listenerFactory 根据roomId获取监听器，返回null时跳过该房间
+     * @return 重放的帧数
+     */
+    public long replay(long fromMillis, long toMillis, LongFunction<IBilibiliSendSmsReplyMsgListener> listenerFactory, BilibiliLiveChatClientManagerConfig config) throws IOException {
+        BilibiliLiveChatClientManagerConfig replayConfig = config.toBuilder().journal(null).dispatchExecutor(null).build();
+        Map<Long, EmbeddedChannel> channels = new HashMap<>();
+        long[] count = {0};
+        try {
+            read(fromMillis, toMillis, (roomId, timestamp, frame) -> {
+                EmbeddedChannel channel;
+                if (channels.containsKey(roomId)) {
+                    channel = channels.get(roomId);
+                } else {
+                    IBilibiliSendSmsReplyMsgListener listener = listenerFactory.apply(roomId);
+                    channel = listener == null ? null : new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(listener, roomId, replayConfig, null));
+                    channels.put(roomId, channel);
+                }
+                if (channel != null) {
+                    channel.writeInbound(new BinaryWebSocketFrame(frame));
+                    count[0]++;
+                }
+            });
+        } finally {
+            channels.values().stream().filter(channel -> channel != null).forEach(EmbeddedChannel::finishAndReleaseAll);
+        }
+        return count[0];
+    }
+
+    public long replay(long fromMillis, long toMillis, LongFunction<IBilibiliSendSmsReplyMsgListener> listenerFactory) throws IOException {
+        return replay(fromMillis, toMillis, listenerFactory, BilibiliLiveChatClientManagerConfig.builder().build());
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        List<Segment> remaining;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remaining = new ArrayList<>(unflushed);
+            unflushed.clear();
+            if (dirty) {
+                remaining.add(current);
+            }
+        }
+        // 关闭后不再预留，等待已经预留的记录写完
+        for (Segment segment : remaining) {
+            while (segment.writers.get() > 0) {
+                Thread.onSpinWait();
+            }
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * 在锁内调用；下一个分段已经提前创建时直接切换，否则（没有刷盘线程或还没有创建完）在锁内创建
+     */
+    private void rollSegment() throws IOException {
+        if (dirty) {
+            unflushed.add(current);
+            dirty = false;
+        }
+        currentIndex++;
+        if (next != null) {
+            current = next;
+            next = null;
+            position = 0;
+            segments.add(current.path);
+        } else {
+            newSegment();
+        }
+        if (flusher != null) {
+            try {
+                flusher.execute(this::preallocate);
+            } catch (RejectedExecutionException e) {
+                // 正在关闭，不再预创建
+            }
+        }
+    }
+
+    private void newSegment() throws IOException {
+        Path path = segmentPath(currentIndex);
+        current = new Segment(path, map(path));
+        position = 0;
+        segments.add(path);
+    }
+
+    /**
+     * 在刷盘线程中创建并映射下一个分段，文件创建和映射不占用锁
+     */
+    private void preallocate() {
+        long index;
+        synchronized (this) {
+            if (closed || next != null) {
+                return;
+            }
+            index = currentIndex + 1;
+        }
+        Path path = segmentPath(index);
+        Segment segment;
+        try {
+            segment = new Segment(path, map(path));
+        } catch (IOException e) {
+            log.error("日志分段预创建失败，滚动时再创建", e);
+            return;
+        }
+        synchronized (this) {
+            // 创建期间已经在锁内滚动过时放弃，该文件已经由滚动创建并加入分段列表
+            if (!closed && next == null && currentIndex + 1 == index) {
+                next = segment;
+            }
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return 最后一条完整记录的结束位置
+     */
+    private static int scan(ByteBuffer buffer, int limit, long fromMillis, long toMillis, FrameVisitor visitor) {
+        CRC32 crc32 = new CRC32();
+        int position = 0;
+        while (position + RECORD_HEADER_LENGTH <= limit) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_HEADER_LENGTH || position + length > limit) {
+                break;
+            }
+            ByteBuffer frame = buffer.slice(position + RECORD_HEADER_LENGTH, length - RECORD_HEADER_LENGTH);
+            crc32.reset();
+            crc32.update(frame.duplicate());
+            if ((int) crc32.getValue() != buffer.getInt(position + 4)) {
+                log.warn("日志记录校验失败，位置{}", position);
+                break;
+            }
+            long timestamp = buffer.getLong(position + 16);
+            if (visitor != null && timestamp >= fromMillis && timestamp < toMillis) {
+                visitor.visit(buffer.getLong(position + 8), timestamp, Unpooled.wrappedBuffer(frame));
+            }
+            position += length;
+        }
+        return position;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        /**
+         * 已预留位置但还没写完的记录数
+         */
+        private final AtomicInteger writers = new AtomicInteger();
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    @FunctionalInterface
+    public interface FrameVisitor {
+        void visit(long roomId, long timestamp, ByteBuf frame);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.keyword;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 多关键词匹配的Aho-Corasick自动机，按UTF-16 char匹配，编译后不可修改，可以被多个线程同时使用
+ * <p>
+ * 根节点的转移使用65536长度的数组直接索引，大部分字符不是任何关键词的开头，只需要一次数组访问；
+ * 其他节点的转移保存在一张开放寻址表中，键为(状态, 字符)
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+final class BilibiliAhoCorasick {
+
+    private static final long EMPTY = -1L;
+
+    private final String[] keywords;
+    private final boolean ignoreCase;
+    /**
+     * 根节点的转移，没有转移时为0（停留在根节点）
+     */
+    private final int[] rootNext;
+    private final long[] edgeKeys;
+    private final int[] edgeTargets;
+    private final int edgeMask;
+    private final int[] fail;
+    /**
+     * 在该状态结束的关键词下标，没有时为-1
+     */
+    private final int[] keywordAt;
+    /**
+     * 沿fail链最近的、有关键词结束的状态，没有时为0
+     */
+    private final int[] outputLink;
+
+    /**
+     * @param keywords   去重后的关键词，不能包含空字符串
+     * @param ignoreCase 是否忽略ASCII字母大小写
+     */
+    BilibiliAhoCorasick(List<String> keywords, boolean ignoreCase) {
+        this.keywords = keywords.toArray(new String[0]);
+        this.ignoreCase = ignoreCase;
+
+        // 构建trie，子节点使用链表保存，只在编译时使用
+        int capacity = 16;
+        for (String keyword : keywords) {
+            capacity += keyword.length();
+        }
+        int[] firstChild = new int[capacity];
+        int[] nextSibling = new int[capacity];
+        char[] label = new char[capacity];
+        int[] keywordAt = new int[capacity];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(keywordAt, -1);
+        int stateCount = 1;
+        for (int k = 0; k < this.keywords.length; k++) {
+            String keyword = this.keywords[k];
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = fold(keyword.charAt(i), ignoreCase);
+                int child = firstChild[state];
+                while (child >= 0 && label[child] != c) {
+                    child = nextSibling[child];
+                }
+                if (child < 0) {
+                    child = stateCount++;
+                    label[child] = c;
+                    nextSibling[child] = firstChild[state];
+                    firstChild[state] = child;
+                }
+                state = child;
+            }
+            if (keywordAt[state] < 0) {
+                keywordAt[state] = k;
+            }
+        }
+
+        int edgeCount = stateCount - 1;
+        int tableSize = Integer.highestOneBit(Math.max(edgeCount, 8) * 2 - 1) << 1;
+        this.edgeKeys = new long[tableSize];
+        this.edgeTargets = new int[tableSize];
+        this.edgeMask = tableSize - 1;
+        Arrays.fill(edgeKeys, EMPTY);
+        this.rootNext = new int[Character.MAX_VALUE + 1];
+        for (int child = firstChild[0]; child >= 0; child = nextSibling[child]) {
+            rootNext[label[child]] = child;
+        }
+        for (int state = 1; state < stateCount; state++) {
+            for (int child = firstChild[state]; child >= 0; child = nextSibling[child]) {
+                putEdge(state, label[child], child);
+            }
+        }
+
+        // 按BFS顺序计算fail和outputLink，父节点总是先于子节点
+        this.fail = new int[stateCount];
+        this.outputLink = new int[stateCount];
+        this.keywordAt = Arrays.copyOf(keywordAt, stateCount);
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int child = firstChild[0]; child >= 0; child = nextSibling[child]) {
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int child = firstChild[state]; child >= 0; child = nextSibling[child]) {
+                int f = fail[state];
+                int next;
+                while ((next = next(f, label[child])) < 0) {
+                    f = fail[f];
+                }
+                fail[child] = next;
+                outputLink[child] = this.keywordAt[next] >= 0 ? next : outputLink[next];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    int getKeywordCount() {
+        return keywords.length;
+    }
+
+    int getStateCount() {
+        return fail.length;
+    }
+
+    /**
+     * 查找text中出现的所有关键词，按首次出现的结束位置排序，同一关键词只记录一次
+     *
+     * @param hits 已有的结果，为null时按需创建
+     * @return 追加后的结果，没有命中且hits为null时返回null
+     */
+    List<String> match(CharSequence text, List<String> hits) {
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = fold(text.charAt(i), ignoreCase);
+            int next;
+            while ((next = next(state, c)) < 0) {
+                state = fail[state];
+            }
+            state = next;
+            for (int output = keywordAt[state] >= 0 ? state : outputLink[state]; output > 0; output = outputLink[output]) {
+                hits = addHit(hits, keywords[keywordAt[output]]);
+            }
+        }
+        return hits;
+    }
+
+    static char fold(char c, boolean ignoreCase) {
+        return ignoreCase && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    static List<String> addHit(List<String> hits, String hit) {
+        if (hits == null) {
+            hits = new ArrayList<>(2);
+        } else if (hits.contains(hit)) {
+            return hits;
+        }
+        hits.add(hit);
+        return hits;
+    }
+
+    /**
+     * @return 转移后的状态，根节点总是有转移，其他节点没有转移时为-1
+     */
+    private int next(int state, char c) {
+        if (state == 0) {
+            return rootNext[c];
+        }
+        long key = edgeKey(state, c);
+        for (int index = mix(key) & edgeMask; ; index = (index + 1) & edgeMask) {
+            long current = edgeKeys[index];
+            if (current == key) {
+                return edgeTargets[index];
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private void putEdge(int state, char c, int target) {
+        long key = edgeKey(state, c);
+        int index = mix(key) & edgeMask;
+        while (edgeKeys[index] != EMPTY) {
+            index = (index + 1) & edgeMask;
+        }
+        edgeKeys[index] = key;
+        edgeTargets[index] = target;
+    }
+
+    private static long edgeKey(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.keyword;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 弹幕关键词匹配
+ * <p>
+ * 关键词编译为一个Aho-Corasick自动机，简单正则合并编译为DFA，其他正则使用java.util.regex；
+ * 一条文本只扫描一遍自动机和DFA，耗时与关键词数量基本无关。编译结果不可修改，{@link #update}编译完成后整体替换，
+ * 正在匹配的线程继续使用旧的编译结果，所有EventLoop可以共享同一个实例
+ * <pre>
+ * BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(keywords, regexes);
+ * // 关键词变化时
+ * matcher.update(newKeywords, newRegexes);
+ * </pre>
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliKeywordMatcher {
+
+    /**
+     * 每个DFA的最大状态数和转移表的最大元素数（int），超过时拆分为多个DFA；同时限制了编译耗时
+     */
+    private static final int MAX_DFA_STATES = 2048;
+    private static final int MAX_DFA_CELLS = 1 << 20;
+
+    private final boolean ignoreCase;
+    private volatile Compiled compiled;
+
+    /**
+     * @param keywords   关键词，空字符串会被忽略
+     * @param regexes    正则，语法错误时抛出{@link java.util.regex.PatternSyntaxException}
+     * @param ignoreCase 是否忽略ASCII字母大小写
+     */
+    public BilibiliKeywordMatcher(Collection<String> keywords, Collection<String> regexes, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.compiled = compile(keywords, regexes, ignoreCase);
+    }
+
+    public BilibiliKeywordMatcher(Collection<String> keywords, Collection<String> regexes) {
+        this(keywords, regexes, true);
+    }
+
+    public BilibiliKeywordMatcher(Collection<String> keywords) {
+        this(keywords, Collections.emptyList());
+    }
+
+    /**
+     * 重新编译并替换，编译失败时抛出异常，继续使用原来的编译结果
+     */
+    public void update(Collection<String> keywords, Collection<String> regexes) {
+        compiled = compile(keywords, regexes, ignoreCase);
+    }
+
+    /**
+     * 文本中出现的关键词和正则（原始字符串），同一关键词只返回一次；没有命中时返回不可修改的空列表
+     */
+    public List<String> match(CharSequence text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        Compiled current = compiled;
+        List<String> hits = current.automaton.match(text, null);
+        for (BilibiliRegexDfa dfa : current.dfas) {
+            hits = dfa.match(text, hits);
+        }
+        for (Pattern pattern : current.patterns) {
+            if (pattern.matcher(text).find()) {
+                hits = BilibiliAhoCorasick.addHit(hits, pattern.pattern());
+            }
+        }
+        return hits == null ? Collections.emptyList() : hits;
+    }
+
+    public boolean matches(CharSequence text) {
+        return !match(text).isEmpty();
+    }
+
+    public int getKeywordCount() {
+        return compiled.automaton.getKeywordCount();
+    }
+
+    /**
+     * 编译为DFA的正则数
+     */
+    public int getDfaRegexCount() {
+        return compiled.dfaRegexCount;
+    }
+
+    /**
+     * 使用java.util.regex逐个匹配的正则数，过多时会影响匹配耗时
+     */
+    public int getPatternRegexCount() {
+        return compiled.patterns.size();
+    }
+
+    private static Compiled compile(Collection<String> keywords, Collection<String> regexes, boolean ignoreCase) {
+        LinkedHashSet<String> distinctKeywords = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.isEmpty()) {
+                distinctKeywords.add(keyword);
+            }
+        }
+        BilibiliAhoCorasick automaton = new BilibiliAhoCorasick(new ArrayList<>(distinctKeywords), ignoreCase);
+
+        List<BilibiliRegexDfa.Regex> parsed = new ArrayList<>();
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : new LinkedHashSet<>(regexes)) {
+            Pattern pattern = Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+            try {
+                parsed.add(BilibiliRegexDfa.parse(regex, ignoreCase));
+            } catch (IllegalArgumentException e) {
+                log.debug("{}，使用java.util.regex匹配", e.getMessage());
+                patterns.add(pattern);
+            }
+        }
+        List<BilibiliRegexDfa.Regex> tooLarge = new ArrayList<>();
+        List<BilibiliRegexDfa> dfas = BilibiliRegexDfa.compile(parsed, ignoreCase, MAX_DFA_STATES, MAX_DFA_CELLS, tooLarge);
+        for (BilibiliRegexDfa.Regex regex : tooLarge) {
+            log.debug("正则{}编译后的DFA过大，使用java.util.regex匹配", regex.source());
+            patterns.add(Pattern.compile(regex.source(), ignoreCase ? Pattern.CASE_INSENSITIVE : 0));
+        }
+        return new Compiled(automaton, dfas, parsed.size() - tooLarge.size(), patterns);
+    }
+
+    private record Compiled(BilibiliAhoCorasick automaton, List<BilibiliRegexDfa> dfas, int dfaRegexCount, List<Pattern> patterns) {
+    }
+}
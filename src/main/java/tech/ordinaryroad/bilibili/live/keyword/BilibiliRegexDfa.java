@@ -0,0 +1,788 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.keyword;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 多个简单正则合并而成的DFA，只判断是否出现（相当于Matcher#find），编译后不可修改，可以被多个线程同时使用
+ * <p>
+ * 支持字面量、.、字符类（[a-z]、[^...]、\d、\w、\s及其取反）、分组（(...)、(?:...)）、|、*、+、?、{m,n}（惰性量词视为贪婪），
+ * 以及正则开头的^和结尾的$；其他语法（反向引用、环视、\b、独占量词等）由{@link #parse}抛出{@link IllegalArgumentException}，
+ * 调用方改用java.util.regex。按UTF-16 char匹配，忽略大小写时只处理ASCII字母
+ * <p>
+ * 字符先按所有字符类的边界压缩为等价类，转移表为状态数×等价类数的二维数组，未锚定开头的正则在每个位置重新开始，
+ * 与在正则前加.*等价
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+final class BilibiliRegexDfa {
+
+    private static final int KIND_SET = 0;
+    private static final int KIND_SPLIT = 1;
+    private static final int KIND_MATCH = 2;
+
+    /**
+     * 单个量词允许的最大次数，避免展开后NFA过大
+     */
+    private static final int MAX_REPEAT = 64;
+
+    private final String[] sources;
+    private final boolean ignoreCase;
+    private final char[] classOf;
+    private final int classCount;
+    private final int[] table;
+    /**
+     * 到达该状态即命中的正则下标，没有时为null
+     */
+    private final int[][] accepts;
+    /**
+     * 在文本结尾停留在该状态时才命中的正则（以$结尾）下标，没有时为null
+     */
+    private final int[][] endAccepts;
+
+    private BilibiliRegexDfa(String[] sources, boolean ignoreCase, char[] classOf, int classCount, int[] table, int[][] accepts, int[][] endAccepts) {
+        this.sources = sources;
+        this.ignoreCase = ignoreCase;
+        this.classOf = classOf;
+        this.classCount = classCount;
+        this.table = table;
+        this.accepts = accepts;
+        this.endAccepts = endAccepts;
+    }
+
+    int getStateCount() {
+        return accepts.length;
+    }
+
+    /**
+     * @param hits 已有的结果，为null时按需创建
+     * @return 追加后的结果，没有命中且hits为null时返回null
+     */
+    List<String> match(CharSequence text, List<String> hits) {
+        int length = text.length();
+        // 与Pattern默认一致，$也可以匹配在结尾的行结束符之前
+        int terminatorStart = terminatorStart(text, length);
+        int state = 0;
+        hits = addHits(hits, accepts[state]);
+        for (int i = 0; i < length; i++) {
+            if (i == terminatorStart) {
+                hits = addHits(hits, endAccepts[state]);
+            }
+            state = table[state * classCount + classOf[BilibiliAhoCorasick.fold(text.charAt(i), ignoreCase)]];
+            if (accepts[state] != null) {
+                hits = addHits(hits, accepts[state]);
+            }
+        }
+        return addHits(hits, endAccepts[state]);
+    }
+
+    private static int terminatorStart(CharSequence text, int length) {
+        if (length == 0) {
+            return -1;
+        }
+        char last = text.charAt(length - 1);
+        if (last == '\n') {
+            return length >= 2 && text.charAt(length - 2) == '\r' ? length - 2 : length - 1;
+        }
+        return last == '\r' || last == '\u0085' || last == '\u2028' || last == '\u2029' ? length - 1 : -1;
+    }
+
+    private List<String> addHits(List<String> hits, int[] regexIds) {
+        if (regexIds != null) {
+            for (int regexId : regexIds) {
+                hits = BilibiliAhoCorasick.addHit(hits, sources[regexId]);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 解析为语法树，使用了不支持的语法时抛出{@link IllegalArgumentException}；source应当已经通过Pattern.compile校验
+     */
+    static Regex parse(String source, boolean ignoreCase) {
+        return new Parser(source, ignoreCase).parseRegex();
+    }
+
+    /**
+     * 编译为一个或多个DFA，状态数超过maxStates或转移表超过maxCells时拆分为两组分别编译；单个正则也超过时放入tooLarge
+     */
+    static List<BilibiliRegexDfa> compile(List<Regex> regexes, boolean ignoreCase, int maxStates, int maxCells, List<Regex> tooLarge) {
+        List<BilibiliRegexDfa> dfas = new ArrayList<>();
+        compile(regexes, ignoreCase, maxStates, maxCells, dfas, tooLarge);
+        return dfas;
+    }
+
+    private static void compile(List<Regex> regexes, boolean ignoreCase, int maxStates, int maxCells, List<BilibiliRegexDfa> dfas, List<Regex> tooLarge) {
+        if (regexes.isEmpty()) {
+            return;
+        }
+        BilibiliRegexDfa dfa = new Builder(regexes, ignoreCase, maxStates, maxCells).build();
+        if (dfa != null) {
+            dfas.add(dfa);
+        } else if (regexes.size() == 1) {
+            tooLarge.add(regexes.get(0));
+        } else {
+            int half = regexes.size() / 2;
+            compile(regexes.subList(0, half), ignoreCase, maxStates, maxCells, dfas, tooLarge);
+            compile(regexes.subList(half, regexes.size()), ignoreCase, maxStates, maxCells, dfas, tooLarge);
+        }
+    }
+
+    /**
+     * 解析后的正则
+     *
+     * @param anchoredStart 以^开头
+     * @param anchoredEnd   以$结尾
+     */
+    record Regex(String source, Node node, boolean anchoredStart, boolean anchoredEnd) {
+    }
+
+    sealed interface Node permits CharSet, Concat, Alt, Repeat {
+    }
+
+    /**
+     * @param ranges 有序、不重叠的闭区间，依次为lo、hi
+     */
+    record CharSet(int[] ranges) implements Node {
+    }
+
+    record Concat(List<Node> nodes) implements Node {
+    }
+
+    record Alt(List<Node> nodes) implements Node {
+    }
+
+    /**
+     * @param max 为-1时不限
+     */
+    record Repeat(Node node, int min, int max) implements Node {
+    }
+
+    private static final class Parser {
+        private static final int[] DIGIT = {'0', '9'};
+        private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+        private static final int[] SPACE = {'\t', '\r', ' ', ' '};
+        /**
+         * 与Pattern默认一致，不匹配行结束符
+         */
+        private static final int[] DOT = complement(new int[]{'\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029'});
+
+        private final String source;
+        private final boolean ignoreCase;
+        private int pos;
+        private int end;
+        private int depth;
+        private boolean topLevelAlternation;
+
+        Parser(String source, boolean ignoreCase) {
+            this.source = source;
+            this.ignoreCase = ignoreCase;
+            this.end = source.length();
+        }
+
+        Regex parseRegex() {
+            boolean anchoredStart = end > 0 && source.charAt(0) == '^';
+            if (anchoredStart) {
+                pos = 1;
+            }
+            boolean anchoredEnd = false;
+            if (end > pos && source.charAt(end - 1) == '$') {
+                // $前有奇数个\时是转义的字面量
+                int backslashes = 0;
+                while (end - 2 - backslashes >= pos && source.charAt(end - 2 - backslashes) == '\\') {
+                    backslashes++;
+                }
+                if (backslashes % 2 == 0) {
+                    anchoredEnd = true;
+                    end--;
+                }
+            }
+            Node node = parseAlt();
+            // ^a|b$中的^、$只作用于一个分支
+            if (pos != end || (topLevelAlternation && (anchoredStart || anchoredEnd))) {
+                throw unsupported();
+            }
+            return new Regex(source, node, anchoredStart, anchoredEnd);
+        }
+
+        private Node parseAlt() {
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(parseConcat());
+            while (pos < end && source.charAt(pos) == '|') {
+                topLevelAlternation |= depth == 0;
+                pos++;
+                nodes.add(parseConcat());
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new Alt(nodes);
+        }
+
+        private Node parseConcat() {
+            List<Node> nodes = new ArrayList<>();
+            while (pos < end && source.charAt(pos) != '|' && source.charAt(pos) != ')') {
+                nodes.add(parseRepeat());
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new Concat(nodes);
+        }
+
+        private Node parseRepeat() {
+            Node node = parseAtom();
+            while (pos < end) {
+                char c = source.charAt(pos);
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = -1;
+                } else if (c == '+') {
+                    min = 1;
+                    max = -1;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                } else if (c == '{') {
+                    int close = source.indexOf('}', pos);
+                    if (close < 0 || close >= end) {
+                        throw unsupported();
+                    }
+                    String[] bounds = source.substring(pos + 1, close).split(",", -1);
+                    try {
+                        min = Integer.parseInt(bounds[0].trim());
+                        max = bounds.length == 1 ? min : bounds[1].isBlank() ? -1 : Integer.parseInt(bounds[1].trim());
+                    } catch (NumberFormatException e) {
+                        throw unsupported();
+                    }
+                    if (bounds.length > 2 || min > MAX_REPEAT || max > MAX_REPEAT) {
+                        throw unsupported();
+                    }
+                    pos = close;
+                } else {
+                    break;
+                }
+                pos++;
+                if (pos < end && source.charAt(pos) == '?') {
+                    // 惰性量词不影响是否出现
+                    pos++;
+                } else if (pos < end && source.charAt(pos) == '+') {
+                    throw unsupported();
+                }
+                node = new Repeat(node, min, max);
+            }
+            return node;
+        }
+
+        private Node parseAtom() {
+            char c = source.charAt(pos++);
+            switch (c) {
+                case '(' -> {
+                    if (pos < end && source.charAt(pos) == '?') {
+                        if (pos + 1 < end && source.charAt(pos + 1) == ':') {
+                            pos += 2;
+                        } else {
+                            throw unsupported();
+                        }
+                    }
+                    depth++;
+                    Node node = parseAlt();
+                    depth--;
+                    if (pos >= end || source.charAt(pos) != ')') {
+                        throw unsupported();
+                    }
+                    pos++;
+                    return node;
+                }
+                case '[' -> {
+                    return charSet(parseClass());
+                }
+                case '.' -> {
+                    return charSet(DOT);
+                }
+                case '\\' -> {
+                    return charSet(parseEscape(false));
+                }
+                case '^', '$', ')', '*', '+', '?', '{' -> throw unsupported();
+                default -> {
+                    return charSet(new int[]{c, c});
+                }
+            }
+        }
+
+        private int[] parseClass() {
+            boolean negated = pos < end && source.charAt(pos) == '^';
+            if (negated) {
+                pos++;
+            }
+            List<int[]> parts = new ArrayList<>();
+            boolean first = true;
+            while (true) {
+                if (pos >= end) {
+                    throw unsupported();
+                }
+                char c = source.charAt(pos++);
+                if (c == ']' && !first) {
+                    break;
+                }
+                first = false;
+                // Pattern按码点处理字符类，包含代理对时不支持
+                if (c == '[' || (c == '&' && pos < end && source.charAt(pos) == '&') || Character.isSurrogate(c)) {
+                    throw unsupported();
+                }
+                int[] item;
+                if (c == '\\') {
+                    item = parseEscape(true);
+                } else {
+                    item = new int[]{c, c};
+                }
+                if (item.length == 2 && item[0] == item[1] && pos + 1 < end && source.charAt(pos) == '-' && source.charAt(pos + 1) != ']') {
+                    pos++;
+                    char hiChar = source.charAt(pos++);
+                    int[] hi = hiChar == '\\' ? parseEscape(true) : new int[]{hiChar, hiChar};
+                    if (hi.length != 2 || hi[0] != hi[1] || hi[0] < item[0]) {
+                        throw unsupported();
+                    }
+                    item = new int[]{item[0], hi[0]};
+                }
+                parts.add(item);
+            }
+            // 与Pattern一致，先忽略大小写再取反，[^a]不匹配A
+            int[] ranges = caseClose(union(parts));
+            return negated ? complement(ranges) : ranges;
+        }
+
+        /**
+         * \之后的部分，返回字符集合
+         */
+        private int[] parseEscape(boolean inClass) {
+            if (pos >= end) {
+                throw unsupported();
+            }
+            char c = source.charAt(pos++);
+            return switch (c) {
+                case 'd' -> DIGIT;
+                case 'D' -> complement(DIGIT);
+                case 'w' -> WORD;
+                case 'W' -> complement(WORD);
+                case 's' -> SPACE;
+                case 'S' -> complement(SPACE);
+                case 't' -> single('\t');
+                case 'n' -> single('\n');
+                case 'r' -> single('\r');
+                case 'f' -> single('\f');
+                case 'a' -> single('\u0007');
+                case 'e' -> single('\u001B');
+                case 'u' -> single(parseHex(4));
+                case 'x' -> single(parseHex(2));
+                default -> {
+                    if (Character.isLetterOrDigit(c)) {
+                        throw unsupported();
+                    }
+                    yield single(c);
+                }
+            };
+        }
+
+        private int parseHex(int digits) {
+            if (pos + digits > end) {
+                throw unsupported();
+            }
+            try {
+                int value = Integer.parseInt(source.substring(pos, pos + digits), 16);
+                pos += digits;
+                return value;
+            } catch (NumberFormatException e) {
+                throw unsupported();
+            }
+        }
+
+        private CharSet charSet(int[] ranges) {
+            return new CharSet(caseClose(ranges));
+        }
+
+        /**
+         * 文本中的大写字母在匹配前转为小写；集合中的ASCII字母补全另一种大小写，取反后仍然成对
+         */
+        private int[] caseClose(int[] ranges) {
+            if (!ignoreCase) {
+                return ranges;
+            }
+            List<int[]> parts = new ArrayList<>();
+            parts.add(ranges);
+            for (int i = 0; i < ranges.length; i += 2) {
+                addShifted(parts, ranges[i], ranges[i + 1], 'A', 'Z', 'a' - 'A');
+                addShifted(parts, ranges[i], ranges[i + 1], 'a', 'z', 'A' - 'a');
+            }
+            return union(parts);
+        }
+
+        private static void addShifted(List<int[]> parts, int from, int to, int letterFrom, int letterTo, int shift) {
+            int lo = Math.max(from, letterFrom);
+            int hi = Math.min(to, letterTo);
+            if (lo <= hi) {
+                parts.add(new int[]{lo + shift, hi + shift});
+            }
+        }
+
+        private static int[] single(int c) {
+            return new int[]{c, c};
+        }
+
+        private IllegalArgumentException unsupported() {
+            return new IllegalArgumentException("不支持的正则语法：" + source);
+        }
+    }
+
+    static int[] union(List<int[]> parts) {
+        List<int[]> ranges = new ArrayList<>();
+        for (int[] part : parts) {
+            for (int i = 0; i < part.length; i += 2) {
+                ranges.add(new int[]{part[i], part[i + 1]});
+            }
+        }
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] merged = new int[ranges.size() * 2];
+        int size = 0;
+        for (int[] range : ranges) {
+            if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], range[1]);
+            } else {
+                merged[size++] = range[0];
+                merged[size++] = range[1];
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    static int[] complement(int[] ranges) {
+        int[] result = new int[ranges.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result[size++] = next;
+                result[size++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            result[size++] = next;
+            result[size++] = Character.MAX_VALUE;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Thompson构造NFA，再通过子集构造生成DFA
+     */
+    private static final class Builder {
+        private final List<Regex> regexes;
+        private final boolean ignoreCase;
+        private final int maxStates;
+        private final int maxCells;
+
+        private int[] kind = new int[64];
+        private int[] out1 = new int[64];
+        private int[] out2 = new int[64];
+        /**
+         * SET状态为字符集合下标，MATCH状态为正则下标；MATCH状态的out2为1时只在文本结尾命中
+         */
+        private int[] arg = new int[64];
+        private int stateCount;
+        private final List<int[]> sets = new ArrayList<>();
+        private final Map<IntArrayKey, Integer> setIndexes = new HashMap<>();
+        /**
+         * closure使用，visited[s] == mark表示已访问，避免每次清空
+         */
+        private int[] visited;
+        private int mark;
+        private int[] stack;
+        private int[] closureBuffer;
+
+        Builder(List<Regex> regexes, boolean ignoreCase, int maxStates, int maxCells) {
+            this.regexes = regexes;
+            this.ignoreCase = ignoreCase;
+            this.maxStates = maxStates;
+            this.maxCells = maxCells;
+        }
+
+        /**
+         * @return 状态数超过maxStates或转移表超过maxCells时为null
+         */
+        BilibiliRegexDfa build() {
+            int[] starts = new int[regexes.size()];
+            List<Integer> restartList = new ArrayList<>();
+            for (int i = 0; i < regexes.size(); i++) {
+                Regex regex = regexes.get(i);
+                int match = newState(KIND_MATCH, -1, -1, i);
+                out2[match] = regex.anchoredEnd() ? 1 : 0;
+                starts[i] = build(regex.node(), match);
+                if (!regex.anchoredStart()) {
+                    restartList.add(starts[i]);
+                }
+            }
+
+            // 字符等价类
+            TreeSet<Integer> bounds = new TreeSet<>();
+            bounds.add(0);
+            for (int[] set : sets) {
+                for (int i = 0; i < set.length; i += 2) {
+                    bounds.add(set[i]);
+                    if (set[i + 1] < Character.MAX_VALUE) {
+                        bounds.add(set[i + 1] + 1);
+                    }
+                }
+            }
+            int classCount = bounds.size();
+            char[] classOf = new char[Character.MAX_VALUE + 1];
+            int[] boundArray = bounds.stream().mapToInt(Integer::intValue).toArray();
+            for (int k = 0; k < boundArray.length; k++) {
+                int to = k + 1 < boundArray.length ? boundArray[k + 1] : Character.MAX_VALUE + 1;
+                Arrays.fill(classOf, boundArray[k], to, (char) k);
+            }
+
+            visited = new int[stateCount];
+            stack = new int[stateCount];
+            closureBuffer = new int[stateCount];
+            int[] restartStarts = restartList.stream().mapToInt(Integer::intValue).toArray();
+            int[] restart = closure(restartStarts, restartStarts.length);
+            Map<IntArrayKey, Integer> dfaStates = new HashMap<>();
+            List<int[]> dfaSets = new ArrayList<>();
+            List<int[]> rows = new ArrayList<>();
+            int[] initial = closure(starts, starts.length);
+            dfaStates.put(new IntArrayKey(initial), 0);
+            dfaSets.add(initial);
+            // 每个等价类的目标NFA状态
+            int[][] buckets = new int[classCount][];
+            int[] bucketSizes = new int[classCount];
+            Map<IntArrayKey, Integer> rowCache = new HashMap<>();
+            for (int d = 0; d < dfaSets.size(); d++) {
+                if (dfaSets.size() > maxStates || (long) dfaSets.size() * classCount > maxCells) {
+                    return null;
+                }
+                Arrays.fill(bucketSizes, 0);
+                for (int s : dfaSets.get(d)) {
+                    if (kind[s] != KIND_SET) {
+                        continue;
+                    }
+                    int[] set = sets.get(arg[s]);
+                    for (int i = 0; i < set.length; i += 2) {
+                        for (int k = classOf[set[i]], last = classOf[set[i + 1]]; k <= last; k++) {
+                            if (buckets[k] == null || bucketSizes[k] == buckets[k].length) {
+                                buckets[k] = buckets[k] == null ? new int[4] : Arrays.copyOf(buckets[k], bucketSizes[k] * 2);
+                            }
+                            buckets[k][bucketSizes[k]++] = out1[s];
+                        }
+                    }
+                }
+                // 同一DFA状态下很多等价类的目标相同（例如.），按目标集合缓存
+                rowCache.clear();
+                int[] row = new int[classCount];
+                for (int k = 0; k < classCount; k++) {
+                    int size = bucketSizes[k];
+                    if (size == 0) {
+                        row[k] = stateIndex(restart, dfaStates, dfaSets);
+                        continue;
+                    }
+                    int[] targets = Arrays.copyOf(buckets[k], size);
+                    Arrays.sort(targets);
+                    IntArrayKey cacheKey = new IntArrayKey(targets);
+                    Integer index = rowCache.get(cacheKey);
+                    if (index == null) {
+                        // restart已经是闭包，只需要计算targets的闭包再合并
+                        index = stateIndex(merge(closure(targets, size), restart), dfaStates, dfaSets);
+                        rowCache.put(cacheKey, index);
+                    }
+                    row[k] = index;
+                }
+                rows.add(row);
+            }
+
+            int dfaCount = dfaSets.size();
+            int[] table = new int[dfaCount * classCount];
+            int[][] accepts = new int[dfaCount][];
+            int[][] endAccepts = new int[dfaCount][];
+            for (int d = 0; d < dfaCount; d++) {
+                System.arraycopy(rows.get(d), 0, table, d * classCount, classCount);
+                accepts[d] = acceptsOf(dfaSets.get(d), 0);
+                endAccepts[d] = acceptsOf(dfaSets.get(d), 1);
+            }
+            String[] sources = regexes.stream().map(Regex::source).toArray(String[]::new);
+            return new BilibiliRegexDfa(sources, ignoreCase, classOf, classCount, table, accepts, endAccepts);
+        }
+
+        private static int stateIndex(int[] nfaStates, Map<IntArrayKey, Integer> dfaStates, List<int[]> dfaSets) {
+            return dfaStates.computeIfAbsent(new IntArrayKey(nfaStates), key -> {
+                dfaSets.add(nfaStates);
+                return dfaSets.size() - 1;
+            });
+        }
+
+        private int[] acceptsOf(int[] dfaSet, int endOnly) {
+            int[] result = null;
+            for (int s : dfaSet) {
+                if (kind[s] == KIND_MATCH && out2[s] == endOnly) {
+                    result = result == null ? new int[]{arg[s]} : appendDistinct(result, arg[s]);
+                }
+            }
+            return result;
+        }
+
+        private static int[] appendDistinct(int[] array, int value) {
+            for (int v : array) {
+                if (v == value) {
+                    return array;
+                }
+            }
+            int[] result = Arrays.copyOf(array, array.length + 1);
+            result[array.length] = value;
+            return result;
+        }
+
+        /**
+         * 构建node，匹配后转到next，返回起始状态
+         */
+        private int build(Node node, int next) {
+            if (node instanceof CharSet charSet) {
+                return newState(KIND_SET, next, -1, setIndex(charSet.ranges()));
+            }
+            if (node instanceof Concat concat) {
+                for (int i = concat.nodes().size() - 1; i >= 0; i--) {
+                    next = build(concat.nodes().get(i), next);
+                }
+                return next;
+            }
+            if (node instanceof Alt alt) {
+                int start = build(alt.nodes().get(alt.nodes().size() - 1), next);
+                for (int i = alt.nodes().size() - 2; i >= 0; i--) {
+                    start = newState(KIND_SPLIT, build(alt.nodes().get(i), next), start, -1);
+                }
+                return start;
+            }
+            Repeat repeat = (Repeat) node;
+            int start;
+            if (repeat.max() < 0) {
+                int loop = newState(KIND_SPLIT, -1, next, -1);
+                // build可能扩容数组，先求值再写入
+                int body = build(repeat.node(), loop);
+                out1[loop] = body;
+                start = loop;
+            } else {
+                start = next;
+                for (int i = repeat.min(); i < repeat.max(); i++) {
+                    start = newState(KIND_SPLIT, build(repeat.node(), start), next, -1);
+                }
+            }
+            for (int i = 0; i < repeat.min(); i++) {
+                start = build(repeat.node(), start);
+            }
+            return start;
+        }
+
+        private int setIndex(int[] ranges) {
+            return setIndexes.computeIfAbsent(new IntArrayKey(ranges), key -> {
+                sets.add(ranges);
+                return sets.size() - 1;
+            });
+        }
+
+        private int newState(int kind, int out1, int out2, int arg) {
+            if (stateCount == this.kind.length) {
+                int capacity = stateCount * 2;
+                this.kind = Arrays.copyOf(this.kind, capacity);
+                this.out1 = Arrays.copyOf(this.out1, capacity);
+                this.out2 = Arrays.copyOf(this.out2, capacity);
+                this.arg = Arrays.copyOf(this.arg, capacity);
+            }
+            this.kind[stateCount] = kind;
+            this.out1[stateCount] = out1;
+            this.out2[stateCount] = out2;
+            this.arg[stateCount] = arg;
+            return stateCount++;
+        }
+
+        /**
+         * ε闭包，只保留SET和MATCH状态，结果有序
+         */
+        private int[] closure(int[] states, int count) {
+            mark++;
+            int top = 0;
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                top = push(states[i], top);
+            }
+            while (top > 0) {
+                int s = stack[--top];
+                if (kind[s] == KIND_SPLIT) {
+                    top = push(out1[s], top);
+                    top = push(out2[s], top);
+                } else {
+                    closureBuffer[size++] = s;
+                }
+            }
+            int[] closure = Arrays.copyOf(closureBuffer, size);
+            Arrays.sort(closure);
+            return closure;
+        }
+
+        private static int[] merge(int[] a, int[] b) {
+            int[] result = new int[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < a.length || j < b.length) {
+                int next = j >= b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+                if (size == 0 || result[size - 1] != next) {
+                    result[size++] = next;
+                }
+            }
+            return size == result.length ? result : Arrays.copyOf(result, size);
+        }
+
+        private int push(int s, int top) {
+            if (visited[s] != mark) {
+                visited[s] = mark;
+                stack[top++] = s;
+            }
+            return top;
+        }
+    }
+
+    private record IntArrayKey(int[] array) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntArrayKey other && Arrays.equals(array, other.array);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(array);
+        }
+    }
+}
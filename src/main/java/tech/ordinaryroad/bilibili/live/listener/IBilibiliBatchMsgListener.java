@@ -0,0 +1,54 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.listener;
+
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.util.List;
+
+/**
+ * 批量消息监听器
+ * <p>
+ * 消息监听器实现该接口后，同一个WebSocket帧中的所有消息会合并为一个列表回调，不再逐条回调{@link IBilibiliSendSmsReplyMsgListener}中的方法；
+ * 配置了batchMaxSize、batchMaxDelayMillis时，会在同一房间内跨帧攒批。
+ * 同时实现{@link IBilibiliTypedMsgListener}时，热点cmd仍然走类型化回调，不进入批量列表
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public interface IBilibiliBatchMsgListener extends IBilibiliSendSmsReplyMsgListener {
+
+    /**
+     * 未配置dispatchExecutor时在房间所在的EventLoop中回调；配置了dispatchExecutor时在该Executor的线程中回调，
+     * 与同一房间的其他消息共用回调队列，同一时刻最多一个线程回调，但不保证每次都是同一个线程。
+     * 两种情况下同一房间的批次都按接收顺序依次回调，不同房间的批次可能并发回调
+     *
+     * @param binaryFrameHandler 房间消息处理器
+     * @param msgs               本批消息，回调结束后不会再被修改，可以直接交给其他线程
+     */
+    void onMsgBatch(BilibiliBinaryFrameHandler binaryFrameHandler, List<SendSmsReplyMsg> msgs);
+}
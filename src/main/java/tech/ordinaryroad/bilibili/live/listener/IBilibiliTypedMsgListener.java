@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.listener;
+
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.InteractWordMsg;
+import tech.ordinaryroad.bilibili.live.msg.LikeClickMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+/**
+ * 类型化消息监听器
+ * <p>
+ * 消息监听器实现该接口后，DANMU_MSG、SEND_GIFT、INTERACT_WORD、LIKE_INFO_V3_CLICK会直接流式解析为扁平的消息对象，
+ * 不再构建JsonNode，也不会再回调{@link IBilibiliSendSmsReplyMsgListener}中对应的方法；其他cmd不受影响
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public interface IBilibiliTypedMsgListener extends IBilibiliSendSmsReplyMsgListener {
+
+    default void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+        // ignore
+    }
+
+    default void onGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendGiftMsg msg) {
+        // ignore
+    }
+
+    default void onInteractWord(BilibiliBinaryFrameHandler binaryFrameHandler, InteractWordMsg msg) {
+        // ignore
+    }
+
+    default void onLikeClick(BilibiliBinaryFrameHandler binaryFrameHandler, LikeClickMsg msg) {
+        // ignore
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+/**
+ * JFR事件，录制时可以在JMC中按房间、cmd查看耗时
+ * <p>
+ * 帧、解压、解析事件数量较多，默认关闭，需要时在.jfc中开启
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliJfrMetrics implements IBilibiliMetricsRecorder {
+
+    private static final String CATEGORY_ROOT = "OrdinaryRoad";
+    private static final String CATEGORY = "Bilibili Live";
+
+    @Override
+    public void onFrameReceived(long roomId, ProtoverEnum protover, int bytes) {
+        FrameEvent event = new FrameEvent();
+        if (event.shouldCommit()) {
+            event.roomId = roomId;
+            event.protover = protover == null ? null : protover.name();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onDecompressed(ProtoverEnum protover, int compressedBytes, int decompressedBytes, long nanos) {
+        DecompressEvent event = new DecompressEvent();
+        if (event.shouldCommit()) {
+            event.protover = protover.name();
+            event.compressedBytes = compressedBytes;
+            event.decompressedBytes = decompressedBytes;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onMsgParsed(long roomId, String cmd, long nanos) {
+        ParseEvent event = new ParseEvent();
+        if (event.shouldCommit()) {
+            event.roomId = roomId;
+            event.cmd = cmd;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onListenerExecuted(long roomId, String cmd, long nanos) {
+        ListenerEvent event = new ListenerEvent();
+        if (event.shouldCommit()) {
+            event.roomId = roomId;
+            event.cmd = cmd;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onHeartbeatRoundTrip(long roomId, long nanos) {
+        ConnectionEvent.commit(roomId, "HEARTBEAT", nanos);
+    }
+
+    @Override
+    public void onTlsHandshake(long roomId, boolean resumed, long nanos) {
+        ConnectionEvent.commit(roomId, resumed ? "TLS_RESUMED" : "TLS_FULL", nanos);
+    }
+
+    @Override
+    public void onHandshake(long roomId, long nanos) {
+        ConnectionEvent.commit(roomId, "HANDSHAKE", nanos);
+    }
+
+    @Override
+    public void onAuth(long roomId, long nanos) {
+        ConnectionEvent.commit(roomId, "AUTH", nanos);
+    }
+
+    @Override
+    public void onReconnect(long roomId) {
+        ConnectionEvent.commit(roomId, "RECONNECT", 0);
+    }
+
+    @Name("tech.ordinaryroad.bilibili.live.Frame")
+    @Label("Frame Received")
+    @Category({CATEGORY_ROOT, CATEGORY})
+    @StackTrace(false)
+    @Enabled(false)
+    static class FrameEvent extends Event {
+        @Label("Room ID")
+        long roomId;
+        @Label("Protover")
+        String protover;
+        @Label("Bytes")
+        int bytes;
+    }
+
+    @Name("tech.ordinaryroad.bilibili.live.Decompress")
+    @Label("Decompress")
+    @Category({CATEGORY_ROOT, CATEGORY})
+    @StackTrace(false)
+    @Enabled(false)
+    static class DecompressEvent extends Event {
+        @Label("Protover")
+        String protover;
+        @Label("Compressed Bytes")
+        int compressedBytes;
+        @Label("Decompressed Bytes")
+        int decompressedBytes;
+        @Label("Time")
+        @Timespan
+        long nanos;
+    }
+
+    @Name("tech.ordinaryroad.bilibili.live.Parse")
+    @Label("Message Parse")
+    @Category({CATEGORY_ROOT, CATEGORY})
+    @StackTrace(false)
+    @Enabled(false)
+    static class ParseEvent extends Event {
+        @Label("Room ID")
+        long roomId;
+        @Label("Cmd")
+        String cmd;
+        @Label("Time")
+        @Timespan
+        long nanos;
+    }
+
+    @Name("tech.ordinaryroad.bilibili.live.Listener")
+    @Label("Listener Execution")
+    @Category({CATEGORY_ROOT, CATEGORY})
+    @StackTrace(false)
+    static class ListenerEvent extends Event {
+        @Label("Room ID")
+        long roomId;
+        @Label("Cmd")
+        String cmd;
+        @Label("Time")
+        @Timespan
+        long nanos;
+    }
+
+    @Name("tech.ordinaryroad.bilibili.live.Connection")
+    @Label("Connection")
+    @Category({CATEGORY_ROOT, CATEGORY})
+    @StackTrace(false)
+    static class ConnectionEvent extends Event {
+        @Label("Room ID")
+        long roomId;
+        @Label("Type")
+        String type;
+        @Label("Time")
+        @Timespan
+        long nanos;
+
+        static void commit(long roomId, String type, long nanos) {
+            ConnectionEvent event = new ConnectionEvent();
+            if (event.shouldCommit()) {
+                event.roomId = roomId;
+                event.type = type;
+                event.nanos = nanos;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tech.ordinaryroad.bilibili.live.client.BilibiliLiveChatClientManager;
+import tech.ordinaryroad.bilibili.live.client.BilibiliReconnectScheduler;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer指标，需要自行引入micrometer-core
+ * <p>
+ * 默认只按protover、cmd打标签；开启perRoom后额外输出按房间统计的消息数、监听器耗时和重连次数，房间较多时注意标签基数
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliMicrometerMetrics implements IBilibiliMetricsRecorder, MeterBinder {
+
+    private static final String PREFIX = "bilibili.live.";
+    private static final String BATCH_CMD = "BATCH";
+
+    private final boolean perRoom;
+    private volatile MeterRegistry registry;
+
+    private final Map<String, Counter> frameCounters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> frameBytes = new ConcurrentHashMap<>();
+    private final Map<ProtoverEnum, Timer> decompressTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> parseTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> listenerTimers = new ConcurrentHashMap<>();
+    private final Map<Long, Counter> roomMsgCounters = new ConcurrentHashMap<>();
+    private final Map<Long, Timer> roomListenerTimers = new ConcurrentHashMap<>();
+    private final Map<Long, Counter> roomReconnectCounters = new ConcurrentHashMap<>();
+    private Timer heartbeatTimer;
+    private Timer tlsFullHandshakeTimer;
+    private Timer tlsResumedHandshakeTimer;
+    private Timer handshakeTimer;
+    private Timer authTimer;
+    private Counter reconnectCounter;
+
+    public BilibiliMicrometerMetrics(boolean perRoom) {
+        this.perRoom = perRoom;
+    }
+
+    public BilibiliMicrometerMetrics() {
+        this(false);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.heartbeatTimer = Timer.builder(PREFIX + "heartbeat.rtt")
+                .description("发送心跳到收到心跳回复的时间")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.tlsFullHandshakeTimer = tlsHandshakeTimer(registry, false);
+        this.tlsResumedHandshakeTimer = tlsHandshakeTimer(registry, true);
+        this.handshakeTimer = Timer.builder(PREFIX + "handshake")
+                .description("连接建立到WebSocket握手完成的时间")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.authTimer = Timer.builder(PREFIX + "auth")
+                .description("发送认证包到收到认证回复的时间")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.reconnectCounter = Counter.builder(PREFIX + "reconnects")
+                .description("重连次数")
+                .register(registry);
+        this.registry = registry;
+    }
+
+    /**
+     * 按resumed标签区分，两者的计数之比即为会话恢复率
+     */
+    private static Timer tlsHandshakeTimer(MeterRegistry registry, boolean resumed) {
+        return Timer.builder(PREFIX + "tls.handshake")
+                .description("连接建立到TLS握手完成的时间")
+                .tag("resumed", String.valueOf(resumed))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * 注册manager的房间数、等待重连数、正在握手认证数，需要在{@link #bindTo(MeterRegistry)}之后调用
+     */
+    public void monitor(BilibiliLiveChatClientManager manager) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            throw new IllegalStateException("请先调用bindTo");
+        }
+        BilibiliReconnectScheduler scheduler = manager.getReconnectScheduler();
+        Gauge.builder(PREFIX + "rooms", manager, m -> m.getRoomIds().size())
+                .description("房间数")
+                .register(registry);
+        Gauge.builder(PREFIX + "reconnect.pending", scheduler, BilibiliReconnectScheduler::getPendingCount)
+                .description("等待重连的房间数")
+                .register(registry);
+        Gauge.builder(PREFIX + "connect.inflight", scheduler, BilibiliReconnectScheduler::getInFlightCount)
+                .description("正在握手、认证的连接数")
+                .register(registry);
+    }
+
+    @Override
+    public void onFrameReceived(long roomId, ProtoverEnum protover, int bytes) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        String tag = protover == null ? "UNKNOWN" : protover.name();
+        frameCounters.computeIfAbsent(tag, key -> Counter.builder(PREFIX + "frames")
+                .description("收到的WebSocket帧数")
+                .tag("protover", key)
+                .register(registry)).increment();
+        frameBytes.computeIfAbsent(tag, key -> DistributionSummary.builder(PREFIX + "frame.bytes")
+                .description("收到的WebSocket帧字节数")
+                .baseUnit("bytes")
+                .tag("protover", key)
+                .register(registry)).record(bytes);
+    }
+
+    @Override
+    public void onDecompressed(ProtoverEnum protover, int compressedBytes, int decompressedBytes, long nanos) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        decompressTimers.computeIfAbsent(protover, key -> Timer.builder(PREFIX + "decompress")
+                .description("解压耗时")
+                .tag("protover", key.name())
+                .publishPercentileHistogram()
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onMsgParsed(long roomId, String cmd, long nanos) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        // 计数即为按cmd统计的消息数
+        parseTimers.computeIfAbsent(cmd == null ? "UNKNOWN" : cmd, key -> Timer.builder(PREFIX + "parse")
+                .description("消息解析耗时")
+                .tag("cmd", key)
+                .publishPercentileHistogram()
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+        if (perRoom) {
+            roomMsgCounters.computeIfAbsent(roomId, key -> Counter.builder(PREFIX + "room.msgs")
+                    .description("房间收到的消息数")
+                    .tag("room", String.valueOf(key))
+                    .register(registry)).increment();
+        }
+    }
+
+    @Override
+    public void onListenerExecuted(long roomId, String cmd, long nanos) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        listenerTimers.computeIfAbsent(cmd == null ? BATCH_CMD : cmd, key -> Timer.builder(PREFIX + "listener")
+                .description("监听器回调耗时")
+                .tag("cmd", key)
+                .publishPercentileHistogram()
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+        if (perRoom) {
+            roomListenerTimers.computeIfAbsent(roomId, key -> Timer.builder(PREFIX + "room.listener")
+                    .description("房间监听器回调耗时")
+                    .tag("room", String.valueOf(key))
+                    .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onHeartbeatRoundTrip(long roomId, long nanos) {
+        if (registry != null) {
+            heartbeatTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onTlsHandshake(long roomId, boolean resumed, long nanos) {
+        if (registry != null) {
+            (resumed ? tlsResumedHandshakeTimer : tlsFullHandshakeTimer).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onHandshake(long roomId, long nanos) {
+        if (registry != null) {
+            handshakeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onAuth(long roomId, long nanos) {
+        if (registry != null) {
+            authTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onReconnect(long roomId) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        reconnectCounter.increment();
+        if (perRoom) {
+            roomReconnectCounters.computeIfAbsent(roomId, key -> Counter.builder(PREFIX + "room.reconnects")
+                    .description("房间重连次数")
+                    .tag("room", String.valueOf(key))
+                    .register(registry)).increment();
+        }
+    }
+}
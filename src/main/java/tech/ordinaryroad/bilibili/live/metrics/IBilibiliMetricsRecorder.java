@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.metrics;
+
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.util.List;
+
+/**
+ * 连接和解码过程的指标回调，按需实现
+ * <p>
+ * 除{@link #onListenerExecuted}外都在EventLoop中调用，实现中不要有耗时操作
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public interface IBilibiliMetricsRecorder {
+
+    /**
+     * 收到WebSocket帧
+     *
+     * @param protover 帧中第一个数据包的协议版本，无法识别时为null
+     * @param bytes    帧的字节数
+     */
+    default void onFrameReceived(long roomId, ProtoverEnum protover, int bytes) {
+        // ignore
+    }
+
+    /**
+     * 解压完成
+     */
+    default void onDecompressed(ProtoverEnum protover, int compressedBytes, int decompressedBytes, long nanos) {
+        // ignore
+    }
+
+    /**
+     * 消息解析完成，被cmd过滤器丢弃的消息不会回调
+     *
+     * @param cmd 去掉后缀的cmd
+     */
+    default void onMsgParsed(long roomId, String cmd, long nanos) {
+        // ignore
+    }
+
+    /**
+     * 监听器回调执行完成，配置了dispatchExecutor时在该Executor中调用
+     *
+     * @param cmd 去掉后缀的cmd，批量回调时为null
+     */
+    default void onListenerExecuted(long roomId, String cmd, long nanos) {
+        // ignore
+    }
+
+    /**
+     * 收到心跳回复，nanos为发送心跳到收到回复的时间
+     */
+    default void onHeartbeatRoundTrip(long roomId, long nanos) {
+        // ignore
+    }
+
+    /**
+     * TLS握手完成，nanos为连接建立到TLS握手完成的时间
+     *
+     * @param resumed 是否恢复了之前的会话，没有进行完整握手
+     */
+    default void onTlsHandshake(long roomId, boolean resumed, long nanos) {
+        // ignore
+    }
+
+    /**
+     * WebSocket握手完成，nanos为连接建立到握手完成的时间
+     */
+    default void onHandshake(long roomId, long nanos) {
+        // ignore
+    }
+
+    /**
+     * 收到认证回复，nanos为发送认证包到收到回复的时间
+     */
+    default void onAuth(long roomId, long nanos) {
+        // ignore
+    }
+
+    /**
+     * 开始重连
+     */
+    default void onReconnect(long roomId) {
+        // ignore
+    }
+
+    /**
+     * 同时输出到多个实现，例如Micrometer和JFR
+     */
+    static IBilibiliMetricsRecorder composite(IBilibiliMetricsRecorder... recorders) {
+        List<IBilibiliMetricsRecorder> list = List.of(recorders);
+        return new IBilibiliMetricsRecorder() {
+            @Override
+            public void onFrameReceived(long roomId, ProtoverEnum protover, int bytes) {
+                list.forEach(recorder -> recorder.onFrameReceived(roomId, protover, bytes));
+            }
+
+            @Override
+            public void onDecompressed(ProtoverEnum protover, int compressedBytes, int decompressedBytes, long nanos) {
+                list.forEach(recorder -> recorder.onDecompressed(protover, compressedBytes, decompressedBytes, nanos));
+            }
+
+            @Override
+            public void onMsgParsed(long roomId, String cmd, long nanos) {
+                list.forEach(recorder -> recorder.onMsgParsed(roomId, cmd, nanos));
+            }
+
+            @Override
+            public void onListenerExecuted(long roomId, String cmd, long nanos) {
+                list.forEach(recorder -> recorder.onListenerExecuted(roomId, cmd, nanos));
+            }
+
+            @Override
+            public void onHeartbeatRoundTrip(long roomId, long nanos) {
+                list.forEach(recorder -> recorder.onHeartbeatRoundTrip(roomId, nanos));
+            }
+
+            @Override
+            public void onTlsHandshake(long roomId, boolean resumed, long nanos) {
+                list.forEach(recorder -> recorder.onTlsHandshake(roomId, resumed, nanos));
+            }
+
+            @Override
+            public void onHandshake(long roomId, long nanos) {
+                list.forEach(recorder -> recorder.onHandshake(roomId, nanos));
+            }
+
+            @Override
+            public void onAuth(long roomId, long nanos) {
+                list.forEach(recorder -> recorder.onAuth(roomId, nanos));
+            }
+
+            @Override
+            public void onReconnect(long roomId) {
+                list.forEach(recorder -> recorder.onReconnect(roomId));
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.msg;
+
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DANMU_MSG 弹幕消息，由流式解析直接生成，不构建JsonNode
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Data
+public class DanmuMsg {
+
+    private long uid;
+    private String uname;
+    private String text;
+    /**
+     * 发送时间，单位ms
+     */
+    private long timestamp;
+    /**
+     * 粉丝牌等级，未佩戴时为0
+     */
+    private int medalLevel;
+    /**
+     * 粉丝牌名称，未佩戴时为null
+     */
+    private String medalName;
+    /**
+     * 命中的关键词和正则，配置了keywordMatcher时由处理器填写，没有命中时为空列表
+     */
+    private List<String> keywordHits = Collections.emptyList();
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.netty.codec;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.concurrent.FastThreadLocal;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 数据包解码器，将一个WebSocket帧拆分为多个数据包，压缩的数据包会先解压再递归拆分
+ * <p>
+ * 解压结果写入池化的ByteBuf，嵌套的数据包均为该ByteBuf的slice，回调结束后统一释放；
+ * Inflater按线程复用，在EventLoop中使用时即每个EventLoop一个
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliPacketDecoder {
+
+    /**
+     * 解压后的长度通常为压缩前的数倍，用于预估初始容量
+     */
+    private static final int DECOMPRESS_RATIO = 4;
+
+    private static final FastThreadLocal<Inflater> INFLATER = new FastThreadLocal<>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+
+        @Override
+        protected void onRemoval(Inflater inflater) {
+            inflater.end();
+        }
+    };
+
+    /**
+     * 数据包回调
+     */
+    @FunctionalInterface
+    public interface PacketVisitor {
+        /**
+         * @param protover  协议版本
+         * @param operation 操作码
+         * @param body      正文，仅在回调期间有效
+         */
+        void visit(ProtoverEnum protover, int operation, ByteBuf body);
+    }
+
+    private BilibiliPacketDecoder() {
+    }
+
+    /**
+     * 解码，不会修改in的readerIndex
+     *
+     * @param in        WebSocket帧的内容
+     * @param allocator 用于分配解压缓冲区
+     * @param visitor   数据包回调
+     */
+    public static void decode(ByteBuf in, ByteBufAllocator allocator, PacketVisitor visitor) {
+        decode(in, allocator, visitor, null);
+    }
+
+    /**
+     * 解码，不会修改in的readerIndex
+     *
+     * @param in              WebSocket帧的内容
+     * @param allocator       用于分配解压缓冲区
+     * @param visitor         数据包回调
+     * @param metricsRecorder 记录解压耗时，可以为null
+     */
+    public static void decode(ByteBuf in, ByteBufAllocator allocator, PacketVisitor visitor, IBilibiliMetricsRecorder metricsRecorder) {
+        int offset = in.readerIndex();
+        int end = in.writerIndex();
+        while (offset + BilibiliPacketUtil.HEADER_LENGTH <= end) {
+            int packetLength = in.getInt(offset);
+            int headerLength = in.getUnsignedShort(offset + 4);
+            int protoverCode = in.getUnsignedShort(offset + 6);
+            int operation = in.getInt(offset + 8);
+            // 长度小于头部长度时offset无法前进，必须拒绝，否则会在EventLoop中死循环
+            if (packetLength < BilibiliPacketUtil.HEADER_LENGTH || packetLength > end - offset
+                    || headerLength < BilibiliPacketUtil.HEADER_LENGTH || headerLength > packetLength) {
+                throw new DecoderException("数据包长度错误 packetLength=" + packetLength + ", headerLength=" + headerLength + ", readable=" + (end - offset));
+            }
+            ProtoverEnum protover = ProtoverEnum.getByCode(protoverCode);
+            if (protover == null) {
+                throw new DecoderException("未知协议版本 " + protoverCode);
+            }
+            ByteBuf body = in.slice(offset + headerLength, packetLength - headerLength);
+            switch (protover) {
+                case NORMAL_ZLIB, NORMAL_BROTLI -> {
+                    long start = metricsRecorder == null ? 0 : System.nanoTime();
+                    ByteBuf decompressed = protover == ProtoverEnum.NORMAL_ZLIB ? inflate(body, allocator) : brotliDecompress(body, allocator);
+                    if (metricsRecorder != null) {
+                        metricsRecorder.onDecompressed(protover, body.readableBytes(), decompressed.readableBytes(), System.nanoTime() - start);
+                    }
+                    decodeDecompressed(decompressed, allocator, visitor, metricsRecorder);
+                }
+                default -> visitor.visit(protover, operation, body);
+            }
+            offset += packetLength;
+        }
+    }
+
+    private static void decodeDecompressed(ByteBuf decompressed, ByteBufAllocator allocator, PacketVisitor visitor, IBilibiliMetricsRecorder metricsRecorder) {
+        try {
+            decode(decompressed, allocator, visitor, metricsRecorder);
+        } finally {
+            decompressed.release();
+        }
+    }
+
+    private static ByteBuf inflate(ByteBuf body, ByteBufAllocator allocator) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(body.nioBuffer());
+        ByteBuf out = allocator.buffer(body.readableBytes() * DECOMPRESS_RATIO);
+        try {
+            while (!inflater.finished()) {
+                out.ensureWritable(body.readableBytes());
+                ByteBuffer outBuffer = out.nioBuffer(out.writerIndex(), out.writableBytes());
+                int count = inflater.inflate(outBuffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.writerIndex(out.writerIndex() + count);
+            }
+            if (!inflater.finished()) {
+                throw new DataFormatException("数据不完整");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            out.release();
+            throw new DecoderException("zlib解压失败", e);
+        }
+    }
+
+    /**
+     * brotli4j的解码器状态无法重置，每个压缩块使用一个新的DecoderJNI.Wrapper，输出直接写入池化的ByteBuf
+     */
+    private static ByteBuf brotliDecompress(ByteBuf body, ByteBufAllocator allocator) {
+        Brotli4jLoader.ensureAvailability();
+        DecoderJNI.Wrapper decoder;
+        try {
+            decoder = new DecoderJNI.Wrapper(body.readableBytes());
+        } catch (IOException e) {
+            throw new DecoderException("brotli解码器创建失败", e);
+        }
+        ByteBuf out = allocator.buffer(body.readableBytes() * DECOMPRESS_RATIO);
+        try {
+            ByteBuffer inputBuffer = decoder.getInputBuffer();
+            inputBuffer.clear();
+            body.getBytes(body.readerIndex(), inputBuffer);
+            decoder.push(body.readableBytes());
+            while (true) {
+                switch (decoder.getStatus()) {
+                    case DONE -> {
+                        while (decoder.hasOutput()) {
+                            out.writeBytes(decoder.pull());
+                        }
+                        return out;
+                    }
+                    case OK -> decoder.push(0);
+                    case NEEDS_MORE_OUTPUT -> {
+                        ByteBuffer pulled = decoder.pull();
+                        out.writeBytes(pulled);
+                    }
+                    // 数据不完整时为NEEDS_MORE_INPUT，不返回部分结果
+                    default -> throw new DecoderException("brotli解压失败 " + decoder.getStatus());
+                }
+            }
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        } finally {
+            decoder.destroy();
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.netty.handler;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.dispatch.BilibiliMsgDispatcher;
+import tech.ordinaryroad.bilibili.live.journal.BilibiliFrameJournal;
+import tech.ordinaryroad.bilibili.live.keyword.BilibiliKeywordMatcher;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliBatchMsgListener;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.InteractWordMsg;
+import tech.ordinaryroad.bilibili.live.msg.LikeClickMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.bilibili.live.netty.codec.BilibiliPacketDecoder;
+import tech.ordinaryroad.bilibili.live.util.BilibiliCmdFilter;
+import tech.ordinaryroad.bilibili.live.util.BilibiliFingerprintSet;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMsgParser;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.BilibiliCmdEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 房间消息处理器
+ * <p>
+ * 自行拆包、解压并分发消息，配置了allowCmds、denyCmds时在JSON解析之前过滤；消息监听器实现了{@link IBilibiliTypedMsgListener}时，热点cmd走流式解析；
+ * 实现了{@link IBilibiliBatchMsgListener}时，按帧或跨帧攒批回调；配置了{@link BilibiliMsgDispatcher}时，回调不在EventLoop中执行；配置了{@link BilibiliFrameJournal}时，解包前写入原始帧；
+ * 配置了{@link BilibiliKeywordMatcher}时，DanmuMsg在回调之前标记命中的关键词
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliRoomBinaryFrameHandler extends BilibiliBinaryFrameHandler {
+
+    private static final Map<String, BilibiliCmdEnum> CMD_MAP = new HashMap<>();
+
+    static {
+        for (BilibiliCmdEnum cmdEnum : BilibiliCmdEnum.values()) {
+            CMD_MAP.put(cmdEnum.name(), cmdEnum);
+        }
+    }
+
+    private final IBilibiliSendSmsReplyMsgListener msgListener;
+    private final IBilibiliTypedMsgListener typedMsgListener;
+    private final IBilibiliBatchMsgListener batchMsgListener;
+    private final int batchMaxSize;
+    private final long batchMaxDelayMillis;
+    private final BilibiliMsgDispatcher dispatcher;
+    private final BilibiliCmdFilter cmdFilter;
+    private final boolean lazyMsgParse;
+    private final BilibiliKeywordMatcher keywordMatcher;
+    private final IBilibiliMetricsRecorder metricsRecorder;
+    private final BilibiliFrameJournal journal;
+    /**
+     * 热备连接共享的消息指纹，非热备连接为null
+     */
+    private final BilibiliFingerprintSet fingerprints;
+    /**
+     * 本连接在消息指纹中的来源，0或1
+     */
+    private final int fingerprintSource;
+    private ChannelHandlerContext ctx;
+    /**
+     * 待回调的批量消息，只在EventLoop中访问
+     */
+    private List<SendSmsReplyMsg> batch;
+    private ScheduledFuture<?> batchFlushFuture;
+
+    /**
+     * @param dispatcher        回调队列，为null时直接在EventLoop中回调
+     * @param fingerprints      消息指纹，不为null时丢弃已经由另一条连接先收到的消息
+     * @param fingerprintSource 本连接在消息指纹中的来源，0或1
+     */
+    public BilibiliRoomBinaryFrameHandler(IBilibiliSendSmsReplyMsgListener msgListener, long roomId, BilibiliLiveChatClientManagerConfig config, BilibiliMsgDispatcher dispatcher,
+                                          BilibiliFingerprintSet fingerprints, int fingerprintSource) {
+        super(msgListener, roomId);
+        this.msgListener = msgListener;
+        this.typedMsgListener = msgListener instanceof IBilibiliTypedMsgListener typed ? typed : null;
+        this.batchMsgListener = msgListener instanceof IBilibiliBatchMsgListener batchListener ? batchListener : null;
+        this.batchMaxSize = config.getBatchMaxSize();
+        this.batchMaxDelayMillis = config.getBatchMaxDelayMillis();
+        this.dispatcher = dispatcher;
+        this.cmdFilter = BilibiliCmdFilter.create(config);
+        this.lazyMsgParse = config.isLazyMsgParse();
+        this.keywordMatcher = config.getKeywordMatcher();
+        this.metricsRecorder = config.getMetricsRecorder();
+        this.journal = config.getJournal();
+        this.fingerprints = fingerprints;
+        this.fingerprintSource = fingerprintSource;
+    }
+
+    /**
+     * @param dispatcher 回调队列，为null时直接在EventLoop中回调
+     */
+    public BilibiliRoomBinaryFrameHandler(IBilibiliSendSmsReplyMsgListener msgListener, long roomId, BilibiliLiveChatClientManagerConfig config, BilibiliMsgDispatcher dispatcher) {
+        this(msgListener, roomId, config, dispatcher, null, 0);
+    }
+
+    public BilibiliRoomBinaryFrameHandler(IBilibiliSendSmsReplyMsgListener msgListener, long roomId, BilibiliLiveChatClientManagerConfig config) {
+        this(msgListener, roomId, config, BilibiliMsgDispatcher.create(roomId, config));
+    }
+
+    public BilibiliRoomBinaryFrameHandler(IBilibiliSendSmsReplyMsgListener msgListener, long roomId) {
+        this(msgListener, roomId, BilibiliLiveChatClientManagerConfig.builder().build());
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    /**
+     * 所在的Channel，加入pipeline之前为null
+     */
+    public Channel getChannel() {
+        return ctx == null ? null : ctx.channel();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, BinaryWebSocketFrame msg) {
+        ByteBuf content = msg.content();
+        if (journal != null) {
+            journal.append(getRoomId(), System.currentTimeMillis(), content);
+        }
+        if (metricsRecorder != null) {
+            ProtoverEnum protover = content.readableBytes() >= BilibiliPacketUtil.HEADER_LENGTH
+                    ? ProtoverEnum.getByCode(content.getUnsignedShort(content.readerIndex() + 6)) : null;
+            metricsRecorder.onFrameReceived(getRoomId(), protover, content.readableBytes());
+        }
+        BilibiliPacketDecoder.decode(content, ctx.alloc(), this::onPacket, metricsRecorder);
+        if (batch != null) {
+            onFrameBatchComplete(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (dispatcher != null) {
+            dispatcher.onChannelActive(ctx.channel());
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        flushBatch();
+        if (dispatcher != null) {
+            dispatcher.onChannelInactive(ctx.channel());
+        }
+        super.channelInactive(ctx);
+    }
+
+    private void onPacket(ProtoverEnum protover, int operation, ByteBuf body) {
+        switch (operation) {
+            case BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY -> onSendSmsReply(body);
+            case BilibiliPacketUtil.OPERATION_AUTH_REPLY -> {
+                log.debug("{} 认证结果 {}", getRoomId(), body.toString(StandardCharsets.UTF_8));
+                recordRoundTrip(BilibiliRoomConnectionHandler.AUTH_SENT_NANOS_KEY, true);
+                onAuthReply(body);
+            }
+            case BilibiliPacketUtil.OPERATION_HEARTBEAT_REPLY -> {
+                recordRoundTrip(BilibiliRoomConnectionHandler.HEARTBEAT_SENT_NANOS_KEY, false);
+                if (log.isDebugEnabled() && body.readableBytes() >= 4) {
+                    log.debug("{} 心跳回复 人气值 {}", getRoomId(), body.getInt(body.readerIndex()));
+                }
+            }
+            default -> log.debug("{} 未知操作码 {}", getRoomId(), operation);
+        }
+    }
+
+    private void onSendSmsReply(ByteBuf body) {
+        try {
+            if (cmdFilter != null && !cmdFilter.accept(body)) {
+                return;
+            }
+            // 在解析JSON之前按原始字节去重，重复消息不产生解析开销
+            if (fingerprints != null && !fingerprints.add(BilibiliFingerprintSet.hash(body), fingerprintSource)) {
+                return;
+            }
+            if (typedMsgListener != null && dispatchTyped(body)) {
+                return;
+            }
+            long start = metricsRecorder == null ? 0 : System.nanoTime();
+            SendSmsReplyMsg msg = lazyMsgParse ? BilibiliMsgParser.readLazySendSmsReplyMsg(body) : BilibiliMsgParser.readSendSmsReplyMsg(body);
+            String cmd = BilibiliMsgParser.normalizeCmd(msg.getCmd());
+            if (cmdFilter != null && !cmdFilter.accept(cmd)) {
+                return;
+            }
+            recordParsed(cmd, start);
+            if (batchMsgListener != null) {
+                if (batch == null) {
+                    batch = new ArrayList<>();
+                }
+                batch.add(msg);
+                if (batchMaxSize > 0 && batch.size() >= batchMaxSize) {
+                    flushBatch();
+                }
+                return;
+            }
+            fire(cmd, () -> dispatch(msg));
+        } catch (Exception e) {
+            log.error("{} 消息处理失败", getRoomId(), e);
+        }
+    }
+
+    /**
+     * @return 是否已经按热点cmd分发
+     */
+    private boolean dispatchTyped(ByteBuf body) throws Exception {
+        long start = metricsRecorder == null ? 0 : System.nanoTime();
+        try (JsonParser parser = BilibiliMsgParser.createParser(body)) {
+            String cmd = BilibiliMsgParser.normalizeCmd(BilibiliMsgParser.readLeadingCmd(parser));
+            if (cmd == null) {
+                return false;
+            }
+            switch (cmd) {
+                case "DANMU_MSG" -> {
+                    DanmuMsg danmuMsg = BilibiliMsgParser.readDanmuMsg(parser);
+                    if (danmuMsg == null) {
+                        return false;
+                    }
+                    if (keywordMatcher != null) {
+                        danmuMsg.setKeywordHits(keywordMatcher.match(danmuMsg.getText()));
+                    }
+                    recordParsed(cmd, start);
+                    fire(cmd, () -> typedMsgListener.onDanmu(this, danmuMsg));
+                }
+                case "SEND_GIFT" -> {
+                    SendGiftMsg sendGiftMsg = BilibiliMsgParser.readSendGiftMsg(parser);
+                    if (sendGiftMsg == null) {
+                        return false;
+                    }
+                    recordParsed(cmd, start);
+                    fire(cmd, () -> typedMsgListener.onGift(this, sendGiftMsg));
+                }
+                case "INTERACT_WORD" -> {
+                    InteractWordMsg interactWordMsg = BilibiliMsgParser.readInteractWordMsg(parser);
+                    if (interactWordMsg == null) {
+                        return false;
+                    }
+                    recordParsed(cmd, start);
+                    fire(cmd, () -> typedMsgListener.onInteractWord(this, interactWordMsg));
+                }
+                case "LIKE_INFO_V3_CLICK" -> {
+                    LikeClickMsg likeClickMsg = BilibiliMsgParser.readLikeClickMsg(parser);
+                    if (likeClickMsg == null) {
+                        return false;
+                    }
+                    recordParsed(cmd, start);
+                    fire(cmd, () -> typedMsgListener.onLikeClick(this, likeClickMsg));
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 执行监听器回调，配置了回调队列时提交到队列
+     */
+    private void fire(String cmd, Runnable callback) {
+        Runnable task = metricsRecorder == null ? callback : () -> {
+            long start = System.nanoTime();
+            try {
+                callback.run();
+            } finally {
+                metricsRecorder.onListenerExecuted(getRoomId(), cmd, System.nanoTime() - start);
+            }
+        };
+        if (dispatcher == null) {
+            task.run();
+        } else {
+            dispatcher.dispatch(ctx.channel(), cmd, task);
+        }
+    }
+
+    private void recordParsed(String cmd, long start) {
+        if (metricsRecorder != null) {
+            metricsRecorder.onMsgParsed(getRoomId(), cmd, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 认证失败时标记并关闭连接，由{@link BilibiliRoomConnectionHandler}在连接断开时使缓存的token失效
+     */
+    private void onAuthReply(ByteBuf body) {
+        int code;
+        try (JsonParser parser = BilibiliMsgParser.createParser(body)) {
+            code = BilibiliMsgParser.OBJECT_MAPPER.<JsonNode>readTree(parser).path("code").asInt(0);
+        } catch (Exception e) {
+            log.warn("{} 认证结果解析失败", getRoomId(), e);
+            return;
+        }
+        if (code != 0 && ctx != null) {
+            log.warn("{} 认证失败 {}", getRoomId(), code);
+            ctx.channel().attr(BilibiliRoomConnectionHandler.AUTH_FAILED_KEY).set(Boolean.TRUE);
+            ctx.close();
+        }
+    }
+
+    /**
+     * @param auth 是否为认证回复，否则为心跳回复
+     */
+    private void recordRoundTrip(AttributeKey<Long> sentNanosKey, boolean auth) {
+        if (metricsRecorder == null || ctx == null) {
+            return;
+        }
+        Long sentNanos = ctx.channel().attr(sentNanosKey).getAndSet(null);
+        if (sentNanos == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - sentNanos;
+        if (auth) {
+            metricsRecorder.onAuth(getRoomId(), nanos);
+        } else {
+            metricsRecorder.onHeartbeatRoundTrip(getRoomId(), nanos);
+        }
+    }
+
+    private void dispatch(SendSmsReplyMsg msg) {
+        String cmd = BilibiliMsgParser.normalizeCmd(msg.getCmd());
+        if (cmd == null) {
+            msgListener.onUnknownCmd(null, msg);
+            return;
+        }
+        switch (cmd) {
+            case "DANMU_MSG" -> msgListener.onDanmuMsg(this, msg);
+            case "SEND_GIFT" -> msgListener.onSendGift(this, msg);
+            case "INTERACT_WORD" -> msgListener.onEnterRoom(this, msg);
+            case "ENTRY_EFFECT" -> msgListener.onEntryEffect(this, msg);
+            case "WATCHED_CHANGE" -> msgListener.onWatchedChange(this, msg);
+            case "LIKE_INFO_V3_CLICK" -> msgListener.onClickLike(this, msg);
+            case "LIKE_INFO_V3_UPDATE" -> msgListener.onClickUpdate(this, msg);
+            default -> {
+                BilibiliCmdEnum cmdEnum = CMD_MAP.get(cmd);
+                if (cmdEnum == null) {
+                    msgListener.onUnknownCmd(cmd, msg);
+                } else {
+                    msgListener.onOtherCmdMsg(cmdEnum, msg);
+                }
+            }
+        }
+    }
+
+    private void onFrameBatchComplete(ChannelHandlerContext ctx) {
+        if (batchMaxDelayMillis <= 0) {
+            flushBatch();
+            return;
+        }
+        if (batchFlushFuture == null) {
+            batchFlushFuture = ctx.executor().schedule(() -> {
+                batchFlushFuture = null;
+                flushBatch();
+            }, batchMaxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushBatch() {
+        if (batchFlushFuture != null) {
+            batchFlushFuture.cancel(false);
+            batchFlushFuture = null;
+        }
+        List<SendSmsReplyMsg> msgs = batch;
+        batch = null;
+        if (msgs == null || msgs.isEmpty()) {
+            return;
+        }
+        try {
+            fire(null, () -> batchMsgListener.onMsgBatch(this, msgs));
+        } catch (Exception e) {
+            log.error("{} 批量消息处理失败", getRoomId(), e);
+        }
+    }
+}
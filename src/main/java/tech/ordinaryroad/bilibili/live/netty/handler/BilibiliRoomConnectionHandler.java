@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.netty.handler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.client.BilibiliHeartbeatScheduler;
+import tech.ordinaryroad.bilibili.live.client.BilibiliRoomConnection;
+import tech.ordinaryroad.bilibili.live.client.BilibiliSslContexts;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+
+/**
+ * 房间连接处理器：握手、认证、心跳，心跳由{@link BilibiliHeartbeatScheduler}统一发送
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliRoomConnectionHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 认证包、心跳包的发送时间，用于统计认证耗时和心跳往返时间，仅在配置了metricsRecorder时设置
+     */
+    public static final AttributeKey<Long> AUTH_SENT_NANOS_KEY = AttributeKey.valueOf("bilibiliAuthSentNanos");
+    public static final AttributeKey<Long> HEARTBEAT_SENT_NANOS_KEY = AttributeKey.valueOf("bilibiliHeartbeatSentNanos");
+    /**
+     * 认证回复的code不为0时由{@link BilibiliRoomBinaryFrameHandler}设置
+     */
+    public static final AttributeKey<Boolean> AUTH_FAILED_KEY = AttributeKey.valueOf("bilibiliAuthFailed");
+
+    private final WebSocketClientHandshaker handshaker;
+    private final BilibiliRoomConnection connection;
+    private final IBilibiliMetricsRecorder metricsRecorder;
+    private BilibiliHeartbeatScheduler.Heartbeat heartbeat;
+    private long activeNanos;
+
+    public BilibiliRoomConnectionHandler(WebSocketClientHandshaker handshaker, BilibiliRoomConnection connection) {
+        this.handshaker = handshaker;
+        this.connection = connection;
+        this.metricsRecorder = connection.getManager().getConfig().getMetricsRecorder();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        activeNanos = System.nanoTime();
+        recordTlsHandshake(ctx);
+        handshaker.handshake(ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        heartbeatCancel();
+        if (Boolean.TRUE.equals(ctx.channel().attr(AUTH_FAILED_KEY).get())) {
+            connection.onAuthFailed();
+        }
+        connection.onChannelInactive();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof FullHttpResponse response) {
+            try {
+                handshake(ctx, response);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        } else if (msg instanceof PingWebSocketFrame ping) {
+            ctx.writeAndFlush(new PongWebSocketFrame(ping.content()));
+        } else if (msg instanceof CloseWebSocketFrame) {
+            log.debug("{} 收到关闭帧", connection.getRoomId());
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.error("{} 连接异常", connection.getRoomId(), cause);
+        ctx.close();
+    }
+
+    private void handshake(ChannelHandlerContext ctx, FullHttpResponse response) {
+        if (handshaker.isHandshakeComplete()) {
+            log.warn("{} 握手已完成，忽略HTTP响应 {}", connection.getRoomId(), response.status());
+            return;
+        }
+        try {
+            handshaker.finishHandshake(ctx.channel(), response);
+        } catch (Exception e) {
+            log.error("{} 握手失败", connection.getRoomId(), e);
+            ctx.close();
+            return;
+        }
+        long now = System.nanoTime();
+        connection.getManager().getEndpointSelector().onHandshake(connection.getEndpoint(), now - activeNanos);
+        if (metricsRecorder != null) {
+            metricsRecorder.onHandshake(connection.getRoomId(), now - activeNanos);
+            ctx.channel().attr(AUTH_SENT_NANOS_KEY).set(now);
+        }
+
+        try {
+            connection.sendAuth(ctx.channel());
+        } catch (Exception e) {
+            log.error("{} 认证包发送失败", connection.getRoomId(), e);
+            ctx.close();
+            return;
+        }
+        heartbeatStart(ctx);
+        connection.onConnected(ctx.channel());
+    }
+
+    private void recordTlsHandshake(ChannelHandlerContext ctx) {
+        SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+        if (sslHandler == null || metricsRecorder == null) {
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        long startNanos = activeNanos;
+        sslHandler.handshakeFuture().addListener(future -> {
+            if (future.isSuccess()) {
+                boolean resumed = BilibiliSslContexts.isResumed(sslHandler.engine().getSession(), startMillis);
+                metricsRecorder.onTlsHandshake(connection.getRoomId(), resumed, System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    private void heartbeatStart(ChannelHandlerContext ctx) {
+        heartbeat = connection.getManager().getHeartbeatScheduler().register(ctx);
+    }
+
+    private void heartbeatCancel() {
+        if (heartbeat != null) {
+            heartbeat.cancel();
+            heartbeat = null;
+        }
+    }
+}
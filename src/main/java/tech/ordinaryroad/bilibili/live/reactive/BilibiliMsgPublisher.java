@@ -0,0 +1,373 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.reactive;
+
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.client.BilibiliLiveChatClientManager;
+import tech.ordinaryroad.bilibili.live.client.BilibiliRoomConnection;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.BilibiliCmdEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseCmdMsg;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseMsg;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * 把一个或多个房间的消息发布为{@link Flow.Publisher}，只支持一个订阅者
+ * <p>
+ * 订阅者的request(n)即为背压：未被请求的消息进入缓冲区，缓冲区达到bufferSize时关闭对应房间Channel的autoRead，
+ * 不再从TCP读取，消费到一半以下时恢复，内存占用不随消费速度变慢而增长。
+ * 已经读取的帧中的消息仍会进入缓冲区，所以缓冲区可以暂时超过bufferSize。
+ * onNext在EventLoop或调用request的线程中执行，耗时处理可以使用Reactor的publishOn切换线程；
+ * 不要同时配置dispatchExecutor，否则BLOCK_READ策略也会修改autoRead
+ * <pre>
+ * BilibiliMsgPublisher&lt;SendSmsReplyMsg&gt; publisher = BilibiliMsgPublisher.messages(1024);
+ * publisher.connect(manager, 7777);
+ * Flux&lt;SendSmsReplyMsg&gt; flux = JdkFlowAdapter.flowPublisherToFlux(publisher);
+ * </pre>
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliMsgPublisher<T> implements Flow.Publisher<T> {
+
+    private final int bufferSize;
+    private final BiFunction<Long, SendSmsReplyMsg, T> mapper;
+
+    /**
+     * 缓冲区和已暂停读取的Channel由queue的锁保护，autoRead也只在锁内修改；
+     * 按Channel而不是房间记录，重连后的新Channel可以重新暂停
+     */
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private final Set<Channel> paused = new LinkedHashSet<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Flow.Subscriber<? super T> subscriber;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    /**
+     * @param bufferSize 缓冲区达到此数量时暂停读取
+     * @param mapper     参数为房间ID和消息
+     */
+    public BilibiliMsgPublisher(int bufferSize, BiFunction<Long, SendSmsReplyMsg, T> mapper) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize必须大于0");
+        }
+        this.bufferSize = bufferSize;
+        this.mapper = mapper;
+    }
+
+    /**
+     * 只发布消息，适合单个房间
+     */
+    public static BilibiliMsgPublisher<SendSmsReplyMsg> messages(int bufferSize) {
+        return new BilibiliMsgPublisher<>(bufferSize, (roomId, msg) -> msg);
+    }
+
+    /**
+     * 发布房间ID和消息，适合多个房间
+     */
+    public static BilibiliMsgPublisher<BilibiliRoomMsg> roomMessages(int bufferSize) {
+        return new BilibiliMsgPublisher<>(bufferSize, BilibiliRoomMsg::new);
+    }
+
+    /**
+     * 添加房间，不会自动连接
+     */
+    public BilibiliRoomConnection addRoom(BilibiliLiveChatClientManager manager, long roomId) {
+        RoomListener listener = new RoomListener(roomId);
+        BilibiliRoomConnection connection = manager.addRoom(roomId, listener);
+        listener.connection = connection;
+        return connection;
+    }
+
+    /**
+     * 添加房间并连接
+     */
+    public BilibiliRoomConnection connect(BilibiliLiveChatClientManager manager, long roomId) {
+        BilibiliRoomConnection connection = addRoom(manager, roomId);
+        connection.connect();
+        return connection;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    // ignore
+                }
+
+                @Override
+                public void cancel() {
+                    // ignore
+                }
+            });
+            subscriber.onError(new IllegalStateException("只支持一个订阅者"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription());
+        this.subscriber = subscriber;
+        drain();
+    }
+
+    /**
+     * 缓冲区中的消息发送完毕后结束，之后收到的消息被丢弃
+     */
+    public void complete() {
+        done = true;
+        drain();
+    }
+
+    /**
+     * 缓冲区中的消息发送完毕后以异常结束
+     */
+    public void error(Throwable throwable) {
+        error = Objects.requireNonNull(throwable, "throwable");
+        done = true;
+        drain();
+    }
+
+    /**
+     * 缓冲区中的消息数
+     */
+    public int getBufferedCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * 已暂停读取的房间数，不含暂停后已经断开的连接
+     */
+    public int getPausedRoomCount() {
+        synchronized (queue) {
+            int count = 0;
+            for (Channel channel : paused) {
+                if (channel.isOpen()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private void onMsg(RoomListener room, SendSmsReplyMsg msg) {
+        if (cancelled || done) {
+            return;
+        }
+        T item = mapper.apply(room.roomId, msg);
+        synchronized (queue) {
+            queue.offer(item);
+            // 在锁内修改autoRead，避免与恢复读取交错；每次读取房间当前的Channel，重连后暂停的是新Channel
+            if (queue.size() >= bufferSize) {
+                BilibiliRoomConnection connection = room.connection;
+                Channel channel = connection == null ? null : connection.getChannel();
+                if (channel != null && paused.add(channel)) {
+                    log.debug("{} 缓冲区已满，暂停读取", room.roomId);
+                    channel.config().setAutoRead(false);
+                }
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 所有信号都在drain中串行发出
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super T> s = this.subscriber;
+            if (s != null) {
+                if (cancelled) {
+                    clear();
+                    return;
+                }
+                long r = requested.get();
+                if (r < 0) {
+                    // request(n)的参数不合法
+                    cancelled = true;
+                    clear();
+                    s.onError(new IllegalArgumentException("request(n)的参数必须大于0"));
+                    return;
+                }
+                long emitted = 0;
+                while (emitted != r) {
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                    T item;
+                    synchronized (queue) {
+                        item = queue.poll();
+                    }
+                    if (item == null) {
+                        break;
+                    }
+                    s.onNext(item);
+                    emitted++;
+                }
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                resumeIfDrained();
+                if (done && getBufferedCount() == 0) {
+                    cancelled = true;
+                    Throwable throwable = this.error;
+                    if (throwable == null) {
+                        s.onComplete();
+                    } else {
+                        s.onError(throwable);
+                    }
+                    return;
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void resumeIfDrained() {
+        synchronized (queue) {
+            if (paused.isEmpty() || queue.size() > bufferSize / 2) {
+                return;
+            }
+            log.debug("缓冲区已消费过半，恢复读取");
+            for (Channel channel : paused) {
+                channel.config().setAutoRead(true);
+            }
+            paused.clear();
+        }
+    }
+
+    /**
+     * 取消订阅后丢弃缓冲区并恢复读取
+     */
+    private void clear() {
+        synchronized (queue) {
+            queue.clear();
+            for (Channel channel : paused) {
+                channel.config().setAutoRead(true);
+            }
+            paused.clear();
+        }
+    }
+
+    private class Subscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requested.set(-1);
+            } else {
+                requested.getAndUpdate(r -> r < 0 ? r : (r + n < 0 ? Long.MAX_VALUE : r + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+    }
+
+    private class RoomListener implements IBilibiliSendSmsReplyMsgListener {
+        private final long roomId;
+        private volatile BilibiliRoomConnection connection;
+
+        RoomListener(long roomId) {
+            this.roomId = roomId;
+        }
+
+        @Override
+        public void onDanmuMsg(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onSendGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onEnterRoom(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onEntryEffect(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onWatchedChange(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onClickLike(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onClickUpdate(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+            onMsg(this, msg);
+        }
+
+        @Override
+        public void onOtherCmdMsg(BilibiliCmdEnum cmd, BaseCmdMsg<BilibiliCmdEnum> cmdMsg) {
+            if (cmdMsg instanceof SendSmsReplyMsg msg) {
+                onMsg(this, msg);
+            }
+        }
+
+        @Override
+        public void onUnknownCmd(String cmdString, BaseMsg msg) {
+            if (msg instanceof SendSmsReplyMsg sendSmsReplyMsg) {
+                onMsg(this, sendSmsReplyMsg);
+            }
+        }
+    }
+}
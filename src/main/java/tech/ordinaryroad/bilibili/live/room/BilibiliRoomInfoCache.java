@@ -0,0 +1,217 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.room;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 房间元数据缓存
+ * <p>
+ * 按最近使用淘汰，超过有效期后重新获取；同一房间同时只有一个请求，并发的查询共享结果；短号和真实房间ID都会缓存
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class BilibiliRoomInfoCache {
+
+    private final IBilibiliRoomInfoFetcher fetcher;
+    private final long ttlNanos;
+    private final int maxSize;
+    /**
+     * 由自身保护
+     */
+    private final LinkedHashMap<Long, Entry> entries;
+    private final Map<Long, CompletableFuture<BilibiliRoomInfo>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttl     有效期
+     * @param maxSize 最多缓存的键数，有短号的房间短号和真实房间ID各占一个
+     */
+    public BilibiliRoomInfoCache(IBilibiliRoomInfoFetcher fetcher, long ttl, TimeUnit unit, int maxSize) {
+        this.fetcher = fetcher;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > BilibiliRoomInfoCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 10分钟有效期，最多10000个键
+     */
+    public BilibiliRoomInfoCache(IBilibiliRoomInfoFetcher fetcher) {
+        this(fetcher, 10, TimeUnit.MINUTES, 10_000);
+    }
+
+    /**
+     * 获取房间元数据，缓存有效时直接返回
+     *
+     * @param roomId 房间ID，可以是短号
+     */
+    public CompletableFuture<BilibiliRoomInfo> get(long roomId) {
+        BilibiliRoomInfo cached = getIfPresent(roomId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<BilibiliRoomInfo> promise = new CompletableFuture<>();
+        CompletableFuture<BilibiliRoomInfo> existing = inFlight.putIfAbsent(roomId, promise);
+        if (existing != null) {
+            return existing;
+        }
+        // 上一个请求可能在getIfPresent之后、putIfAbsent之前完成
+        cached = getIfPresent(roomId);
+        if (cached != null) {
+            inFlight.remove(roomId, promise);
+            promise.complete(cached);
+            return promise;
+        }
+        CompletableFuture<BilibiliRoomInfo> fetched;
+        try {
+            fetched = fetcher.fetch(roomId);
+        } catch (Exception e) {
+            fetched = CompletableFuture.failedFuture(e);
+        }
+        fetched.whenComplete((info, throwable) -> {
+            if (throwable == null && info != null) {
+                put(roomId, info);
+            }
+            inFlight.remove(roomId, promise);
+            if (throwable != null) {
+                promise.completeExceptionally(throwable);
+            } else {
+                promise.complete(info);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * @return 缓存不存在或已过期时返回null
+     */
+    public BilibiliRoomInfo getIfPresent(long roomId) {
+        synchronized (entries) {
+            Entry entry = entries.get(roomId);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.createdNanos() > ttlNanos) {
+                entries.remove(roomId);
+                return null;
+            }
+            return entry.info();
+        }
+    }
+
+    /**
+     * 批量预取，同时最多parallelism个请求，失败的房间只记录日志
+     *
+     * @return 全部完成后完成
+     */
+    public CompletableFuture<Void> prefetch(Collection<Long> roomIds, int parallelism) {
+        Iterator<Long> iterator = new ArrayList<>(roomIds).iterator();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, parallelism); i++) {
+            workers.add(prefetchNext(iterator));
+        }
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]));
+    }
+
+    public void invalidate(long roomId) {
+        synchronized (entries) {
+            Entry entry = entries.remove(roomId);
+            if (entry != null) {
+                entries.remove(entry.info().getRoomId());
+                entries.remove(entry.info().getShortId());
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private CompletableFuture<Void> prefetchNext(Iterator<Long> iterator) {
+        while (true) {
+            Long roomId;
+            synchronized (iterator) {
+                if (!iterator.hasNext()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                roomId = iterator.next();
+            }
+            CompletableFuture<BilibiliRoomInfo> future = get(roomId);
+            // 已完成的直接处理下一个，避免递归过深
+            if (future.isDone()) {
+                logFailure(roomId, future);
+                continue;
+            }
+            return future.handle((info, throwable) -> {
+                logFailure(roomId, future);
+                return null;
+            }).thenCompose(ignored -> prefetchNext(iterator));
+        }
+    }
+
+    private static void logFailure(long roomId, CompletableFuture<BilibiliRoomInfo> future) {
+        if (future.isCompletedExceptionally()) {
+            future.exceptionally(throwable -> {
+                log.warn("{} 房间信息获取失败", roomId, throwable);
+                return null;
+            });
+        }
+    }
+
+    private void put(long roomId, BilibiliRoomInfo info) {
+        Entry entry = new Entry(info, System.nanoTime());
+        synchronized (entries) {
+            entries.put(roomId, entry);
+            if (info.getRoomId() != 0) {
+                entries.put(info.getRoomId(), entry);
+            }
+            if (info.getShortId() != 0) {
+                entries.put(info.getShortId(), entry);
+            }
+        }
+    }
+
+    private record Entry(BilibiliRoomInfo info, long createdNanos) {
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.room;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMsgParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过B站接口获取房间元数据：room_init解析短号，getDanmuInfo获取token和弹幕服务器
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliRoomInfoHttpFetcher implements IBilibiliRoomInfoFetcher {
+
+    private static final String ROOM_INIT_URL = "https://api.live.bilibili.com/room/v1/Room/room_init?id=";
+    private static final String DANMU_INFO_URL = "https://api.live.bilibili.com/xlive/web-room/v1/index/getDanmuInfo?type=0&id=";
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/117.0.0.0 Safari/537.36";
+
+    private final HttpClient httpClient;
+    private final String cookie;
+
+    public BilibiliRoomInfoHttpFetcher(HttpClient httpClient, String cookie) {
+        this.httpClient = httpClient;
+        this.cookie = cookie;
+    }
+
+    public BilibiliRoomInfoHttpFetcher(String cookie) {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build(), cookie);
+    }
+
+    @Override
+    public CompletableFuture<BilibiliRoomInfo> fetch(long roomId) {
+        return get(ROOM_INIT_URL + roomId).thenCompose(roomInit -> {
+            long realRoomId = roomInit.path("room_id").asLong(roomId);
+            long shortId = roomInit.path("short_id").asLong();
+            return get(DANMU_INFO_URL + realRoomId).thenApply(danmuInfo -> {
+                List<BilibiliRoomInfo.Host> hosts = new ArrayList<>();
+                for (JsonNode host : danmuInfo.path("host_list")) {
+                    hosts.add(new BilibiliRoomInfo.Host(host.path("host").asText(), host.path("port").asInt(),
+                            host.path("wss_port").asInt(), host.path("ws_port").asInt()));
+                }
+                return BilibiliRoomInfo.builder()
+                        .roomId(realRoomId)
+                        .shortId(shortId)
+                        .token(danmuInfo.path("token").asText(null))
+                        .hosts(hosts)
+                        .build();
+            });
+        });
+    }
+
+    /**
+     * @return 响应中的data
+     */
+    private CompletableFuture<JsonNode> get(String url) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(10))
+                .header("User-Agent", USER_AGENT);
+        if (cookie != null && !cookie.isBlank()) {
+            builder.header("Cookie", cookie);
+        }
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("请求失败 " + response.statusCode() + " " + url);
+            }
+            try {
+                JsonNode body = BilibiliMsgParser.OBJECT_MAPPER.readTree(response.body());
+                if (body.path("code").asInt() != 0) {
+                    throw new IllegalStateException("请求失败 " + body.path("message").asText() + " " + url);
+                }
+                return body.path("data");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
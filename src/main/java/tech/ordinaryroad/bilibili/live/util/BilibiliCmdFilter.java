@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import io.netty.buffer.ByteBuf;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * cmd订阅过滤器
+ * <p>
+ * 直接从原始字节中读取开头的cmd字段进行匹配，被过滤的消息不会进行JSON解析；
+ * cmd不是第一个字段时无法判断，由调用方在解析后使用{@link #accept(String)}再次过滤
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliCmdFilter {
+
+    private static final byte[] CMD_FIELD = "\"cmd\"".getBytes(StandardCharsets.US_ASCII);
+
+    private final Set<String> allowCmds;
+    private final Set<String> denyCmds;
+    private final byte[][] allowCmdBytes;
+    private final byte[][] denyCmdBytes;
+
+    public BilibiliCmdFilter(Set<String> allowCmds, Set<String> denyCmds) {
+        this.allowCmds = isEmpty(allowCmds) ? null : Set.copyOf(allowCmds);
+        this.denyCmds = isEmpty(denyCmds) ? null : Set.copyOf(denyCmds);
+        this.allowCmdBytes = toBytes(this.allowCmds);
+        this.denyCmdBytes = toBytes(this.denyCmds);
+    }
+
+    /**
+     * 没有配置allowCmds和denyCmds时返回null
+     */
+    public static BilibiliCmdFilter create(BilibiliLiveChatClientManagerConfig config) {
+        if (isEmpty(config.getAllowCmds()) && isEmpty(config.getDenyCmds())) {
+            return null;
+        }
+        return new BilibiliCmdFilter(config.getAllowCmds(), config.getDenyCmds());
+    }
+
+    /**
+     * 根据原始字节判断，不会修改body的readerIndex
+     *
+     * @return 是否保留，无法读取cmd时返回true
+     */
+    public boolean accept(ByteBuf body) {
+        int end = body.writerIndex();
+        int index = skipWhitespace(body, body.readerIndex(), end);
+        if (index >= end || body.getByte(index) != '{') {
+            return true;
+        }
+        index = skipWhitespace(body, index + 1, end);
+        if (!startsWith(body, index, end, CMD_FIELD)) {
+            return true;
+        }
+        index = skipWhitespace(body, index + CMD_FIELD.length, end);
+        if (index >= end || body.getByte(index) != ':') {
+            return true;
+        }
+        index = skipWhitespace(body, index + 1, end);
+        if (index >= end || body.getByte(index) != '"') {
+            return true;
+        }
+        int start = index + 1;
+        int cmdEnd = start;
+        // 旧版本cmd带有后缀，例如DANMU_MSG:4:0:2:2:2:0
+        while (cmdEnd < end) {
+            byte b = body.getByte(cmdEnd);
+            if (b == '"' || b == ':') {
+                break;
+            }
+            if (b == '\\') {
+                return true;
+            }
+            cmdEnd++;
+        }
+        if (cmdEnd >= end) {
+            return true;
+        }
+        int length = cmdEnd - start;
+        if (allowCmdBytes != null && !contains(allowCmdBytes, body, start, length)) {
+            return false;
+        }
+        return denyCmdBytes == null || !contains(denyCmdBytes, body, start, length);
+    }
+
+    /**
+     * @param cmd 去掉后缀的cmd
+     * @return 是否保留
+     */
+    public boolean accept(String cmd) {
+        if (cmd == null) {
+            return allowCmds == null;
+        }
+        if (allowCmds != null && !allowCmds.contains(cmd)) {
+            return false;
+        }
+        return denyCmds == null || !denyCmds.contains(cmd);
+    }
+
+    private static boolean contains(byte[][] candidates, ByteBuf body, int start, int length) {
+        for (byte[] candidate : candidates) {
+            if (candidate.length == length && startsWith(body, start, start + length, candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(ByteBuf body, int index, int end, byte[] prefix) {
+        if (end - index < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (body.getByte(index + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(ByteBuf body, int index, int end) {
+        while (index < end) {
+            byte b = body.getByte(index);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static byte[][] toBytes(Set<String> cmds) {
+        if (cmds == null) {
+            return null;
+        }
+        return cmds.stream().map(cmd -> cmd.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+    }
+
+    private static boolean isEmpty(Set<String> cmds) {
+        return cmds == null || cmds.isEmpty();
+    }
+}
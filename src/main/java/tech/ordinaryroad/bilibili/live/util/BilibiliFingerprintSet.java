@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有时效的消息指纹集合，用于两个连接之间的消息去重
+ * <p>
+ * 每个指纹记录首次收到它的连接（来源，0或1，保存在最低位），只有另一个连接再次收到时才视为重复；
+ * 同一连接重复收到的相同消息（如内容不变的ONLINE_RANK_COUNT、重复的弹幕）都会保留
+ * <p>
+ * 两代开放寻址的long数组轮换：当前代满了一半或超过ttl时变为上一代，原来的上一代被清空，
+ * 所以每个指纹至少保留ttl（除非容量不足），最多保留2 × ttl，内存固定为4 × capacity个long
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliFingerprintSet {
+
+    private static final long EMPTY = 0;
+    private static final long SOURCE_MASK = 1;
+    private static final long P1 = 0x9E3779B97F4A7C15L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final int mask;
+    private long[] current;
+    private long[] previous;
+    private int currentSize;
+    private long generationStartMillis;
+    private final LongAdder duplicateCount = new LongAdder();
+    private final LongAdder earlyRotationCount = new LongAdder();
+
+    /**
+     * @param capacity  每代最多保存的指纹数
+     * @param ttlMillis 指纹的最短保留时间
+     */
+    public BilibiliFingerprintSet(int capacity, long ttlMillis) {
+        if (capacity <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("参数必须大于0");
+        }
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.ttlMillis = ttlMillis;
+        this.maxSize = tableSize / 2;
+        this.mask = tableSize - 1;
+        this.current = new long[tableSize];
+        this.previous = new long[tableSize];
+        this.generationStartMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @param fingerprint 消息指纹，最低位不参与比较
+     * @param source      收到消息的连接，0或1
+     * @return 是否应当保留该消息，指纹由另一个连接首次收到时返回false并计为重复
+     */
+    public synchronized boolean add(long fingerprint, int source, long nowMillis) {
+        long key = fingerprint & ~SOURCE_MASK;
+        if (key == EMPTY) {
+            key = P1 & ~SOURCE_MASK;
+        }
+        long entry = find(previous, key);
+        if (entry == EMPTY) {
+            entry = find(current, key);
+        }
+        if (entry != EMPTY) {
+            if ((entry & SOURCE_MASK) == (source & SOURCE_MASK)) {
+                return true;
+            }
+            duplicateCount.increment();
+            return false;
+        }
+        if (nowMillis - generationStartMillis >= ttlMillis || currentSize >= maxSize) {
+            if (currentSize >= maxSize) {
+                earlyRotationCount.increment();
+            }
+            long[] cleared = previous;
+            Arrays.fill(cleared, EMPTY);
+            previous = current;
+            current = cleared;
+            currentSize = 0;
+            generationStartMillis = nowMillis;
+        }
+        int i = index(key);
+        while (current[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        current[i] = key | (source & SOURCE_MASK);
+        currentSize++;
+        return true;
+    }
+
+    public boolean add(long fingerprint, int source) {
+        return add(fingerprint, source, System.currentTimeMillis());
+    }
+
+    /**
+     * 重复的消息数
+     */
+    public long getDuplicateCount() {
+        return duplicateCount.sum();
+    }
+
+    /**
+     * 因容量不足提前轮换的次数，持续增长时说明capacity偏小，可能漏掉重复消息
+     */
+    public long getEarlyRotationCount() {
+        return earlyRotationCount.sum();
+    }
+
+    /**
+     * @return 包含来源的指纹，不存在时为EMPTY
+     */
+    private long find(long[] table, long key) {
+        for (int i = index(key); table[i] != EMPTY; i = (i + 1) & mask) {
+            if ((table[i] & ~SOURCE_MASK) == key) {
+                return table[i];
+            }
+        }
+        return EMPTY;
+    }
+
+    private int index(long key) {
+        return (int) ((key ^ (key >>> 32)) >>> 1) & mask;
+    }
+
+    /**
+     * ByteBuf可读部分的64位哈希，不修改readerIndex
+     */
+    public static long hash(ByteBuf buf) {
+        int index = buf.readerIndex();
+        int length = buf.readableBytes();
+        int end = index + length;
+        long h = length * P1;
+        for (; index + 8 <= end; index += 8) {
+            h = mix(h ^ buf.getLongLE(index));
+        }
+        long tail = 0;
+        for (int shift = 0; index < end; index++, shift += 8) {
+            tail |= (buf.getByte(index) & 0xFFL) << shift;
+        }
+        h = mix(h ^ tail);
+        h ^= h >>> 33;
+        h *= P2;
+        return h ^ (h >>> 29);
+    }
+
+    private static long mix(long h) {
+        h *= P1;
+        h ^= h >>> 32;
+        return h * P2;
+    }
+}
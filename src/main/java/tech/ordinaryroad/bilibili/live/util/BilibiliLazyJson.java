@@ -0,0 +1,352 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 按需解析的JsonNode
+ * <p>
+ * 对象和数组保存原始UTF-8字节，创建时只扫描一层，记录每个字段（元素）值的起始位置，字符串和子树跳过不解析；
+ * 第一次访问某个字段时才解析它的值，值为对象或数组时同样按需解析。返回的是标准的{@link ObjectNode}、{@link ArrayNode}，
+ * get、path、fields、size、toString等方法行为不变，修改时先完整解析当前这一层。
+ * 跳过子树时仍会完整分词，格式错误在创建时抛出IOException，与完整解析一致
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliLazyJson {
+
+    private static final JsonFactory JSON_FACTORY = BilibiliMsgParser.OBJECT_MAPPER.getFactory();
+    private static final JsonNodeFactory NODE_FACTORY = BilibiliMsgParser.OBJECT_MAPPER.getNodeFactory();
+
+    private BilibiliLazyJson() {
+    }
+
+    /**
+     * 解析bytes中从offset开始的第一个值，bytes之后不能再修改
+     */
+    public static JsonNode parse(byte[] bytes, int offset, int length) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes, offset, length)) {
+            return readValue(parser, parser.nextToken(), bytes, offset, offset + length);
+        }
+    }
+
+    public static JsonNode parse(byte[] bytes) throws IOException {
+        return parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 读取当前token的值，对象和数组只扫描一层，parser停留在值的最后一个token上
+     *
+     * @param base parser起始位置在bytes中的偏移
+     * @param end  可以读取的结束位置
+     */
+    static JsonNode readValue(JsonParser parser, JsonToken token, byte[] bytes, int base, int end) throws IOException {
+        if (token == null) {
+            throw new IOException("内容为空");
+        }
+        return switch (token) {
+            case START_OBJECT -> {
+                List<String> names = new ArrayList<>();
+                List<Integer> starts = new ArrayList<>();
+                List<JsonNode> values = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    names.add(parser.currentName());
+                    scan(parser, parser.nextToken(), bytes, base, end, starts, values);
+                }
+                yield new ObjectNode(NODE_FACTORY, new LazyFields(bytes, end, names.toArray(new String[0]), toIntArray(starts), values.toArray(new JsonNode[0])));
+            }
+            case START_ARRAY -> {
+                List<Integer> starts = new ArrayList<>();
+                List<JsonNode> values = new ArrayList<>();
+                JsonToken next;
+                while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    scan(parser, next, bytes, base, end, starts, values);
+                }
+                yield new ArrayNode(NODE_FACTORY, new LazyElements(bytes, end, toIntArray(starts), values.toArray(new JsonNode[0])));
+            }
+            case VALUE_STRING -> NODE_FACTORY.textNode(parser.getText());
+            case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+                case INT -> NODE_FACTORY.numberNode(parser.getIntValue());
+                case LONG -> NODE_FACTORY.numberNode(parser.getLongValue());
+                default -> NODE_FACTORY.numberNode(parser.getBigIntegerValue());
+            };
+            case VALUE_NUMBER_FLOAT -> NODE_FACTORY.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE -> NODE_FACTORY.booleanNode(true);
+            case VALUE_FALSE -> NODE_FACTORY.booleanNode(false);
+            case VALUE_NULL -> NODE_FACTORY.nullNode();
+            default -> throw new IOException("无法解析的token " + token);
+        };
+    }
+
+    /**
+     * 字符串、对象、数组记录起始位置后跳过；数字、布尔、null直接读取，
+     * 数字单独解析时Jackson要求后面是空白，不能从中间位置按需解析
+     */
+    private static void scan(JsonParser parser, JsonToken token, byte[] bytes, int base, int end,
+                             List<Integer> starts, List<JsonNode> values) throws IOException {
+        if (token == null) {
+            throw new IOException("内容不完整");
+        }
+        switch (token) {
+            case START_OBJECT, START_ARRAY, VALUE_STRING -> {
+                starts.add(base + (int) parser.currentTokenLocation().getByteOffset());
+                values.add(null);
+                parser.skipChildren();
+            }
+            default -> {
+                starts.add(-1);
+                values.add(readValue(parser, token, bytes, base, end));
+            }
+        }
+    }
+
+    private static JsonNode parseAt(byte[] bytes, int start, int end) {
+        try {
+            return parse(bytes, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int[] toIntArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * 对象的字段，值在第一次get时解析；修改时转为LinkedHashMap
+     */
+    private static final class LazyFields extends AbstractMap<String, JsonNode> {
+        private final byte[] bytes;
+        private final int end;
+        private final String[] names;
+        private final int[] starts;
+        private final JsonNode[] values;
+        private Map<String, JsonNode> materialized;
+        private Set<Entry<String, JsonNode>> entrySet;
+
+        LazyFields(byte[] bytes, int end, String[] names, int[] starts, JsonNode[] values) {
+            this.bytes = bytes;
+            this.end = end;
+            this.names = names;
+            this.starts = starts;
+            this.values = values;
+        }
+
+        private JsonNode value(int index) {
+            JsonNode value = values[index];
+            if (value == null) {
+                value = parseAt(bytes, starts[index], end);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        /**
+         * 同名字段与Jackson一致取最后一个；线上消息没有同名字段，size和遍历不做去重
+         */
+        private int indexOf(Object name) {
+            for (int i = names.length - 1; i >= 0; i--) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Map<String, JsonNode> materialize() {
+            if (materialized == null) {
+                Map<String, JsonNode> map = new LinkedHashMap<>();
+                for (int i = 0; i < names.length; i++) {
+                    map.put(names[i], value(i));
+                }
+                materialized = map;
+            }
+            return materialized;
+        }
+
+        @Override
+        public JsonNode get(Object key) {
+            if (materialized != null) {
+                return materialized.get(key);
+            }
+            int index = indexOf(key);
+            return index < 0 ? null : value(index);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return materialized != null ? materialized.containsKey(key) : indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return materialized != null ? materialized.size() : names.length;
+        }
+
+        @Override
+        public JsonNode put(String key, JsonNode value) {
+            return materialize().put(key, value);
+        }
+
+        @Override
+        public JsonNode remove(Object key) {
+            return materialize().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            materialize().clear();
+        }
+
+        @Override
+        public Set<Entry<String, JsonNode>> entrySet() {
+            if (materialized != null) {
+                return materialized.entrySet();
+            }
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, JsonNode>> iterator() {
+                        if (materialized != null) {
+                            return materialized.entrySet().iterator();
+                        }
+                        return new Iterator<>() {
+                            int next;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < names.length;
+                            }
+
+                            @Override
+                            public Entry<String, JsonNode> next() {
+                                if (next >= names.length) {
+                                    throw new NoSuchElementException();
+                                }
+                                int index = next++;
+                                return new SimpleImmutableEntry<>(names[index], value(index));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return LazyFields.this.size();
+                    }
+                };
+            }
+            return entrySet;
+        }
+    }
+
+    /**
+     * 数组的元素，在第一次get时解析；修改时转为ArrayList
+     */
+    private static final class LazyElements extends AbstractList<JsonNode> {
+        private final byte[] bytes;
+        private final int end;
+        private final int[] starts;
+        private final JsonNode[] values;
+        private List<JsonNode> materialized;
+
+        LazyElements(byte[] bytes, int end, int[] starts, JsonNode[] values) {
+            this.bytes = bytes;
+            this.end = end;
+            this.starts = starts;
+            this.values = values;
+        }
+
+        private List<JsonNode> materialize() {
+            if (materialized == null) {
+                List<JsonNode> list = new ArrayList<>(Math.max(starts.length, 4));
+                for (int i = 0; i < starts.length; i++) {
+                    list.add(get(i));
+                }
+                materialized = list;
+            }
+            return materialized;
+        }
+
+        @Override
+        public JsonNode get(int index) {
+            if (materialized != null) {
+                return materialized.get(index);
+            }
+            JsonNode value = values[index];
+            if (value == null) {
+                value = parseAt(bytes, starts[index], end);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return materialized != null ? materialized.size() : starts.length;
+        }
+
+        @Override
+        public JsonNode set(int index, JsonNode element) {
+            return materialize().set(index, element);
+        }
+
+        @Override
+        public void add(int index, JsonNode element) {
+            materialize().add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public JsonNode remove(int index) {
+            modCount++;
+            return materialize().remove(index);
+        }
+    }
+}
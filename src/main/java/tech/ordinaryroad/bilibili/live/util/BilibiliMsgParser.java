@@ -0,0 +1,303 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.InteractWordMsg;
+import tech.ordinaryroad.bilibili.live.msg.LikeClickMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 消息解析工具类
+ * <p>
+ * 热点cmd使用Jackson流式API直接读取所需字段，其余cmd构建完整的{@link SendSmsReplyMsg}，也可以按需解析；
+ * 用户名、粉丝牌名称、礼物名称等重复出现的字符串经过{@link BilibiliStringCache}驻留，所有房间共享同一实例
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliMsgParser {
+
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+    /**
+     * 按uid驻留用户名
+     */
+    private static final BilibiliStringCache UNAME_CACHE = new BilibiliStringCache(16384);
+    /**
+     * 按giftId驻留礼物名称
+     */
+    private static final BilibiliStringCache GIFT_NAME_CACHE = new BilibiliStringCache(1024);
+    /**
+     * 按内容驻留粉丝牌名称、coin_type、action等取值有限的字符串
+     */
+    private static final BilibiliStringCache VALUE_CACHE = new BilibiliStringCache(4096);
+
+    private BilibiliMsgParser() {
+    }
+
+    /**
+     * 创建JsonParser，不会修改buf的readerIndex
+     */
+    public static JsonParser createParser(ByteBuf buf) throws IOException {
+        if (buf.hasArray()) {
+            return JSON_FACTORY.createParser(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes());
+        }
+        return JSON_FACTORY.createParser((InputStream) new ByteBufInputStream(buf.duplicate()));
+    }
+
+    /**
+     * 完整解析，不会修改buf的readerIndex
+     */
+    public static SendSmsReplyMsg readSendSmsReplyMsg(ByteBuf buf) throws IOException {
+        try (JsonParser parser = createParser(buf)) {
+            return OBJECT_MAPPER.readValue(parser, SendSmsReplyMsg.class);
+        }
+    }
+
+    /**
+     * 按需解析，data、info在访问字段时才解析，见{@link BilibiliLazyJson}；会复制buf的可读字节，不会修改readerIndex
+     * <p>
+     * 只保留cmd、data、info，其他顶层字段（例如dm_v2）直接跳过
+     */
+    public static SendSmsReplyMsg readLazySendSmsReplyMsg(ByteBuf buf) throws IOException {
+        byte[] bytes = ByteBufUtil.getBytes(buf, buf.readerIndex(), buf.readableBytes(), false);
+        SendSmsReplyMsg msg = new SendSmsReplyMsg();
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("消息不是JSON对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "cmd" -> msg.setCmd(parser.getValueAsString());
+                    case "data" -> msg.setData(BilibiliLazyJson.readValue(parser, token, bytes, 0, bytes.length));
+                    case "info" -> msg.setInfo(BilibiliLazyJson.readValue(parser, token, bytes, 0, bytes.length));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * 去掉旧版本cmd的后缀，例如DANMU_MSG:4:0:2:2:2:0
+     */
+    public static String normalizeCmd(String cmd) {
+        if (cmd == null) {
+            return null;
+        }
+        int index = cmd.indexOf(':');
+        return index == -1 ? cmd : cmd.substring(0, index);
+    }
+
+    /**
+     * 读取cmd，要求cmd是对象的第一个字段，读取后parser停留在cmd的值上
+     *
+     * @return cmd不是第一个字段时返回null
+     */
+    public static String readLeadingCmd(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        if (parser.nextToken() != JsonToken.FIELD_NAME || !"cmd".equals(parser.currentName())) {
+            return null;
+        }
+        return parser.nextTextValue();
+    }
+
+    /**
+     * 在{@link #readLeadingCmd(JsonParser)}之后调用
+     *
+     * @return 没有info字段时返回null
+     */
+    public static DanmuMsg readDanmuMsg(JsonParser parser) throws IOException {
+        if (!seekField(parser, "info") || parser.nextToken() != JsonToken.START_ARRAY) {
+            return null;
+        }
+        DanmuMsg msg = new DanmuMsg();
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            switch (index++) {
+                // [0]元数据，[0][4]为发送时间
+                case 0 -> readArrayElements(parser, token, (i, p) -> {
+                    if (i == 4) {
+                        msg.setTimestamp(p.getValueAsLong());
+                    }
+                });
+                case 1 -> msg.setText(parser.getValueAsString());
+                // [2]用户信息：uid、uname
+                case 2 -> readArrayElements(parser, token, (i, p) -> {
+                    if (i == 0) {
+                        msg.setUid(p.getValueAsLong());
+                    } else if (i == 1) {
+                        msg.setUname(UNAME_CACHE.get(msg.getUid(), p));
+                    }
+                });
+                // [3]粉丝牌：等级、名称
+                case 3 -> readArrayElements(parser, token, (i, p) -> {
+                    if (i == 0) {
+                        msg.setMedalLevel(p.getValueAsInt());
+                    } else if (i == 1) {
+                        msg.setMedalName(VALUE_CACHE.get(p));
+                    }
+                });
+                default -> parser.skipChildren();
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * 在{@link #readLeadingCmd(JsonParser)}之后调用
+     *
+     * @return 没有data字段时返回null
+     */
+    public static SendGiftMsg readSendGiftMsg(JsonParser parser) throws IOException {
+        if (!seekDataObject(parser)) {
+            return null;
+        }
+        SendGiftMsg msg = new SendGiftMsg();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "uid" -> msg.setUid(parser.getValueAsLong());
+                // uid、giftId在名称之前出现时按id驻留，否则按内容驻留
+                case "uname" -> msg.setUname(UNAME_CACHE.get(msg.getUid(), parser));
+                case "giftId" -> msg.setGiftId(parser.getValueAsLong());
+                case "giftName" -> msg.setGiftName(GIFT_NAME_CACHE.get(msg.getGiftId(), parser));
+                case "num" -> msg.setNum(parser.getValueAsInt());
+                case "price" -> msg.setPrice(parser.getValueAsLong());
+                case "coin_type" -> msg.setCoinType(VALUE_CACHE.get(parser));
+                case "action" -> msg.setAction(VALUE_CACHE.get(parser));
+                case "timestamp" -> msg.setTimestamp(parser.getValueAsLong());
+                default -> parser.skipChildren();
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * 在{@link #readLeadingCmd(JsonParser)}之后调用
+     *
+     * @return 没有data字段时返回null
+     */
+    public static InteractWordMsg readInteractWordMsg(JsonParser parser) throws IOException {
+        if (!seekDataObject(parser)) {
+            return null;
+        }
+        InteractWordMsg msg = new InteractWordMsg();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "uid" -> msg.setUid(parser.getValueAsLong());
+                case "uname" -> msg.setUname(UNAME_CACHE.get(msg.getUid(), parser));
+                case "msg_type" -> msg.setMsgType(parser.getValueAsInt());
+                case "timestamp" -> msg.setTimestamp(parser.getValueAsLong());
+                default -> parser.skipChildren();
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * 在{@link #readLeadingCmd(JsonParser)}之后调用
+     *
+     * @return 没有data字段时返回null
+     */
+    public static LikeClickMsg readLikeClickMsg(JsonParser parser) throws IOException {
+        if (!seekDataObject(parser)) {
+            return null;
+        }
+        LikeClickMsg msg = new LikeClickMsg();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName) {
+                case "uid" -> msg.setUid(parser.getValueAsLong());
+                case "uname" -> msg.setUname(UNAME_CACHE.get(msg.getUid(), parser));
+                case "like_text" -> msg.setLikeText(parser.getValueAsString());
+                default -> parser.skipChildren();
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * 跳过当前对象中的其他字段，直到找到指定字段
+     */
+    private static boolean seekField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (name.equals(parser.currentName())) {
+                return true;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static boolean seekDataObject(JsonParser parser) throws IOException {
+        return seekField(parser, "data") && parser.nextToken() == JsonToken.START_OBJECT;
+    }
+
+    @FunctionalInterface
+    private interface ArrayElementReader {
+        void read(int index, JsonParser parser) throws IOException;
+    }
+
+    private static void readArrayElements(JsonParser parser, JsonToken token, ArrayElementReader reader) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        int index = 0;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token.isScalarValue()) {
+                reader.read(index, parser);
+            } else {
+                parser.skipChildren();
+            }
+            index++;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 弹幕协议数据包工具类
+ * <p>
+ * 数据包格式：包长度(4) + 头部长度(2) + 协议版本(2) + 操作码(4) + 序列号(4) + 正文
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliPacketUtil {
+
+    public static final int HEADER_LENGTH = 16;
+
+    public static final int OPERATION_HEARTBEAT = 2;
+    public static final int OPERATION_HEARTBEAT_REPLY = 3;
+    public static final int OPERATION_SEND_SMS_REPLY = 5;
+    public static final int OPERATION_AUTH = 7;
+    public static final int OPERATION_AUTH_REPLY = 8;
+
+    private static final byte[] HEARTBEAT_BODY = "[object Object]".getBytes(StandardCharsets.UTF_8);
+    /**
+     * 预先编码的心跳包，只读且不会被释放，所有连接共享
+     */
+    private static final ByteBuf HEARTBEAT = Unpooled.unreleasableBuffer(
+            encode(UnpooledByteBufAllocator.DEFAULT, ProtoverEnum.HEARTBEAT_AUTH_NO_COMPRESSION, OPERATION_HEARTBEAT, HEARTBEAT_BODY).asReadOnly());
+
+    private BilibiliPacketUtil() {
+    }
+
+    /**
+     * 编码一个数据包
+     *
+     * @param allocator ByteBufAllocator
+     * @param protover  协议版本
+     * @param operation 操作码
+     * @param body      正文
+     * @return 编码后的数据包
+     */
+    public static ByteBuf encode(ByteBufAllocator allocator, ProtoverEnum protover, int operation, byte[] body) {
+        ByteBuf buf = allocator.buffer(HEADER_LENGTH + body.length);
+        buf.writeInt(HEADER_LENGTH + body.length);
+        buf.writeShort(HEADER_LENGTH);
+        buf.writeShort(protover.getCode());
+        buf.writeInt(operation);
+        buf.writeInt(1);
+        buf.writeBytes(body);
+        return buf;
+    }
+
+    /**
+     * 创建心跳包
+     *
+     * @param allocator ByteBufAllocator
+     * @return 心跳包
+     */
+    public static BinaryWebSocketFrame createHeartbeat(ByteBufAllocator allocator) {
+        return new BinaryWebSocketFrame(encode(allocator, ProtoverEnum.HEARTBEAT_AUTH_NO_COMPRESSION, OPERATION_HEARTBEAT, HEARTBEAT_BODY));
+    }
+
+    /**
+     * 创建认证包
+     *
+     * @param allocator ByteBufAllocator
+     * @param roomId    真实房间ID
+     * @param protover  消息使用的协议版本
+     * @param cookie    浏览器Cookie，从中读取DedeUserID和buvid3
+     * @param token     getDanmuInfo返回的token
+     * @return 认证包
+     */
+    public static BinaryWebSocketFrame createAuth(ByteBufAllocator allocator, long roomId, ProtoverEnum protover, String cookie, String token) {
+        ObjectNode body = BilibiliMsgParser.OBJECT_MAPPER.createObjectNode()
+                .put("uid", parseLong(getCookieValue(cookie, "DedeUserID")))
+                .put("roomid", roomId)
+                .put("protover", protover.getCode())
+                .put("buvid", getCookieValue(cookie, "buvid3"))
+                .put("platform", "web")
+                .put("type", 2)
+                .put("key", token);
+        byte[] bytes;
+        try {
+            bytes = BilibiliMsgParser.OBJECT_MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("认证包创建失败", e);
+        }
+        return new BinaryWebSocketFrame(encode(allocator, ProtoverEnum.HEARTBEAT_AUTH_NO_COMPRESSION, OPERATION_AUTH, bytes));
+    }
+
+    /**
+     * 获取共享的心跳包
+     * <p>
+     * 包内容只编码一次，每次调用不再编码和复制字节，但仍会创建一个{@link BinaryWebSocketFrame}和一个共享内容的duplicate，
+     * 两者都是很小的对象；内容不可释放，写出后不需要也不会被释放
+     *
+     * @return 心跳包
+     */
+    public static BinaryWebSocketFrame heartbeatFrame() {
+        return new BinaryWebSocketFrame(HEARTBEAT.duplicate());
+    }
+
+    private static String getCookieValue(String cookie, String name) {
+        if (cookie == null) {
+            return null;
+        }
+        for (String pair : cookie.split(";")) {
+            int index = pair.indexOf('=');
+            if (index != -1 && pair.substring(0, index).trim().equals(name)) {
+                return pair.substring(index + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * 有界字符串驻留缓存
+ * <p>
+ * 直接映射：每个key（uid、giftId）或内容哈希对应一个槽位，冲突时覆盖，容量固定；
+ * 命中时直接比较parser中的字符，不创建新的String。多线程共享，槽位中的对象不可变，无需加锁
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+public class BilibiliStringCache {
+
+    private final Entry[] entries;
+    private final int mask;
+
+    /**
+     * @param capacity 槽位数，向上取整为2的幂
+     */
+    public BilibiliStringCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 读取parser当前的字符串值，内容与缓存相同时返回缓存的实例
+     *
+     * @param key uid、giftId等，未知时为0，按内容哈希
+     */
+    public String get(long key, JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return parser.getValueAsString();
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        int index = (key == 0 ? hash(chars, offset, length) : Long.hashCode(key * 0x9E3779B97F4A7C15L)) & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.key == key && contentEquals(entry.value, chars, offset, length)) {
+            return entry.value;
+        }
+        String value = new String(chars, offset, length);
+        entries[index] = new Entry(key, value);
+        return value;
+    }
+
+    public String get(JsonParser parser) throws IOException {
+        return get(0, parser);
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean contentEquals(String value, char[] chars, int offset, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Entry(long key, String value) {
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.aggregate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliLiveStatsAggregatorTest {
+
+    AtomicLong clock = new AtomicLong(1_000_000);
+    BilibiliLiveStatsAggregator aggregator = new BilibiliLiveStatsAggregator(1000, 10, 3, 100, clock::get);
+
+    @Test
+    void windows() {
+        Assertions.assertNull(aggregator.snapshot(7777, 5));
+        for (int i = 0; i < 10; i++) {
+            aggregator.recordDanmu(7777);
+        }
+        aggregator.recordGift(7777, 1, "A", 2, 200);
+        clock.addAndGet(1000);
+        for (int i = 0; i < 5; i++) {
+            aggregator.recordDanmu(7777);
+        }
+        aggregator.recordWatched(7777, 12345);
+        clock.addAndGet(499);
+
+        BilibiliRoomStatsSnapshot current = aggregator.snapshot(7777, 1);
+        Assertions.assertEquals(5, current.danmus());
+        Assertions.assertEquals(0, current.gifts());
+        Assertions.assertEquals(500, current.windowMillis());
+        Assertions.assertEquals(10.0, current.danmuRate(), 1e-9);
+        Assertions.assertEquals(12345, current.watched());
+
+        BilibiliRoomStatsSnapshot sliding = aggregator.snapshot(7777, 2);
+        Assertions.assertEquals(15, sliding.danmus());
+        Assertions.assertEquals(2, sliding.gifts());
+        Assertions.assertEquals(200, sliding.giftValue());
+
+        List<BilibiliRoomStatsSnapshot.Bucket> buckets = aggregator.buckets(7777);
+        Assertions.assertEquals(10, buckets.size());
+        Assertions.assertEquals(10, buckets.get(8).danmus());
+        Assertions.assertEquals(1_000_000, buckets.get(8).startMillis());
+        Assertions.assertEquals(5, buckets.get(9).danmus());
+
+        // 超过bucketCount个窗口后旧数据过期
+        clock.addAndGet(10_000);
+        Assertions.assertEquals(0, aggregator.snapshot(7777, 10).danmus());
+        Assertions.assertTrue(aggregator.buckets(7777).stream().allMatch(bucket -> bucket.danmus() == 0));
+    }
+
+    @Test
+    void topGifters() {
+        // 容量为2 × 3，大额用户夹在大量小额用户之间
+        for (int round = 0; round < 20; round++) {
+            aggregator.recordGift(7777, 1, "A", 1, 1000);
+            aggregator.recordGift(7777, 2, "B", 1, 500);
+            for (long uid = 100; uid < 110; uid++) {
+                aggregator.recordGift(7777, uid, "u" + uid, 1, 1);
+            }
+        }
+        aggregator.recordGift(7777, 3, "C", 1, 3000);
+        List<BilibiliRoomStatsSnapshot.Gifter> top = aggregator.snapshot(7777, 10).topGifters();
+        Assertions.assertEquals(3, top.size());
+        Assertions.assertEquals(List.of(1L, 2L, 3L), top.stream().map(BilibiliRoomStatsSnapshot.Gifter::uid).toList());
+        Assertions.assertEquals(20_000, top.get(0).value());
+        for (BilibiliRoomStatsSnapshot.Gifter gifter : top) {
+            Assertions.assertTrue(gifter.value() - gifter.error() <= trueValue(gifter.uid()));
+            Assertions.assertTrue(gifter.value() >= trueValue(gifter.uid()));
+        }
+
+        // 每bucketMillis × bucketCount重新统计
+        clock.addAndGet(10_000);
+        Assertions.assertTrue(aggregator.snapshot(7777, 10).topGifters().isEmpty());
+    }
+
+    @Test
+    void silverGiftsNotInTopGifters() {
+        aggregator.recordGift(7777, 1, "A", 1, 100);
+        // 大量银瓜子礼物不挤占名额
+        for (long uid = 100; uid < 200; uid++) {
+            aggregator.recordGift(7777, uid, "u" + uid, 1, 0);
+        }
+        BilibiliRoomStatsSnapshot snapshot = aggregator.snapshot(7777, 10);
+        Assertions.assertEquals(101, snapshot.gifts());
+        Assertions.assertEquals(List.of(new BilibiliRoomStatsSnapshot.Gifter(1, "A", 100, 0)), snapshot.topGifters());
+    }
+
+    private static long trueValue(long uid) {
+        return uid == 1 ? 20_000 : uid == 2 ? 10_000 : 3000;
+    }
+
+    @Test
+    void maxRooms() {
+        for (long roomId = 1; roomId <= 120; roomId++) {
+            aggregator.recordDanmu(roomId);
+        }
+        Assertions.assertEquals(100, aggregator.getRoomCount());
+        Assertions.assertEquals(20, aggregator.getRejectedCount());
+        for (long roomId = 1; roomId <= 50; roomId++) {
+            aggregator.removeRoom(roomId);
+        }
+        Assertions.assertEquals(50, aggregator.getRoomCount());
+        for (long roomId = 51; roomId <= 100; roomId++) {
+            Assertions.assertEquals(1, aggregator.snapshot(roomId, 1).danmus());
+        }
+        aggregator.recordDanmu(200);
+        Assertions.assertEquals(1, aggregator.snapshot(200, 1).danmus());
+    }
+
+    @Test
+    void noAllocationPerMsg() {
+        BilibiliLiveStatsAggregator large = new BilibiliLiveStatsAggregator(60_000, 60, 10, 10_000, clock::get);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] names = new String[64];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "user" + i;
+        }
+        // 预热并创建所有房间
+        update(large, names, 200_000);
+        Assertions.assertEquals(10_000, large.getRoomCount());
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        update(large, names, 1_000_000);
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        Assertions.assertTrue(allocated < 1024, "allocated " + allocated);
+    }
+
+    private void update(BilibiliLiveStatsAggregator aggregator, String[] names, int count) {
+        for (int i = 0; i < count; i++) {
+            long roomId = i % 10_000;
+            if ((i & 7) == 0) {
+                int user = (i >>> 3) & 63;
+                aggregator.recordGift(roomId, user, names[user], 1, 100);
+            } else {
+                aggregator.recordDanmu(roomId);
+            }
+            clock.incrementAndGet();
+        }
+    }
+}
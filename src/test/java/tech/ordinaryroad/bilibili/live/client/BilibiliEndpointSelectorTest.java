@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfo;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliEndpointSelectorTest {
+
+    @Test
+    void spreadByLatencyAndLoad() {
+        BilibiliEndpointSelector selector = new BilibiliEndpointSelector(List.of("wss://a.example.com/sub", "wss://b.example.com:8443/sub"));
+        BilibiliEndpoint a = selector.getEndpoints().get(0);
+        BilibiliEndpoint b = selector.getEndpoints().get(1);
+        Assertions.assertEquals(443, a.getPort());
+        Assertions.assertEquals(8443, b.getPort());
+
+        selector.onHandshake(a, TimeUnit.MILLISECONDS.toNanos(10));
+        selector.onHandshake(b, TimeUnit.MILLISECONDS.toNanos(30));
+        // 耗时 × (连接数 + 1)：a分别为10、20、30、40，b为30、60
+        int[] counts = new int[2];
+        for (int i = 0; i < 4; i++) {
+            BilibiliEndpoint endpoint = selector.select();
+            selector.onConnected(endpoint);
+            counts[endpoint == a ? 0 : 1]++;
+        }
+        Assertions.assertArrayEquals(new int[]{3, 1}, counts);
+
+        // 没有样本的服务器按已知最低耗时计算
+        selector.addHosts(List.of(new BilibiliRoomInfo.Host("c.example.com", 2243, 443, 2244)));
+        Assertions.assertEquals(3, selector.getEndpoints().size());
+        Assertions.assertEquals("c.example.com", selector.select().getHost());
+    }
+
+    @Test
+    void failover() {
+        BilibiliEndpointSelector selector = new BilibiliEndpointSelector(List.of("ws://a.example.com/sub", "ws://b.example.com/sub"));
+        BilibiliEndpoint a = selector.getEndpoints().get(0);
+        BilibiliEndpoint b = selector.getEndpoints().get(1);
+        Assertions.assertSame(a, selector.select());
+
+        selector.onFailure(a);
+        Assertions.assertTrue(a.isCoolingDown());
+        Assertions.assertTrue(selector.hasHealthyAlternative(a));
+        Assertions.assertSame(b, selector.select());
+
+        selector.onFailure(b);
+        selector.onFailure(b);
+        Assertions.assertFalse(selector.hasHealthyAlternative(a));
+        // 全部在冷却中时选择最早结束冷却的
+        Assertions.assertSame(a, selector.select());
+
+        selector.onConnected(b);
+        Assertions.assertEquals(0, b.getFailureCount());
+        Assertions.assertFalse(b.isCoolingDown());
+        Assertions.assertSame(b, selector.select());
+    }
+}
@@ -0,0 +1,741 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.constant.TransportEnum;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliRoomConnectionListener;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.metrics.IBilibiliMetricsRecorder;
+import tech.ordinaryroad.bilibili.live.mock.MockBilibiliServer;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfo;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfoCache;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMsgParser;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+class BilibiliLiveChatClientManagerTest {
+
+    IBilibiliSendSmsReplyMsgListener msgListener = new IBilibiliSendSmsReplyMsgListener() {
+    };
+
+    @Test
+    void connectDisconnectReconnect() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .reconnectDelay(1)
+                    .build());
+
+            CountDownLatch connected = new CountDownLatch(3);
+            CountDownLatch disconnected = new CountDownLatch(2);
+            BilibiliRoomConnection room = manager.connect(7777, msgListener, new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.countDown();
+                }
+
+                @Override
+                public void onDisconnected(BilibiliRoomConnection connection) {
+                    disconnected.countDown();
+                }
+            });
+
+            // 首次连接后断开，触发自动重连；再手动重连一次
+            manager.getWorkerGroup().schedule(() -> manager.disconnect(7777), 1, TimeUnit.SECONDS);
+            manager.getWorkerGroup().schedule(() -> manager.reconnect(7777), 4, TimeUnit.SECONDS);
+
+            Assertions.assertTrue(connected.await(10, TimeUnit.SECONDS));
+            Assertions.assertTrue(disconnected.await(1, TimeUnit.SECONDS));
+            Assertions.assertTrue(room.isConnected());
+            // onConnected在认证包发出后回调，等待服务端收到
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (server.getAuthCount().get() < 3 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assertions.assertEquals(3, server.getAuthCount().get());
+
+            manager.disconnect(7777, true);
+            TimeUnit.SECONDS.sleep(2);
+            Assertions.assertFalse(room.isConnected());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void failoverToHealthyEndpoint() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            int closedPort;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                closedPort = socket.getLocalPort();
+            }
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUris(List.of("ws://127.0.0.1:" + closedPort + "/sub", server.getWebsocketUri()))
+                    .reconnectDelay(30)
+                    .build());
+            CountDownLatch connected = new CountDownLatch(1);
+            BilibiliRoomConnection room = manager.connect(7777, msgListener, new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.countDown();
+                }
+            });
+            // 第一个地址无法连接，不等待重连延迟直接切换
+            Assertions.assertTrue(connected.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(server.getPort(), room.getEndpoint().getPort());
+            BilibiliEndpoint failed = manager.getEndpointSelector().getEndpoints().get(0);
+            Assertions.assertEquals(1, failed.getFailureCount());
+            Assertions.assertTrue(room.getEndpoint().getLatencyMillis() >= 0);
+            Assertions.assertEquals(1, room.getEndpoint().getActiveCount());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void disconnectDuringHandshake() throws Exception {
+        // 只接受TCP连接，不应答WebSocket握手
+        try (ServerSocket socket = new ServerSocket(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri("ws://127.0.0.1:" + socket.getLocalPort() + "/sub")
+                    .build());
+            AtomicInteger connectFailed = new AtomicInteger();
+            BilibiliRoomConnection room = manager.connect(7777, msgListener, new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnectFailed(BilibiliRoomConnection connection) {
+                    connectFailed.incrementAndGet();
+                }
+            });
+            awaitUntil(() -> room.getChannel() != null && room.getChannel().isActive());
+            room.disconnect(true);
+            awaitUntil(() -> connectFailed.get() == 1);
+
+            // 主动断开不计为服务器失败
+            BilibiliEndpoint endpoint = room.getEndpoint();
+            Assertions.assertEquals(0, endpoint.getFailureCount());
+            Assertions.assertFalse(endpoint.isCoolingDown());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void removeRoomDuringHandshake() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().handshakeDelayMillis(500).start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .reconnectDelay(1)
+                    .reconnectJitter(0)
+                    .build());
+            AtomicInteger connected = new AtomicInteger();
+            BilibiliRoomConnection room = manager.connect(7777, msgListener, new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.incrementAndGet();
+                }
+            });
+            awaitUntil(() -> server.getOpenConnectionCount() == 1);
+            // 握手期间的connect合并到本次连接
+            room.connect();
+            TimeUnit.MILLISECONDS.sleep(100);
+            Assertions.assertEquals(1, server.getOpenConnectionCount());
+
+            manager.removeRoom(7777);
+            awaitUntil(() -> server.getOpenConnectionCount() == 0);
+            // 超过握手延迟和重连延迟后仍然没有连接
+            TimeUnit.MILLISECONDS.sleep(1500);
+            Assertions.assertEquals(0, server.getOpenConnectionCount());
+            Assertions.assertEquals(0, server.getAuthCount().get());
+            Assertions.assertEquals(0, connected.get());
+            Assertions.assertFalse(room.isConnected());
+            Assertions.assertEquals(0, manager.getReconnectScheduler().getInFlightCount());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void connectWhileConnecting() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            CompletableFuture<BilibiliRoomInfo> fetch = new CompletableFuture<>();
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .roomInfoCache(new BilibiliRoomInfoCache(roomId -> fetch))
+                    .build());
+            CountDownLatch connected = new CountDownLatch(1);
+            BilibiliRoomConnection room = manager.connect(7777, msgListener, new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.countDown();
+                }
+            });
+            awaitUntil(() -> manager.getReconnectScheduler().getInFlightCount() == 1);
+            // 获取房间信息期间再次连接，合并到本次连接
+            room.connect();
+            room.reconnect();
+            fetch.complete(BilibiliRoomInfo.builder().roomId(7777).token("abc").build());
+            Assertions.assertTrue(connected.await(5, TimeUnit.SECONDS));
+            TimeUnit.MILLISECONDS.sleep(200);
+            Assertions.assertEquals(1, server.getAcceptedCount().get());
+            Assertions.assertEquals(1, server.getAuthCount().get());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void removeRoomWhileFetchingRoomInfo() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            CompletableFuture<BilibiliRoomInfo> fetch = new CompletableFuture<>();
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .roomInfoCache(new BilibiliRoomInfoCache(roomId -> fetch))
+                    .build());
+            manager.connect(7777, msgListener);
+            awaitUntil(() -> manager.getReconnectScheduler().getInFlightCount() == 1);
+            manager.removeRoom(7777);
+            fetch.complete(BilibiliRoomInfo.builder().roomId(7777).token("abc").build());
+
+            // 获取完成后不再发起连接
+            awaitUntil(() -> manager.getReconnectScheduler().getInFlightCount() == 0);
+            TimeUnit.MILLISECONDS.sleep(200);
+            Assertions.assertEquals(0, server.getAcceptedCount().get());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void hotStandby() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().broadcastGiftsPerSecond(100).start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUris(List.of(server.getWebsocketUri(), "ws://localhost:" + server.getPort() + "/sub"))
+                    .reconnectDelay(30)
+                    .build());
+            List<Long> tids = new CopyOnWriteArrayList<>();
+            BilibiliHotStandbyRoom room = manager.connectHotStandby(7777, new IBilibiliSendSmsReplyMsgListener() {
+                @Override
+                public void onSendGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+                    tids.add(msg.getData().get("tid").asLong());
+                }
+            }, null);
+            awaitUntil(() -> room.isFullyConnected() && room.getDuplicateCount() >= 20);
+            Assertions.assertSame(room.getPrimary(), manager.getRoom(7777));
+            // 两条连接分别连接不同的服务器
+            Assertions.assertNotSame(room.getPrimary().getEndpoint(), room.getSecondary().getEndpoint());
+
+            // 主连接断开后等待重连期间，备用连接继续收到消息
+            room.getPrimary().getChannel().close().sync();
+            int received = tids.size();
+            awaitUntil(() -> tids.size() - received >= 50);
+            Assertions.assertFalse(room.getPrimary().isConnected());
+            Assertions.assertTrue(room.isConnected());
+
+            // 每条消息恰好回调一次，且没有遗漏
+            List<Long> snapshot = new ArrayList<>(tids);
+            for (int i = 0; i < snapshot.size(); i++) {
+                Assertions.assertEquals(snapshot.get(0) + i, snapshot.get(i));
+            }
+            manager.destroy();
+            Assertions.assertNull(manager.getHotStandbyRoom(7777));
+        }
+    }
+
+    @Test
+    void sharedSslContext() {
+        BilibiliLiveChatClientManager manager1 = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder().build());
+        BilibiliLiveChatClientManager manager2 = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder().build());
+        Assertions.assertSame(manager1.getSslContext(), manager2.getSslContext());
+        Assertions.assertSame(BilibiliSslContexts.getShared(), manager1.getSslContext());
+        manager1.destroy();
+        manager2.destroy();
+    }
+
+    @Test
+    void tlsSessionResumption() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().ssl().start(0)) {
+            List<Boolean> handshakes = new CopyOnWriteArrayList<>();
+            IBilibiliMetricsRecorder metricsRecorder = new IBilibiliMetricsRecorder() {
+                @Override
+                public void onTlsHandshake(long roomId, boolean resumed, long nanos) {
+                    handshakes.add(resumed);
+                }
+            };
+            // 自签名证书，同一个SslContext在两个manager之间共享
+            BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .sslContext(SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build())
+                    .metricsRecorder(metricsRecorder)
+                    .build();
+            BilibiliLiveChatClientManager manager1 = new BilibiliLiveChatClientManager(config);
+            BilibiliLiveChatClientManager manager2 = new BilibiliLiveChatClientManager(config);
+
+            BlockingQueue<BilibiliRoomConnection> connected = new LinkedBlockingQueue<>();
+            IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.add(connection);
+                }
+            };
+            manager1.connect(7777, msgListener, connectionListener);
+            Assertions.assertNotNull(connected.poll(5, TimeUnit.SECONDS));
+            // TLS1.3的ticket只能使用一次，恢复后服务器会下发新的ticket，依次连接
+            BilibiliRoomConnection room = manager2.connect(8888, msgListener, connectionListener);
+            Assertions.assertNotNull(connected.poll(5, TimeUnit.SECONDS));
+            room.reconnect();
+            Assertions.assertNotNull(connected.poll(5, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(List.of(false, true, true), handshakes);
+            manager1.destroy();
+            manager2.destroy();
+        }
+    }
+
+    @Test
+    void roomInfoCache() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            AtomicInteger fetchCount = new AtomicInteger();
+            BilibiliRoomInfoCache roomInfoCache = new BilibiliRoomInfoCache(roomId -> {
+                fetchCount.incrementAndGet();
+                return CompletableFuture.completedFuture(BilibiliRoomInfo.builder().roomId(7777).shortId(6).token("abc").build());
+            });
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .cookie("buvid3=XYZinfoc; DedeUserID=10086")
+                    .roomInfoCache(roomInfoCache)
+                    .build());
+            CountDownLatch connected = new CountDownLatch(2);
+            manager.connect(6, msgListener, new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.countDown();
+                    if (connected.getCount() == 1) {
+                        connection.reconnect();
+                    }
+                }
+            });
+            Assertions.assertTrue(connected.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (server.getAuthCount().get() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assertions.assertEquals(2, server.getAuthCount().get());
+            // 重连时使用缓存
+            Assertions.assertEquals(1, fetchCount.get());
+            JsonNode auth = BilibiliMsgParser.OBJECT_MAPPER.readTree(server.getLastAuthBody().get());
+            Assertions.assertEquals(7777, auth.get("roomid").asLong());
+            Assertions.assertEquals(10086, auth.get("uid").asLong());
+            Assertions.assertEquals("XYZinfoc", auth.get("buvid").asText());
+            Assertions.assertEquals("abc", auth.get("key").asText());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void authFailureInvalidatesRoomInfo() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().rejectAuths(1).start(0)) {
+            AtomicInteger fetchCount = new AtomicInteger();
+            BilibiliRoomInfoCache roomInfoCache = new BilibiliRoomInfoCache(roomId -> CompletableFuture.completedFuture(
+                    BilibiliRoomInfo.builder().roomId(7777).token("token" + fetchCount.incrementAndGet()).build()));
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .roomInfoCache(roomInfoCache)
+                    .reconnectDelay(1)
+                    .reconnectJitter(0)
+                    .build());
+            manager.connect(7777, msgListener);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (server.getAuthCount().get() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assertions.assertEquals(2, server.getAuthCount().get());
+            // 认证失败后重新获取，使用新的token
+            Assertions.assertEquals(2, fetchCount.get());
+            JsonNode auth = BilibiliMsgParser.OBJECT_MAPPER.readTree(server.getLastAuthBody().get());
+            Assertions.assertEquals("token2", auth.get("key").asText());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void coalescedHeartbeats() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .workerThreads(2)
+                    .heartbeatInitialDelay(1)
+                    .heartbeatPeriod(1)
+                    .build());
+            CountDownLatch connected = new CountDownLatch(5);
+            IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.countDown();
+                }
+            };
+            for (long roomId = 1; roomId <= 5; roomId++) {
+                manager.connect(roomId, msgListener, connectionListener);
+            }
+            Assertions.assertTrue(connected.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(5, manager.getHeartbeatScheduler().getRegisteredCount());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (server.getHeartbeatCount().get() < 10 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            Assertions.assertTrue(server.getHeartbeatCount().get() >= 10);
+
+            // 断开后在下一次检查时移除
+            for (long roomId = 1; roomId <= 5; roomId++) {
+                manager.disconnect(roomId, true);
+            }
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (manager.getHeartbeatScheduler().getRegisteredCount() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            Assertions.assertEquals(0, manager.getHeartbeatScheduler().getRegisteredCount());
+            manager.destroy();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ProtoverEnum.class, names = {"NORMAL_NO_COMPRESSION", "NORMAL_ZLIB", "NORMAL_BROTLI"})
+    void receivePushedMsgs(ProtoverEnum protover) throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer()
+                .msgsPerSecondPerRoom(100)
+                .msgsPerFrame(10, 2)
+                .start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .protover(protover)
+                    .build());
+            CountingListener listener = new CountingListener();
+            for (long roomId = 1; roomId <= 3; roomId++) {
+                manager.connect(roomId, listener);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (listener.gifts.sum() < 30 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            manager.destroy();
+            Assertions.assertTrue(listener.gifts.sum() >= 30);
+            Assertions.assertEquals(4 * listener.gifts.sum(), listener.danmus.sum(), 4 * 3 * 2);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = TransportEnum.class, names = {"NIO", "EPOLL", "IO_URING"})
+    void receiveWithTransport(TransportEnum transport) throws Exception {
+        Assumptions.assumeTrue(BilibiliTransport.isAvailable(transport), transport + "不可用");
+        try (MockBilibiliServer server = new MockBilibiliServer()
+                .msgsPerSecondPerRoom(100)
+                .start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .transport(transport)
+                    .soRcvBuf(256 * 1024)
+                    .recvBufInitialSize(4096)
+                    .build());
+            Assertions.assertEquals(transport, manager.getTransport().getType());
+            CountingListener listener = new CountingListener();
+            manager.connect(7777, listener);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (listener.gifts.sum() < 10 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            manager.destroy();
+            Assertions.assertTrue(listener.gifts.sum() >= 10);
+        }
+    }
+
+    /**
+     * 对比各传输实现：连接本地模拟服务器，统计客户端EventLoop线程处理每条消息的CPU时间
+     * <p>
+     * 默认跳过，通过-DloadTests=true运行；可以通过-DtransportRooms=1000 -DtransportMsgsPerSecond=100000 -DtransportSeconds=30指定参数
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "loadTests", matches = "true")
+    void transportBenchmark() throws Exception {
+        int rooms = Integer.getInteger("transportRooms", 1000);
+        int msgsPerSecond = Integer.getInteger("transportMsgsPerSecond", 100000);
+        int seconds = Integer.getInteger("transportSeconds", 30);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try (MockBilibiliServer server = new MockBilibiliServer()
+                .msgsPerSecondPerRoom(Math.max(1, msgsPerSecond / rooms))
+                .start(0)) {
+            for (TransportEnum transport : new TransportEnum[]{TransportEnum.NIO, TransportEnum.EPOLL, TransportEnum.IO_URING}) {
+                if (!BilibiliTransport.isAvailable(transport)) {
+                    log.info("{} 不可用，跳过", transport);
+                    continue;
+                }
+                BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                        .websocketUri(server.getWebsocketUri())
+                        .transport(transport)
+                        .build());
+                CountingListener listener = new CountingListener();
+                CountDownLatch connected = new CountDownLatch(rooms);
+                IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                    @Override
+                    public void onConnected(BilibiliRoomConnection connection) {
+                        connected.countDown();
+                    }
+                };
+                for (long roomId = 1; roomId <= rooms; roomId++) {
+                    manager.connect(roomId, listener, connectionListener);
+                }
+                boolean allConnected = connected.await(120, TimeUnit.SECONDS);
+                // 预热
+                TimeUnit.SECONDS.sleep(5);
+
+                long[] threadIds = getEventLoopThreadIds(manager);
+                long cpuStart = getThreadCpuTime(threadMXBean, threadIds);
+                long receivedStart = listener.total();
+                long sentStart = server.getSentMsgCount();
+                TimeUnit.SECONDS.sleep(seconds);
+                long cpu = getThreadCpuTime(threadMXBean, threadIds) - cpuStart;
+                long received = listener.total() - receivedStart;
+                long sent = server.getSentMsgCount() - sentStart;
+
+                log.info("{} 全部连接 {} 接收 {}条/s EventLoop CPU {}% 每条消息 {}ns", transport, allConnected, received / seconds,
+                        String.format("%.1f", 100.0 * cpu / TimeUnit.SECONDS.toNanos(seconds)), received == 0 ? -1 : cpu / received);
+                manager.destroy();
+                manager.getWorkerGroup().terminationFuture().sync();
+                Assertions.assertTrue(allConnected, transport + " 房间未全部连接");
+                // 统计期间接收数与推送数的差值不超过1s的推送量，否则每条消息的CPU时间没有意义
+                Assertions.assertTrue(received > 0 && Math.abs(sent - received) <= Math.max(msgsPerSecond, rooms),
+                        transport + " 推送 " + sent + " 接收 " + received);
+            }
+        }
+    }
+
+    /**
+     * 浸泡测试：连接本地模拟服务器，按指定速率推送弹幕和礼物，每10s输出收发速率、线程数、RSS和CPU占用
+     * <p>
+     * 默认跳过，通过-DloadTests=true运行；可以通过-DsoakRooms=10000 -DsoakMsgsPerSecond=100000 -DsoakSeconds=600 -DsoakProtover=NORMAL_ZLIB指定参数，
+     * 10000个房间需要调大文件描述符上限
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "loadTests", matches = "true")
+    void soakTest() throws Exception {
+        int rooms = Integer.getInteger("soakRooms", 10000);
+        int msgsPerSecond = Integer.getInteger("soakMsgsPerSecond", 100000);
+        int seconds = Integer.getInteger("soakSeconds", 60);
+        ProtoverEnum protover = ProtoverEnum.valueOf(System.getProperty("soakProtover", ProtoverEnum.NORMAL_ZLIB.name()));
+        try (MockBilibiliServer server = new MockBilibiliServer()
+                .msgsPerSecondPerRoom(Math.max(1, msgsPerSecond / rooms))
+                .start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .protover(protover)
+                    .build());
+            CountingListener listener = new CountingListener();
+            CountDownLatch connected = new CountDownLatch(rooms);
+            IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connected.countDown();
+                }
+            };
+            for (long roomId = 1; roomId <= rooms; roomId++) {
+                manager.connect(roomId, listener, connectionListener);
+            }
+            boolean allConnected = connected.await(120, TimeUnit.SECONDS);
+            log.info("房间数 {} 全部连接 {}", rooms, allConnected);
+            Assertions.assertTrue(allConnected, "房间未全部连接");
+
+            long lastSent = server.getSentMsgCount();
+            long lastReceived = listener.total();
+            long lastCpu = getProcessCpuTime();
+            long lastWall = System.nanoTime();
+            for (int elapsed = 10; elapsed <= seconds; elapsed += 10) {
+                TimeUnit.SECONDS.sleep(10);
+                long sent = server.getSentMsgCount();
+                long received = listener.total();
+                long cpu = getProcessCpuTime();
+                long wall = System.nanoTime();
+                double wallSeconds = (wall - lastWall) / 1e9;
+                log.info("{}s 推送 {}条/s 接收 {}条/s 累计差值 {} 线程数 {} RSS {}KB CPU {}%", elapsed,
+                        (long) ((sent - lastSent) / wallSeconds), (long) ((received - lastReceived) / wallSeconds), sent - received,
+                        getThreadCount(), getRssKb(), String.format("%.1f", 100.0 * (cpu - lastCpu) / (wall - lastWall)));
+                lastSent = sent;
+                lastReceived = received;
+                lastCpu = cpu;
+                lastWall = wall;
+            }
+            // 停止接收之前，积压不超过1s的推送量，否则说明客户端跟不上推送速率
+            long sent = server.getSentMsgCount();
+            long received = listener.total();
+            manager.destroy();
+            manager.getWorkerGroup().terminationFuture().sync();
+            Assertions.assertTrue(received > 0);
+            Assertions.assertTrue(sent - received <= Math.max(msgsPerSecond, rooms), "推送 " + sent + " 接收 " + received);
+        }
+    }
+
+    /**
+     * 压测：房间数从10增加到10000，输出线程数、RSS和CPU占用
+     * <p>
+     * 耗时较长且需要调大文件描述符上限，默认跳过，通过-DloadTests=true运行；可以通过-DroomCounts=10,100,1000指定房间数
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "loadTests", matches = "true")
+    void loadTest() throws Exception {
+        int[] roomCounts = Arrays.stream(System.getProperty("roomCounts", "10,100,1000,10000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            log.info("基准 线程数 {} RSS {}KB", getThreadCount(), getRssKb());
+            for (int roomCount : roomCounts) {
+                BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                        .websocketUri(server.getWebsocketUri())
+                        .heartbeatInitialDelay(1)
+                        .heartbeatPeriod(5)
+                        .build());
+
+                CountDownLatch connected = new CountDownLatch(roomCount);
+                IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                    @Override
+                    public void onConnected(BilibiliRoomConnection connection) {
+                        connected.countDown();
+                    }
+                };
+                long start = System.nanoTime();
+                for (long roomId = 1; roomId <= roomCount; roomId++) {
+                    manager.connect(roomId, msgListener, connectionListener);
+                }
+                boolean allConnected = connected.await(120, TimeUnit.SECONDS);
+                long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                // 统计10s内的CPU占用，期间每个房间会发送两次心跳
+                long cpuStart = getProcessCpuTime();
+                long wallStart = System.nanoTime();
+                TimeUnit.SECONDS.sleep(10);
+                double cpuPercent = 100.0 * (getProcessCpuTime() - cpuStart) / (System.nanoTime() - wallStart);
+
+                log.info("房间数 {} 全部连接 {} 耗时 {}ms 线程数 {} RSS {}KB CPU {}%",
+                        roomCount, allConnected, connectMillis, getThreadCount(), getRssKb(), String.format("%.1f", cpuPercent));
+                int connectedCount = (int) manager.getRoomIds().stream().filter(roomId -> manager.getRoom(roomId).isConnected()).count();
+                manager.destroy();
+                manager.getWorkerGroup().terminationFuture().sync();
+                Assertions.assertTrue(allConnected, "房间数 " + roomCount + " 未全部连接");
+                Assertions.assertEquals(roomCount, connectedCount, "房间数 " + roomCount + " 测量期间有连接断开");
+            }
+        }
+    }
+
+    static class CountingListener implements IBilibiliTypedMsgListener {
+        final LongAdder danmus = new LongAdder();
+        final LongAdder gifts = new LongAdder();
+
+        @Override
+        public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+            danmus.increment();
+        }
+
+        @Override
+        public void onGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendGiftMsg msg) {
+            gifts.increment();
+        }
+
+        long total() {
+            return danmus.sum() + gifts.sum();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static int getThreadCount() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    private static long[] getEventLoopThreadIds(BilibiliLiveChatClientManager manager) throws Exception {
+        List<Long> threadIds = new ArrayList<>();
+        for (EventExecutor executor : manager.getWorkerGroup()) {
+            threadIds.add(executor.submit(() -> Thread.currentThread().getId()).get());
+        }
+        return threadIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long getThreadCpuTime(ThreadMXBean threadMXBean, long[] threadIds) {
+        return Arrays.stream(threadIds).map(threadMXBean::getThreadCpuTime).sum();
+    }
+
+    private static long getProcessCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static long getRssKb() throws Exception {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.client;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliRoomConnectionListener;
+import tech.ordinaryroad.bilibili.live.mock.MockBilibiliServer;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliReconnectSchedulerTest {
+
+    IBilibiliSendSmsReplyMsgListener msgListener = new IBilibiliSendSmsReplyMsgListener() {
+    };
+
+    @Test
+    void backoffWithJitter() {
+        BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                .workerThreads(1)
+                .reconnectDelay(1)
+                .reconnectMaxDelay(10)
+                .reconnectJitter(0.5)
+                .build());
+        BilibiliReconnectScheduler scheduler = manager.getReconnectScheduler();
+        long[] maxDelays = {1000, 2000, 4000, 8000, 10000, 10000};
+        for (int i = 0; i < maxDelays.length; i++) {
+            for (int j = 0; j < 100; j++) {
+                long delay = scheduler.nextDelayMillis(i + 1);
+                Assertions.assertTrue(delay <= maxDelays[i] && delay >= maxDelays[i] / 2, "attempt " + (i + 1) + " delay " + delay);
+            }
+        }
+        manager.destroy();
+    }
+
+    @Test
+    void rateLimitedAndImportantFirst() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .maxConcurrentConnects(1)
+                    .maxConnectsPerSecond(5)
+                    .build());
+            int rooms = 10;
+            List<Long> connectedOrder = new CopyOnWriteArrayList<>();
+            CountDownLatch connected = new CountDownLatch(rooms);
+            IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connectedOrder.add(connection.getRoomId());
+                    connected.countDown();
+                }
+            };
+
+            long start = System.nanoTime();
+            for (long roomId = 1; roomId <= rooms; roomId++) {
+                manager.addRoom(roomId, msgListener, connectionListener).setImportant(roomId == rooms);
+            }
+            for (long roomId = 1; roomId <= rooms; roomId++) {
+                manager.connect(roomId);
+            }
+            Assertions.assertTrue(connected.await(10, TimeUnit.SECONDS));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // 令牌桶初始5个令牌，之后每秒5个
+            Assertions.assertTrue(elapsedMillis >= 900, "elapsed " + elapsedMillis);
+            // 重要房间跳过排队，排在第一批令牌中
+            Assertions.assertTrue(connectedOrder.indexOf((long) rooms) < 5, "order " + connectedOrder);
+            Assertions.assertEquals(0, manager.getReconnectScheduler().getPendingCount());
+            Assertions.assertEquals(0, manager.getReconnectScheduler().getInFlightCount());
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void removeAfterDequeue() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().handshakeDelayMillis(300).start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .maxConcurrentConnects(1)
+                    .build());
+            List<Long> connectedRooms = new CopyOnWriteArrayList<>();
+            IBilibiliRoomConnectionListener connectionListener = new IBilibiliRoomConnectionListener() {
+                @Override
+                public void onConnected(BilibiliRoomConnection connection) {
+                    connectedRooms.add(connection.getRoomId());
+                }
+            };
+            manager.connect(1, msgListener, connectionListener);
+            manager.connect(2, msgListener, connectionListener);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (server.getAcceptedCount().get() < 1 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            // 房间1已出队、正在握手，房间2等待并发名额
+            Assertions.assertEquals(1, manager.getReconnectScheduler().getInFlightCount());
+            Assertions.assertEquals(1, manager.getReconnectScheduler().getReadyCount());
+            manager.removeRoom(1);
+
+            // 房间1的名额归还给房间2，房间1不会再连接
+            while (connectedRooms.isEmpty() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+            Assertions.assertEquals(List.of(2L), connectedRooms);
+            Assertions.assertEquals(1, server.getAuthCount().get());
+            Assertions.assertEquals(0, manager.getReconnectScheduler().getInFlightCount());
+            manager.destroy();
+        }
+    }
+}
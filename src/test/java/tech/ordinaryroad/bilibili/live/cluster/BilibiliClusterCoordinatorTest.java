@@ -0,0 +1,310 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.cluster;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.ordinaryroad.bilibili.live.client.BilibiliLiveChatClientManager;
+import tech.ordinaryroad.bilibili.live.client.BilibiliRoomConnection;
+import tech.ordinaryroad.bilibili.live.config.BilibiliClusterConfig;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.mock.MockBilibiliServer;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfo;
+import tech.ordinaryroad.bilibili.live.room.BilibiliRoomInfoCache;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongToDoubleFunction;
+import java.util.stream.LongStream;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliClusterCoordinatorTest {
+
+    private final List<BilibiliLiveChatClientManager> managers = new ArrayList<>();
+
+    @Test
+    void ringAssignment() {
+        List<Long> rooms = LongStream.rangeClosed(1, 3000).boxed().toList();
+        Map<Long, String> before = new BilibiliConsistentHashRing(List.of("a", "b", "c"), 128).assign(rooms, roomId -> 1, 1.25);
+        assertLoads(before, roomId -> 1, 1.25 * 1000);
+
+        // 新节点加入，大部分移动的房间移到新节点
+        Map<Long, String> after = new BilibiliConsistentHashRing(List.of("a", "b", "c", "d"), 128).assign(rooms, roomId -> 1, 1.25);
+        assertLoads(after, roomId -> 1, 1.25 * 750);
+        int moved = 0;
+        int movedToNew = 0;
+        for (Long roomId : rooms) {
+            if (!before.get(roomId).equals(after.get(roomId))) {
+                moved++;
+                if (after.get(roomId).equals("d")) {
+                    movedToNew++;
+                }
+            }
+        }
+        Assertions.assertTrue(moved < 3000 * 0.4, "moved " + moved);
+        Assertions.assertTrue(movedToNew > moved * 0.7, "movedToNew " + movedToNew + " moved " + moved);
+
+        // 高速率的房间按权重分散
+        LongToDoubleFunction weight = roomId -> roomId <= 30 ? 100 : 1;
+        Map<Long, String> weighted = new BilibiliConsistentHashRing(List.of("a", "b", "c"), 128).assign(rooms, weight, 1.25);
+        assertLoads(weighted, weight, 1.25 * (30 * 100 + 2970) / 3);
+        Assertions.assertEquals(weighted, new BilibiliConsistentHashRing(List.of("c", "b", "a"), 128).assign(rooms, weight, 1.25));
+    }
+
+    @Test
+    void weightHysteresis() {
+        Assertions.assertEquals(16, BilibiliClusterCoordinator.weight(0, 12, 0.25));
+        Assertions.assertEquals(1, BilibiliClusterCoordinator.weight(0, 0, 0.25));
+        // 在8和16的中点附近波动时不切换
+        Assertions.assertEquals(8, BilibiliClusterCoordinator.weight(8, 12, 0.25));
+        Assertions.assertEquals(16, BilibiliClusterCoordinator.weight(16, 11, 0.25));
+        Assertions.assertEquals(16, BilibiliClusterCoordinator.weight(8, 14, 0.25));
+        Assertions.assertEquals(8, BilibiliClusterCoordinator.weight(16, 9, 0.25));
+        Assertions.assertEquals(64, BilibiliClusterCoordinator.weight(8, 70, 0.25));
+    }
+
+    @Test
+    void memoryStore() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        assertStore(new BilibiliMemoryClusterStore(clock::get), clock);
+    }
+
+    @Test
+    void fileStore(@TempDir Path dir) {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        assertStore(new BilibiliFileClusterStore(dir.resolve("cluster"), clock::get), clock);
+        // 同一文件的另一个实例看到相同的状态
+        BilibiliFileClusterStore other = new BilibiliFileClusterStore(dir.resolve("cluster"), clock::get);
+        Assertions.assertEquals("b", other.getOwner(1));
+        Assertions.assertEquals(4.0, other.getWeights().get(1L));
+    }
+
+    @Test
+    void coordinators() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+            BilibiliMemoryClusterStore store = new BilibiliMemoryClusterStore(clock::get);
+            List<Long> rooms = LongStream.rangeClosed(1, 30).boxed().toList();
+            List<BilibiliClusterCoordinator> coordinators = new ArrayList<>();
+            for (String nodeId : List.of("a", "b")) {
+                coordinators.add(newCoordinator(server, store, nodeId, rooms));
+            }
+            rebalance(coordinators);
+            Map<Long, String> before = assertOwnedOnce(coordinators, rooms, store);
+
+            // 新节点加入，只有分配给新节点的房间移动
+            BilibiliClusterCoordinator c = newCoordinator(server, store, "c", rooms);
+            coordinators.add(c);
+            rebalance(coordinators);
+            Map<Long, String> after = assertOwnedOnce(coordinators, rooms, store);
+            Assertions.assertFalse(c.getOwnedRoomIds().isEmpty());
+            for (Long roomId : rooms) {
+                if (!before.get(roomId).equals(after.get(roomId))) {
+                    Assertions.assertEquals("c", after.get(roomId));
+                }
+            }
+
+            // 节点c异常退出，租约过期后房间由其他节点接管
+            coordinators.remove(c);
+            clock.addAndGet(c.getConfig().getLeaseMillis() + 1);
+            rebalance(coordinators);
+            Map<Long, String> failover = assertOwnedOnce(coordinators, rooms, store);
+            Assertions.assertFalse(failover.containsValue("c"));
+
+            for (BilibiliClusterCoordinator coordinator : coordinators) {
+                coordinator.close();
+            }
+            Assertions.assertTrue(store.getLiveNodes().isEmpty());
+            for (Long roomId : rooms) {
+                Assertions.assertNull(store.getOwner(roomId));
+            }
+            managers.forEach(BilibiliLiveChatClientManager::destroy);
+        }
+    }
+
+    @Test
+    void roomAlreadyConnected() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            BilibiliMemoryClusterStore store = new BilibiliMemoryClusterStore(System::currentTimeMillis);
+            List<Long> rooms = List.of(1L, 2L, 3L);
+            BilibiliClusterCoordinator coordinator = newCoordinator(server, store, "a", rooms);
+            BilibiliLiveChatClientManager manager = managers.get(managers.size() - 1);
+            manager.connect(2, new IBilibiliSendSmsReplyMsgListener() {
+            });
+
+            // 房间2已存在，不影响其他房间
+            coordinator.rebalance();
+            Assertions.assertEquals(Set.of(1L, 3L), coordinator.getOwnedRoomIds());
+            Assertions.assertNull(store.getOwner(2));
+
+            manager.removeRoom(2);
+            coordinator.rebalance();
+            Assertions.assertEquals(Set.of(1L, 2L, 3L), coordinator.getOwnedRoomIds());
+            coordinator.close();
+            managers.forEach(BilibiliLiveChatClientManager::destroy);
+        }
+    }
+
+    @Test
+    void migrateDuringConnect() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            BilibiliMemoryClusterStore store = new BilibiliMemoryClusterStore(System::currentTimeMillis);
+            List<Long> rooms = LongStream.rangeClosed(1, 20).boxed().toList();
+            // 房间信息获取较慢，移出时连接还没有建立
+            AtomicInteger fetchCount = new AtomicInteger();
+            BilibiliRoomInfoCache roomInfoCache = new BilibiliRoomInfoCache(roomId -> {
+                fetchCount.incrementAndGet();
+                return CompletableFuture.supplyAsync(
+                        () -> BilibiliRoomInfo.builder().roomId(roomId).token("abc").build(),
+                        CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS));
+            });
+            List<BilibiliClusterCoordinator> coordinators = new ArrayList<>();
+            coordinators.add(newCoordinator(server, store, "a", rooms, roomInfoCache));
+            coordinators.get(0).rebalance();
+            Assertions.assertEquals(new HashSet<>(rooms), coordinators.get(0).getOwnedRoomIds());
+            long fetchDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (fetchCount.get() < rooms.size() && System.nanoTime() < fetchDeadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assertions.assertEquals(rooms.size(), fetchCount.get());
+            Assertions.assertEquals(0, server.getAcceptedCount().get());
+
+            // 节点a还在连接时节点b加入，部分房间移到节点b
+            coordinators.add(newCoordinator(server, store, "b", rooms, roomInfoCache));
+            rebalance(coordinators);
+            Map<Long, String> owners = assertOwnedOnce(coordinators, rooms, store);
+            Assertions.assertTrue(owners.containsValue("b"));
+
+            // 连接完成后每个房间只有持有者的一条连接
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (server.getAuthCount().get() < rooms.size() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            TimeUnit.MILLISECONDS.sleep(700);
+            Assertions.assertEquals(rooms.size(), server.getAuthCount().get());
+            Assertions.assertEquals(rooms.size(), server.getOpenConnectionCount());
+            for (Long roomId : rooms) {
+                for (int i = 0; i < coordinators.size(); i++) {
+                    BilibiliRoomConnection connection = managers.get(i).getRoom(roomId);
+                    boolean owner = coordinators.get(i).getConfig().getNodeId().equals(owners.get(roomId));
+                    Assertions.assertEquals(owner, connection != null && connection.isConnected(), "房间" + roomId);
+                }
+            }
+            for (BilibiliClusterCoordinator coordinator : coordinators) {
+                coordinator.close();
+            }
+            managers.forEach(BilibiliLiveChatClientManager::destroy);
+        }
+    }
+
+    private BilibiliClusterCoordinator newCoordinator(MockBilibiliServer server, IBilibiliClusterStore store, String nodeId, List<Long> rooms) {
+        return newCoordinator(server, store, nodeId, rooms, null);
+    }
+
+    private BilibiliClusterCoordinator newCoordinator(MockBilibiliServer server, IBilibiliClusterStore store, String nodeId, List<Long> rooms,
+                                                      BilibiliRoomInfoCache roomInfoCache) {
+        BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                .workerThreads(1)
+                .websocketUri(server.getWebsocketUri())
+                .roomInfoCache(roomInfoCache)
+                .build());
+        managers.add(manager);
+        BilibiliClusterCoordinator coordinator = new BilibiliClusterCoordinator(manager, store,
+                BilibiliClusterConfig.builder().nodeId(nodeId).build(), roomId -> new IBilibiliSendSmsReplyMsgListener() {
+        });
+        coordinator.addRooms(rooms);
+        return coordinator;
+    }
+
+    /**
+     * 所有节点执行两轮：第一轮原持有者释放，第二轮新持有者取得租约
+     */
+    private static void rebalance(List<BilibiliClusterCoordinator> coordinators) {
+        for (int i = 0; i < 2; i++) {
+            coordinators.forEach(BilibiliClusterCoordinator::rebalance);
+        }
+    }
+
+    private static Map<Long, String> assertOwnedOnce(List<BilibiliClusterCoordinator> coordinators, List<Long> rooms, IBilibiliClusterStore store) {
+        Map<Long, String> owners = new HashMap<>();
+        for (BilibiliClusterCoordinator coordinator : coordinators) {
+            String nodeId = coordinator.getConfig().getNodeId();
+            for (Long roomId : coordinator.getOwnedRoomIds()) {
+                Assertions.assertNull(owners.put(roomId, nodeId), "房间" + roomId + "被多个节点持有");
+                Assertions.assertEquals(nodeId, store.getOwner(roomId));
+            }
+        }
+        Assertions.assertEquals(new HashSet<>(rooms), owners.keySet());
+        return owners;
+    }
+
+    private static void assertLoads(Map<Long, String> assignment, LongToDoubleFunction weight, double capacity) {
+        Map<String, Double> loads = new HashMap<>();
+        assignment.forEach((roomId, node) -> loads.merge(node, weight.applyAsDouble(roomId), Double::sum));
+        for (double load : loads.values()) {
+            Assertions.assertTrue(load <= capacity, loads.toString());
+        }
+    }
+
+    private static void assertStore(IBilibiliClusterStore store, AtomicLong clock) {
+        store.heartbeat("b", 1000);
+        store.heartbeat("a", 1000);
+        Assertions.assertEquals(List.of("a", "b"), store.getLiveNodes());
+        Assertions.assertTrue(store.tryAcquire(1, "a", 1000));
+        Assertions.assertTrue(store.tryAcquire(1, "a", 1000));
+        Assertions.assertFalse(store.tryAcquire(1, "b", 1000));
+        Assertions.assertEquals("a", store.getOwner(1));
+        // 不是持有者时忽略
+        store.release(1, "b");
+        Assertions.assertEquals("a", store.getOwner(1));
+        store.release(1, "a");
+        Assertions.assertNull(store.getOwner(1));
+
+        Assertions.assertTrue(store.tryAcquire(1, "a", 1000));
+        store.leave("b");
+        Assertions.assertEquals(List.of("a"), store.getLiveNodes());
+        clock.addAndGet(1000);
+        Assertions.assertEquals(Set.of(), Set.copyOf(store.getLiveNodes()));
+        Assertions.assertNull(store.getOwner(1));
+        Assertions.assertTrue(store.tryAcquire(1, "b", 1000));
+
+        store.reportWeight(1, 4);
+        Assertions.assertEquals(Map.of(1L, 4.0), store.getWeights());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.dispatch;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.constant.DispatchOverflowPolicyEnum;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliMsgDispatcherTest {
+
+    /**
+     * 手动执行的Executor，用于模拟消费跟不上的情况
+     */
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+    final List<String> received = new ArrayList<>();
+    final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @Test
+    void blockRead() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.BLOCK_READ);
+        for (int i = 0; i < 5; i++) {
+            dispatch(dispatcher, "DANMU_MSG", "d" + i);
+        }
+        Assertions.assertFalse(channel.config().isAutoRead());
+        Assertions.assertTrue(dispatcher.isReadPaused());
+        Assertions.assertEquals(5, dispatcher.getQueueDepth());
+
+        runTasks();
+        Assertions.assertTrue(channel.config().isAutoRead());
+        Assertions.assertEquals(List.of("d0", "d1", "d2", "d3", "d4"), received);
+        Assertions.assertEquals(0, dispatcher.getDroppedCount());
+        Assertions.assertEquals(5, dispatcher.getDispatchedCount());
+    }
+
+    @Test
+    void listenerError() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.BLOCK_READ);
+        for (int i = 0; i < 4; i++) {
+            dispatch(dispatcher, "DANMU_MSG", "d" + i);
+        }
+        dispatcher.dispatch(channel, "DANMU_MSG", () -> {
+            throw new StackOverflowError();
+        });
+        dispatch(dispatcher, "DANMU_MSG", "d5");
+        Assertions.assertFalse(channel.config().isAutoRead());
+
+        // Error由Executor的线程处理，之后的消息继续回调
+        Assertions.assertThrows(StackOverflowError.class, this::runTasks);
+        runTasks();
+        Assertions.assertEquals(List.of("d0", "d1", "d2", "d3", "d5"), received);
+        Assertions.assertTrue(channel.config().isAutoRead());
+        Assertions.assertFalse(dispatcher.isReadPaused());
+
+        dispatch(dispatcher, "DANMU_MSG", "d6");
+        runTasks();
+        Assertions.assertEquals("d6", received.get(received.size() - 1));
+    }
+
+    @Test
+    void blockReadReconnect() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.BLOCK_READ);
+        for (int i = 0; i < 5; i++) {
+            dispatch(dispatcher, "DANMU_MSG", "d" + i);
+        }
+        Assertions.assertTrue(dispatcher.isReadPaused());
+
+        // 暂停的连接断开，重连后队列仍然已满，新连接也要暂停
+        dispatcher.onChannelInactive(channel);
+        Assertions.assertFalse(dispatcher.isReadPaused());
+        EmbeddedChannel newChannel = new EmbeddedChannel();
+        dispatcher.onChannelActive(newChannel);
+        Assertions.assertFalse(newChannel.config().isAutoRead());
+        Assertions.assertTrue(dispatcher.isReadPaused());
+
+        runTasks();
+        Assertions.assertTrue(newChannel.config().isAutoRead());
+        Assertions.assertFalse(dispatcher.isReadPaused());
+        Assertions.assertEquals(5, received.size());
+    }
+
+    @Test
+    void blockReadHotStandby() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.BLOCK_READ);
+        EmbeddedChannel standby = new EmbeddedChannel();
+        for (int i = 0; i < 4; i++) {
+            dispatch(dispatcher, "DANMU_MSG", "d" + i);
+        }
+        dispatcher.dispatch(standby, "DANMU_MSG", () -> received.add("s0"));
+        // 共享队列的两条连接都要暂停
+        Assertions.assertFalse(channel.config().isAutoRead());
+        Assertions.assertFalse(standby.config().isAutoRead());
+
+        runTasks();
+        Assertions.assertTrue(channel.config().isAutoRead());
+        Assertions.assertTrue(standby.config().isAutoRead());
+        Assertions.assertFalse(dispatcher.isReadPaused());
+    }
+
+    @Test
+    void dropOldest() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.DROP_OLDEST);
+        for (int i = 0; i < 6; i++) {
+            dispatch(dispatcher, "DANMU_MSG", "d" + i);
+        }
+        runTasks();
+        Assertions.assertTrue(channel.config().isAutoRead());
+        Assertions.assertEquals(List.of("d2", "d3", "d4", "d5"), received);
+        Assertions.assertEquals(2, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    void dropLowPriority() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.DROP_LOW_PRIORITY);
+        dispatch(dispatcher, "DANMU_MSG", "d0");
+        dispatch(dispatcher, "WATCHED_CHANGE", "w0");
+        dispatch(dispatcher, "DANMU_MSG", "d1");
+        dispatch(dispatcher, "ONLINE_RANK_COUNT", "o0");
+        // 队列已满，低优先级的新消息直接丢弃
+        dispatch(dispatcher, "WATCHED_CHANGE", "w1");
+        // 高优先级的新消息挤掉最早的低优先级消息
+        dispatch(dispatcher, "SEND_GIFT", "g0");
+        dispatch(dispatcher, "SEND_GIFT", "g1");
+        runTasks();
+        Assertions.assertEquals(List.of("d0", "d1", "g0", "g1"), received);
+        Assertions.assertEquals(3, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    void sample() {
+        BilibiliMsgDispatcher dispatcher = createDispatcher(DispatchOverflowPolicyEnum.SAMPLE);
+        for (int i = 0; i < 8; i++) {
+            dispatch(dispatcher, "DANMU_MSG", "d" + i);
+        }
+        runTasks();
+        // 溢出的4条中每2条保留1条
+        Assertions.assertEquals(List.of("d2", "d3", "d5", "d7"), received);
+        Assertions.assertEquals(4, dispatcher.getDroppedCount());
+    }
+
+    private BilibiliMsgDispatcher createDispatcher(DispatchOverflowPolicyEnum overflowPolicy) {
+        return new BilibiliMsgDispatcher(1, BilibiliLiveChatClientManagerConfig.builder()
+                .dispatchExecutor(tasks::add)
+                .dispatchQueueCapacity(4)
+                .dispatchOverflowPolicy(overflowPolicy)
+                .dispatchSampleInterval(2)
+                .build());
+    }
+
+    private void dispatch(BilibiliMsgDispatcher dispatcher, String cmd, String value) {
+        dispatcher.dispatch(channel, cmd, () -> received.add(value));
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.export;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliColumnarExportSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndRead() throws IOException {
+        List<DanmuMsg> danmus = new ArrayList<>();
+        List<SendGiftMsg> gifts = new ArrayList<>();
+        BilibiliColumnarExportSink sink = new BilibiliColumnarExportSink(directory, 4096, 60_000, 100, 1000, 16384);
+        BilibiliRoomBinaryFrameHandler[] handlers = {handler(1), handler(2)};
+        for (int i = 0; i < 1000; i++) {
+            DanmuMsg danmuMsg = new DanmuMsg();
+            danmuMsg.setUid(i % 10);
+            danmuMsg.setUname("用户" + i % 10);
+            danmuMsg.setText("弹幕" + i);
+            danmuMsg.setTimestamp(1_700_000_000_000L + i * 37L);
+            danmuMsg.setMedalLevel(i % 3 == 0 ? 0 : 21);
+            danmuMsg.setMedalName(i % 3 == 0 ? null : "粉丝牌");
+            danmus.add(danmuMsg);
+            sink.onDanmu(handlers[i % 2], danmuMsg);
+            if (i % 5 == 0) {
+                SendGiftMsg sendGiftMsg = new SendGiftMsg();
+                sendGiftMsg.setUid(i);
+                sendGiftMsg.setUname("用户" + i % 10);
+                sendGiftMsg.setGiftId(31036);
+                sendGiftMsg.setGiftName("小花花");
+                sendGiftMsg.setNum(i % 7 + 1);
+                sendGiftMsg.setPrice(100);
+                sendGiftMsg.setCoinType("gold");
+                sendGiftMsg.setAction("投喂");
+                sendGiftMsg.setTimestamp(1_700_000_000L + i);
+                gifts.add(sendGiftMsg);
+                sink.onGift(handlers[i % 2], sendGiftMsg);
+            }
+        }
+        sink.close();
+        Assertions.assertEquals(1200, sink.getWrittenCount());
+        Assertions.assertEquals(0, sink.getDroppedCount());
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.sorted((a, b) -> Long.compare(fileSeq(a), fileSeq(b))).toList();
+        }
+        // 按大小滚动，写入中的.part文件已全部重命名
+        Assertions.assertTrue(files.size() > 1);
+        files.forEach(file -> Assertions.assertTrue(file.toString().endsWith(BilibiliColumnarFormat.FILE_SUFFIX)));
+
+        List<DanmuMsg> readDanmus = new ArrayList<>();
+        List<SendGiftMsg> readGifts = new ArrayList<>();
+        for (Path file : files) {
+            BilibiliColumnarFormat.read(file, new BilibiliColumnarFormat.RowVisitor() {
+                @Override
+                public void onDanmu(long roomId, DanmuMsg msg) {
+                    Assertions.assertEquals(readDanmus.size() % 2 + 1, roomId);
+                    readDanmus.add(msg);
+                }
+
+                @Override
+                public void onGift(long roomId, SendGiftMsg msg) {
+                    readGifts.add(msg);
+                }
+            });
+        }
+        Assertions.assertEquals(danmus, readDanmus);
+        Assertions.assertEquals(gifts, readGifts);
+    }
+
+    @Test
+    void closeUnderLoad() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            BilibiliColumnarExportSink sink = new BilibiliColumnarExportSink(directory.resolve(String.valueOf(round)), 1 << 20, 60_000, 256, 10, 1024);
+            BilibiliRoomBinaryFrameHandler handler = handler(1);
+            int perProducer = 20_000;
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 2; p++) {
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        DanmuMsg danmuMsg = new DanmuMsg();
+                        danmuMsg.setText("弹幕" + i);
+                        sink.onDanmu(handler, danmuMsg);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            sink.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            // close之后offer的行计入丢弃，已进入缓冲区的行都写入文件
+            Assertions.assertEquals(2L * perProducer, sink.getWrittenCount() + sink.getDroppedCount());
+        }
+    }
+
+    private static long fileSeq(Path path) {
+        String[] split = path.getFileName().toString().split("[-.]");
+        return Long.parseLong(split[2]);
+    }
+
+    private static BilibiliRoomBinaryFrameHandler handler(long roomId) {
+        return new BilibiliRoomBinaryFrameHandler(new IBilibiliSendSmsReplyMsgListener() {
+        }, roomId);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.hub;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliBatchMsgListener;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+import tech.ordinaryroad.live.chat.client.commons.base.msg.BaseMsg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliLiveChatHubTest {
+
+    @Test
+    void perRoomOrdering() throws InterruptedException {
+        int rooms = 16;
+        int perRoom = 10_000;
+        Map<Long, List<Integer>> received = new ConcurrentHashMap<>();
+        Map<Long, Set<String>> threads = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(rooms * perRoom);
+        IBilibiliSendSmsReplyMsgListener downstream = new IBilibiliSendSmsReplyMsgListener() {
+            @Override
+            public void onUnknownCmd(String cmdString, BaseMsg msg) {
+                String[] split = cmdString.split(":");
+                long roomId = Long.parseLong(split[0]);
+                received.computeIfAbsent(roomId, k -> new ArrayList<>()).add(Integer.parseInt(split[1]));
+                threads.computeIfAbsent(roomId, k -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        };
+
+        BilibiliLiveChatHub hub = new BilibiliLiveChatHub(4, 256, downstream, false, new DefaultThreadFactory("hub-test"));
+        // 两个生产者线程交替写入所有房间，模拟多个EventLoop
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            int parity = p;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perRoom; i++) {
+                    for (long roomId = parity; roomId < rooms; roomId += 2) {
+                        hub.listener(roomId).onUnknownCmd(roomId + ":" + i, null);
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        hub.close();
+
+        long published = 0;
+        for (int shard = 0; shard < hub.getShardCount(); shard++) {
+            published += hub.getPublishedCount(shard);
+            Assertions.assertEquals(0, hub.getDroppedCount(shard));
+            Assertions.assertEquals(0, hub.getBacklog(shard));
+        }
+        Assertions.assertEquals(rooms * perRoom, published);
+        for (long roomId = 0; roomId < rooms; roomId++) {
+            List<Integer> seq = received.get(roomId);
+            Assertions.assertEquals(perRoom, seq.size());
+            for (int i = 0; i < perRoom; i++) {
+                Assertions.assertEquals(i, seq.get(i));
+            }
+            // 同一房间总是由同一个分片线程消费
+            Assertions.assertEquals(1, threads.get(roomId).size());
+        }
+    }
+
+    @Test
+    void dropWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IBilibiliSendSmsReplyMsgListener downstream = new IBilibiliSendSmsReplyMsgListener() {
+            @Override
+            public void onUnknownCmd(String cmdString, BaseMsg msg) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        BilibiliLiveChatHub hub = new BilibiliLiveChatHub(1, 4, downstream, true, new DefaultThreadFactory("hub-test"));
+        IBilibiliSendSmsReplyMsgListener listener = hub.listener(1);
+        listener.onUnknownCmd("0", null);
+        Assertions.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            listener.onUnknownCmd(String.valueOf(i), null);
+        }
+        Assertions.assertEquals(5, hub.getPublishedCount(0));
+        Assertions.assertEquals(6, hub.getDroppedCount(0));
+        release.countDown();
+        hub.close();
+        Assertions.assertEquals(0, hub.getBacklog(0));
+    }
+
+    @Test
+    void blockReadWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<SendSmsReplyMsg> received = Collections.synchronizedList(new ArrayList<>());
+        IBilibiliSendSmsReplyMsgListener downstream = new IBilibiliSendSmsReplyMsgListener() {
+            @Override
+            public void onDanmuMsg(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+                received.add(msg);
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        BilibiliLiveChatHub hub = new BilibiliLiveChatHub(1, 4, downstream, false, new DefaultThreadFactory("hub-test"));
+        BilibiliRoomBinaryFrameHandler handler = new BilibiliRoomBinaryFrameHandler(null, 1);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        IBilibiliSendSmsReplyMsgListener listener = hub.listener(1);
+        List<SendSmsReplyMsg> sent = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            SendSmsReplyMsg msg = new SendSmsReplyMsg();
+            sent.add(msg);
+            listener.onDanmuMsg(handler, msg);
+            if (i == 0) {
+                Assertions.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            }
+        }
+        // 缓冲区满后生产者不阻塞，消息进入溢出队列并暂停读取
+        Assertions.assertFalse(channel.config().isAutoRead());
+        Assertions.assertTrue(hub.isReadPaused(0));
+        Assertions.assertEquals(20, hub.getPublishedCount(0));
+        Assertions.assertEquals(0, hub.getDroppedCount(0));
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hub.isReadPaused(0) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assertions.assertTrue(channel.config().isAutoRead());
+        hub.close();
+        Assertions.assertEquals(sent, received);
+        Assertions.assertEquals(0, hub.getBacklog(0));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void consumerSurvivesError() throws InterruptedException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        IBilibiliSendSmsReplyMsgListener downstream = new IBilibiliSendSmsReplyMsgListener() {
+            @Override
+            public void onUnknownCmd(String cmdString, BaseMsg msg) {
+                if ("error".equals(cmdString)) {
+                    throw new AssertionError(cmdString);
+                }
+                received.add(cmdString);
+            }
+        };
+        BilibiliLiveChatHub hub = new BilibiliLiveChatHub(1, 16, downstream, false, new DefaultThreadFactory("hub-test"));
+        IBilibiliSendSmsReplyMsgListener listener = hub.listener(1);
+        listener.onUnknownCmd("error", null);
+        listener.onUnknownCmd("ok", null);
+        hub.close();
+        Assertions.assertEquals(List.of("ok"), received);
+    }
+
+    @Test
+    void batchListener() throws InterruptedException {
+        List<List<SendSmsReplyMsg>> batches = new ArrayList<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        IBilibiliBatchMsgListener downstream = (binaryFrameHandler, msgs) -> {
+            batches.add(msgs);
+            threads.add(Thread.currentThread().getName());
+        };
+        BilibiliLiveChatHub hub = new BilibiliLiveChatHub(1, 16, downstream, false, new DefaultThreadFactory("hub-test"));
+        IBilibiliSendSmsReplyMsgListener listener = hub.listener(1);
+        Assertions.assertInstanceOf(IBilibiliBatchMsgListener.class, listener);
+        List<SendSmsReplyMsg> batch = List.of(new SendSmsReplyMsg(), new SendSmsReplyMsg());
+        ((IBilibiliBatchMsgListener) listener).onMsgBatch(null, batch);
+        hub.close();
+        Assertions.assertEquals(List.of(batch), batches);
+        Assertions.assertEquals(1, hub.getPublishedCount(0));
+        Assertions.assertTrue(threads.stream().allMatch(name -> name.startsWith("hub-test")), threads.toString());
+    }
+
+    @Test
+    void publishDuringClose() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            AtomicLong consumed = new AtomicLong();
+            IBilibiliSendSmsReplyMsgListener downstream = new IBilibiliSendSmsReplyMsgListener() {
+                @Override
+                public void onUnknownCmd(String cmdString, BaseMsg msg) {
+                    consumed.incrementAndGet();
+                }
+            };
+            BilibiliLiveChatHub hub = new BilibiliLiveChatHub(2, 64, downstream, false, new DefaultThreadFactory("hub-test"));
+            int perProducer = 20_000;
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 2; p++) {
+                Thread producer = new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        hub.listener(i).onUnknownCmd("", null);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            hub.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            // close之后发布的消息计入丢弃，已发布的消息都被消费
+            long published = 0;
+            long dropped = 0;
+            for (int shard = 0; shard < hub.getShardCount(); shard++) {
+                published += hub.getPublishedCount(shard);
+                dropped += hub.getDroppedCount(shard);
+                Assertions.assertEquals(0, hub.getBacklog(shard));
+            }
+            Assertions.assertEquals(published, consumed.get());
+            Assertions.assertEquals(2L * perProducer, published + dropped);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.journal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliFrameJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendAndReopen() throws IOException {
+        try (BilibiliFrameJournal journal = new BilibiliFrameJournal(directory, 1024, 10)) {
+            for (int i = 0; i < 100; i++) {
+                ByteBuf frame = createFrame(ProtoverEnum.NORMAL_ZLIB, "WATCHED_CHANGE");
+                Assertions.assertTrue(journal.append(i % 3, i, frame));
+                Assertions.assertEquals(0, frame.readerIndex());
+                frame.release();
+            }
+            Assertions.assertEquals(100, journal.getAppendedCount());
+        }
+        Assertions.assertTrue(segmentCount() > 1);
+
+        // 重新打开后继续追加
+        try (BilibiliFrameJournal journal = new BilibiliFrameJournal(directory, 1024, 10)) {
+            ByteBuf frame = createFrame(ProtoverEnum.NORMAL_ZLIB, "WATCHED_CHANGE");
+            journal.append(1, 100, frame);
+            frame.release();
+
+            List<Long> timestamps = new ArrayList<>();
+            Assertions.assertEquals(101, journal.read(Long.MIN_VALUE, Long.MAX_VALUE, (roomId, timestamp, f) -> {
+                Assertions.assertEquals(timestamp % 3, roomId);
+                timestamps.add(timestamp);
+            }));
+            for (int i = 0; i <= 100; i++) {
+                Assertions.assertEquals(i, timestamps.get(i));
+            }
+            Assertions.assertEquals(10, journal.read(50, 60, (roomId, timestamp, f) -> {
+            }));
+        }
+    }
+
+    @Test
+    void preallocateSegment() throws Exception {
+        try (BilibiliFrameJournal journal = new BilibiliFrameJournal(directory, 1024, 10)) {
+            // 刷盘线程提前创建下一个分段
+            awaitSegmentCount(2);
+            for (int i = 0; i < 100; i++) {
+                ByteBuf frame = createFrame(ProtoverEnum.NORMAL_ZLIB, "WATCHED_CHANGE");
+                Assertions.assertTrue(journal.append(1, i, frame));
+                frame.release();
+            }
+            // 每次滚动后再提前创建一个，除最后一个外都已写入记录
+            awaitSegmentCount(usedSegmentCount() + 1);
+            Assertions.assertEquals(100, journal.read(Long.MIN_VALUE, Long.MAX_VALUE, (roomId, timestamp, f) -> {
+            }));
+        }
+        long segments = segmentCount();
+
+        // 重新打开后在提前创建的分段中继续追加
+        try (BilibiliFrameJournal journal = new BilibiliFrameJournal(directory, 1024, 0)) {
+            ByteBuf frame = createFrame(ProtoverEnum.NORMAL_ZLIB, "WATCHED_CHANGE");
+            journal.append(1, 100, frame);
+            frame.release();
+            Assertions.assertEquals(segments, segmentCount());
+            long[] expected = {0};
+            Assertions.assertEquals(101, journal.read(Long.MIN_VALUE, Long.MAX_VALUE, (roomId, timestamp, f) ->
+                    Assertions.assertEquals(expected[0]++, timestamp)));
+        }
+    }
+
+    @Test
+    void concurrentAppend() throws Exception {
+        int threads = 4;
+        int framesPerThread = 500;
+        try (BilibiliFrameJournal journal = new BilibiliFrameJournal(directory, 16 * 1024, 1)) {
+            ByteBuf frame = createFrame(ProtoverEnum.NORMAL_ZLIB, "WATCHED_CHANGE");
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long roomId = t;
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < framesPerThread; i++) {
+                        Assertions.assertTrue(journal.append(roomId, i, frame));
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            byte[] expected = ByteBufUtil.getBytes(frame);
+            frame.release();
+
+            // 所有记录都完整且校验通过，每个房间的记录按追加顺序排列
+            long[] next = new long[threads];
+            Assertions.assertEquals((long) threads * framesPerThread, journal.read(Long.MIN_VALUE, Long.MAX_VALUE, (roomId, timestamp, f) -> {
+                Assertions.assertEquals(next[(int) roomId]++, timestamp);
+                Assertions.assertArrayEquals(expected, ByteBufUtil.getBytes(f));
+            }));
+        }
+    }
+
+    @Test
+    void replay() throws IOException {
+        try (BilibiliFrameJournal journal = new BilibiliFrameJournal(directory, 4096, 0)) {
+            BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder().journal(journal).build();
+            EmbeddedChannel channel = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(new IBilibiliSendSmsReplyMsgListener() {
+            }, 7777, config));
+            channel.writeInbound(new BinaryWebSocketFrame(createFrame(ProtoverEnum.NORMAL_ZLIB, "DANMU_MSG", "SEND_GIFT")));
+            channel.writeInbound(new BinaryWebSocketFrame(createFrame(ProtoverEnum.NORMAL_NO_COMPRESSION, "WATCHED_CHANGE")));
+            channel.finishAndReleaseAll();
+            Assertions.assertEquals(2, journal.getAppendedCount());
+
+            List<String> cmds = new ArrayList<>();
+            long replayed = journal.replay(Long.MIN_VALUE, Long.MAX_VALUE, roomId -> new IBilibiliSendSmsReplyMsgListener() {
+                @Override
+                public void onDanmuMsg(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+                    Assertions.assertEquals(7777, binaryFrameHandler.getRoomId());
+                    cmds.add(msg.getCmd());
+                }
+
+                @Override
+                public void onSendGift(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+                    cmds.add(msg.getCmd());
+                }
+
+                @Override
+                public void onWatchedChange(BilibiliBinaryFrameHandler binaryFrameHandler, SendSmsReplyMsg msg) {
+                    cmds.add(msg.getCmd());
+                }
+            }, config);
+            Assertions.assertEquals(2, replayed);
+            Assertions.assertEquals(List.of("DANMU_MSG", "SEND_GIFT", "WATCHED_CHANGE"), cmds);
+            // 重放不会再次写入日志
+            Assertions.assertEquals(2, journal.getAppendedCount());
+            Assertions.assertEquals(0, journal.replay(Long.MIN_VALUE, Long.MAX_VALUE, roomId -> null));
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private long usedSegmentCount() throws IOException {
+        long used = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    if (new DataInputStream(in).readInt() != 0) {
+                        used++;
+                    }
+                }
+            }
+        }
+        return used;
+    }
+
+    private void awaitSegmentCount(long expected) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (segmentCount() != expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assertions.assertEquals(expected, segmentCount());
+    }
+
+    private static ByteBuf createFrame(ProtoverEnum protover, String... cmds) {
+        ByteBuf content = Unpooled.buffer();
+        for (String cmd : cmds) {
+            ByteBuf packet = BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, ProtoverEnum.NORMAL_NO_COMPRESSION,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, ("{\"cmd\":\"" + cmd + "\",\"data\":{}}").getBytes(StandardCharsets.UTF_8));
+            content.writeBytes(packet);
+            packet.release();
+        }
+        if (protover == ProtoverEnum.NORMAL_NO_COMPRESSION) {
+            return content;
+        }
+        Deflater deflater = new Deflater();
+        deflater.setInput(ByteBufUtil.getBytes(content));
+        deflater.finish();
+        byte[] buffer = new byte[4096];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        content.release();
+        return BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, protover, BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, Arrays.copyOf(buffer, length));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.keyword;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliKeywordMatcherTest {
+
+    @Test
+    void keywords() {
+        BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(List.of("he", "she", "his", "hers", "加微信", "微信", "VX", ""));
+        Assertions.assertEquals(7, matcher.getKeywordCount());
+        Assertions.assertEquals(List.of("she", "he", "hers"), matcher.match("ushers"));
+        Assertions.assertEquals(List.of("加微信", "微信"), matcher.match("主播加微信吗，微信多少"));
+        Assertions.assertEquals(List.of("vx"), new BilibiliKeywordMatcher(List.of("vx")).match("加Vx"));
+        Assertions.assertEquals(List.of("VX"), matcher.match("加vx"));
+        Assertions.assertTrue(matcher.match("你好").isEmpty());
+        Assertions.assertTrue(matcher.match("").isEmpty());
+        Assertions.assertTrue(matcher.match(null).isEmpty());
+        Assertions.assertTrue(new BilibiliKeywordMatcher(List.of("VX"), List.of(), false).match("vx").isEmpty());
+    }
+
+    @Test
+    void keywordsSameAsContains() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            List<String> keywords = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(40); i++) {
+                keywords.add(randomText(random, 1 + random.nextInt(4), "ab微信"));
+            }
+            BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(keywords, List.of(), false);
+            for (int i = 0; i < 50; i++) {
+                String text = randomText(random, random.nextInt(20), "ab微信");
+                Set<String> expected = new java.util.HashSet<>();
+                for (String keyword : keywords) {
+                    if (text.contains(keyword)) {
+                        expected.add(keyword);
+                    }
+                }
+                List<String> hits = matcher.match(text);
+                Assertions.assertEquals(expected, Set.copyOf(hits), text);
+                Assertions.assertEquals(expected.size(), hits.size(), text);
+            }
+        }
+    }
+
+    @Test
+    void regexesSameAsPattern() {
+        List<String> regexes = List.of(
+                "a+b", "^ab", "b$", "^$", "(?:ab|ba){2}", "a.b", "[^ab]", "a[b-d]?a", "\\d{2,3}", "x*", "微[信心]",
+                "(a|b)*c", "A\\.b", "[A-C]b", "\\w\\W", "\\S\\s", "a{2,}?", "(?:微|v)\\s*信", "^(?:a|b)", "\\u5fae\\x61",
+                // 循环体较大，构建时NFA数组扩容
+                "(?:" + String.join("|", "abcdefghijklmnopqrstuvwxyz0123456789".split("")) + ")*心", "^a|b$");
+        BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(List.of(), regexes);
+        // 顶层|与^、$同时使用时交给java.util.regex
+        Assertions.assertEquals(regexes.size() - 1, matcher.getDfaRegexCount());
+        Assertions.assertEquals(1, matcher.getPatternRegexCount());
+        List<Pattern> patterns = regexes.stream().map(regex -> Pattern.compile(regex, Pattern.CASE_INSENSITIVE)).toList();
+
+        Random random = new Random(2);
+        for (int i = 0; i < 5000; i++) {
+            String text = randomText(random, random.nextInt(12), "abcAB.1 微信心\n");
+            Set<String> expected = new java.util.HashSet<>();
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(text).find()) {
+                    expected.add(pattern.pattern());
+                }
+            }
+            Assertions.assertEquals(expected, Set.copyOf(matcher.match(text)), text);
+        }
+    }
+
+    @Test
+    void unsupportedRegexes() {
+        List<String> regexes = List.of("(a)\\1", "\\bfoo\\b", "a(?=b)", "a*+a", "\\p{L}b", "ab");
+        BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(List.of("foo"), regexes);
+        Assertions.assertEquals(1, matcher.getDfaRegexCount());
+        Assertions.assertEquals(5, matcher.getPatternRegexCount());
+        Assertions.assertEquals(List.of("foo", "ab", "(a)\\1", "\\bfoo\\b", "a(?=b)", "\\p{L}b"), matcher.match("aab foo"));
+        Assertions.assertThrows(java.util.regex.PatternSyntaxException.class, () -> matcher.update(List.of(), List.of("(a")));
+        // 编译失败时继续使用原来的编译结果
+        Assertions.assertEquals(List.of("foo", "\\bfoo\\b"), matcher.match("foo"));
+    }
+
+    @Test
+    void largeDfaSplit() {
+        // 每个正则的DFA都不大，合并后超过限制，拆分为多个DFA；单个正则超过限制时交给java.util.regex
+        List<BilibiliRegexDfa.Regex> regexes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            regexes.add(BilibiliRegexDfa.parse("k" + i + ".{0,3}x" + i, true));
+        }
+        regexes.add(BilibiliRegexDfa.parse("x.{8}y", true));
+        List<BilibiliRegexDfa.Regex> tooLarge = new ArrayList<>();
+        List<BilibiliRegexDfa> dfas = BilibiliRegexDfa.compile(regexes, true, 64, 1 << 20, tooLarge);
+        Assertions.assertTrue(dfas.size() > 1);
+        Assertions.assertEquals(List.of("x.{8}y"), tooLarge.stream().map(BilibiliRegexDfa.Regex::source).toList());
+        for (BilibiliRegexDfa dfa : dfas) {
+            Assertions.assertTrue(dfa.getStateCount() <= 64);
+        }
+
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            String text = randomText(random, random.nextInt(12), "k1x23 ");
+            Set<String> expected = new java.util.HashSet<>();
+            for (BilibiliRegexDfa.Regex regex : regexes.subList(0, 20)) {
+                if (Pattern.compile(regex.source(), Pattern.CASE_INSENSITIVE).matcher(text).find()) {
+                    expected.add(regex.source());
+                }
+            }
+            List<String> hits = null;
+            for (BilibiliRegexDfa dfa : dfas) {
+                hits = dfa.match(text, hits);
+            }
+            Assertions.assertEquals(expected, hits == null ? Set.of() : Set.copyOf(hits), text);
+        }
+    }
+
+    @Test
+    void concurrentUpdate() throws Exception {
+        BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(List.of("old"), List.of("o+ld"));
+        List<String> before = List.of("old", "o+ld");
+        List<String> after = List.of("new", "n+ew");
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int t = 0; t < 3; t++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        List<String> hits = matcher.match("old new");
+                        // 每次匹配只使用一份编译结果，不会混合新旧关键词
+                        if (!hits.equals(before) && !hits.equals(after)) {
+                            throw new AssertionError(hits);
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int i = 0; i < 20; i++) {
+            matcher.update(i % 2 == 0 ? List.of("new") : List.of("old"), i % 2 == 0 ? List.of("n+ew") : List.of("o+ld"));
+        }
+        done.await();
+        Assertions.assertNull(error.get());
+        Assertions.assertEquals(Collections.emptyList(), matcher.match("none"));
+    }
+
+    private static String randomText(Random random, int length, String alphabet) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.client.BilibiliLiveChatClientManager;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.mock.MockBilibiliServer;
+import tech.ordinaryroad.bilibili.live.netty.handler.BilibiliRoomBinaryFrameHandler;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.listener.IBilibiliSendSmsReplyMsgListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliMicrometerMetricsTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    BilibiliMicrometerMetrics metrics = new BilibiliMicrometerMetrics(true);
+
+    {
+        metrics.bindTo(registry);
+    }
+
+    @Test
+    void decodePipeline() {
+        BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder()
+                .metricsRecorder(metrics)
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(new IBilibiliSendSmsReplyMsgListener() {
+        }, 7777, config));
+
+        ByteBuf content = Unpooled.buffer();
+        for (String cmd : new String[]{"WATCHED_CHANGE", "WATCHED_CHANGE", "ONLINE_RANK_COUNT"}) {
+            ByteBuf packet = BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, ProtoverEnum.NORMAL_NO_COMPRESSION,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, ("{\"cmd\":\"" + cmd + "\",\"data\":{}}").getBytes(StandardCharsets.UTF_8));
+            content.writeBytes(packet);
+            packet.release();
+        }
+        channel.writeInbound(new BinaryWebSocketFrame(content));
+
+        Assertions.assertEquals(1, registry.get("bilibili.live.frames").tag("protover", ProtoverEnum.NORMAL_NO_COMPRESSION.name()).counter().count());
+        Assertions.assertEquals(2, registry.get("bilibili.live.parse").tag("cmd", "WATCHED_CHANGE").timer().count());
+        Assertions.assertEquals(1, registry.get("bilibili.live.parse").tag("cmd", "ONLINE_RANK_COUNT").timer().count());
+        Assertions.assertEquals(2, registry.get("bilibili.live.listener").tag("cmd", "WATCHED_CHANGE").timer().count());
+        Assertions.assertEquals(3, registry.get("bilibili.live.room.msgs").tag("room", "7777").counter().count());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void tlsHandshake() {
+        metrics.onTlsHandshake(7777, false, TimeUnit.MILLISECONDS.toNanos(30));
+        metrics.onTlsHandshake(7777, true, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.onTlsHandshake(8888, true, TimeUnit.MILLISECONDS.toNanos(5));
+        Assertions.assertEquals(1, registry.get("bilibili.live.tls.handshake").tag("resumed", "false").timer().count());
+        Assertions.assertEquals(2, registry.get("bilibili.live.tls.handshake").tag("resumed", "true").timer().count());
+    }
+
+    @Test
+    void connection() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer().start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .heartbeatInitialDelay(0)
+                    .heartbeatPeriod(1)
+                    .metricsRecorder(metrics)
+                    .build());
+            manager.connect(7777, new IBilibiliSendSmsReplyMsgListener() {
+            });
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.get("bilibili.live.heartbeat.rtt").timer().count() == 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            Assertions.assertEquals(1, registry.get("bilibili.live.handshake").timer().count());
+            Assertions.assertEquals(1, registry.get("bilibili.live.auth").timer().count());
+            Assertions.assertTrue(registry.get("bilibili.live.heartbeat.rtt").timer().count() > 0);
+
+            manager.reconnect(7777);
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.get("bilibili.live.auth").timer().count() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            Assertions.assertEquals(1, registry.get("bilibili.live.reconnects").counter().count());
+            Assertions.assertEquals(2, registry.get("bilibili.live.auth").timer().count());
+            manager.destroy();
+        }
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.mock;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tech.ordinaryroad.bilibili.live.util.BilibiliMsgParser;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import javax.net.ssl.KeyManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * 本地模拟弹幕服务器，应答认证包和心跳包，可以按指定速率向每个已认证的房间推送DANMU_MSG和SEND_GIFT
+ * <p>
+ * 推送的帧在启动时按每种协议版本预先编码，推送时只复制引用，服务端本身不会成为压测瓶颈
+ *
+ * @author mjz
+ * @date 2026/10/18
+ */
+@Slf4j
+public class MockBilibiliServer implements AutoCloseable {
+
+    private static final byte[] AUTH_REPLY_BODY = "{\"code\":0}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] AUTH_FAILED_REPLY_BODY = "{\"code\":-101}".getBytes(StandardCharsets.UTF_8);
+    private static final AttributeKey<ScheduledFuture<?>> PUSH_FUTURE_KEY = AttributeKey.valueOf("mockPushFuture");
+
+    public static final String DANMU_MSG = "{\"cmd\":\"DANMU_MSG\",\"info\":[[0,1,25,16777215,1697600000123,1697600000,0,\"c8a5e2b1\",0,0,0,\"\",0],"
+            + "\"主播好厉害\",[10086,\"用户A\",0,0,0,10000,1,\"\"],[21,\"粉丝牌\",\"主播\",7777,398668,\"\",0],[31,0,9868950,\">50000\",0],[\"\",\"\"],0,0,null]}";
+    public static final String SEND_GIFT = "{\"cmd\":\"SEND_GIFT\",\"data\":{\"action\":\"投喂\",\"coin_type\":\"gold\",\"giftId\":31036,"
+            + "\"giftName\":\"小花花\",\"num\":1,\"price\":100,\"timestamp\":1697600001,\"uid\":10086,\"uname\":\"用户A\"}}";
+
+    private static final char[] KEY_STORE_PASSWORD = "changeit".toCharArray();
+
+    private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+    private final EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private Channel serverChannel;
+    @Getter
+    private final AtomicInteger authCount = new AtomicInteger();
+    @Getter
+    private final AtomicInteger heartbeatCount = new AtomicInteger();
+    /**
+     * 接受的连接总数
+     */
+    @Getter
+    private final AtomicInteger acceptedCount = new AtomicInteger();
+    /**
+     * 最近一次收到的认证包正文
+     */
+    @Getter
+    private final AtomicReference<String> lastAuthBody = new AtomicReference<>();
+    private final LongAdder sentMsgCount = new LongAdder();
+    private final AtomicInteger rejectAuths = new AtomicInteger();
+    private ChannelGroup allChannels;
+    private long handshakeDelayMillis;
+
+    private int msgsPerSecondPerRoom;
+    private int msgsPerFrame = 10;
+    private int giftsPerFrame = 1;
+    private ProtoverEnum protover;
+    private SslContext sslContext;
+    private final Map<ProtoverEnum, ByteBuf> pushFrames = new EnumMap<>(ProtoverEnum.class);
+    private int broadcastGiftsPerSecond;
+    private final Map<Long, ChannelGroup> roomChannels = new ConcurrentHashMap<>();
+
+    /**
+     * 每个房间每秒推送的消息数，0表示不推送，需要在{@link #start(int)}之前设置
+     */
+    public MockBilibiliServer msgsPerSecondPerRoom(int msgsPerSecondPerRoom) {
+        this.msgsPerSecondPerRoom = msgsPerSecondPerRoom;
+        return this;
+    }
+
+    /**
+     * 每帧包含的消息数，其中giftsPerFrame条为SEND_GIFT，其余为DANMU_MSG
+     */
+    public MockBilibiliServer msgsPerFrame(int msgsPerFrame, int giftsPerFrame) {
+        this.msgsPerFrame = msgsPerFrame;
+        this.giftsPerFrame = Math.min(giftsPerFrame, msgsPerFrame);
+        return this;
+    }
+
+    /**
+     * 按房间广播SEND_GIFT，data.tid为房间内递增的序号，同一房间的所有连接收到相同的消息，需要在{@link #start(int)}之前设置
+     */
+    public MockBilibiliServer broadcastGiftsPerSecond(int broadcastGiftsPerSecond) {
+        this.broadcastGiftsPerSecond = broadcastGiftsPerSecond;
+        return this;
+    }
+
+    /**
+     * 延迟应答WebSocket握手，用于在握手期间断开、移除房间，需要在{@link #start(int)}之前设置
+     */
+    public MockBilibiliServer handshakeDelayMillis(long handshakeDelayMillis) {
+        this.handshakeDelayMillis = handshakeDelayMillis;
+        return this;
+    }
+
+    /**
+     * 之后的count个认证包回复code=-101
+     */
+    public MockBilibiliServer rejectAuths(int count) {
+        this.rejectAuths.set(count);
+        return this;
+    }
+
+    /**
+     * 推送使用的协议版本，默认使用认证包中的protover
+     */
+    public MockBilibiliServer protover(ProtoverEnum protover) {
+        this.protover = protover;
+        return this;
+    }
+
+    /**
+     * 使用wss，证书为测试资源中的自签名证书mock-server.p12（CN=localhost，SAN包含127.0.0.1），需要在{@link #start(int)}之前设置
+     */
+    public MockBilibiliServer ssl() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = MockBilibiliServer.class.getResourceAsStream("/mock-server.p12")) {
+            keyStore.load(in, KEY_STORE_PASSWORD);
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD);
+        this.sslContext = SslContextBuilder.forServer(keyManagerFactory).build();
+        return this;
+    }
+
+    /**
+     * 启动服务器
+     *
+     * @param port 端口，0表示随机端口
+     */
+    public MockBilibiliServer start(int port) throws InterruptedException {
+        if (msgsPerSecondPerRoom > 0) {
+            for (ProtoverEnum value : ProtoverEnum.values()) {
+                pushFrames.put(value, createPushFrame(value));
+            }
+        }
+        allChannels = new DefaultChannelGroup(workerGroup.next());
+        serverChannel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 4096)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        if (sslContext != null) {
+                            ch.pipeline().addLast(sslContext.newHandler(ch.alloc()));
+                        }
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        acceptedCount.incrementAndGet();
+                        allChannels.add(ch);
+                        ch.pipeline().addLast(new HttpObjectAggregator(1024 * 64));
+                        if (handshakeDelayMillis > 0) {
+                            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                                @Override
+                                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                    ctx.executor().schedule(() -> ctx.fireChannelRead(msg), handshakeDelayMillis, TimeUnit.MILLISECONDS);
+                                    ctx.pipeline().remove(this);
+                                }
+                            });
+                        }
+                        ch.pipeline().addLast(new WebSocketServerProtocolHandler("/sub"));
+                        ch.pipeline().addLast(new PacketHandler());
+                    }
+                })
+                .bind(port).sync().channel();
+        return this;
+    }
+
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    public String getWebsocketUri() {
+        return (sslContext == null ? "ws" : "wss") + "://127.0.0.1:" + getPort() + "/sub";
+    }
+
+    /**
+     * 已推送的消息数
+     */
+    /**
+     * 当前打开的连接数，包括握手未完成的连接
+     */
+    public int getOpenConnectionCount() {
+        return allChannels.size();
+    }
+
+    public long getSentMsgCount() {
+        return sentMsgCount.sum();
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+
+    private class PacketHandler extends SimpleChannelInboundHandler<BinaryWebSocketFrame> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, BinaryWebSocketFrame frame) {
+            ByteBuf content = frame.content();
+            int operation = content.getInt(content.readerIndex() + 8);
+            switch (operation) {
+                case BilibiliPacketUtil.OPERATION_AUTH -> {
+                    authCount.incrementAndGet();
+                    lastAuthBody.set(content.toString(content.readerIndex() + BilibiliPacketUtil.HEADER_LENGTH,
+                            content.readableBytes() - BilibiliPacketUtil.HEADER_LENGTH, StandardCharsets.UTF_8));
+                    if (rejectAuths.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                        ctx.writeAndFlush(new BinaryWebSocketFrame(BilibiliPacketUtil.encode(ctx.alloc(),
+                                ProtoverEnum.HEARTBEAT_AUTH_NO_COMPRESSION, BilibiliPacketUtil.OPERATION_AUTH_REPLY, AUTH_FAILED_REPLY_BODY)));
+                        return;
+                    }
+                    ctx.writeAndFlush(new BinaryWebSocketFrame(BilibiliPacketUtil.encode(ctx.alloc(),
+                            ProtoverEnum.HEARTBEAT_AUTH_NO_COMPRESSION, BilibiliPacketUtil.OPERATION_AUTH_REPLY, AUTH_REPLY_BODY)));
+                    if (msgsPerSecondPerRoom > 0) {
+                        startPush(ctx, content);
+                    }
+                    if (broadcastGiftsPerSecond > 0) {
+                        joinBroadcast(ctx, content);
+                    }
+                }
+                case BilibiliPacketUtil.OPERATION_HEARTBEAT -> {
+                    heartbeatCount.incrementAndGet();
+                    ctx.writeAndFlush(new BinaryWebSocketFrame(BilibiliPacketUtil.encode(ctx.alloc(),
+                            ProtoverEnum.HEARTBEAT_AUTH_NO_COMPRESSION, BilibiliPacketUtil.OPERATION_HEARTBEAT_REPLY, new byte[]{0, 0, 0, 1})));
+                }
+                default -> log.warn("未知操作码 {}", operation);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            ScheduledFuture<?> pushFuture = ctx.channel().attr(PUSH_FUTURE_KEY).getAndSet(null);
+            if (pushFuture != null) {
+                pushFuture.cancel(false);
+            }
+            super.channelInactive(ctx);
+        }
+
+        private void startPush(ChannelHandlerContext ctx, ByteBuf auth) {
+            ProtoverEnum pushProtover = protover == null ? readProtover(auth) : protover;
+            ByteBuf pushFrame = pushFrames.get(pushProtover);
+            long periodNanos = TimeUnit.SECONDS.toNanos(1) * msgsPerFrame / msgsPerSecondPerRoom;
+            // 随机初始延迟，避免所有房间在同一时刻推送
+            long initialDelay = (long) (Math.random() * periodNanos);
+            ScheduledFuture<?> pushFuture = ctx.executor().scheduleAtFixedRate(() -> {
+                if (ctx.channel().isWritable()) {
+                    ctx.writeAndFlush(new BinaryWebSocketFrame(pushFrame.retainedDuplicate()), ctx.voidPromise());
+                    sentMsgCount.add(msgsPerFrame);
+                }
+            }, initialDelay, periodNanos, TimeUnit.NANOSECONDS);
+            ctx.channel().attr(PUSH_FUTURE_KEY).set(pushFuture);
+        }
+    }
+
+    private void joinBroadcast(ChannelHandlerContext ctx, ByteBuf auth) {
+        long roomId = readAuthBody(auth).path("roomid").asLong();
+        roomChannels.computeIfAbsent(roomId, key -> {
+            ChannelGroup channels = new DefaultChannelGroup(workerGroup.next());
+            AtomicLong tid = new AtomicLong();
+            long periodNanos = TimeUnit.SECONDS.toNanos(1) / broadcastGiftsPerSecond;
+            workerGroup.next().scheduleAtFixedRate(() -> {
+                if (channels.isEmpty()) {
+                    return;
+                }
+                String body = SEND_GIFT.replace("\"giftId\"", "\"tid\":" + tid.incrementAndGet() + ",\"giftId\"");
+                ByteBuf frame = BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, ProtoverEnum.NORMAL_NO_COMPRESSION,
+                        BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, body.getBytes(StandardCharsets.UTF_8));
+                channels.writeAndFlush(new BinaryWebSocketFrame(frame));
+                sentMsgCount.add(channels.size());
+            }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+            return channels;
+        }).add(ctx.channel());
+    }
+
+    private static ProtoverEnum readProtover(ByteBuf auth) {
+        ProtoverEnum authProtover = ProtoverEnum.getByCode(readAuthBody(auth).path("protover").asInt());
+        return authProtover == null ? ProtoverEnum.NORMAL_NO_COMPRESSION : authProtover;
+    }
+
+    private static JsonNode readAuthBody(ByteBuf auth) {
+        try {
+            return BilibiliMsgParser.OBJECT_MAPPER.readTree(ByteBufUtil.getBytes(auth,
+                    auth.readerIndex() + BilibiliPacketUtil.HEADER_LENGTH, auth.readableBytes() - BilibiliPacketUtil.HEADER_LENGTH));
+        } catch (IOException e) {
+            log.warn("认证包解析失败", e);
+            return MissingNode.getInstance();
+        }
+    }
+
+    private ByteBuf createPushFrame(ProtoverEnum pushProtover) {
+        ProtoverEnum innerProtover = switch (pushProtover) {
+            case NORMAL_ZLIB, NORMAL_BROTLI -> ProtoverEnum.NORMAL_NO_COMPRESSION;
+            default -> pushProtover;
+        };
+        ByteBuf packets = Unpooled.buffer();
+        for (int i = 0; i < msgsPerFrame; i++) {
+            String body = i < giftsPerFrame ? SEND_GIFT : DANMU_MSG;
+            ByteBuf packet = BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, innerProtover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, body.getBytes(StandardCharsets.UTF_8));
+            packets.writeBytes(packet);
+            packet.release();
+        }
+        byte[] bytes = ByteBufUtil.getBytes(packets);
+        ByteBuf frame = switch (pushProtover) {
+            case NORMAL_ZLIB -> BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, pushProtover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, deflate(bytes));
+            case NORMAL_BROTLI -> BilibiliPacketUtil.encode(UnpooledByteBufAllocator.DEFAULT, pushProtover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, brotli(bytes));
+            default -> Unpooled.wrappedBuffer(bytes);
+        };
+        return Unpooled.unreleasableBuffer(frame);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            outputStream.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] brotli(byte[] bytes) {
+        Brotli4jLoader.ensureAvailability();
+        try {
+            return Encoder.compress(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.netty.codec;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliPacketDecoderTest {
+
+    @ParameterizedTest
+    @EnumSource(ProtoverEnum.class)
+    void decode(ProtoverEnum protover) throws Exception {
+        List<String> bodies = List.of("{\"cmd\":\"DANMU_MSG\"}", "{\"cmd\":\"SEND_GIFT\"}", "{\"cmd\":\"WATCHED_CHANGE\"}");
+        ByteBuf frame = createFrame(protover, bodies);
+
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+        List<String> decoded = new ArrayList<>();
+        BilibiliPacketDecoder.decode(frame, allocator, (packetProtover, operation, body) -> {
+            Assertions.assertEquals(BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, operation);
+            decoded.add(body.toString(StandardCharsets.UTF_8));
+        });
+
+        Assertions.assertEquals(bodies, decoded);
+        Assertions.assertEquals(0, frame.readerIndex());
+        // 解压缓冲区已全部释放
+        Assertions.assertEquals(0, allocator.metric().directArenas().stream().mapToLong(arena -> arena.numActiveAllocations()).sum());
+        frame.release();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // packetLength, headerLength
+            "0, 16",
+            "8, 8",
+            "16, 0",
+            "20, 8",
+            "20, 24",
+            "-1, 16",
+            "2147483647, 16",
+    })
+    void malformedLength(int packetLength, int headerLength) {
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeInt(packetLength);
+        frame.writeShort(headerLength);
+        frame.writeShort(ProtoverEnum.NORMAL_NO_COMPRESSION.getCode());
+        frame.writeInt(BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY);
+        frame.writeInt(1);
+        frame.writeBytes(new byte[8]);
+
+        // 不能死循环，也不能回调
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> Assertions.assertThrows(DecoderException.class,
+                () -> BilibiliPacketDecoder.decode(frame, ByteBufAllocator.DEFAULT, (protover, operation, body) -> Assertions.fail())));
+        frame.release();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ProtoverEnum.class, names = {"NORMAL_ZLIB", "NORMAL_BROTLI"})
+    void truncatedCompressed(ProtoverEnum protover) throws Exception {
+        List<String> bodies = List.of("{\"cmd\":\"DANMU_MSG\"}", "{\"cmd\":\"SEND_GIFT\"}", "{\"cmd\":\"WATCHED_CHANGE\"}");
+        ByteBuf frame = createFrame(protover, bodies);
+        // 截断压缩数据，同时修改包长度使外层数据包本身是完整的
+        int truncatedLength = frame.readableBytes() - 8;
+        frame.writerIndex(truncatedLength);
+        frame.setInt(0, truncatedLength);
+
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+        List<String> decoded = new ArrayList<>();
+        Assertions.assertThrows(DecoderException.class,
+                () -> BilibiliPacketDecoder.decode(frame, allocator, (packetProtover, operation, body) -> decoded.add(body.toString(StandardCharsets.UTF_8))));
+        Assertions.assertTrue(decoded.isEmpty(), decoded::toString);
+        Assertions.assertEquals(0, allocator.metric().directArenas().stream().mapToLong(arena -> arena.numActiveAllocations()).sum());
+        frame.release();
+    }
+
+    static ByteBuf createFrame(ProtoverEnum protover, List<String> bodies) throws Exception {
+        ByteBuf packets = Unpooled.buffer();
+        ProtoverEnum innerProtover = switch (protover) {
+            case NORMAL_ZLIB, NORMAL_BROTLI -> ProtoverEnum.NORMAL_NO_COMPRESSION;
+            default -> protover;
+        };
+        for (String body : bodies) {
+            packets.writeBytes(BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, innerProtover,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, body.getBytes(StandardCharsets.UTF_8)));
+        }
+        byte[] bytes = ByteBufUtil.getBytes(packets);
+        return switch (protover) {
+            case NORMAL_ZLIB -> BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, protover, BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, deflate(bytes));
+            case NORMAL_BROTLI -> {
+                Brotli4jLoader.ensureAvailability();
+                yield BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, protover, BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, Encoder.compress(bytes));
+            }
+            default -> Unpooled.wrappedBuffer(bytes);
+        };
+    }
+
+    static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            outputStream.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.netty.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.keyword.BilibiliKeywordMatcher;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliBatchMsgListener;
+import tech.ordinaryroad.bilibili.live.listener.IBilibiliTypedMsgListener;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.util.BilibiliFingerprintSet;
+import tech.ordinaryroad.bilibili.live.util.BilibiliPacketUtil;
+import tech.ordinaryroad.live.chat.client.bilibili.constant.ProtoverEnum;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+import tech.ordinaryroad.live.chat.client.bilibili.netty.handler.BilibiliBinaryFrameHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliRoomBinaryFrameHandlerTest {
+
+    @Test
+    void batchPerFrame() {
+        List<List<SendSmsReplyMsg>> batches = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(new BatchListener(batches), 1));
+
+        channel.writeInbound(createFrame("WATCHED_CHANGE", "ONLINE_RANK_COUNT", "STOP_LIVE_ROOM_LIST"));
+        channel.writeInbound(createFrame("WATCHED_CHANGE"));
+
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertEquals(3, batches.get(0).size());
+        Assertions.assertEquals("ONLINE_RANK_COUNT", batches.get(0).get(1).getCmd());
+        Assertions.assertEquals(1, batches.get(1).size());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void batchAcrossFrames() {
+        List<List<SendSmsReplyMsg>> batches = new ArrayList<>();
+        BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder()
+                .batchMaxSize(4)
+                .batchMaxDelayMillis(TimeUnit.SECONDS.toMillis(10))
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(new BatchListener(batches), 1, config));
+
+        channel.writeInbound(createFrame("WATCHED_CHANGE", "ONLINE_RANK_COUNT"));
+        Assertions.assertTrue(batches.isEmpty());
+        // 达到batchMaxSize立即回调
+        channel.writeInbound(createFrame("WATCHED_CHANGE", "ONLINE_RANK_COUNT", "STOP_LIVE_ROOM_LIST"));
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(4, batches.get(0).size());
+        // 剩余消息在连接断开时回调
+        channel.close();
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertEquals(1, batches.get(1).size());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void denyCmds() {
+        List<List<SendSmsReplyMsg>> batches = new ArrayList<>();
+        BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder()
+                .denyCmds(Set.of("WATCHED_CHANGE", "ONLINE_RANK_COUNT"))
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(new BatchListener(batches), 1, config));
+
+        channel.writeInbound(createFrame("WATCHED_CHANGE", "ONLINE_RANK_COUNT", "STOP_LIVE_ROOM_LIST"));
+
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(1, batches.get(0).size());
+        Assertions.assertEquals("STOP_LIVE_ROOM_LIST", batches.get(0).get(0).getCmd());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void keywordHits() {
+        List<DanmuMsg> danmus = new ArrayList<>();
+        BilibiliKeywordMatcher matcher = new BilibiliKeywordMatcher(List.of("微信"), List.of("v\\s*x"));
+        BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder()
+                .keywordMatcher(matcher)
+                .build();
+        IBilibiliTypedMsgListener listener = new IBilibiliTypedMsgListener() {
+            @Override
+            public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+                danmus.add(msg);
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(listener, 1, config));
+
+        channel.writeInbound(createFrameFromBodies(danmu("加微信V X"), danmu("你好")));
+        matcher.update(List.of("你好"), List.of());
+        channel.writeInbound(createFrameFromBodies(danmu("你好")));
+
+        Assertions.assertEquals(3, danmus.size());
+        Assertions.assertEquals(List.of("微信", "v\\s*x"), danmus.get(0).getKeywordHits());
+        Assertions.assertTrue(danmus.get(1).getKeywordHits().isEmpty());
+        Assertions.assertEquals(List.of("你好"), danmus.get(2).getKeywordHits());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void hotStandbyDedup() {
+        List<String> received = new ArrayList<>();
+        IBilibiliTypedMsgListener listener = new IBilibiliTypedMsgListener() {
+            @Override
+            public void onDanmu(BilibiliBinaryFrameHandler binaryFrameHandler, DanmuMsg msg) {
+                received.add(msg.getText());
+            }
+        };
+        BilibiliLiveChatClientManagerConfig config = BilibiliLiveChatClientManagerConfig.builder().build();
+        BilibiliFingerprintSet fingerprints = new BilibiliFingerprintSet(64, 60_000);
+        EmbeddedChannel primary = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(listener, 1, config, null, fingerprints, 0));
+        EmbeddedChannel secondary = new EmbeddedChannel(new BilibiliRoomBinaryFrameHandler(listener, 1, config, null, fingerprints, 1));
+
+        // 同一连接上内容相同的消息都要回调，另一条连接收到的同一消息丢弃
+        primary.writeInbound(createFrameFromBodies(danmu("666"), danmu("666")));
+        secondary.writeInbound(createFrameFromBodies(danmu("666"), danmu("666")));
+        secondary.writeInbound(createFrameFromBodies(danmu("hi")));
+        primary.writeInbound(createFrameFromBodies(danmu("hi")));
+
+        Assertions.assertEquals(List.of("666", "666", "hi"), received);
+        Assertions.assertEquals(3, fingerprints.getDuplicateCount());
+        primary.finishAndReleaseAll();
+        secondary.finishAndReleaseAll();
+    }
+
+    private static String danmu(String text) {
+        return "{\"cmd\":\"DANMU_MSG\",\"info\":[[0,1,25,16777215,1697600000123],\"" + text + "\",[10086,\"用户A\"]]}";
+    }
+
+    private static BinaryWebSocketFrame createFrame(String... cmds) {
+        String[] bodies = new String[cmds.length];
+        for (int i = 0; i < cmds.length; i++) {
+            bodies[i] = "{\"cmd\":\"" + cmds[i] + "\",\"data\":{}}";
+        }
+        return createFrameFromBodies(bodies);
+    }
+
+    private static BinaryWebSocketFrame createFrameFromBodies(String... bodies) {
+        ByteBuf content = Unpooled.buffer();
+        for (String body : bodies) {
+            ByteBuf packet = BilibiliPacketUtil.encode(ByteBufAllocator.DEFAULT, ProtoverEnum.NORMAL_NO_COMPRESSION,
+                    BilibiliPacketUtil.OPERATION_SEND_SMS_REPLY, body.getBytes(StandardCharsets.UTF_8));
+            content.writeBytes(packet);
+            packet.release();
+        }
+        return new BinaryWebSocketFrame(content);
+    }
+
+    private record BatchListener(List<List<SendSmsReplyMsg>> batches) implements IBilibiliBatchMsgListener {
+        @Override
+        public void onMsgBatch(BilibiliBinaryFrameHandler binaryFrameHandler, List<SendSmsReplyMsg> msgs) {
+            batches.add(msgs);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.reactive;
+
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.client.BilibiliLiveChatClientManager;
+import tech.ordinaryroad.bilibili.live.client.BilibiliRoomConnection;
+import tech.ordinaryroad.bilibili.live.config.BilibiliLiveChatClientManagerConfig;
+import tech.ordinaryroad.bilibili.live.mock.MockBilibiliServer;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliMsgPublisherTest {
+
+    @Test
+    void backpressureToAutoRead() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer()
+                .msgsPerSecondPerRoom(1000)
+                .start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .build());
+            BilibiliMsgPublisher<BilibiliRoomMsg> publisher = BilibiliMsgPublisher.roomMessages(100);
+            BilibiliRoomConnection room1 = publisher.connect(manager, 7777);
+            BilibiliRoomConnection room2 = publisher.connect(manager, 8888);
+            TestSubscriber<BilibiliRoomMsg> subscriber = new TestSubscriber<>(5);
+            publisher.subscribe(subscriber);
+
+            // 只请求了5条，缓冲区满后两个房间都暂停读取
+            Assertions.assertTrue(await(() -> publisher.getPausedRoomCount() == 2));
+            Assertions.assertEquals(5, subscriber.received.get());
+            Assertions.assertFalse(room1.getChannel().config().isAutoRead());
+            Assertions.assertFalse(room2.getChannel().config().isAutoRead());
+            // 暂停前已经读取的数据仍会解码，稍后缓冲区不再增长
+            TimeUnit.MILLISECONDS.sleep(500);
+            int buffered = publisher.getBufferedCount();
+            TimeUnit.MILLISECONDS.sleep(500);
+            Assertions.assertEquals(buffered, publisher.getBufferedCount());
+            Assertions.assertTrue(buffered < 1000, "buffered " + buffered);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            Assertions.assertTrue(await(() -> subscriber.received.get() > buffered + 100));
+            Assertions.assertEquals(0, publisher.getPausedRoomCount());
+            Assertions.assertTrue(room1.getChannel().config().isAutoRead());
+            Assertions.assertTrue(room2.getChannel().config().isAutoRead());
+
+            subscriber.subscription.cancel();
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void backpressureAfterReconnect() throws Exception {
+        try (MockBilibiliServer server = new MockBilibiliServer()
+                .msgsPerSecondPerRoom(1000)
+                .start(0)) {
+            BilibiliLiveChatClientManager manager = new BilibiliLiveChatClientManager(BilibiliLiveChatClientManagerConfig.builder()
+                    .websocketUri(server.getWebsocketUri())
+                    .build());
+            BilibiliMsgPublisher<SendSmsReplyMsg> publisher = BilibiliMsgPublisher.messages(100);
+            BilibiliRoomConnection room = publisher.connect(manager, 7777);
+            TestSubscriber<SendSmsReplyMsg> subscriber = new TestSubscriber<>(5);
+            publisher.subscribe(subscriber);
+            Assertions.assertTrue(await(() -> publisher.getPausedRoomCount() == 1));
+
+            // 暂停期间重连，新的Channel也要暂停
+            Channel oldChannel = room.getChannel();
+            room.reconnect();
+            Assertions.assertTrue(await(() -> room.isConnected() && room.getChannel() != oldChannel && !room.getChannel().config().isAutoRead()));
+            Assertions.assertEquals(1, publisher.getPausedRoomCount());
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            Assertions.assertTrue(await(() -> room.getChannel().config().isAutoRead() && publisher.getPausedRoomCount() == 0));
+
+            subscriber.subscription.cancel();
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void signals() {
+        BilibiliMsgPublisher<SendSmsReplyMsg> publisher = BilibiliMsgPublisher.messages(10);
+        TestSubscriber<SendSmsReplyMsg> subscriber = new TestSubscriber<>(1);
+        publisher.subscribe(subscriber);
+        publisher.complete();
+        Assertions.assertTrue(subscriber.completed);
+
+        TestSubscriber<SendSmsReplyMsg> second = new TestSubscriber<>(1);
+        publisher.subscribe(second);
+        Assertions.assertInstanceOf(IllegalStateException.class, second.error.get());
+
+        BilibiliMsgPublisher<SendSmsReplyMsg> invalid = BilibiliMsgPublisher.messages(10);
+        TestSubscriber<SendSmsReplyMsg> invalidSubscriber = new TestSubscriber<>(0);
+        invalid.subscribe(invalidSubscriber);
+        Assertions.assertInstanceOf(IllegalArgumentException.class, invalidSubscriber.error.get());
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        return true;
+    }
+
+    static class TestSubscriber<T> implements Flow.Subscriber<T> {
+        final long initialRequest;
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+
+        TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(T item) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.room;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliRoomInfoCacheTest {
+
+    @Test
+    void singleFlight() throws Exception {
+        Map<Long, CompletableFuture<BilibiliRoomInfo>> pending = new ConcurrentHashMap<>();
+        AtomicInteger fetchCount = new AtomicInteger();
+        BilibiliRoomInfoCache cache = new BilibiliRoomInfoCache(roomId -> {
+            fetchCount.incrementAndGet();
+            return pending.computeIfAbsent(roomId, k -> new CompletableFuture<>());
+        });
+
+        List<CompletableFuture<BilibiliRoomInfo>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(cache.get(6));
+        }
+        Assertions.assertEquals(1, fetchCount.get());
+        pending.get(6L).complete(info(7777, 6));
+        for (CompletableFuture<BilibiliRoomInfo> future : futures) {
+            Assertions.assertEquals(7777, future.get().getRoomId());
+        }
+
+        // 短号和真实房间ID都已缓存
+        Assertions.assertEquals(7777, cache.get(6).get().getRoomId());
+        Assertions.assertEquals(7777, cache.get(7777).get().getRoomId());
+        Assertions.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    void recheckAfterInFlightCompleted() throws Exception {
+        AtomicInteger fetchCount = new AtomicInteger();
+        BilibiliRoomInfoCache cache = new BilibiliRoomInfoCache(roomId -> {
+            fetchCount.incrementAndGet();
+            return CompletableFuture.completedFuture(info(roomId, 0));
+        }, 10, TimeUnit.MINUTES, 100) {
+            private boolean first = true;
+
+            @Override
+            public BilibiliRoomInfo getIfPresent(long roomId) {
+                BilibiliRoomInfo info = super.getIfPresent(roomId);
+                // 模拟第一次查询未命中之后、putIfAbsent之前，另一个请求完成并写入缓存
+                if (first && roomId == 2) {
+                    first = false;
+                    get(2).join();
+                    return null;
+                }
+                return info;
+            }
+        };
+        Assertions.assertEquals(2, cache.get(2).get().getRoomId());
+        Assertions.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    void ttlAndLru() throws Exception {
+        AtomicInteger fetchCount = new AtomicInteger();
+        BilibiliRoomInfoCache cache = new BilibiliRoomInfoCache(roomId -> {
+            fetchCount.incrementAndGet();
+            return CompletableFuture.completedFuture(info(roomId, 0));
+        }, 200, TimeUnit.MILLISECONDS, 2);
+
+        cache.get(1).get();
+        cache.get(2).get();
+        cache.get(1).get();
+        // 淘汰最近最少使用的2
+        cache.get(3).get();
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNotNull(cache.getIfPresent(1));
+        Assertions.assertNull(cache.getIfPresent(2));
+        Assertions.assertEquals(3, fetchCount.get());
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        Assertions.assertNull(cache.getIfPresent(1));
+        cache.get(1).get();
+        Assertions.assertEquals(4, fetchCount.get());
+    }
+
+    @Test
+    void failureNotCached() throws Exception {
+        AtomicInteger fetchCount = new AtomicInteger();
+        BilibiliRoomInfoCache cache = new BilibiliRoomInfoCache(roomId -> {
+            if (fetchCount.incrementAndGet() == 1) {
+                return CompletableFuture.failedFuture(new IllegalStateException("请求失败"));
+            }
+            return CompletableFuture.completedFuture(info(roomId, 0));
+        });
+        Assertions.assertThrows(ExecutionException.class, () -> cache.get(1).get());
+        Assertions.assertEquals(1, cache.get(1).get().getRoomId());
+        Assertions.assertEquals(2, fetchCount.get());
+    }
+
+    @Test
+    void prefetch() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        BilibiliRoomInfoCache cache = new BilibiliRoomInfoCache(roomId -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                concurrent.decrementAndGet();
+                if (roomId == 50) {
+                    throw new IllegalStateException("请求失败");
+                }
+                return info(roomId, 0);
+            }, CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS));
+        });
+        List<Long> roomIds = LongStream.rangeClosed(1, 100).boxed().toList();
+        cache.prefetch(roomIds, 4).get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(99, cache.size());
+        Assertions.assertTrue(maxConcurrent.get() <= 4);
+    }
+
+    private static BilibiliRoomInfo info(long roomId, long shortId) {
+        return BilibiliRoomInfo.builder().roomId(roomId).shortId(shortId).token("token" + roomId).hosts(List.of()).build();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliCmdFilterTest {
+
+    @Test
+    void allowCmds() {
+        BilibiliCmdFilter filter = new BilibiliCmdFilter(Set.of("DANMU_MSG", "SEND_GIFT"), null);
+        Assertions.assertTrue(filter.accept(buf("{\"cmd\":\"DANMU_MSG\",\"info\":[]}")));
+        Assertions.assertTrue(filter.accept(buf("{ \"cmd\" : \"DANMU_MSG:4:0:2:2:2:0\",\"info\":[]}")));
+        Assertions.assertTrue(filter.accept(buf("{\"cmd\":\"SEND_GIFT\",\"data\":{}}")));
+        Assertions.assertFalse(filter.accept(buf("{\"cmd\":\"SEND_GIFT_V2\",\"data\":{}}")));
+        Assertions.assertFalse(filter.accept(buf("{\"cmd\":\"ONLINE_RANK_COUNT\",\"data\":{}}")));
+        Assertions.assertFalse(filter.accept("WATCHED_CHANGE"));
+        Assertions.assertFalse(filter.accept((String) null));
+    }
+
+    @Test
+    void denyCmds() {
+        BilibiliCmdFilter filter = new BilibiliCmdFilter(null, Set.of("ONLINE_RANK_COUNT", "WATCHED_CHANGE"));
+        Assertions.assertTrue(filter.accept(buf("{\"cmd\":\"DANMU_MSG\",\"info\":[]}")));
+        Assertions.assertFalse(filter.accept(buf("{\"cmd\":\"ONLINE_RANK_COUNT\",\"data\":{}}")));
+        Assertions.assertFalse(filter.accept(buf("{\"cmd\":\"WATCHED_CHANGE\",\"data\":{}}")));
+        Assertions.assertTrue(filter.accept("DANMU_MSG"));
+        Assertions.assertFalse(filter.accept("WATCHED_CHANGE"));
+    }
+
+    @Test
+    void cmdNotLeading() {
+        BilibiliCmdFilter filter = new BilibiliCmdFilter(null, Set.of("WATCHED_CHANGE"));
+        ByteBuf buf = buf("{\"data\":{},\"cmd\":\"WATCHED_CHANGE\"}");
+        // 无法判断时保留，由解析后的cmd再次过滤
+        Assertions.assertTrue(filter.accept(buf));
+        Assertions.assertEquals(0, buf.readerIndex());
+    }
+
+    private static ByteBuf buf(String json) {
+        return Unpooled.wrappedBuffer(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
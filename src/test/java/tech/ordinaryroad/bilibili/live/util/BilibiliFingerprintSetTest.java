@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliFingerprintSetTest {
+
+    @Test
+    void hash() {
+        ByteBuf buf = Unpooled.copiedBuffer("xx{\"cmd\":\"SEND_GIFT\",\"data\":{\"tid\":1}}", StandardCharsets.UTF_8);
+        buf.skipBytes(2);
+        long hash = BilibiliFingerprintSet.hash(buf);
+        Assertions.assertEquals(2, buf.readerIndex());
+        Assertions.assertEquals(hash, BilibiliFingerprintSet.hash(Unpooled.copiedBuffer("{\"cmd\":\"SEND_GIFT\",\"data\":{\"tid\":1}}", StandardCharsets.UTF_8)));
+        Assertions.assertNotEquals(hash, BilibiliFingerprintSet.hash(Unpooled.copiedBuffer("{\"cmd\":\"SEND_GIFT\",\"data\":{\"tid\":2}}", StandardCharsets.UTF_8)));
+        Assertions.assertNotEquals(BilibiliFingerprintSet.hash(Unpooled.wrappedBuffer(new byte[]{1})), BilibiliFingerprintSet.hash(Unpooled.wrappedBuffer(new byte[]{1, 0})));
+    }
+
+    @Test
+    void ttl() {
+        BilibiliFingerprintSet set = new BilibiliFingerprintSet(16, 1000);
+        long now = System.currentTimeMillis();
+        Assertions.assertTrue(set.add(2, 0, now));
+        Assertions.assertTrue(set.add(0, 0, now));
+        Assertions.assertFalse(set.add(2, 1, now + 500));
+        Assertions.assertFalse(set.add(0, 1, now + 500));
+        // 轮换后上一代仍然有效
+        Assertions.assertTrue(set.add(4, 0, now + 1000));
+        Assertions.assertFalse(set.add(2, 1, now + 1500));
+        // 再次轮换后过期
+        Assertions.assertTrue(set.add(6, 0, now + 2000));
+        Assertions.assertTrue(set.add(2, 1, now + 2000));
+        Assertions.assertEquals(3, set.getDuplicateCount());
+        Assertions.assertEquals(0, set.getEarlyRotationCount());
+    }
+
+    @Test
+    void source() {
+        BilibiliFingerprintSet set = new BilibiliFingerprintSet(16, 60_000);
+        // 同一连接重复收到的相同消息都保留
+        Assertions.assertTrue(set.add(2, 0, 0));
+        Assertions.assertTrue(set.add(2, 0, 0));
+        // 另一连接收到的丢弃，无论收到几次
+        Assertions.assertFalse(set.add(2, 1, 0));
+        Assertions.assertFalse(set.add(2, 1, 0));
+        // 最低位不参与比较
+        Assertions.assertFalse(set.add(3, 1, 0));
+        Assertions.assertTrue(set.add(3, 0, 0));
+        // 由另一连接首次收到的指纹
+        Assertions.assertTrue(set.add(4, 1, 0));
+        Assertions.assertFalse(set.add(4, 0, 0));
+        Assertions.assertEquals(4, set.getDuplicateCount());
+    }
+
+    @Test
+    void capacity() {
+        BilibiliFingerprintSet set = new BilibiliFingerprintSet(16, 60_000);
+        for (long i = 1; i <= 1000; i++) {
+            Assertions.assertTrue(set.add(i * 0x9E3779B97F4A7C15L, 0, 0));
+        }
+        // 最近一代的指纹一定保留
+        for (long i = 1000; i > 1000 - 16; i--) {
+            Assertions.assertFalse(set.add(i * 0x9E3779B97F4A7C15L, 1, 0));
+        }
+        Assertions.assertTrue(set.getEarlyRotationCount() > 0);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.live.chat.client.bilibili.msg.SendSmsReplyMsg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static tech.ordinaryroad.bilibili.live.util.BilibiliMsgParserTest.DANMU_MSG;
+import static tech.ordinaryroad.bilibili.live.util.BilibiliMsgParserTest.SEND_GIFT;
+import static tech.ordinaryroad.bilibili.live.util.BilibiliMsgParserTest.toByteBuf;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliLazyJsonTest {
+
+    @Test
+    void sameAsEager() throws Exception {
+        for (String json : new String[]{DANMU_MSG, SEND_GIFT}) {
+            SendSmsReplyMsg eager = BilibiliMsgParser.readSendSmsReplyMsg(toByteBuf(json));
+            SendSmsReplyMsg lazy = BilibiliMsgParser.readLazySendSmsReplyMsg(toByteBuf(json));
+            Assertions.assertEquals(eager.getCmd(), lazy.getCmd());
+            Assertions.assertEquals(eager.getData(), lazy.getData());
+            Assertions.assertEquals(eager.getInfo(), lazy.getInfo());
+            Assertions.assertEquals(String.valueOf(eager.getData()), String.valueOf(lazy.getData()));
+            Assertions.assertEquals(String.valueOf(eager.getInfo()), String.valueOf(lazy.getInfo()));
+        }
+    }
+
+    @Test
+    void fieldAccess() throws Exception {
+        SendSmsReplyMsg gift = BilibiliMsgParser.readLazySendSmsReplyMsg(toByteBuf(SEND_GIFT));
+        JsonNode data = gift.getData();
+        Assertions.assertInstanceOf(ObjectNode.class, data);
+        Assertions.assertEquals(11, data.size());
+        Assertions.assertEquals("小花花", data.get("giftName").asText());
+        Assertions.assertEquals(21, data.path("medal_info").path("medal_level").asInt());
+        Assertions.assertTrue(data.path("missing").isMissingNode());
+        Assertions.assertNull(data.get("missing"));
+        Assertions.assertTrue(data.has("uid"));
+        List<String> names = new ArrayList<>();
+        data.fieldNames().forEachRemaining(names::add);
+        Assertions.assertEquals("action", names.get(0));
+        Assertions.assertEquals("uname", names.get(names.size() - 1));
+
+        SendSmsReplyMsg danmu = BilibiliMsgParser.readLazySendSmsReplyMsg(toByteBuf(DANMU_MSG));
+        JsonNode info = danmu.getInfo();
+        Assertions.assertInstanceOf(ArrayNode.class, info);
+        Assertions.assertEquals("你好", info.get(1).asText());
+        Assertions.assertEquals("用户A", info.get(2).get(1).asText());
+        Assertions.assertEquals(1697600000123L, info.get(0).get(4).asLong());
+        Assertions.assertTrue(info.get(8).isNull());
+        Assertions.assertEquals("ABC", info.path(9).path("ct").asText());
+    }
+
+    @Test
+    void modify() throws Exception {
+        SendSmsReplyMsg gift = BilibiliMsgParser.readLazySendSmsReplyMsg(toByteBuf(SEND_GIFT));
+        ObjectNode data = (ObjectNode) gift.getData();
+        data.put("num", 5);
+        data.remove("action");
+        Assertions.assertEquals(5, data.get("num").asInt());
+        Assertions.assertFalse(data.has("action"));
+        Assertions.assertEquals(10, data.size());
+        Assertions.assertEquals("粉丝牌", data.path("medal_info").path("medal_name").asText());
+
+        SendSmsReplyMsg danmu = BilibiliMsgParser.readLazySendSmsReplyMsg(toByteBuf(DANMU_MSG));
+        ArrayNode info = (ArrayNode) danmu.getInfo();
+        int size = info.size();
+        info.add("x");
+        info.set(1, "改");
+        Assertions.assertEquals(size + 1, info.size());
+        Assertions.assertEquals("改", info.get(1).asText());
+        Assertions.assertEquals("x", info.get(size).asText());
+    }
+
+    @Test
+    void offsetAndMalformed() throws Exception {
+        byte[] bytes = ("xx{\"a\":{\"b\":[1,2.5,true]},\"c\":\"d\"}").getBytes(StandardCharsets.UTF_8);
+        JsonNode node = BilibiliLazyJson.parse(bytes, 2, bytes.length - 2);
+        Assertions.assertEquals(2.5, node.path("a").path("b").get(1).asDouble());
+        Assertions.assertEquals("d", node.get("c").asText());
+
+        ByteBuf buf = Unpooled.buffer().writeBytes("garbage".getBytes(StandardCharsets.UTF_8));
+        buf.writeBytes(SEND_GIFT.getBytes(StandardCharsets.UTF_8));
+        buf.skipBytes("garbage".length());
+        SendSmsReplyMsg gift = BilibiliMsgParser.readLazySendSmsReplyMsg(buf);
+        Assertions.assertEquals(31036, gift.getData().get("giftId").asInt());
+        Assertions.assertEquals("garbage".length(), buf.readerIndex());
+
+        // 跳过的子树也会分词，格式错误在解析时发现
+        Assertions.assertThrows(IOException.class, () -> BilibiliLazyJson.parse("{\"a\":{\"b\":1 2},\"c\":3}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertThrows(IOException.class, () -> BilibiliLazyJson.parse("{\"a\":\"x\\qy\"}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertThrows(IOException.class, () -> BilibiliMsgParser.readLazySendSmsReplyMsg(toByteBuf("{\"cmd\":\"SEND_GIFT\",\"data\":{")));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliMpscRingBufferTest {
+
+    @Test
+    void offerAndPoll() {
+        BilibiliMpscRingBuffer<Integer> ringBuffer = new BilibiliMpscRingBuffer<>(3);
+        Assertions.assertEquals(4, ringBuffer.capacity());
+        Assertions.assertNull(ringBuffer.poll());
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                Assertions.assertTrue(ringBuffer.offer(i));
+            }
+            Assertions.assertFalse(ringBuffer.offer(4));
+            Assertions.assertEquals(4, ringBuffer.size());
+            for (int i = 0; i < 4; i++) {
+                Assertions.assertEquals(i, ringBuffer.poll());
+            }
+            Assertions.assertNull(ringBuffer.poll());
+        }
+    }
+
+    @Test
+    void multipleProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        BilibiliMpscRingBuffer<long[]> ringBuffer = new BilibiliMpscRingBuffer<>(1024);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!ringBuffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = ringBuffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // 同一生产者的元素保持顺序
+            Assertions.assertEquals(next[(int) element[0]]++, element[1]);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertNull(ringBuffer.poll());
+    }
+}
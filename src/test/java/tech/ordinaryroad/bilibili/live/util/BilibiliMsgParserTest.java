@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.ordinaryroad.bilibili.live.msg.DanmuMsg;
+import tech.ordinaryroad.bilibili.live.msg.SendGiftMsg;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliMsgParserTest {
+
+    static final String DANMU_MSG = "{\"cmd\":\"DANMU_MSG\",\"dm_v2\":\"\",\"info\":[[0,1,25,16777215,1697600000123,1697600000,0,\"abc\",0,0,0,\"\",0,\"{}\",\"{}\",{\"mode\":0,\"extra\":\"{\\\"content\\\":\\\"x\\\"}\"}],"
+            + "\"你好\",[10086,\"用户A\",0,0,0,10000,1,\"\"],[21,\"粉丝牌\",\"主播\",7777,398668,\"\",0,398668,398668,6067854,0,1,12345],[31,0,9868950,\">50000\",0],[\"\",\"\"],0,0,null,{\"ts\":1697600000,\"ct\":\"ABC\"},0,0,null,null,0,105]}";
+
+    static final String SEND_GIFT = "{\"cmd\":\"SEND_GIFT\",\"data\":{\"action\":\"投喂\",\"batch_combo_id\":\"\",\"coin_type\":\"gold\","
+            + "\"giftId\":31036,\"giftName\":\"小花花\",\"medal_info\":{\"medal_name\":\"粉丝牌\",\"medal_level\":21},\"num\":3,\"price\":100,"
+            + "\"timestamp\":1697600001,\"uid\":10086,\"uname\":\"用户A\"}}";
+
+    @Test
+    void readDanmuMsg() throws Exception {
+        try (JsonParser parser = BilibiliMsgParser.createParser(toByteBuf(DANMU_MSG))) {
+            Assertions.assertEquals("DANMU_MSG", BilibiliMsgParser.readLeadingCmd(parser));
+            DanmuMsg msg = BilibiliMsgParser.readDanmuMsg(parser);
+            Assertions.assertNotNull(msg);
+            Assertions.assertEquals(10086, msg.getUid());
+            Assertions.assertEquals("用户A", msg.getUname());
+            Assertions.assertEquals("你好", msg.getText());
+            Assertions.assertEquals(1697600000123L, msg.getTimestamp());
+            Assertions.assertEquals(21, msg.getMedalLevel());
+            Assertions.assertEquals("粉丝牌", msg.getMedalName());
+        }
+    }
+
+    @Test
+    void internRepeatedStrings() throws Exception {
+        DanmuMsg first = readDanmu();
+        DanmuMsg second = readDanmu();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first.getUname(), second.getUname());
+        Assertions.assertSame(first.getMedalName(), second.getMedalName());
+    }
+
+    @Test
+    void readSendGiftMsg() throws Exception {
+        try (JsonParser parser = BilibiliMsgParser.createParser(toByteBuf(SEND_GIFT))) {
+            Assertions.assertEquals("SEND_GIFT", BilibiliMsgParser.readLeadingCmd(parser));
+            SendGiftMsg msg = BilibiliMsgParser.readSendGiftMsg(parser);
+            Assertions.assertNotNull(msg);
+            Assertions.assertEquals(10086, msg.getUid());
+            Assertions.assertEquals("用户A", msg.getUname());
+            Assertions.assertEquals(31036, msg.getGiftId());
+            Assertions.assertEquals("小花花", msg.getGiftName());
+            Assertions.assertEquals(3, msg.getNum());
+            Assertions.assertEquals(100, msg.getPrice());
+            Assertions.assertEquals("gold", msg.getCoinType());
+        }
+    }
+
+    @Test
+    void cmdNotLeading() throws Exception {
+        try (JsonParser parser = BilibiliMsgParser.createParser(toByteBuf("{\"data\":{},\"cmd\":\"SEND_GIFT\"}"))) {
+            Assertions.assertNull(BilibiliMsgParser.readLeadingCmd(parser));
+        }
+        Assertions.assertEquals("DANMU_MSG", BilibiliMsgParser.normalizeCmd("DANMU_MSG:4:0:2:2:2:0"));
+    }
+
+    static ByteBuf toByteBuf(String json) {
+        return Unpooled.directBuffer().writeBytes(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DanmuMsg readDanmu() throws Exception {
+        try (JsonParser parser = BilibiliMsgParser.createParser(toByteBuf(DANMU_MSG))) {
+            BilibiliMsgParser.readLeadingCmd(parser);
+            return BilibiliMsgParser.readDanmuMsg(parser);
+        }
+    }
+}
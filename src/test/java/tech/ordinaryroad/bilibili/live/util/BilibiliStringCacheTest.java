@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 OrdinaryRoad
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package tech.ordinaryroad.bilibili.live.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author mjz
+ * @date 2026/10/18
+ */
+class BilibiliStringCacheTest {
+
+    @Test
+    void sameInstance() throws IOException {
+        BilibiliStringCache cache = new BilibiliStringCache(100);
+        Assertions.assertEquals(128, cache.capacity());
+
+        String first = read(cache, 10086, "用户A");
+        Assertions.assertSame(first, read(cache, 10086, "用户A"));
+        // 改名后返回新的值
+        String renamed = read(cache, 10086, "用户B");
+        Assertions.assertEquals("用户B", renamed);
+        Assertions.assertSame(renamed, read(cache, 10086, "用户B"));
+
+        String medal = read(cache, 0, "粉丝牌");
+        Assertions.assertSame(medal, read(cache, 0, "粉丝牌"));
+        Assertions.assertEquals("其他", read(cache, 0, "其他"));
+    }
+
+    @Test
+    void notString() throws IOException {
+        BilibiliStringCache cache = new BilibiliStringCache(16);
+        try (JsonParser parser = BilibiliMsgParser.OBJECT_MAPPER.getFactory().createParser("[null, 123]")) {
+            parser.nextToken();
+            Assertions.assertEquals(JsonToken.VALUE_NULL, parser.nextToken());
+            Assertions.assertNull(cache.get(parser));
+            parser.nextToken();
+            Assertions.assertEquals("123", cache.get(parser));
+        }
+    }
+
+    private static String read(BilibiliStringCache cache, long key, String value) throws IOException {
+        try (JsonParser parser = BilibiliMsgParser.OBJECT_MAPPER.getFactory().createParser(("\"" + value + "\"").getBytes(StandardCharsets.UTF_8))) {
+            parser.nextToken();
+            return cache.get(key, parser);
+        }
+    }
+}